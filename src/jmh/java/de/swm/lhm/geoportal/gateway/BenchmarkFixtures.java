@@ -0,0 +1,104 @@
+package de.swm.lhm.geoportal.gateway;
+
+import lombok.experimental.UtilityClass;
+import org.apache.commons.io.IOUtils;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Loads the GeoServer documents used by the tests, so the benchmarks run on realistic input.
+ */
+@UtilityClass
+public class BenchmarkFixtures {
+
+    // about 100 KB with 62 layers
+    public static final String WMS_CAPABILITIES = "geoservice/get-capabilities/wms-capabilities.xml";
+    // about 210 KB
+    public static final String WFS_CAPABILITIES = "geoservice/get-capabilities/wfs-capabilities.xml";
+    // about 390 KB including the tile matrix sets
+    public static final String WMTS_CAPABILITIES = "geoservice/get-capabilities/wmts-capabilities.xml";
+
+    public static final String GFI_LAYER = "play:gis_osm_pois_free_1_o2o";
+
+    private static final String GFI_GML = "geoservice/get-feature-info/gis_osm_pois_free_1_o2o.xml";
+    private static final String GFI_JSON = "geoservice/get-feature-info/gis_osm_pois_free_1_o2o.json";
+
+    public static String load(String resource) {
+        try (InputStream inputStream = new ClassPathResource(resource).getInputStream()) {
+            return IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static String capabilities(String serviceType) {
+        return switch (serviceType) {
+            case "wms" -> load(WMS_CAPABILITIES);
+            case "wfs" -> load(WFS_CAPABILITIES);
+            case "wmts" -> load(WMTS_CAPABILITIES);
+            default -> throw new IllegalArgumentException("unknown service type " + serviceType);
+        };
+    }
+
+    /**
+     * GetFeatureInfo response in the given format, the single feature of the test document is
+     * repeated, as a click into a dense layer returns many features.
+     */
+    public static String getFeatureInfo(String format, int numFeatures) {
+        return switch (format) {
+            case "gml" -> gmlGetFeatureInfo(numFeatures);
+            case "json" -> jsonGetFeatureInfo(numFeatures);
+            case "text" -> textGetFeatureInfo(numFeatures);
+            default -> throw new IllegalArgumentException("unknown format " + format);
+        };
+    }
+
+    private static String gmlGetFeatureInfo(int numFeatures) {
+        String document = load(GFI_GML);
+        int start = document.indexOf("<gml:featureMember>");
+        String end = "</gml:featureMember>";
+        int stop = document.indexOf(end) + end.length();
+        String feature = document.substring(start, stop);
+
+        StringBuilder features = new StringBuilder();
+        for (int i = 0; i < numFeatures; i++) {
+            features.append(feature.replace("gis_osm_pois_free_1_o2o.77462", "gis_osm_pois_free_1_o2o." + i))
+                    .append('\n');
+        }
+        return document.substring(0, start) + features + document.substring(stop);
+    }
+
+    private static String jsonGetFeatureInfo(int numFeatures) {
+        String document = load(GFI_JSON);
+        int start = document.indexOf('{', document.indexOf("\"features\""));
+        int stop = document.indexOf("\n    }", start) + "\n    }".length();
+        String feature = document.substring(start, stop);
+
+        StringBuilder features = new StringBuilder();
+        for (int i = 0; i < numFeatures; i++) {
+            if (i > 0) {
+                features.append(",\n    ");
+            }
+            features.append(feature.replace("gis_osm_pois_free_1_o2o.77462", "gis_osm_pois_free_1_o2o." + i));
+        }
+        return document.substring(0, start) + features + document.substring(stop);
+    }
+
+    private static String textGetFeatureInfo(int numFeatures) {
+        StringBuilder document = new StringBuilder("Results for FeatureType 'playgound:gis_osm_pois_free_1_o2o':\n");
+        for (int i = 0; i < numFeatures; i++) {
+            document.append("--------------------------------------------\n")
+                    .append("osm_id = ").append(4873640911L + i).append('\n')
+                    .append("code = 2593\n")
+                    .append("fclass = vending_any\n")
+                    .append("name = null\n")
+                    .append("shape = [GEOMETRY (Point) with 1 points]\n")
+                    .append("--------------------------------------------\n");
+        }
+        return document.toString();
+    }
+}
@@ -0,0 +1,83 @@
+package de.swm.lhm.geoportal.gateway.authorization.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authorization.AuthorizationDecision;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Decides the access to a protected resource for users with a growing number of granted roles,
+ * which is done for every layer of a request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthorizationGroupBenchmark {
+
+    @Param({"1", "20", "200"})
+    private int numGrantedRoles;
+
+    private AuthorizationGroup publicGroup;
+    private AuthorizationGroup protectedGroup;
+    private List<String> grantedRolesList;
+    private Set<String> grantedRolesSet;
+    private Set<String> grantedRolesWithoutAccess;
+
+    @Setup
+    public void setUp() {
+        publicGroup = AuthorizationGroup.empty();
+
+        protectedGroup = AuthorizationGroup.builder()
+                .accessLevel(AccessLevel.PROTECTED)
+                .productRoles(new HashSet<>(Set.of("product-a", "product-b", "product-c")))
+                .resourceId("myws:protectedlayer")
+                .build();
+
+        // the role granting access is the last one of the user
+        grantedRolesList = IntStream.range(0, numGrantedRoles)
+                .mapToObj(i -> i == numGrantedRoles - 1 ? "product-c" : "other-product-" + i)
+                .toList();
+        grantedRolesSet = new HashSet<>(grantedRolesList);
+        grantedRolesWithoutAccess = IntStream.range(0, numGrantedRoles)
+                .mapToObj(i -> "other-product-" + i)
+                .collect(Collectors.toSet());
+    }
+
+    @Benchmark
+    public AuthorizationDecision isAuthorizedPublic() {
+        return AuthorizationGroup.isAuthorized(publicGroup, grantedRolesList, false);
+    }
+
+    @Benchmark
+    public AuthorizationDecision isAuthorizedGrantedRolesList() {
+        return AuthorizationGroup.isAuthorized(protectedGroup, grantedRolesList, false);
+    }
+
+    @Benchmark
+    public AuthorizationDecision isAuthorizedGrantedRolesSet() {
+        return AuthorizationGroup.isAuthorized(protectedGroup, grantedRolesSet, false);
+    }
+
+    @Benchmark
+    public AuthorizationDecision isAuthorizedDenied() {
+        return AuthorizationGroup.isAuthorized(protectedGroup, grantedRolesWithoutAccess, false);
+    }
+}
@@ -0,0 +1,94 @@
+package de.swm.lhm.geoportal.gateway.geoservice;
+
+import de.swm.lhm.geoportal.gateway.BenchmarkFixtures;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Replaces the internal geoserver hostnames in the capabilities documents, as a string and while
+ * streaming the document in chunks like they are received from the geoserver.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HostReplacerBenchmark {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    @Param({"wms", "wfs", "wmts"})
+    private String serviceType;
+
+    private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+    private HostReplacer hostReplacer;
+    private String capabilities;
+    private byte[] capabilitiesBytes;
+
+    @Setup
+    public void setUp() {
+        GeoServiceProperties geoServiceProperties = new GeoServiceProperties();
+        // the documents reference the first host several hundred times
+        geoServiceProperties.setHostnameMapping(
+                "http://maps6.geosolutionsgroup.com,https://geoportal.muenchen.de;"
+                        + "http://geoserver:8080,https://geoportal.muenchen.de;"
+                        + "http://geoserver-internal.svc.cluster.local,https://geoportal.muenchen.de"
+        );
+        hostReplacer = new HostReplacer(geoServiceProperties);
+
+        capabilities = BenchmarkFixtures.capabilities(serviceType);
+        capabilitiesBytes = capabilities.getBytes(UTF_8);
+    }
+
+    private Flux<DataBuffer> chunks() {
+        return Flux.defer(() -> {
+            List<DataBuffer> chunks = new ArrayList<>();
+            for (int offset = 0; offset < capabilitiesBytes.length; offset += CHUNK_SIZE) {
+                int length = Math.min(CHUNK_SIZE, capabilitiesBytes.length - offset);
+                DataBuffer chunk = bufferFactory.allocateBuffer(length);
+                chunk.write(capabilitiesBytes, offset, length);
+                chunks.add(chunk);
+            }
+            return Flux.fromIterable(chunks);
+        });
+    }
+
+    @Benchmark
+    public String replaceInternalHostNames() {
+        return hostReplacer.replaceInternalHostNames(capabilities);
+    }
+
+    @Benchmark
+    public long replaceInternalHostNamesStreaming() {
+        return hostReplacer.getInternalHostNameReplacer()
+                .replace(chunks(), bufferFactory)
+                .map(dataBuffer -> {
+                    int readableByteCount = dataBuffer.readableByteCount();
+                    DataBufferUtils.release(dataBuffer);
+                    return (long) readableByteCount;
+                })
+                .reduce(0L, Long::sum)
+                .block();
+    }
+}
@@ -0,0 +1,157 @@
+package de.swm.lhm.geoportal.gateway.geoservice.filter;
+
+import de.swm.lhm.geoportal.gateway.BenchmarkFixtures;
+import de.swm.lhm.geoportal.gateway.geoservice.GeoServiceProperties;
+import de.swm.lhm.geoportal.gateway.geoservice.PropertyFieldService;
+import de.swm.lhm.geoportal.gateway.geoservice.authorization.GeoServiceAuthorizationService;
+import de.swm.lhm.geoportal.gateway.geoservice.gfi.GeoJsonGfiFilter;
+import de.swm.lhm.geoportal.gateway.geoservice.gfi.GfiFilter;
+import de.swm.lhm.geoportal.gateway.geoservice.gfi.GmlGfiFilter;
+import de.swm.lhm.geoportal.gateway.geoservice.gfi.TextGfiFilter;
+import de.swm.lhm.geoportal.gateway.geoservice.inspect.GeoServiceInspectorService;
+import de.swm.lhm.geoportal.gateway.geoservice.inspect.GeoServiceRequest;
+import de.swm.lhm.geoportal.gateway.geoservice.inspect.QualifiedLayerName;
+import de.swm.lhm.geoportal.gateway.util.XmlUtils;
+import de.swm.lhm.geoportal.gateway.util.messagebody.MessageBodyEncodingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.w3c.dom.Document;
+import reactor.core.publisher.Mono;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Removes the blocked requests and the layers not visible to the user from the capabilities documents
+ * of the different services, using the DOM based rewriting as well as the streaming rewriter. Half of
+ * the layers of each document are visible.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class GetCapabilitiesGatewayFilterBenchmark {
+
+    private static final Pattern RE_LAYER_NAME = Pattern.compile("<(?:Name|ows:Identifier)>([^<:]+:[^<:]+)</(?:Name|ows:Identifier)>");
+
+    @Param({"wms", "wfs", "wmts"})
+    private String serviceType;
+
+    private final DocumentBuilderFactory documentBuilderFactory = XmlUtils.getSecuredDocumentBuilderFactory();
+    private GeoServiceInspectorService geoServiceInspectorService;
+    private GetCapabilitiesGatewayFilter filter;
+    private GeoServiceRequest geoServiceRequest;
+    private List<GfiFilter> gfiFilters;
+    private Set<QualifiedLayerName> visibleLayers;
+    private String capabilities;
+    private byte[] capabilitiesBytes;
+    private Document document;
+    private Document workingCopy;
+
+    @Setup
+    public void setUp() {
+        GeoServiceProperties geoServiceProperties = new GeoServiceProperties();
+        geoServiceProperties.setEndpoint("/geoserver");
+        geoServiceProperties.setUrl("lb://geoserver");
+        geoServiceProperties.setMaxXmlParsingDurationMs(60_000);
+        geoServiceProperties.setBlockedRequestTypes(Set.of("describefeaturetype", "getlegendgraphic", "gettile"));
+        geoServiceInspectorService = new GeoServiceInspectorService(geoServiceProperties);
+
+        capabilities = BenchmarkFixtures.capabilities(serviceType);
+        capabilitiesBytes = capabilities.getBytes(UTF_8);
+        document = XmlUtils.parseXml(documentBuilderFactory, capabilities);
+
+        visibleLayers = new HashSet<>();
+        Matcher matcher = RE_LAYER_NAME.matcher(capabilities);
+        for (int i = 0; matcher.find(); i++) {
+            if (i % 2 == 0) {
+                visibleLayers.add(QualifiedLayerName.fromString(matcher.group(1).toLowerCase(Locale.ROOT)));
+            }
+        }
+        GeoServiceAuthorizationService geoServiceAuthorizationService = mock(GeoServiceAuthorizationService.class);
+        when(geoServiceAuthorizationService.getNonHiddenGeoServiceLayersLowercased()).thenReturn(Mono.just(visibleLayers));
+
+        PropertyFieldService propertyFieldService = mock(PropertyFieldService.class);
+        gfiFilters = List.of(
+                new GmlGfiFilter(propertyFieldService, geoServiceProperties),
+                new GeoJsonGfiFilter(propertyFieldService),
+                new TextGfiFilter(propertyFieldService)
+        );
+
+        filter = new GetCapabilitiesGatewayFilter(
+                geoServiceInspectorService,
+                geoServiceAuthorizationService,
+                gfiFilters,
+                new MessageBodyEncodingService(new ArrayList<>(), new ArrayList<>())
+        );
+        ReflectionTestUtils.invokeMethod(filter, "precompileXpathExpressions");
+
+        String requestPath = "wmts".equals(serviceType)
+                ? "/geoserver/gwc/service/wmts?SERVICE=WMTS&REQUEST=GetCapabilities"
+                : "/geoserver/ows?SERVICE=" + serviceType.toUpperCase(Locale.ROOT) + "&REQUEST=GetCapabilities";
+        geoServiceRequest = geoServiceInspectorService.inspectGetRequestWithQueryParams(requestPath).orElseThrow();
+    }
+
+    @Setup(Level.Invocation)
+    public void copyDocument() {
+        // the DOM is modified in place
+        workingCopy = (Document) document.cloneNode(true);
+    }
+
+    @Benchmark
+    public Document rewriteDocument() {
+        return filter.rewriteDocument(workingCopy, geoServiceRequest).block();
+    }
+
+    @Benchmark
+    public String parseRewriteAndSerialize() {
+        // the complete work done per response in the DOM rewrite mode
+        Document parsed = XmlUtils.parseXml(documentBuilderFactory, capabilities);
+        return XmlUtils.serializeXml(filter.rewriteDocument(parsed, geoServiceRequest).block());
+    }
+
+    @Benchmark
+    public int rewriteStreaming() throws TimeoutException {
+        Predicate<String> isLayerAllowed = layerName -> QualifiedLayerName.fromStringWithWorkspaceFallback(
+                        geoServiceRequest.getWorkspaceName(), layerName.toLowerCase(Locale.ROOT))
+                .map(visibleLayers::contains)
+                .orElse(false);
+        GetCapabilitiesXmlEventRewriter rewriter = new GetCapabilitiesXmlEventRewriter(
+                geoServiceInspectorService::isBlockedRequestType,
+                isLayerAllowed,
+                format -> gfiFilters.stream().anyMatch(gfiFilter -> gfiFilter.supportsFormat(format))
+        );
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(capabilitiesBytes.length);
+        XmlUtils.rewriteXmlEvents(new ByteArrayInputStream(capabilitiesBytes), outputStream, rewriter, 60_000);
+        return outputStream.size();
+    }
+}
@@ -0,0 +1,114 @@
+package de.swm.lhm.geoportal.gateway.geoservice.gfi;
+
+import de.swm.lhm.geoportal.gateway.BenchmarkFixtures;
+import de.swm.lhm.geoportal.gateway.geoservice.GeoServiceProperties;
+import de.swm.lhm.geoportal.gateway.geoservice.PropertyFieldService;
+import de.swm.lhm.geoportal.gateway.geoservice.inspect.QualifiedLayerName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Filters the columns of GetFeatureInfo responses with the {@link GfiFilter} of each supported format,
+ * using both the string based and the streaming variant.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GfiFilterBenchmark {
+
+    private static final Set<String> ALLOWED_COLUMNS = Set.of("name", "osm_id", "shape");
+
+    @Param({"gml", "json", "text"})
+    private String format;
+
+    @Param({"1", "100", "1000"})
+    private int numFeatures;
+
+    private AbstractGfiFilter filter;
+    private LayerNameResolver layerNameResolver;
+    private String body;
+    private byte[] bodyBytes;
+
+    @Setup
+    public void setUp() {
+        PropertyFieldService propertyFieldService = mock(PropertyFieldService.class);
+        GeoServiceProperties geoServiceProperties = new GeoServiceProperties();
+        geoServiceProperties.setMaxXmlParsingDurationMs(60_000);
+
+        filter = switch (format) {
+            case "gml" -> new GmlGfiFilter(propertyFieldService, geoServiceProperties);
+            case "json" -> new GeoJsonGfiFilter(propertyFieldService);
+            default -> new TextGfiFilter(propertyFieldService);
+        };
+
+        layerNameResolver = new LayerNameResolver();
+        layerNameResolver.add(QualifiedLayerName.fromString(BenchmarkFixtures.GFI_LAYER));
+
+        body = BenchmarkFixtures.getFeatureInfo(format, numFeatures);
+        bodyBytes = body.getBytes(UTF_8);
+
+        // the GML document is serialized with a fixed timeout of 200 ms, which the first calls
+        // exceed while the transformer is loaded and not yet compiled
+        for (int attempt = 0; attempt < 20; attempt++) {
+            try {
+                filterBody();
+                break;
+            } catch (RuntimeException e) {
+                // retried until the serialization completes in time
+            }
+        }
+    }
+
+    private static boolean isAllowed(ReferencedColumnValue referencedColumnValue) {
+        return ALLOWED_COLUMNS.contains(referencedColumnValue.columnName());
+    }
+
+    @Benchmark
+    public String filterBody() {
+        return filter.filterBody(
+                layerNameResolver,
+                body,
+                referencedColumnValue -> isAllowed(referencedColumnValue)
+                        ? Mono.just(referencedColumnValue.columnValue())
+                        : Mono.empty()
+        ).block();
+    }
+
+    @Benchmark
+    public int filterBodyStreaming() throws IOException, TimeoutException {
+        ByteArrayOutputStream filteredBody = new ByteArrayOutputStream(bodyBytes.length);
+        filter.filterBody(
+                layerNameResolver,
+                new ByteArrayInputStream(bodyBytes),
+                filteredBody,
+                referencedColumnValue -> isAllowed(referencedColumnValue)
+                        ? Optional.ofNullable(referencedColumnValue.columnValue())
+                        : Optional.empty()
+        );
+        return filteredBody.size();
+    }
+}
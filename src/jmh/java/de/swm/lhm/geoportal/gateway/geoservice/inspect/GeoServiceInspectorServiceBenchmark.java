@@ -0,0 +1,82 @@
+package de.swm.lhm.geoportal.gateway.geoservice.inspect;
+
+import de.swm.lhm.geoportal.gateway.geoservice.GeoServiceProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Inspects the query parameters of typical GET requests, which happens for every request
+ * to the geoserver endpoint.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeoServiceInspectorServiceBenchmark {
+
+    @Param({"getCapabilities", "getMap", "getMapManyLayers", "getFeatureInfo", "workspaceGetMap", "wmtsGetTile"})
+    private String request;
+
+    private GeoServiceInspectorService geoServiceInspectorService;
+    private String path;
+    private MultiValueMap<String, String> queryParams;
+
+    @Setup
+    public void setUp() {
+        GeoServiceProperties geoServiceProperties = new GeoServiceProperties();
+        geoServiceProperties.setEndpoint("/geoserver");
+        geoServiceProperties.setUrl("lb://geoserver");
+        geoServiceInspectorService = new GeoServiceInspectorService(geoServiceProperties);
+
+        String bbox = "BBOX=686000.0,5330000.0,692000.0,5336000.0&WIDTH=1024&HEIGHT=768&CRS=EPSG:25832";
+        String requestPathWithQueryString = switch (request) {
+            case "getCapabilities" -> "/geoserver/ows?SERVICE=WMS&VERSION=1.3.0&REQUEST=GetCapabilities";
+            case "getMap" -> "/geoserver/wms?SERVICE=WMS&VERSION=1.3.0&REQUEST=GetMap&FORMAT=image/png&TRANSPARENT=true"
+                    + "&LAYERS=ne:ne-political&STYLES=&" + bbox;
+            case "getMapManyLayers" -> "/geoserver/wms?SERVICE=WMS&VERSION=1.3.0&REQUEST=GetMap&FORMAT=image/png&TRANSPARENT=true"
+                    + "&LAYERS=" + layers(30) + "&STYLES=&" + bbox;
+            case "getFeatureInfo" -> "/geoserver/wms?SERVICE=WMS&VERSION=1.3.0&REQUEST=GetFeatureInfo&INFO_FORMAT=application/json"
+                    + "&LAYERS=" + layers(5) + "&QUERY_LAYERS=" + layers(5) + "&I=512&J=384&" + bbox;
+            case "workspaceGetMap" -> "/geoserver/myws/wms?SERVICE=WMS&VERSION=1.3.0&REQUEST=GetMap&FORMAT=image/png"
+                    + "&LAYERS=mylayer,myotherlayer&STYLES=&" + bbox;
+            case "wmtsGetTile" -> "/geoserver/gwc/service/wmts?SERVICE=WMTS&VERSION=1.0.0&REQUEST=GetTile&LAYER=osm:osm"
+                    + "&STYLE=&TILEMATRIXSET=EPSG:25832&TILEMATRIX=EPSG:25832:12&TILEROW=1432&TILECOL=2210&FORMAT=image/png";
+            default -> throw new IllegalArgumentException("unknown request " + request);
+        };
+
+        UriComponents uriComponents = UriComponentsBuilder.fromUriString(requestPathWithQueryString).build();
+        path = uriComponents.getPath();
+        queryParams = uriComponents.getQueryParams();
+    }
+
+    private static String layers(int numLayers) {
+        return IntStream.range(0, numLayers)
+                .mapToObj(i -> "myws:layer" + i)
+                .collect(Collectors.joining(","));
+    }
+
+    @Benchmark
+    public Optional<GeoServiceRequest> inspectQueryParametersOfRequest() {
+        return geoServiceInspectorService.inspectQueryParametersOfRequest(HttpMethod.GET, path, queryParams);
+    }
+}
@@ -0,0 +1,111 @@
+package de.swm.lhm.geoportal.gateway.geoservice.inspect.xml;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses the bodies of POST requests to the geoserver. WFS transactions are benchmarked with a
+ * growing number of inserted features, as all of them are inspected for the affected layers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeoServiceXmlRequestDocumentParserBenchmark {
+
+    private static final String WFS_GET_FEATURE = """
+            <wfs:GetFeature service="WFS" version="1.0.0"
+              outputFormat="GML2"
+              xmlns:topp="http://www.openplans.org/topp"
+              xmlns:wfs="http://www.opengis.net/wfs"
+              xmlns="http://www.opengis.net/ogc"
+              xmlns:gml="http://www.opengis.net/gml">
+              <wfs:Query typeName="topp:states">
+                <Filter>
+                  <Intersects>
+                    <PropertyName>the_geom</PropertyName>
+                      <gml:Point srsName="http://www.opengis.net/gml/srs/epsg.xml#4326">
+                        <gml:coordinates>-74.817265,40.5296504</gml:coordinates>
+                      </gml:Point>
+                    </Intersects>
+                  </Filter>
+              </wfs:Query>
+            </wfs:GetFeature>
+            """;
+
+    private static final String WFS_TRANSACTION_START = """
+            <wfs:Transaction
+               version="2.0.0"
+               service="WFS"
+               xmlns:topp="http://www.openplans.org/topp"
+               xmlns:fes="http://www.opengis.net/fes/2.0"
+               xmlns:gml="http://www.opengis.net/gml/3.2"
+               xmlns:wfs="http://www.opengis.net/wfs/2.0">
+               <wfs:Insert>
+            """;
+
+    private static final String WFS_TRANSACTION_FEATURE = """
+                <topp:tasmania_roads gml:id="tasmania_roads.%d">
+                  <topp:the_geom>
+                    <gml:MultiCurve srsName="http://www.opengis.net/def/crs/epsg/0/4326">
+                      <gml:curveMember>
+                        <gml:LineString>
+                          <gml:posList>-146.46 -41.24 146.57 -41.25 146.64 -41.25 146.76 -41.33</gml:posList>
+                        </gml:LineString>
+                      </gml:curveMember>
+                    </gml:MultiCurve>
+                  </topp:the_geom>
+                  <topp:TYPE>RnbwRd</topp:TYPE>
+                </topp:tasmania_roads>
+            """;
+
+    private static final String WFS_TRANSACTION_END = """
+               </wfs:Insert>
+            </wfs:Transaction>
+            """;
+
+    @Param({"wmsGetCapabilities", "wmsGetMap", "wfsGetFeature", "wfsTransaction1", "wfsTransaction100"})
+    private String request;
+
+    private final GeoServiceXmlRequestDocumentParser parser = new GeoServiceXmlRequestDocumentParser();
+    private String body;
+
+    @Setup
+    public void setUp() {
+        body = switch (request) {
+            case "wmsGetCapabilities" -> ParseWmsXmlTest.TestBodies.GET_CAPABILITIES.body;
+            case "wmsGetMap" -> ParseWmsXmlTest.TestBodies.GET_MAP.body;
+            case "wfsGetFeature" -> WFS_GET_FEATURE;
+            case "wfsTransaction1" -> wfsTransaction(1);
+            case "wfsTransaction100" -> wfsTransaction(100);
+            default -> throw new IllegalArgumentException("unknown request " + request);
+        };
+    }
+
+    private static String wfsTransaction(int numFeatures) {
+        StringBuilder transaction = new StringBuilder(WFS_TRANSACTION_START);
+        for (int i = 0; i < numFeatures; i++) {
+            transaction.append(String.format(WFS_TRANSACTION_FEATURE, i));
+        }
+        return transaction.append(WFS_TRANSACTION_END).toString();
+    }
+
+    @Benchmark
+    public Optional<GeoServiceXmlRequestParameters> parseXmlString() {
+        return parser.parseXmlString(body);
+    }
+}
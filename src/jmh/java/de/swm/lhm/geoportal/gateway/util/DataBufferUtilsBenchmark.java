@@ -0,0 +1,133 @@
+package de.swm.lhm.geoportal.gateway.util;
+
+import com.google.common.primitives.Bytes;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the aggregation of request and response bodies in {@link DataBufferUtils} with the
+ * previous implementation, which joined the chunks using boxed byte lists and always consumed
+ * the complete body.
+ * <p>
+ * Run with {@code mvn -Pbenchmarks test-compile exec:exec -Djmh.includes=DataBufferUtilsBenchmark},
+ * adding {@code -Djmh.args="-prof gc"} shows the allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataBufferUtilsBenchmark {
+
+    // netty reads request bodies in chunks of up to 8 KiB
+    private static final int CHUNK_SIZE = 8192;
+
+    @Param({"16384", "1048576", "5242880"})
+    private int bodySize;
+
+    private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+    private final List<DataBuffer> chunks = new ArrayList<>();
+    private int maxByteCount;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        byte[] body = new byte[bodySize];
+        ThreadLocalRandom.current().nextBytes(body);
+        for (int offset = 0; offset < bodySize; offset += CHUNK_SIZE) {
+            int length = Math.min(CHUNK_SIZE, bodySize - offset);
+            DataBuffer chunk = bufferFactory.allocateBuffer(length);
+            chunk.write(body, offset, length);
+            chunks.add(chunk);
+        }
+        // a limit which is exceeded by the body, like an oversized request
+        maxByteCount = Math.max(bodySize / 4, 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        chunks.forEach(org.springframework.core.io.buffer.DataBufferUtils::release);
+        chunks.clear();
+    }
+
+    private Flux<DataBuffer> body() {
+        return Flux.fromIterable(chunks);
+    }
+
+    @Benchmark
+    public byte[] copyAsByteArray() {
+        return DataBufferUtils.copyAsByteArray(body()).block();
+    }
+
+    @Benchmark
+    public byte[] copyAsByteArrayBoxed() {
+        return body().map(DataBufferUtils::readDataBufferAsByteArray)
+                .collectList()
+                .map(DataBufferUtilsBenchmark::joinByteArrayListBoxed)
+                .block();
+    }
+
+    @Benchmark
+    public DataBufferUtils.DataBufferContents<byte[]> copyAsByteArrayWithLimit() {
+        return DataBufferUtils.copyAsByteArray(body(), maxByteCount).block();
+    }
+
+    @Benchmark
+    public byte[] copyAsByteArrayWithLimitBoxed() {
+        // the previous implementation read up to the limit, but consumed the complete body
+        List<byte[]> byteArrays = body()
+                .reduce(new ArrayList<byte[]>(), (accum, dataBuffer) -> {
+                    int numBytesRead = accum.stream().mapToInt(byteArray -> byteArray.length).sum();
+                    int numBytesToRead = Math.min(dataBuffer.readableByteCount(), maxByteCount - numBytesRead);
+                    if (numBytesToRead > 0) {
+                        byte[] byteArray = new byte[numBytesToRead];
+                        dataBuffer.toByteBuffer(dataBuffer.readPosition(), java.nio.ByteBuffer.wrap(byteArray), 0, numBytesToRead);
+                        accum.add(byteArray);
+                    }
+                    return accum;
+                })
+                .block();
+        return joinByteArrayListBoxed(byteArrays);
+    }
+
+    @Benchmark
+    public int join() {
+        // the composite buffer only references the chunks, retain them as releasing the
+        // composite releases its components
+        DataBuffer joined = DataBufferUtils.join(
+                        body().map(chunk -> org.springframework.core.io.buffer.DataBufferUtils.retain(chunk)),
+                        0)
+                .block();
+        int readableByteCount = joined.readableByteCount();
+        org.springframework.core.io.buffer.DataBufferUtils.release(joined);
+        return readableByteCount;
+    }
+
+    private static byte[] joinByteArrayListBoxed(List<byte[]> byteArrayList) {
+        List<Byte> result = new ArrayList<>();
+        for (byte[] byteArray : byteArrayList) {
+            result.addAll(Bytes.asList(byteArray));
+        }
+        return Bytes.toArray(result);
+    }
+}
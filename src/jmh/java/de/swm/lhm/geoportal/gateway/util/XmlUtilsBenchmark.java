@@ -0,0 +1,53 @@
+package de.swm.lhm.geoportal.gateway.util;
+
+import de.swm.lhm.geoportal.gateway.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses and serializes the capabilities documents, which is done for every rewritten XML response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XmlUtilsBenchmark {
+
+    @Param({"wms", "wfs", "wmts"})
+    private String serviceType;
+
+    private final DocumentBuilderFactory documentBuilderFactory = XmlUtils.getSecuredDocumentBuilderFactory();
+    private String capabilities;
+    private Document document;
+
+    @Setup
+    public void setUp() {
+        capabilities = BenchmarkFixtures.capabilities(serviceType);
+        document = XmlUtils.parseXml(documentBuilderFactory, capabilities);
+    }
+
+    @Benchmark
+    public Document parseXml() {
+        return XmlUtils.parseXml(documentBuilderFactory, capabilities);
+    }
+
+    @Benchmark
+    public String serializeXml() {
+        return XmlUtils.serializeXml(document);
+    }
+}
@@ -0,0 +1,103 @@
+package de.swm.lhm.geoportal.gateway.authorization;
+
+import de.swm.lhm.geoportal.gateway.authorization.model.AuthorizationGroup;
+import de.swm.lhm.geoportal.gateway.authorization.model.AuthorizationInfo;
+import de.swm.lhm.geoportal.gateway.authorization.model.FileResourceAuthorizationInfo;
+import de.swm.lhm.geoportal.gateway.geoservice.inspect.QualifiedLayerName;
+import de.swm.lhm.geoportal.gateway.resource.model.FileResourcePath;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable snapshot of the authorization views of one stage, answering the lookups of
+ * {@link AuthorizationService} without querying the database.
+ * <p>
+ * The lookups follow the queries of {@link de.swm.lhm.geoportal.gateway.authorization.repository.AuthorizationInfoRepository}:
+ * portals are matched exactly, geoservice layers case-insensitive and file resources by their unit
+ * and their path within the unit. Unknown resources get an empty {@link AuthorizationGroup}, just as
+ * when the queries return no rows.
+ */
+public final class AuthorizationIndex {
+
+    private final Map<String, AuthorizationGroup> portals;
+    private final Map<String, AuthorizationGroup> geoServiceLayers;
+    private final Map<String, Map<String, AuthorizationGroup>> fileResources;
+
+    private AuthorizationIndex(Map<String, AuthorizationGroup> portals,
+                               Map<String, AuthorizationGroup> geoServiceLayers,
+                               Map<String, Map<String, AuthorizationGroup>> fileResources) {
+        this.portals = portals;
+        this.geoServiceLayers = geoServiceLayers;
+        this.fileResources = fileResources;
+    }
+
+    public static AuthorizationIndex of(Collection<AuthorizationInfo> portalInfos,
+                                        Collection<AuthorizationInfo> geoServiceInfos,
+                                        Collection<FileResourceAuthorizationInfo> fileResourceInfos) {
+        return new AuthorizationIndex(
+                groupBy(portalInfos, AuthorizationInfo::getResourceId),
+                groupBy(geoServiceInfos, info -> geoServiceLayerKey(info.getResourceId())),
+                fileResourceInfos.stream()
+                        .filter(info -> info.getUnit() != null && info.getName() != null)
+                        .collect(Collectors.collectingAndThen(
+                                Collectors.groupingBy(FileResourceAuthorizationInfo::getUnit),
+                                byUnit -> byUnit.entrySet().stream().collect(Collectors.toUnmodifiableMap(
+                                        Map.Entry::getKey,
+                                        unitEntry -> groupBy(unitEntry.getValue(), FileResourceAuthorizationInfo::getName)
+                                ))
+                        ))
+        );
+    }
+
+    private static <T extends AuthorizationInfo> Map<String, AuthorizationGroup> groupBy(Collection<T> infos, Function<T, String> keyFunction) {
+        return infos.stream()
+                .filter(info -> keyFunction.apply(info) != null)
+                .collect(Collectors.collectingAndThen(
+                        Collectors.groupingBy(keyFunction),
+                        grouped -> grouped.entrySet().stream().collect(Collectors.toUnmodifiableMap(
+                                Map.Entry::getKey,
+                                entry -> toAuthorizationGroup(entry.getValue())
+                        ))
+                ));
+    }
+
+    private static AuthorizationGroup toAuthorizationGroup(List<? extends AuthorizationInfo> infos) {
+        // layer names only differing in case are merged into one group, as the case-insensitive
+        // lookup can not tell them apart. The group then carries the first of the resource ids.
+        String resourceId = infos.get(0).getResourceId();
+        infos.forEach(info -> info.setResourceId(resourceId));
+        return AuthorizationGroup.fromAccessInfos(List.copyOf(infos));
+    }
+
+    private static String geoServiceLayerKey(String layerName) {
+        return layerName == null ? null : layerName.toLowerCase(Locale.ROOT);
+    }
+
+    public AuthorizationGroup getPortal(String portalName) {
+        return orEmpty(portals.get(portalName));
+    }
+
+    public AuthorizationGroup getGeoServiceLayer(QualifiedLayerName layerName) {
+        return orEmpty(geoServiceLayers.get(geoServiceLayerKey(layerName.toString())));
+    }
+
+    public AuthorizationGroup getFileResource(FileResourcePath path) {
+        Map<String, AuthorizationGroup> unitResources = fileResources.get(path.getUnit());
+        return orEmpty(unitResources == null ? null : unitResources.get(path.getFilePathWithinDocumentsFolder()));
+    }
+
+    public int size() {
+        return portals.size()
+                + geoServiceLayers.size()
+                + fileResources.values().stream().mapToInt(Map::size).sum();
+    }
+
+    private static AuthorizationGroup orEmpty(AuthorizationGroup authorizationGroup) {
+        return authorizationGroup == null ? AuthorizationGroup.empty() : authorizationGroup;
+    }
+}
@@ -0,0 +1,112 @@
+package de.swm.lhm.geoportal.gateway.authorization;
+
+import de.swm.lhm.geoportal.gateway.authorization.repository.AuthorizationInfoRepository;
+import de.swm.lhm.geoportal.gateway.shared.GatewayService;
+import de.swm.lhm.geoportal.gateway.shared.change_notification.ConfigurationChangedEvent;
+import de.swm.lhm.geoportal.gateway.shared.model.Stage;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps the {@link AuthorizationIndex} of the current stage when
+ * {@code geoportal.gateway.authorization.preload.enabled} is set.
+ * <p>
+ * The index is loaded when the application is ready, in the configured refresh interval, whenever
+ * the routes are refreshed and on {@link ConfigurationChangedEvent}s. A new index replaces the previous one at once,
+ * a failed load keeps the previous one. Until the first index is loaded, {@link AuthorizationService}
+ * queries the database.
+ */
+@Service
+@Slf4j
+public class AuthorizationIndexService {
+
+    private final AuthorizationInfoRepository authorizationInfoRepository;
+    private final GatewayService gatewayService;
+    private final AuthorizationProperties.PreloadProperties preloadProperties;
+    private final AtomicReference<AuthorizationIndex> index = new AtomicReference<>();
+    private Disposable scheduledReload;
+
+    public AuthorizationIndexService(AuthorizationInfoRepository authorizationInfoRepository,
+                                     GatewayService gatewayService,
+                                     AuthorizationProperties authorizationProperties) {
+        this.authorizationInfoRepository = authorizationInfoRepository;
+        this.gatewayService = gatewayService;
+        this.preloadProperties = authorizationProperties.getPreload();
+    }
+
+    /**
+     * Returns the current index, empty if preloading is disabled or no index was loaded yet.
+     */
+    public Optional<AuthorizationIndex> getIndex() {
+        if (!isEnabled()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(index.get());
+    }
+
+    public boolean isEnabled() {
+        return preloadProperties.isEnabled();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void scheduleReload() {
+        if (!isEnabled() || scheduledReload != null) {
+            return;
+        }
+        scheduledReload = Flux.interval(Duration.ZERO, preloadProperties.getRefreshInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> reload().onErrorResume(e -> Mono.empty()))
+                .subscribe();
+    }
+
+    @EventListener(RefreshRoutesEvent.class)
+    public void onRefreshRoutes() {
+        if (isEnabled()) {
+            reload().onErrorResume(e -> Mono.empty()).subscribe();
+        }
+    }
+
+    @EventListener(ConfigurationChangedEvent.class)
+    public void onConfigurationChanged(ConfigurationChangedEvent event) {
+        if (isEnabled() && event.affectsStage(gatewayService.getStage())) {
+            reload().onErrorResume(e -> Mono.empty()).subscribe();
+        }
+    }
+
+    /**
+     * Loads the authorization views of the current stage and replaces the current index.
+     */
+    public Mono<AuthorizationIndex> reload() {
+        Stage stage = gatewayService.getStage();
+        return Mono.zip(
+                        authorizationInfoRepository.findAllPortalAuthorizationInfosByStage(stage).collectList(),
+                        authorizationInfoRepository.findAllGeoServiceAuthorizationInfosByStage(stage).collectList(),
+                        authorizationInfoRepository.findAllFileResourceAuthorizationInfosByStage(stage).collectList()
+                )
+                .map(infos -> AuthorizationIndex.of(infos.getT1(), infos.getT2(), infos.getT3()))
+                .doOnNext(loadedIndex -> {
+                    index.set(loadedIndex);
+                    log.debug("Loaded authorization index of stage {} with {} entries", stage, loadedIndex.size());
+                })
+                .doOnError(e -> log.error("Failed to load the authorization index of stage {}", stage, e));
+    }
+
+    @PreDestroy
+    public synchronized void stopReload() {
+        if (scheduledReload != null) {
+            scheduledReload.dispose();
+            scheduledReload = null;
+        }
+    }
+}
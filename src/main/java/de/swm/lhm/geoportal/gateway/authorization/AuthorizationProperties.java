@@ -0,0 +1,27 @@
+package de.swm.lhm.geoportal.gateway.authorization;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "geoportal.gateway.authorization")
+@Getter
+@Setter
+public class AuthorizationProperties {
+
+    private PreloadProperties preload = new PreloadProperties();
+
+    @Getter
+    @Setter
+    public static class PreloadProperties {
+        // load the authorization views of the current stage completely into an in-memory index
+        // instead of querying them per portal, layer and file resource
+        private boolean enabled = false;
+        // interval in which the index is loaded again
+        private Duration refreshInterval = Duration.ofMinutes(1);
+    }
+}
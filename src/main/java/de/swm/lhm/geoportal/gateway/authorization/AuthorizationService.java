@@ -1,5 +1,6 @@
 package de.swm.lhm.geoportal.gateway.authorization;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import de.swm.lhm.geoportal.gateway.authorization.model.AuthorizationGroup;
 import de.swm.lhm.geoportal.gateway.authorization.model.AuthorizationInfo;
 import de.swm.lhm.geoportal.gateway.authorization.model.StorkQaaLevel;
@@ -7,9 +8,13 @@ import de.swm.lhm.geoportal.gateway.authorization.repository.AuthorizationInfoRe
 import de.swm.lhm.geoportal.gateway.geoservice.inspect.QualifiedLayerName;
 import de.swm.lhm.geoportal.gateway.resource.model.FileResourcePath;
 import de.swm.lhm.geoportal.gateway.shared.GatewayService;
-import de.swm.lhm.geoportal.gateway.util.ReactiveCache;
+import de.swm.lhm.geoportal.gateway.shared.change_notification.ConfigurationChangedEvent;
+import de.swm.lhm.geoportal.gateway.util.cache.ReactiveCache;
+import de.swm.lhm.geoportal.gateway.util.cache.ReactiveCacheFactory;
+import de.swm.lhm.geoportal.gateway.util.cache.ReactiveCacheProperties;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.core.AuthenticatedPrincipal;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -49,20 +54,46 @@ import static org.springframework.security.web.context.HttpSessionSecurityContex
 @Slf4j
 public class AuthorizationService implements IAuthService {
 
+    public static final String ACCESS_INFO_CACHE_NAME = "authorization.accessInfos";
+
+    // table of the portals, changes of a portal only affect the authorization of this portal
+    private static final String PORTAL_TABLE = "t_portal";
+
     private final AuthorizationInfoRepository authorizationInfoRepository;
     private final GatewayService gatewayService;
     private final ReactiveCache<String, AuthorizationGroup> accessInfoListCache;
+    private final AuthorizationIndexService authorizationIndexService;
 
     /**
      * Constructs an AuthorizationService.
      *
      * @param authorizationInfoRepository The repository for authorization information.
      * @param gatewayService The gateway service used for retrieving stage information and other functionality.
+     * @param reactiveCacheFactory The factory creating the cache of the authorization groups.
+     * @param authorizationIndexService The service providing the preloaded authorization index, if enabled.
      */
-    public AuthorizationService(AuthorizationInfoRepository authorizationInfoRepository, GatewayService gatewayService) {
+    public AuthorizationService(AuthorizationInfoRepository authorizationInfoRepository, GatewayService gatewayService,
+                                ReactiveCacheFactory reactiveCacheFactory, AuthorizationIndexService authorizationIndexService) {
         this.authorizationInfoRepository = authorizationInfoRepository;
         this.gatewayService = gatewayService;
-        this.accessInfoListCache = new ReactiveCache<>(10000, Duration.ofSeconds(10));
+        this.authorizationIndexService = authorizationIndexService;
+        this.accessInfoListCache = reactiveCacheFactory.create(
+                ACCESS_INFO_CACHE_NAME,
+                accessInfoCacheDefaults(),
+                new TypeReference<>() {
+                }
+        );
+    }
+
+    /**
+     * Warm entries are reloaded in the background, so requests only wait for the database
+     * for entries which have not been used for longer than expireAfterWrite plus maxStaleness.
+     */
+    private static ReactiveCacheProperties accessInfoCacheDefaults() {
+        ReactiveCacheProperties properties = new ReactiveCacheProperties(10000, Duration.ofSeconds(10));
+        properties.setRefreshAfterWrite(Duration.ofSeconds(5));
+        properties.setMaxStaleness(Duration.ofSeconds(30));
+        return properties;
     }
 
     /**
@@ -97,6 +128,10 @@ public class AuthorizationService implements IAuthService {
 
     @Override
     public Mono<AuthorizationGroup> getAccessInfoGroupForPortal(String portalName) {
+        Optional<AuthorizationIndex> index = authorizationIndexService.getIndex();
+        if (index.isPresent()) {
+            return Mono.just(index.get().getPortal(portalName));
+        }
         return getAccessInfoGroupUsingSupplier(
                 portalCacheKey(portalName),
                 () -> authorizationInfoRepository.findAuthorizationInfoByResourceIdAndStage(portalName, gatewayService.getStage())
@@ -105,6 +140,10 @@ public class AuthorizationService implements IAuthService {
 
     @Override
     public Mono<List<AuthorizationGroup>> getAccessInfoGroupForGeoServiceLayers(Set<QualifiedLayerName> layerNames) {
+        Optional<AuthorizationIndex> index = authorizationIndexService.getIndex();
+        if (index.isPresent()) {
+            return Mono.just(layerNames.stream().map(index.get()::getGeoServiceLayer).toList());
+        }
         return Flux.fromIterable(layerNames)
                 .flatMap(this::getAccessInfoGroupForGeoServiceLayer)
                 .collectList();
@@ -112,6 +151,10 @@ public class AuthorizationService implements IAuthService {
 
     @Override
     public Mono<AuthorizationGroup> getAccessInfoGroupForGeoServiceLayer(QualifiedLayerName layerName) {
+        Optional<AuthorizationIndex> index = authorizationIndexService.getIndex();
+        if (index.isPresent()) {
+            return Mono.just(index.get().getGeoServiceLayer(layerName));
+        }
         return getAccessInfoGroupUsingSupplier(
                 geoServiceCacheKey(layerName),
                 () -> authorizationInfoRepository.findAuthorizationInfoByGeoServiceLayerAndStage(layerName.toString(), gatewayService.getStage())
@@ -120,6 +163,10 @@ public class AuthorizationService implements IAuthService {
 
     @Override
     public Mono<AuthorizationGroup> getAccessInfoGroupForFileResource(FileResourcePath path) {
+        Optional<AuthorizationIndex> index = authorizationIndexService.getIndex();
+        if (index.isPresent()) {
+            return Mono.just(index.get().getFileResource(path));
+        }
         return getAccessInfoGroupUsingSupplier(
                 fileResourceCacheKey(path),
                 () -> authorizationInfoRepository.findAuthorizationInfoForFileResource(path.getUnit(), path.getFilePathWithinDocumentsFolder(), gatewayService.getStage())
@@ -141,6 +188,23 @@ public class AuthorizationService implements IAuthService {
         );
     }
 
+    /**
+     * Invalidates the cached authorization groups affected by a change of the configuration.
+     * Changes of a single portal only invalidate the entry of this portal, other changes may affect any entry.
+     *
+     * @param event The event describing the changed configuration.
+     */
+    @EventListener(ConfigurationChangedEvent.class)
+    public void onConfigurationChanged(ConfigurationChangedEvent event) {
+        if (!event.affectsStage(gatewayService.getStage())) {
+            return;
+        }
+        event.getKeyOf(PORTAL_TABLE).ifPresentOrElse(
+                portalName -> accessInfoListCache.invalidate(portalCacheKey(portalName)),
+                accessInfoListCache::invalidateAll
+        );
+    }
+
     @Override
     public Mono<Authentication> getAuthentication() {
         return ReactiveSecurityContextHolder.getContext()
@@ -9,6 +9,8 @@ import de.swm.lhm.geoportal.gateway.authentication.login.LoginPageFilter;
 import de.swm.lhm.geoportal.gateway.authentication.logout.LogoutPageFilter;
 import de.swm.lhm.geoportal.gateway.shared.GeoPortalGatewayProperties;
 import de.swm.lhm.geoportal.gateway.util.messagebody.MessageBodyEncodingService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -23,6 +25,7 @@ import org.springframework.security.web.server.SecurityWebFilterChain;
 import org.springframework.security.web.server.authentication.ServerAuthenticationSuccessHandler;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 @Slf4j
@@ -34,6 +37,17 @@ public class SecurityConfig {
     @Value("${geoportal.gateway.login.logincheck-endpoint}")
     private String loginCheckEndpoint;
 
+    // shared by the body caching filters of all filter chains
+    private final AtomicLong cachedRequestBodyBytes = new AtomicLong();
+
+    @Bean
+    MeterBinder cachedRequestBodyMetrics() {
+        return meterRegistry -> Gauge.builder("gateway.request.body.cached.bytes", cachedRequestBodyBytes, AtomicLong::get)
+                .description("Number of bytes of request bodies currently cached by the gateway")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
     @Bean
     @Order(Ordered.HIGHEST_PRECEDENCE)
     SecurityWebFilterChain configureBasicAuthHttpSecurity(
@@ -123,6 +137,8 @@ public class SecurityConfig {
         // Creating a spring bean for it would lead to spring automatically adding it without control over
         // the order.
         BodyCachingFilter bodyCachingFilter = new BodyCachingFilter(messageBodyEncodingService);
+        bodyCachingFilter.setZeroCopy(geoPortalGatewayProperties.isZeroCopyRequestBody());
+        bodyCachingFilter.setCachedBytesInFlight(cachedRequestBodyBytes);
         if (geoPortalGatewayProperties.getMaxRequestBodySize() != null) {
             bodyCachingFilter.setMaxByteCountForBody(
                     (int) geoPortalGatewayProperties.getMaxRequestBodySize().toBytes()
@@ -0,0 +1,68 @@
+package de.swm.lhm.geoportal.gateway.authorization.model;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Normalized, immutable representation of the granted {@link AuthorizationGroup} of a user.
+ * <p>
+ * Two users with the same product roles, the same auth level and the same principal state
+ * result in equal keys, which makes this record suitable as (part of) a cache key for data
+ * which only depends on the granted permissions.
+ *
+ * @param productRoles  the granted product roles, without blank entries
+ * @param authLevelHigh whether the user is authenticated with a high auth level
+ * @param hasPrincipal  whether the user is logged in
+ */
+public record AuthorizationGroupKey(Set<String> productRoles, boolean authLevelHigh, boolean hasPrincipal) {
+
+    public AuthorizationGroupKey {
+        productRoles = productRoles == null ? Set.of() : Set.copyOf(productRoles);
+    }
+
+    public static AuthorizationGroupKey of(AuthorizationGroup authorizationGroup) {
+        return new AuthorizationGroupKey(
+                normalizeProductRoles(authorizationGroup.getProductRoles()),
+                authorizationGroup.isAuthLevelHigh(),
+                Boolean.TRUE.equals(authorizationGroup.getHasPrincipal())
+        );
+    }
+
+    /**
+     * Converts this key back into an {@link AuthorizationGroup} which can be used to query the database.
+     *
+     * @return a new {@link AuthorizationGroup} with the roles and auth level of this key
+     */
+    public AuthorizationGroup toAuthorizationGroup() {
+        return AuthorizationGroup.builder()
+                .productRoles(productRoles)
+                .authLevelHigh(authLevelHigh)
+                .hasPrincipal(hasPrincipal)
+                .build();
+    }
+
+    /**
+     * The iteration order of the roles differs between JVMs, the roles are sorted so the string
+     * representation can be used as key of caches shared between the instances of the gateway.
+     */
+    @Override
+    public String toString() {
+        return "AuthorizationGroupKey[productRoles=%s, authLevelHigh=%s, hasPrincipal=%s]".formatted(
+                productRoles.stream().sorted().toList(),
+                authLevelHigh,
+                hasPrincipal
+        );
+    }
+
+    private static Set<String> normalizeProductRoles(Collection<String> productRoles) {
+        if (productRoles == null) {
+            return Set.of();
+        }
+        return productRoles.stream()
+                .filter(StringUtils::isNotBlank)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+}
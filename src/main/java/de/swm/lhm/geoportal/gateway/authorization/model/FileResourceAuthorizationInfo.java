@@ -0,0 +1,24 @@
+package de.swm.lhm.geoportal.gateway.authorization.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.data.relational.core.mapping.Column;
+
+/**
+ * {@link AuthorizationInfo} of a file resource together with the unit and path identifying the resource.
+ */
+@NoArgsConstructor
+@ToString(callSuper = true)
+@Getter
+@Setter
+public class FileResourceAuthorizationInfo extends AuthorizationInfo {
+
+    @Column("unit")
+    private String unit;
+
+    @Column("name")
+    private String name;
+
+}
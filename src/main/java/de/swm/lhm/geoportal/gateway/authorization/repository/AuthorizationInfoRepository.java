@@ -1,6 +1,7 @@
 package de.swm.lhm.geoportal.gateway.authorization.repository;
 
 import de.swm.lhm.geoportal.gateway.authorization.model.AuthorizationInfo;
+import de.swm.lhm.geoportal.gateway.authorization.model.FileResourceAuthorizationInfo;
 import de.swm.lhm.geoportal.gateway.shared.model.Stage;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
@@ -51,4 +52,43 @@ public interface AuthorizationInfoRepository extends R2dbcRepository<Authorizati
                     where rprv.unit = $1 and rprv.name = $2 and (rprv.stage = $3 or rprv.stage is null)
             """)
     Flux<AuthorizationInfo> findAuthorizationInfoForFileResource(String unit, String name, Stage stage);
+
+    @Query(
+            """
+            SELECT DISTINCT
+                role_name,
+                auth_level_high,
+                access_level,
+                resource_id
+            FROM portal_product_roles_view
+            WHERE stage = $1
+            """
+    )
+    Flux<AuthorizationInfo> findAllPortalAuthorizationInfosByStage(Stage stage);
+
+    @Query(
+            """
+                    select distinct
+                       role_name,
+                       auth_level_high,
+                       access_level,
+                       resource_id
+                    from geoservice_product_roles_view gpr
+                    where gpr.stage = $1
+            """
+    )
+    Flux<AuthorizationInfo> findAllGeoServiceAuthorizationInfosByStage(Stage stage);
+
+    @Query("""
+                    select distinct
+                        role_name,
+                        auth_level_high,
+                        access_level,
+                        resource_id,
+                        unit,
+                        name
+                    from resource_product_roles_view rprv
+                    where rprv.stage = $1 or rprv.stage is null
+            """)
+    Flux<FileResourceAuthorizationInfo> findAllFileResourceAuthorizationInfosByStage(Stage stage);
 }
@@ -15,6 +15,11 @@ public enum FilterOrder {
             // https://stackoverflow.com/a/77825153
             NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1
     ),
+    RESPONSE_CACHE_FILTER(
+            // Must wrap the response before the body modifying filters do, so the decorated
+            // response of this filter receives the final, already rewritten body.
+            RESPONSE_BEFORE_NETTY_WRITE_FILTER.orderKey - 1
+    ),
     REQUEST_SECOND_FILTER(2);
 
 
@@ -13,21 +13,51 @@ import org.springframework.http.MediaType;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
 import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.UnaryOperator;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+/**
+ * Base class of the responses modifying the body in {@link #processBody(Mono)}.
+ * <p>
+ * When multiple filters modify the body of the same exchange, only the response of the first filter
+ * decorates the exchange. The responses of the following filters are registered on it as further stages
+ * (see {@link #mutateServerWebExchange(ServerWebExchange)}). The body is then decompressed once, passed
+ * through all stages and compressed once. The stages are processed in the order the responses
+ * would have been processed when decorating each other, the last registered stage first.
+ * <p>
+ * As with decorating responses, each stage decides by {@link #supportsBodyRewrite()} whether it processes
+ * the body when it is its turn, so it sees the headers left by the stages before. Only
+ * {@link #rejectBody(Publisher)} is evaluated for all stages up front, before the body is read.
+ */
 @Slf4j
 public abstract class BodyModifyingServerHttpResponse extends ServerHttpResponseDecorator {
+
+    /**
+     * exchange attribute holding the response which processes the stages of all body modifying filters
+     */
+    static final String BODY_MODIFYING_RESPONSE_ATTR = BodyModifyingServerHttpResponse.class.getName() + ".response";
+
     private final MessageBodyEncodingService messageBodyEncodingService;
 
+    // stages to process when this response decorates the exchange, in the order of registration
+    private final List<BodyModifyingServerHttpResponse> stages = new ArrayList<>();
+
+    // the response the processed body and errors are written to
+    private ServerHttpResponse output;
+
     public BodyModifyingServerHttpResponse(ServerHttpResponse delegate, MessageBodyEncodingService messageBodyEncodingService) {
         super(delegate);
         this.messageBodyEncodingService = messageBodyEncodingService;
+        this.output = delegate;
+        this.stages.add(this);
     }
 
     /** process the uncompressed body of the response */
@@ -48,12 +78,24 @@ public abstract class BodyModifyingServerHttpResponse extends ServerHttpResponse
         return MediaType.TEXT_PLAIN;
     }
 
+    /**
+     * intended to be overridden in subclasses. Returns the response to write instead of the processed
+     * body, when the body can not be processed at all.
+     */
+    protected Optional<Mono<Void>> rejectBody(Publisher<? extends DataBuffer> body) {
+        return Optional.empty();
+    }
+
+    boolean isOnlyStage() {
+        return stages.size() == 1;
+    }
+
     protected Mono<DataBuffer> decompressBody(Mono<DataBuffer> body) {
         return messageBodyEncodingService.getContentEncoding(getHeaders())
                 .map(contentEncodingName -> body
                         .flatMap(dataBuffer ->
                                 DataBufferUtils.withDataBufferRelease(
-                                                messageBodyEncodingService.decodeDataBuffer(dataBuffer, contentEncodingName),
+                                                messageBodyEncodingService.decodeDataBufferStreaming(dataBuffer, contentEncodingName),
                                                 Mono::just,
                                                 log,
                                             () -> getClass().getName() + " release decompressed body data buffer"
@@ -78,15 +120,34 @@ public abstract class BodyModifyingServerHttpResponse extends ServerHttpResponse
 
     }
 
-    private Mono<DataBuffer> processPotentiallyCompressedBody(Mono<DataBuffer> body) {
-        return compressBody(processBody(decompressBody(body)));
+    /**
+     * Processes the body by the first stage supporting the rewrite and the following stages, which are
+     * asked whether they support the rewrite after the stages before processed the body.
+     */
+    private Mono<DataBuffer> processPotentiallyCompressedBody(Mono<DataBuffer> body, List<BodyModifyingServerHttpResponse> stagesToProcess) {
+        Mono<DataBuffer> processedBody = decompressBody(body);
+        for (int i = 0; i < stagesToProcess.size(); i++) {
+            BodyModifyingServerHttpResponse stage = stagesToProcess.get(i);
+            processedBody = (i == 0 ? stage.processBody(processedBody) : processBodyIfSupported(stage, processedBody))
+                    .onErrorMap(e -> !(e instanceof StageException), e -> new StageException(stage, e));
+        }
+        return compressBody(processedBody);
+    }
+
+    private static Mono<DataBuffer> processBodyIfSupported(BodyModifyingServerHttpResponse stage, Mono<DataBuffer> body) {
+        return body.flatMap(dataBuffer -> stage.supportsBodyRewrite()
+                .defaultIfEmpty(false)
+                .doOnError(e -> org.springframework.core.io.buffer.DataBufferUtils.release(dataBuffer))
+                .flatMap(supportsBodyRewrite -> Boolean.TRUE.equals(supportsBodyRewrite)
+                        ? stage.processBody(Mono.just(dataBuffer))
+                        : Mono.just(dataBuffer)));
     }
 
     public Mono<Boolean> supportsBodyRewrite() {
         return Mono.just(true);
     }
 
-    private boolean isWebSocketUpgrade() {
+    boolean isWebSocketUpgrade() {
         // http 2
         HttpStatusCode statusCode = getDelegate().getStatusCode();
         if (statusCode != null && statusCode.isSameCodeAs(HttpStatus.SWITCHING_PROTOCOLS)) {
@@ -106,13 +167,29 @@ public abstract class BodyModifyingServerHttpResponse extends ServerHttpResponse
             // reason: websocket connections can not be completely read into a data buffer
             return this.getDelegate().writeWith(body);
         }
-        return supportsBodyRewrite()
-                .flatMap(supportsBodyRewrite -> {
-                    if (Boolean.TRUE.equals(supportsBodyRewrite)) {
+
+        List<BodyModifyingServerHttpResponse> processingOrder = stages.reversed();
+        for (BodyModifyingServerHttpResponse stage : processingOrder) {
+            Optional<Mono<Void>> rejection = stage.rejectBody(body);
+            if (rejection.isPresent()) {
+                return rejection.get();
+            }
+        }
+
+        // the body is only read when a stage supports the rewrite of the unprocessed response
+        return Flux.fromIterable(processingOrder)
+                .concatMap(stage -> stage.supportsBodyRewrite()
+                        .filter(Boolean.TRUE::equals)
+                        .map(supportsBodyRewrite -> stage))
+                .next()
+                .map(firstActiveStage -> processingOrder.subList(processingOrder.indexOf(firstActiveStage), processingOrder.size()))
+                .defaultIfEmpty(List.of())
+                .flatMap(stagesToProcess -> {
+                    if (!stagesToProcess.isEmpty()) {
 
                         Mono<DataBuffer> dataBufferMono = org.springframework.core.io.buffer.DataBufferUtils.join(body);
 
-                        return processPotentiallyCompressedBody(dataBufferMono)
+                        return processPotentiallyCompressedBody(dataBufferMono, stagesToProcess)
                                 .flatMap(this::writeWithContentLength)
                                 .onErrorResume(e -> {
                                             // Drain the input flux and release the databuffers. Mostly required for cases where
@@ -128,7 +205,9 @@ public abstract class BodyModifyingServerHttpResponse extends ServerHttpResponse
                                                                     () -> getClass().getName() + " release databuffer on error"))
                                                     // regardless if there was an input databuffer or even an error, return the error
                                                     .onErrorResume(e3 -> Mono.just(false))
-                                                    .then(writeError(e));
+                                                    .then(e instanceof StageException stageException
+                                                            ? stageException.stage.writeError(stageException.getCause())
+                                                            : stagesToProcess.getFirst().writeError(e));
                                         }
                                 );
                     } else {
@@ -143,38 +222,58 @@ public abstract class BodyModifyingServerHttpResponse extends ServerHttpResponse
     }
 
     protected Mono<Void> writeErrorDetails(ErrorDetails errorDetails) {
-        getDelegate().setStatusCode(errorDetails.httpStatus());
-        HttpHeaders headers = getDelegate().getHeaders();
+        output.setStatusCode(errorDetails.httpStatus());
+        HttpHeaders headers = output.getHeaders();
         if (log.isDebugEnabled()) {
             log.debug("Error encountered. The original response headers were: {}", headers);
         }
         headers.clearContentHeaders();
         headers.set(HttpHeaders.CONTENT_TYPE, getErrorContentType().toString());
-        return writeWithContentLength(getDelegate().bufferFactory().wrap(errorDetails.message().getBytes(UTF_8)));
+        return writeWithContentLength(output.bufferFactory().wrap(errorDetails.message().getBytes(UTF_8)));
     }
 
     private Mono<Void> writeWithContentLength(DataBuffer dataBuffer) {
         // IMPORTANT: the databuffer must not be release here as it may be accessed from multiple filters
-        getDelegate().getHeaders().set(HttpHeaders.CONTENT_LENGTH, String.valueOf(dataBuffer.readableByteCount()));
-        return getDelegate().writeWith(Mono.just(dataBuffer));
+        output.getHeaders().set(HttpHeaders.CONTENT_LENGTH, String.valueOf(dataBuffer.readableByteCount()));
+        return output.writeWith(Mono.just(dataBuffer));
     }
 
     /**
      * mutate the serverwebexchange to wrap the response using this instance
      * <p>
      * This method should be preferred over mutating the exchange directly as it also sets content-encoding related headers.
+     * <p>
+     * When the response of the exchange already is a body modifying response, this instance is registered
+     * as a stage of it instead of decorating the exchange.
      *
      * @return ServerWebExchange
      */
     public ServerWebExchange mutateServerWebExchange(ServerWebExchange exchange) {
-        return exchange.mutate()
+        ServerWebExchange.Builder builder = exchange.mutate()
                 // prevent the backend service from applying unsupported compression algorithms to the
                 // response body by removing them from the accept-encoding header
                 .request(requestBuilder ->
                         requestBuilder.headers(messageBodyEncodingService::removeUnsupportedAcceptEncodings)
-                )
-                .response(this)
-                .build();
+                );
+
+        if (exchange.getAttribute(BODY_MODIFYING_RESPONSE_ATTR) instanceof BodyModifyingServerHttpResponse response
+                && response == exchange.getResponse()) {
+            response.stages.add(this);
+            this.output = response.output;
+            return builder.build();
+        }
+
+        exchange.getAttributes().put(BODY_MODIFYING_RESPONSE_ATTR, this);
+        return builder.response(this).build();
+    }
+
+    private static class StageException extends RuntimeException {
+        private final transient BodyModifyingServerHttpResponse stage;
+
+        StageException(BodyModifyingServerHttpResponse stage, Throwable cause) {
+            super(cause);
+            this.stage = stage;
+        }
     }
 
     public record ErrorDetails(HttpStatus httpStatus, String message) {
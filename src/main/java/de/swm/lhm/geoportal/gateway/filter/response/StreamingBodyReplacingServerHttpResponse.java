@@ -0,0 +1,80 @@
+package de.swm.lhm.geoportal.gateway.filter.response;
+
+import de.swm.lhm.geoportal.gateway.util.HttpHeaderUtils;
+import de.swm.lhm.geoportal.gateway.util.StreamingByteReplacer;
+import de.swm.lhm.geoportal.gateway.util.messagebody.MessageBodyEncodingService;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Replaces strings in text responses while streaming them to the client.
+ * <p>
+ * When this is the only body modifying response of the exchange and the body is not compressed, the
+ * body is not joined but rewritten buffer by buffer and sent using chunked transfer encoding, as the
+ * length of the rewritten body is not known in advance. Otherwise the replacement runs as a stage on
+ * the decompressed body like any other {@link BodyModifyingServerHttpResponse}.
+ */
+public class StreamingBodyReplacingServerHttpResponse extends BodyModifyingServerHttpResponse {
+
+    private final MessageBodyEncodingService messageBodyEncodingService;
+    private final StreamingByteReplacer replacer;
+
+    public StreamingBodyReplacingServerHttpResponse(ServerHttpResponse delegate, MessageBodyEncodingService messageBodyEncodingService, StreamingByteReplacer replacer) {
+        super(delegate, messageBodyEncodingService);
+        this.messageBodyEncodingService = messageBodyEncodingService;
+        this.replacer = replacer;
+    }
+
+    @Override
+    public Mono<Boolean> supportsBodyRewrite() {
+        return Mono.just(isReplacing());
+    }
+
+    private boolean isReplacing() {
+        return !replacer.isEmpty() && HttpHeaderUtils.isTextFormatContentType(getHeaders());
+    }
+
+    private boolean isStreamable() {
+        return isOnlyStage()
+                && isReplacing()
+                && !isWebSocketUpgrade()
+                && messageBodyEncodingService.getContentEncoding(getHeaders()).isEmpty();
+    }
+
+    @Override
+    protected Mono<DataBuffer> processBody(Mono<DataBuffer> body) {
+        return body.flatMap(dataBuffer -> org.springframework.core.io.buffer.DataBufferUtils.join(
+                replacer.replace(Flux.just(dataBuffer), bufferFactory())));
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+        if (!isStreamable()) {
+            return super.writeWith(body);
+        }
+
+        getDelegate().getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+        return getDelegate().writeWith(replacer.replace(Flux.from(body), bufferFactory()));
+    }
+
+    @Override
+    public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+        if (!isStreamable()) {
+            return super.writeAndFlushWith(body);
+        }
+
+        // keep the flush boundaries of streamed responses, the bytes held back are
+        // written with the next flushed part
+        getDelegate().getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+        return getDelegate().writeAndFlushWith(Flux.defer(() -> {
+            StreamingByteReplacer.Session session = replacer.newSession();
+            return Flux.from(body)
+                    .map(part -> Flux.from(part).map(dataBuffer -> session.process(dataBuffer, bufferFactory())))
+                    .concatWith(Mono.fromSupplier(() -> Flux.just(session.finish(bufferFactory()))));
+        }));
+    }
+}
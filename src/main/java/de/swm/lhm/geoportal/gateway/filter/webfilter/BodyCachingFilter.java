@@ -9,7 +9,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferLimitException;
 import org.springframework.core.io.buffer.DefaultDataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.core.io.buffer.NettyDataBuffer;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -24,10 +26,12 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -38,6 +42,13 @@ import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.C
  * <p>
  * <p>
  * This class decodes incomming messages from gzip encoding. They will not get re-encoded before passing them on.
+ * <p>
+ * In zero-copy mode the buffers of the incoming body are joined without copying them (for netty into a
+ * {@code CompositeByteBuf}), reading stops as soon as the size limit is exceeded and encoded bodies are
+ * decompressed while streaming them into a single new buffer.
+ * <p>
+ * Other buffers which have to live as long as the exchange, like a rewritten request body, can be allocated
+ * with {@link #allocateExchangeBuffer(ServerWebExchange, int)}. They are released together with the cached body.
  */
 @Setter
 @Slf4j
@@ -51,6 +62,35 @@ public class BodyCachingFilter implements WebFilter {
      */
     private int maxByteCountForBody = 0;
 
+    /**
+     * join the buffers of the incoming body instead of copying them into byte arrays
+     */
+    private boolean zeroCopy = false;
+
+    /**
+     * number of bytes of all request bodies currently held in exchange attributes
+     */
+    private AtomicLong cachedBytesInFlight = new AtomicLong();
+
+    private static final String CACHED_REQUEST_BODY_SIZE_ATTR = BodyCachingFilter.class.getName() + ".cachedRequestBodySize";
+    private static final String EXCHANGE_BUFFERS_ATTR = BodyCachingFilter.class.getName() + ".exchangeBuffers";
+
+    /**
+     * Allocates a buffer which is released once the exchange is complete, together with the cached request body.
+     * <p>
+     * The buffer comes from the buffer factory of the exchange, which is pooled with netty. Exchanges which do not
+     * pass this filter get an unpooled buffer instead, which needs no release.
+     */
+    public static DataBuffer allocateExchangeBuffer(ServerWebExchange exchange, int initialCapacity) {
+        List<DataBuffer> exchangeBuffers = exchange.getAttribute(EXCHANGE_BUFFERS_ATTR);
+        if (exchangeBuffers == null) {
+            return DefaultDataBufferFactory.sharedInstance.allocateBuffer(initialCapacity);
+        }
+        DataBuffer dataBuffer = exchange.getResponse().bufferFactory().allocateBuffer(initialCapacity);
+        exchangeBuffers.add(dataBuffer);
+        return dataBuffer;
+    }
+
     private boolean isBodyCachingDisabled(ServerWebExchange exchange) {
         ServerHttpRequest request = exchange.getRequest();
         URI requestUri = request.getURI();
@@ -77,6 +117,7 @@ public class BodyCachingFilter implements WebFilter {
         if (isBodyCachingDisabled(exchange)) {
             return chain.filter(exchange);
         }
+        exchange.getAttributes().put(EXCHANGE_BUFFERS_ATTR, new ArrayList<DataBuffer>());
 
         Mono<Void> filterMono = switch (exchange.getAttribute(CACHED_REQUEST_BODY_ATTR)) {
             case null -> this.cacheRequestBody(exchange, serverHttpRequest ->
@@ -97,6 +138,21 @@ public class BodyCachingFilter implements WebFilter {
                         () -> getClass().getName() + " releaseCachedRequestBody"
                 );
             }
+            // the cached body may already have been released by the gateway, the size
+            // is tracked separately to keep the number of bytes in flight accurate
+            if (exchange.getAttributes().remove(CACHED_REQUEST_BODY_SIZE_ATTR) instanceof Integer cachedSize) {
+                cachedBytesInFlight.addAndGet(-cachedSize);
+            }
+            if (exchange.getAttributes().remove(EXCHANGE_BUFFERS_ATTR) instanceof List<?> exchangeBuffers) {
+                for (Object exchangeBuffer : exchangeBuffers) {
+                    DataBufferUtils.releaseDataBuffer(
+                            (DataBuffer) exchangeBuffer,
+                            "release exchange buffer",
+                            log,
+                            () -> getClass().getName() + " releaseExchangeBuffers"
+                    );
+                }
+            }
         };
 
         return filterMono
@@ -105,6 +161,10 @@ public class BodyCachingFilter implements WebFilter {
 
     // adapted from ServerWebExchangeUtils
     <T> Mono<T> cacheRequestBody(ServerWebExchange exchange, Function<ServerHttpRequest, Mono<T>> function) {
+        if (zeroCopy) {
+            return cacheRequestBodyZeroCopy(exchange, function);
+        }
+
         ServerHttpResponse response = exchange.getResponse();
         ServerHttpRequest request = exchange.getRequest();
         DataBufferFactory factory = response.bufferFactory();
@@ -130,31 +190,82 @@ public class BodyCachingFilter implements WebFilter {
                                 case DataBufferUtils.DataBufferContents.Partial<byte[]> partial -> {
                                     // allowed body size exceeded, request is not passed to the provided
                                     // `function` and instead is answered directly.
-
-                                    log.atWarn()
-                                            .setMessage(() -> String.format(
-                                                "Received body in %s request to %s exceeded the allowed size of %d bytes. Size was %d",
-                                                request.getMethod(),
-                                                request.getPath(),
-                                                maxByteCountForBody,
-                                                partial.getNumBytesContained()))
-                                            .log();
-
-                                    response.setStatusCode(HttpStatus.PAYLOAD_TOO_LARGE);
-                                    response.getHeaders().add(HttpHeaders.CONTENT_TYPE, MediaType.TEXT_PLAIN_VALUE);
-                                    yield DataBufferUtils.withDataBufferRelease(
-                                                    factory.wrap(HttpStatus.PAYLOAD_TOO_LARGE.getReasonPhrase().getBytes(UTF_8)),
-                                                    dataBuffer -> response.writeWith(Mono.just(dataBuffer)),
-                                                    log,
-                                                    () -> getClass().getName() + " TooLargeResponse body"
-                                            )
-                                            .then(Mono.empty());
+                                    yield writePayloadTooLarge(exchange, String.format("Reading was stopped after %d bytes", partial.getNumBytesContained()));
                                 }
                             }
                     );
         }
     }
 
+    private <T> Mono<T> cacheRequestBodyZeroCopy(ServerWebExchange exchange, Function<ServerHttpRequest, Mono<T>> function) {
+        ServerHttpRequest request = exchange.getRequest();
+
+        // the content length is unknown for chunked requests, so the bytes received are counted
+        AtomicLong receivedBytes = new AtomicLong();
+        Flux<DataBuffer> body = request.getBody()
+                .doOnNext(dataBuffer -> receivedBytes.addAndGet(dataBuffer.readableByteCount()));
+
+        // join cancels reading the body as soon as the limit is exceeded and releases
+        // the buffers read so far
+        return DataBufferUtils.join(body, maxByteCountForBody)
+                .<DataBuffer>handle((dataBuffer, sink) -> {
+                    if (dataBuffer.readableByteCount() > 0) {
+                        sink.next(dataBuffer);
+                    } else {
+                        org.springframework.core.io.buffer.DataBufferUtils.release(dataBuffer);
+                    }
+                })
+                .map(dataBuffer -> decodeIfEncoded(request, dataBuffer))
+                .map(dataBuffer -> decorate(exchange, dataBuffer))
+                .switchIfEmpty(Mono.fromSupplier(exchange::getRequest))
+                .onErrorResume(DataBufferLimitException.class, e -> writePayloadTooLarge(
+                        exchange,
+                        String.format("Reading was stopped after %d bytes", receivedBytes.get())
+                ))
+                .flatMap(function);
+    }
+
+    private DataBuffer decodeIfEncoded(ServerHttpRequest request, DataBuffer dataBuffer) {
+        Optional<String> contentEncoding = messageBodyEncodingService.getContentEncoding(request.getHeaders());
+        if (contentEncoding.isEmpty()) {
+            return dataBuffer;
+        }
+        try {
+            return messageBodyEncodingService.decodeDataBufferStreaming(dataBuffer, contentEncoding.get());
+        } finally {
+            DataBufferUtils.releaseDataBuffer(
+                    dataBuffer,
+                    "decoded",
+                    log,
+                    () -> getClass().getName() + " decodeIfEncoded"
+            );
+        }
+    }
+
+    private <T> Mono<T> writePayloadTooLarge(ServerWebExchange exchange, String sizeDescription) {
+        ServerHttpRequest request = exchange.getRequest();
+        ServerHttpResponse response = exchange.getResponse();
+
+        log.atWarn()
+                .setMessage(() -> String.format(
+                        "Received body in %s request to %s exceeded the allowed size of %d bytes. %s",
+                        request.getMethod(),
+                        request.getPath(),
+                        maxByteCountForBody,
+                        sizeDescription))
+                .log();
+
+        response.setStatusCode(HttpStatus.PAYLOAD_TOO_LARGE);
+        response.getHeaders().add(HttpHeaders.CONTENT_TYPE, MediaType.TEXT_PLAIN_VALUE);
+        return DataBufferUtils.withDataBufferRelease(
+                        response.bufferFactory().wrap(HttpStatus.PAYLOAD_TOO_LARGE.getReasonPhrase().getBytes(UTF_8)),
+                        dataBuffer -> response.writeWith(Mono.just(dataBuffer)),
+                        log,
+                        () -> getClass().getName() + " TooLargeResponse body"
+                )
+                .then(Mono.empty());
+    }
+
     private <T> Mono<T> decorateRaw(ServerWebExchange exchange, Mono<DataBuffer> dataBufferMono, Function<ServerHttpRequest, Mono<T>> function) {
         return dataBufferMono
                 .map(byteArray -> decorate(exchange, byteArray))
@@ -172,6 +283,8 @@ public class BodyCachingFilter implements WebFilter {
             // don't cache if body is already cached
             if (!(cachedDataBuffer instanceof DataBuffer)) {
                 exchange.getAttributes().put(CACHED_REQUEST_BODY_ATTR, dataBuffer);
+                exchange.getAttributes().put(CACHED_REQUEST_BODY_SIZE_ATTR, dataBuffer.readableByteCount());
+                cachedBytesInFlight.addAndGet(dataBuffer.readableByteCount());
             }
         }
 
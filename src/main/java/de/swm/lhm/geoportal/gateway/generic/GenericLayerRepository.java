@@ -2,6 +2,7 @@ package de.swm.lhm.geoportal.gateway.generic;
 
 
 import de.swm.lhm.geoportal.gateway.generic.model.GenericLayer;
+import de.swm.lhm.geoportal.gateway.product.ProductLinks;
 import de.swm.lhm.geoportal.gateway.shared.model.ServiceType;
 import de.swm.lhm.geoportal.gateway.shared.model.Stage;
 import lombok.RequiredArgsConstructor;
@@ -9,7 +10,8 @@ import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
+
+import java.util.Collection;
 
 import static org.springframework.data.relational.core.query.Criteria.where;
 import static org.springframework.data.relational.core.query.Query.query;
@@ -24,33 +26,32 @@ public class GenericLayerRepository {
 
 
 
-    public Flux<GenericLayer> findSensorServiceByProductId(Integer productId, Stage stage) {
-
-        return this.databaseClient.sql(
-                        """
-                        SELECT layer_id
-                        FROM t_product_layer
-                        WHERE product_id = :productId
-                        AND layer_type = :layerType
-                        """
-                )
-                .bind("productId", productId)
-                .bind("layerType", ServiceType.GEN.toString())
-                .fetch()
-                .all()
-                .map(row -> row.get("layer_id"))
-                .filter(String.class::isInstance)
-                .map(String.class::cast)
-                .distinct()
-                .flatMap(stagelessId -> findSensorServiceByStagelessIdAndStage(stagelessId, stage));
+    public Flux<ProductLinks.Detail<GenericLayer>> findGenericLayersByProductIds(Collection<Integer> productIds, Stage stage) {
+
+        return ProductLinks.findDetails(
+                this.databaseClient.sql(
+                                """
+                                SELECT product_id, layer_id
+                                FROM t_product_layer
+                                WHERE product_id IN (:productIds)
+                                AND layer_type = :layerType
+                                """
+                        )
+                        .bind("productIds", productIds)
+                        .bind("layerType", ServiceType.GEN.toString()),
+                "layer_id",
+                String.class,
+                stagelessIds -> findGenericLayersByStagelessIdsAndStage(stagelessIds, stage),
+                GenericLayer::getStagelessId
+        );
     }
 
-    public Mono<GenericLayer> findSensorServiceByStagelessIdAndStage(String stagelessId, Stage stage) {
+    public Flux<GenericLayer> findGenericLayersByStagelessIdsAndStage(Collection<String> stagelessIds, Stage stage) {
         return this.template.select(GenericLayer.class)
                 .matching(query(
-                        where("stageless_id").is(stagelessId)
+                        where("stageless_id").in(stagelessIds)
                                 .and("stage").is(stage.name())
-                )).first();
+                )).all();
     }
 
 }
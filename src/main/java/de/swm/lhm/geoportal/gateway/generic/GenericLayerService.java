@@ -13,6 +13,7 @@ import reactor.core.publisher.Mono;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -23,10 +24,11 @@ public class GenericLayerService implements HasProductDetails {
     private final ObjectMapper objectMapper;
 
     @Override
-    public Mono<Void> enrichProduct(Product product) {
-        return genericLayerRepository.findSensorServiceByProductId(product.getId(), product.getStage())
-                .map(this::mapGenericLayerToProductService)
-                .doOnNext(product::addGeoService)
+    public Mono<Void> enrichProducts(List<Product> products) {
+        Map<Integer, Product> productsById = HasProductDetails.indexById(products);
+        return genericLayerRepository.findGenericLayersByProductIds(productsById.keySet(), products.getFirst().getStage())
+                .doOnNext(genericLayer -> productsById.get(genericLayer.productId())
+                        .addGeoService(mapGenericLayerToProductService(genericLayer.detail())))
                 .then();
     }
 
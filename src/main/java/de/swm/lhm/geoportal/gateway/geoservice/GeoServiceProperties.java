@@ -1,5 +1,6 @@
 package de.swm.lhm.geoportal.gateway.geoservice;
 
+import de.swm.lhm.geoportal.gateway.util.cache.ReactiveCacheProperties;
 import jakarta.annotation.PostConstruct;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -8,7 +9,9 @@ import lombok.Setter;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -26,6 +29,10 @@ public class GeoServiceProperties {
     private String hostnameMapping;
     private Set<String> blockedRequestTypes;
     private int maxXmlParsingDurationMs;
+    private ReactiveCacheProperties visibleLayersCache = new ReactiveCacheProperties();
+    private CapabilitiesCacheProperties capabilitiesCache = new CapabilitiesCacheProperties();
+    private RewriteMode getCapabilitiesRewriteMode = RewriteMode.DOM;
+    private RewriteMode getFeatureInfoRewriteMode = RewriteMode.DOM;
 
     @PostConstruct
     private void init() {
@@ -43,4 +50,25 @@ public class GeoServiceProperties {
     public int getSanitizedMaxXmlParsingDurationMs() {
         return Math.max(0, maxXmlParsingDurationMs);
     }
+
+    public enum RewriteMode {
+        /**
+         * materialize the complete document (as DOM, JSON tree or String) and modify it
+         */
+        DOM,
+        /**
+         * filter the document in a single pass over its tokens and write the output directly
+         */
+        STREAMING
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CapabilitiesCacheProperties {
+        private boolean enabled = false;
+        private DataSize maximumSize = DataSize.ofMegabytes(50);
+        private Duration expireAfterWrite = Duration.ofMinutes(5);
+    }
 }
@@ -5,6 +5,7 @@ import de.swm.lhm.geoportal.gateway.authorization.model.AuthorizationGroup;
 import de.swm.lhm.geoportal.gateway.geoservice.inspect.QualifiedLayerName;
 import de.swm.lhm.geoportal.gateway.geoservice.model.GeoService;
 import de.swm.lhm.geoportal.gateway.geoservice.model.GeoServiceProductRoles;
+import de.swm.lhm.geoportal.gateway.product.ProductLinks;
 import de.swm.lhm.geoportal.gateway.shared.model.ServiceType;
 import de.swm.lhm.geoportal.gateway.shared.model.Stage;
 import lombok.RequiredArgsConstructor;
@@ -14,6 +15,11 @@ import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 import static de.swm.lhm.geoportal.gateway.util.AuthSqlUtils.getConcatenatedCriteriaFromAuthorizationGroup;
 import static org.springframework.data.relational.core.query.Criteria.where;
 import static org.springframework.data.relational.core.query.Query.query;
@@ -27,57 +33,72 @@ public class GeoServiceRepository {
     private final DatabaseClient databaseClient;
 
 
-    public Flux<GeoService> findGeoServiceByProductId(Integer productId, Stage stage) {
+    public Flux<ProductLinks.Detail<GeoService>> findGeoServicesByProductIds(Collection<Integer> productIds, Stage stage) {
 
-        return this.databaseClient.sql(
-                        """
-                                SELECT layer_id
-                                FROM t_product_layer
-                                WHERE product_id = :productId
-                                AND layer_type IN (:serviceTypes)
+        return ProductLinks.findDetails(
+                this.databaseClient.sql(
                                 """
-                )
-                .bind("productId", productId)
-                .bind("serviceTypes", ServiceType.getAllGeoServerServices().stream().map(String::valueOf).toList())
-                .fetch()
-                .all()
-                .map(row -> row.get("layer_id"))
-                .filter(String.class::isInstance)
-                .map(String.class::cast)
-                .map(value -> value.split(":"))
-                .distinct()
-                .flatMap(value -> findGeoServiceByWorkspaceAndNameAndStage(value[0], value[1], stage))
-                .delayUntil(this::addServiceTypesByGeoService);
+                                        SELECT product_id, layer_id
+                                        FROM t_product_layer
+                                        WHERE product_id IN (:productIds)
+                                        AND layer_type IN (:serviceTypes)
+                                        """
+                        )
+                        .bind("productIds", productIds)
+                        .bind("serviceTypes", ServiceType.getAllGeoServerServices().stream().map(String::valueOf).toList()),
+                "layer_id",
+                String.class,
+                layerIds -> findGeoServicesByQualifiedNamesAndStage(layerIds, stage),
+                geoService -> geoService.getWorkspace() + ":" + geoService.getName()
+        );
     }
 
-    public Mono<GeoService> findGeoServiceByWorkspaceAndNameAndStage(String workspace, String name, Stage stage) {
+    /**
+     * Loads the geoservices with the given names in the form {@code workspace:name} including their service types.
+     */
+    public Flux<GeoService> findGeoServicesByQualifiedNamesAndStage(Collection<String> qualifiedNames, Stage stage) {
+        Set<String> names = qualifiedNames.stream()
+                .map(qualifiedName -> qualifiedName.split(":"))
+                .filter(value -> value.length > 1)
+                .map(value -> value[1])
+                .collect(Collectors.toSet());
+        if (names.isEmpty()) {
+            return Flux.empty();
+        }
+
+        // the names are selected only, the workspaces are matched when joining
         return this.template.select(GeoService.class)
                 .matching(query(
-                        where("workspace").is(workspace)
-                                .and("name").is(name)
+                        where("name").in(names)
                                 .and("stage").is(stage.name())
-                )).first();
+                ))
+                .all()
+                .filter(geoService -> qualifiedNames.contains(geoService.getWorkspace() + ":" + geoService.getName()))
+                .collectList()
+                .flatMapMany(this::addServiceTypesByGeoServices);
     }
 
-    public Mono<GeoService> addServiceTypesByGeoService(GeoService geoService) {
+    private Flux<GeoService> addServiceTypesByGeoServices(List<GeoService> geoServices) {
+        if (geoServices.isEmpty()) {
+            return Flux.empty();
+        }
+
         return this.databaseClient.sql(
                         """
-                                SELECT DISTINCT name 
+                                SELECT DISTINCT geoservice_id, name
                                 FROM t_servicetype
-                                WHERE geoservice_id = :geoserviceId
+                                WHERE geoservice_id IN (:geoserviceIds)
                                 """
                 )
-                .bind("geoserviceId", geoService.getId())
+                .bind("geoserviceIds", geoServices.stream().map(GeoService::getId).distinct().toList())
                 .fetch()
                 .all()
-                .map(row -> row.get("name"))
-                .filter(String.class::isInstance)
-                .map(String.class::cast)
-                .map(ServiceType::valueOf)
-                .collectList()
-                .map(geoServiceTypes -> {
-                    geoService.setServiceTypes(geoServiceTypes);
-                    return geoService;
+                .filter(row -> row.get("geoservice_id") instanceof Integer && row.get("name") instanceof String)
+                .collectMultimap(row -> (Integer) row.get("geoservice_id"), row -> ServiceType.valueOf((String) row.get("name")))
+                .flatMapIterable(serviceTypesByGeoServiceId -> {
+                    geoServices.forEach(geoService -> geoService.setServiceTypes(
+                            List.copyOf(serviceTypesByGeoServiceId.getOrDefault(geoService.getId(), List.of()))));
+                    return geoServices;
                 });
     }
 
@@ -16,6 +16,7 @@ import reactor.core.publisher.Mono;
 
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -27,10 +28,11 @@ public class GeoServicesService implements HasProductDetails {
     private final GatewayService gatewayService;
 
     @Override
-    public Mono<Void> enrichProduct(Product product) {
-        return geoServiceRepository.findGeoServiceByProductId(product.getId(), product.getStage())
-                .map(this::mapGeoServiceToProductService)
-                .doOnNext(product::addGeoService)
+    public Mono<Void> enrichProducts(List<Product> products) {
+        Map<Integer, Product> productsById = HasProductDetails.indexById(products);
+        return geoServiceRepository.findGeoServicesByProductIds(productsById.keySet(), products.getFirst().getStage())
+                .doOnNext(geoService -> productsById.get(geoService.productId())
+                        .addGeoService(mapGeoServiceToProductService(geoService.detail())))
                 .then();
     }
 
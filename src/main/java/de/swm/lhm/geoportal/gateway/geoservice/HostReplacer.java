@@ -2,7 +2,11 @@ package de.swm.lhm.geoportal.gateway.geoservice;
 
 import com.google.common.base.Splitter;
 import com.google.common.collect.Lists;
+import de.swm.lhm.geoportal.gateway.util.StreamingByteReplacer;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Component;
@@ -13,6 +17,8 @@ public class HostReplacer {
     private final GeoServiceProperties geoServiceProperties;
     private List<String> privateHostnames;
     private List<String> publicHostnames;
+    @Getter
+    private StreamingByteReplacer internalHostNameReplacer;
 
     public HostReplacer(GeoServiceProperties geoServiceProperties) {
         this.geoServiceProperties = geoServiceProperties;
@@ -34,6 +40,12 @@ public class HostReplacer {
                    .log();
             }
         }
+
+        Map<String, String> privateToPublicHostnames = new LinkedHashMap<>();
+        for (int i = 0; i < privateHostnames.size(); i++) {
+            privateToPublicHostnames.putIfAbsent(privateHostnames.get(i), publicHostnames.get(i));
+        }
+        internalHostNameReplacer = new StreamingByteReplacer(privateToPublicHostnames);
     }
 
     private String replaceHostNames(String body, List<String> source, List<String> replacements) {
@@ -48,7 +60,8 @@ public class HostReplacer {
     }
 
     public String replaceInternalHostNames(String body) {
-        return replaceHostNames(body, this.privateHostnames, this.publicHostnames);
+        // same matching as used for the response bodies
+        return internalHostNameReplacer.replace(body);
     }
 
     public String replacePublicHostNames(String body) {
@@ -1,5 +1,6 @@
 package de.swm.lhm.geoportal.gateway.geoservice;
 
+import de.swm.lhm.geoportal.gateway.geoservice.inspect.QualifiedLayerName;
 import de.swm.lhm.geoportal.gateway.geoservice.model.PropertyField;
 import de.swm.lhm.geoportal.gateway.geoservice.model.PropertyFieldEscaping;
 import de.swm.lhm.geoportal.gateway.shared.model.Stage;
@@ -7,6 +8,11 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.util.Collection;
+import java.util.Map;
 
 @Component
 @RequiredArgsConstructor
@@ -49,16 +55,72 @@ public class PropertyFieldRepository {
                 .bind("workspace", workspace)
                 .fetch()
                 .all()
-                .map(row -> new PropertyField(
-                        (String) row.get("gfireferenceschemaname"),
-                        (String) row.get("gfireferencetablename"),
-                        (String) row.get("gfireferencefieldname"),
-                        (String) row.get("label"),
-                        (Boolean) row.get("visible"),
-                        PropertyFieldEscaping.fromName((String) row.get("escapeing"))
-                ));
-
+                .map(PropertyFieldRepository::mapPropertyField);
     }
 
+    /**
+     * same as {@link #findGeoServicePropertyFieldsByWorkspaceAndNameAndStage} for multiple layers using a single query.
+     *
+     * @return the property fields together with the layer they have been requested for
+     */
+    public Flux<Tuple2<QualifiedLayerName, PropertyField>> findGeoServicePropertyFieldsByQualifiedLayerNamesAndStage(
+            Collection<QualifiedLayerName> qualifiedLayerNames, Stage stage) {
+        if (qualifiedLayerNames.isEmpty()) {
+            return Flux.empty();
+        }
+        return this.databaseClient.sql("""
+                                  with recursive hierarchy(parent, child) as (
+                                      select parent, child
+                                          from t_containing_services
+                                      union all
+                                      select tcs.parent, tcs.child
+                                          from t_containing_services tcs, hierarchy h
+                                          where tcs.parent = h.child
+                                  ),
+                                  roots as (
+                                      select id, workspace, name
+                                      from t_geoservice
+                                      where stage = :stage and concat(workspace, ':', name) in (:qualifiedLayerNames)
+                                  )
+                                  select roots.workspace root_workspace,
+                                        roots.name root_name,
+                                        pf.label,
+                                        pf.escapeing,
+                                        pf.gfireferencefieldname,
+                                        pf.gfireferencetablename,
+                                        pf.gfireferenceschemaname,
+                                        pf.visible
+                                  from (
+                                      select h.parent root_id, h.child gs_id
+                                      from hierarchy h
+                                      join roots on roots.id = h.parent
+                                      union
+                                      select id, id
+                                      from roots
+                                  ) ids
+                                  join roots on roots.id = ids.root_id
+                                  join t_geoservice gs on gs.id = ids.gs_id
+                                  join t_propertyquery pq on pq.geoservice_id = gs.id
+                                  join t_propertyfield pf on pq.id = pf.propertyquery_id
+                        """)
+                .bind("stage", stage.name())
+                .bind("qualifiedLayerNames", qualifiedLayerNames.stream().map(QualifiedLayerName::toString).toList())
+                .fetch()
+                .all()
+                .map(row -> Tuples.of(
+                        new QualifiedLayerName((String) row.get("root_workspace"), (String) row.get("root_name")),
+                        mapPropertyField(row)
+                ));
+    }
 
+    private static PropertyField mapPropertyField(Map<String, Object> row) {
+        return new PropertyField(
+                (String) row.get("gfireferenceschemaname"),
+                (String) row.get("gfireferencetablename"),
+                (String) row.get("gfireferencefieldname"),
+                (String) row.get("label"),
+                (Boolean) row.get("visible"),
+                PropertyFieldEscaping.fromName((String) row.get("escapeing"))
+        );
+    }
 }
@@ -1,32 +1,59 @@
 package de.swm.lhm.geoportal.gateway.geoservice;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import de.swm.lhm.geoportal.gateway.geoservice.inspect.QualifiedLayerName;
 import de.swm.lhm.geoportal.gateway.geoservice.model.PropertyField;
 import de.swm.lhm.geoportal.gateway.geoservice.model.PropertyFieldEscaping;
 import de.swm.lhm.geoportal.gateway.resource.ResourceService;
 import de.swm.lhm.geoportal.gateway.resource.model.FileResource;
 import de.swm.lhm.geoportal.gateway.shared.GatewayService;
-import de.swm.lhm.geoportal.gateway.util.ReactiveCache;
-import lombok.RequiredArgsConstructor;
+import de.swm.lhm.geoportal.gateway.shared.change_notification.ConfigurationChangedEvent;
+import de.swm.lhm.geoportal.gateway.util.cache.ReactiveCache;
+import de.swm.lhm.geoportal.gateway.util.cache.ReactiveCacheFactory;
+import de.swm.lhm.geoportal.gateway.util.cache.ReactiveCacheProperties;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 @Service
-@RequiredArgsConstructor
 public class PropertyFieldService {
+    public static final String PROPERTY_FIELD_CACHE_NAME = "geoservice.propertyFields";
+    public static final String CONTAINED_LAYERS_CACHE_NAME = "geoservice.containedLayers";
+
     private final GatewayService gatewayService;
     private final PropertyFieldRepository propertyFieldRepository;
     private final ResourceService resourceService;
     private final GeoServiceRepository geoServiceRepository;
 
-    private final ReactiveCache<QualifiedLayerName, Map<String, PropertyField>> geoServicePropertyFieldCache = new ReactiveCache<>(200, Duration.ofSeconds(10L));
-    private final ReactiveCache<QualifiedLayerName, List<QualifiedLayerName>> containedQualifiedLayersCache = new ReactiveCache<>(200, Duration.ofSeconds(10L));
+    private final ReactiveCache<QualifiedLayerName, Map<String, PropertyField>> geoServicePropertyFieldCache;
+    private final ReactiveCache<QualifiedLayerName, List<QualifiedLayerName>> containedQualifiedLayersCache;
+
+    public PropertyFieldService(GatewayService gatewayService, PropertyFieldRepository propertyFieldRepository, ResourceService resourceService,
+                                GeoServiceRepository geoServiceRepository, ReactiveCacheFactory reactiveCacheFactory) {
+        this.gatewayService = gatewayService;
+        this.propertyFieldRepository = propertyFieldRepository;
+        this.resourceService = resourceService;
+        this.geoServiceRepository = geoServiceRepository;
+        this.geoServicePropertyFieldCache = reactiveCacheFactory.create(
+                PROPERTY_FIELD_CACHE_NAME,
+                new ReactiveCacheProperties(200, Duration.ofSeconds(10L)),
+                new TypeReference<>() {
+                }
+        );
+        this.containedQualifiedLayersCache = reactiveCacheFactory.create(
+                CONTAINED_LAYERS_CACHE_NAME,
+                new ReactiveCacheProperties(200, Duration.ofSeconds(10L)),
+                new TypeReference<>() {
+                }
+        );
+    }
 
     public Mono<Map<String, PropertyField>> getGeoServicePropertyFieldsByNameAndWorkspace(QualifiedLayerName qualifiedLayerName) {
         return geoServicePropertyFieldCache.get(qualifiedLayerName,
@@ -41,6 +68,29 @@ public class PropertyFieldService {
         );
     }
 
+    /**
+     * Gets the property fields of multiple layers. Layers which are not cached yet are loaded with a single query.
+     */
+    public Mono<Map<QualifiedLayerName, Map<String, PropertyField>>> getGeoServicePropertyFieldsByQualifiedLayerNames(Collection<QualifiedLayerName> qualifiedLayerNames) {
+        return geoServicePropertyFieldCache.getAll(qualifiedLayerNames, missingQualifiedLayerNames ->
+                propertyFieldRepository.findGeoServicePropertyFieldsByQualifiedLayerNamesAndStage(
+                                List.copyOf(missingQualifiedLayerNames),
+                                gatewayService.getStage())
+                        .reduce(emptyPropertyFieldMaps(missingQualifiedLayerNames), (accum, layerPropertyField) -> {
+                            accum.computeIfAbsent(layerPropertyField.getT1(), qualifiedLayerName -> new HashMap<>())
+                                    .put(layerPropertyField.getT2().fieldName(), layerPropertyField.getT2());
+                            return accum;
+                        })
+        );
+    }
+
+    private static Map<QualifiedLayerName, Map<String, PropertyField>> emptyPropertyFieldMaps(Collection<? extends QualifiedLayerName> qualifiedLayerNames) {
+        // layers without property fields are cached as well, as it is done for single layers
+        Map<QualifiedLayerName, Map<String, PropertyField>> propertyFieldMaps = new HashMap<>();
+        qualifiedLayerNames.forEach(qualifiedLayerName -> propertyFieldMaps.put(qualifiedLayerName, new HashMap<>()));
+        return propertyFieldMaps;
+    }
+
     public Mono<List<QualifiedLayerName>> getContainedQualifiedLayerNames(QualifiedLayerName parentQualifiedLayerName) {
         return containedQualifiedLayersCache.get(parentQualifiedLayerName,
                 geoServiceRepository.findContainedQualifiedLayerNames(
@@ -50,6 +100,14 @@ public class PropertyFieldService {
         );
     }
 
+    @EventListener(ConfigurationChangedEvent.class)
+    public void invalidateCaches(ConfigurationChangedEvent event) {
+        if (event.affectsStage(gatewayService.getStage())) {
+            geoServicePropertyFieldCache.invalidateAll();
+            containedQualifiedLayersCache.invalidateAll();
+        }
+    }
+
     public Optional<String> escapeFieldValue(String fieldValue, PropertyField propertyField) {
         if (fieldValue == null || propertyField == null) {
             return Optional.empty();
@@ -1,29 +1,78 @@
 package de.swm.lhm.geoportal.gateway.geoservice.authorization;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import de.swm.lhm.geoportal.gateway.authorization.IAuthService;
+import de.swm.lhm.geoportal.gateway.authorization.model.AuthorizationGroupKey;
+import de.swm.lhm.geoportal.gateway.geoservice.GeoServiceProperties;
 import de.swm.lhm.geoportal.gateway.geoservice.GeoServiceRepository;
 import de.swm.lhm.geoportal.gateway.geoservice.inspect.QualifiedLayerName;
 import de.swm.lhm.geoportal.gateway.shared.GatewayService;
-import lombok.RequiredArgsConstructor;
+import de.swm.lhm.geoportal.gateway.shared.change_notification.ConfigurationChangedEvent;
+import de.swm.lhm.geoportal.gateway.shared.model.Stage;
+import de.swm.lhm.geoportal.gateway.util.cache.ReactiveCache;
+import de.swm.lhm.geoportal.gateway.util.cache.ReactiveCacheFactory;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
 import java.util.Set;
 
 @Service
-@RequiredArgsConstructor
 public class GeoServiceAuthorizationService {
+
+    static final String VISIBLE_LAYERS_CACHE_NAME = "geoservice.visibleLayers";
+
     private final IAuthService authorizationService;
     private final GatewayService gatewayService;
     private final GeoServiceRepository geoServiceRepository;
 
+    // the visible layers only depend on the granted roles, so all users sharing the same
+    // roles share a single set instead of querying the database on every request
+    private final ReactiveCache<VisibleLayersCacheKey, Set<QualifiedLayerName>> visibleLayersCache;
+
+    public GeoServiceAuthorizationService(
+            IAuthService authorizationService,
+            GatewayService gatewayService,
+            GeoServiceRepository geoServiceRepository,
+            GeoServiceProperties geoServiceProperties,
+            ReactiveCacheFactory reactiveCacheFactory
+    ) {
+        this.authorizationService = authorizationService;
+        this.gatewayService = gatewayService;
+        this.geoServiceRepository = geoServiceRepository;
+        this.visibleLayersCache = reactiveCacheFactory.create(
+                VISIBLE_LAYERS_CACHE_NAME,
+                geoServiceProperties.getVisibleLayersCache(),
+                new TypeReference<>() {
+                }
+        );
+    }
+
     public Mono<Set<QualifiedLayerName>> getNonHiddenGeoServiceLayersLowercased() {
         return authorizationService.getGrantedAsAuthorizationGroup()
-                .flatMapMany(authorizationGroup -> geoServiceRepository.findNonHiddenGeoServiceLayers(gatewayService.getStage(), authorizationGroup))
+                .map(authorizationGroup -> new VisibleLayersCacheKey(gatewayService.getStage(), AuthorizationGroupKey.of(authorizationGroup)))
+                .flatMap(cacheKey -> visibleLayersCache.get(cacheKey, Mono.defer(() -> loadNonHiddenGeoServiceLayersLowercased(cacheKey))));
+    }
+
+    private Mono<Set<QualifiedLayerName>> loadNonHiddenGeoServiceLayersLowercased(VisibleLayersCacheKey cacheKey) {
+        return geoServiceRepository.findNonHiddenGeoServiceLayers(cacheKey.stage(), cacheKey.authorizationGroupKey().toAuthorizationGroup())
                 .map(String::toLowerCase) // geoserver layer names are case-insensitive
                 .map(QualifiedLayerName::fromString)
                 .collectList()
                 .map(Set::copyOf);
+    }
+
+    /**
+     * The admin-manager refreshes the gateway routes after changes to the configuration,
+     * which may also have changed the visibility of layers. Changes of the configuration
+     * tables are also published directly, if change notifications are enabled.
+     */
+    @EventListener({RefreshRoutesEvent.class, ConfigurationChangedEvent.class})
+    public void invalidateVisibleLayersCache() {
+        visibleLayersCache.invalidateAll();
+    }
 
+    record VisibleLayersCacheKey(Stage stage, AuthorizationGroupKey authorizationGroupKey) {
     }
 }
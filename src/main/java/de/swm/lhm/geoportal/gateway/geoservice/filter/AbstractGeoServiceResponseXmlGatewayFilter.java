@@ -1,5 +1,6 @@
 package de.swm.lhm.geoportal.gateway.geoservice.filter;
 
+import de.swm.lhm.geoportal.gateway.geoservice.filter.response.AbstractXmlBodyModifyingServerHttpResponse;
 import de.swm.lhm.geoportal.gateway.geoservice.filter.response.XmlBodyModifyingServerHttpResponse;
 import de.swm.lhm.geoportal.gateway.geoservice.inspect.GeoServiceInspectorService;
 import de.swm.lhm.geoportal.gateway.geoservice.inspect.GeoServiceRequest;
@@ -29,21 +30,26 @@ abstract class AbstractGeoServiceResponseXmlGatewayFilter extends AbstractGeoSer
     @Override
     Mono<Void> filterGeoService(ServerWebExchange exchange, GatewayFilterChain chain, GeoServiceRequest geoServiceRequest) {
         if (Boolean.TRUE.equals(this.isApplicable(geoServiceRequest))) {
-
-            XmlBodyModifyingServerHttpResponse responseWrapper = new XmlBodyModifyingServerHttpResponse(
-                    exchange.getResponse(),
-                    documentBuilderFactory,
-                    geoServiceInspectorService.getGeoServiceProperties(),
-                    this.messageBodyEncodingService) {
-                @Override
-                protected Mono<Document> processBodyDocument(Document document) {
-                    return rewriteDocument(document, geoServiceRequest);
-                }
-            };
-
+            AbstractXmlBodyModifyingServerHttpResponse responseWrapper = createResponseWrapper(exchange, geoServiceRequest);
             return chain.filter(responseWrapper.mutateServerWebExchange(exchange));
         } else {
             return chain.filter(exchange);
         }
     }
+
+    /**
+     * wraps the response to rewrite the document using {@link #rewriteDocument(Document, GeoServiceRequest)}
+     */
+    protected AbstractXmlBodyModifyingServerHttpResponse createResponseWrapper(ServerWebExchange exchange, GeoServiceRequest geoServiceRequest) {
+        return new XmlBodyModifyingServerHttpResponse(
+                exchange.getResponse(),
+                documentBuilderFactory,
+                geoServiceInspectorService.getGeoServiceProperties(),
+                this.messageBodyEncodingService) {
+            @Override
+            protected Mono<Document> processBodyDocument(Document document) {
+                return rewriteDocument(document, geoServiceRequest);
+            }
+        };
+    }
 }
@@ -0,0 +1,204 @@
+package de.swm.lhm.geoportal.gateway.geoservice.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import de.swm.lhm.geoportal.gateway.authorization.IAuthService;
+import de.swm.lhm.geoportal.gateway.authorization.model.AuthorizationGroupKey;
+import de.swm.lhm.geoportal.gateway.filter.gatewayfilter.FilterOrder;
+import de.swm.lhm.geoportal.gateway.geoservice.GeoServiceProperties;
+import de.swm.lhm.geoportal.gateway.geoservice.inspect.GeoServiceInspectorService;
+import de.swm.lhm.geoportal.gateway.geoservice.inspect.GeoServiceRequest;
+import de.swm.lhm.geoportal.gateway.geoservice.inspect.GeoServiceRequestType;
+import de.swm.lhm.geoportal.gateway.shared.change_notification.ConfigurationChangedEvent;
+import de.swm.lhm.geoportal.gateway.util.DataBufferUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Caches the complete, already filtered GetCapabilities responses.
+ * <p>
+ * The capabilities document only depends on the request parameters, the granted roles of the user
+ * and the accepted content encodings. Users sharing these get the cached response without
+ * forwarding the request to the geoserver and without rewriting the document again.
+ * <p>
+ * Cached responses carry an ETag, so clients can revalidate them using If-None-Match.
+ */
+@Component
+@Slf4j
+public class GetCapabilitiesCachingGatewayFilter extends AbstractGeoServiceGatewayFilter implements Ordered {
+
+    static final String CAPABILITIES_CACHE_NAME = "geoservice.capabilities";
+
+    // headers which belong to the individual response and must not be replayed from the cache
+    private static final Set<String> UNCACHEABLE_HEADERS = Set.of(
+            HttpHeaders.SET_COOKIE.toLowerCase(Locale.ROOT),
+            HttpHeaders.DATE.toLowerCase(Locale.ROOT),
+            HttpHeaders.CONTENT_LENGTH.toLowerCase(Locale.ROOT),
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase(Locale.ROOT),
+            HttpHeaders.CONNECTION.toLowerCase(Locale.ROOT),
+            "keep-alive",
+            HttpHeaders.ETAG.toLowerCase(Locale.ROOT)
+    );
+
+    // rough estimate of the memory used by the key and the headers of an entry
+    private static final int ENTRY_OVERHEAD_BYTES = 1024;
+
+    private final IAuthService authService;
+    private final boolean enabled;
+    private final Cache<CacheKey, CachedCapabilities> cache;
+
+    GetCapabilitiesCachingGatewayFilter(
+            GeoServiceInspectorService geoServiceInspectorService,
+            IAuthService authService,
+            GeoServiceProperties geoServiceProperties,
+            MeterRegistry meterRegistry
+    ) {
+        super(geoServiceInspectorService);
+        this.authService = authService;
+
+        GeoServiceProperties.CapabilitiesCacheProperties properties = geoServiceProperties.getCapabilitiesCache();
+        this.enabled = properties.isEnabled();
+        this.cache = CaffeineCacheMetrics.monitor(
+                meterRegistry,
+                Caffeine.newBuilder()
+                        .maximumWeight(properties.getMaximumSize().toBytes())
+                        .weigher((CacheKey key, CachedCapabilities value) -> value.body().length + ENTRY_OVERHEAD_BYTES)
+                        .expireAfterWrite(properties.getExpireAfterWrite())
+                        .scheduler(Scheduler.systemScheduler())
+                        .recordStats()
+                        .build(),
+                CAPABILITIES_CACHE_NAME
+        );
+    }
+
+    @Override
+    Mono<Void> filterGeoService(ServerWebExchange exchange, GatewayFilterChain chain, GeoServiceRequest geoServiceRequest) {
+        if (!isCacheable(geoServiceRequest)) {
+            return chain.filter(exchange);
+        }
+
+        return authService.getGrantedAsAuthorizationGroup()
+                .map(authorizationGroup -> new CacheKey(
+                        exchange.getRequest().getPath().value(),
+                        Map.copyOf(geoServiceRequest.getParamsNormalized()),
+                        AuthorizationGroupKey.of(authorizationGroup),
+                        normalizeAcceptEncoding(exchange.getRequest().getHeaders())
+                ))
+                .flatMap(cacheKey -> {
+                    CachedCapabilities cached = cache.getIfPresent(cacheKey);
+                    if (cached != null) {
+                        return writeCached(exchange, cached);
+                    }
+                    return chain.filter(exchange.mutate()
+                            .response(new CachingServerHttpResponse(exchange.getResponse(), cacheKey))
+                            .build());
+                });
+    }
+
+    private boolean isCacheable(GeoServiceRequest geoServiceRequest) {
+        return enabled
+                && HttpMethod.GET.equals(geoServiceRequest.getHttpMethod())
+                && geoServiceRequest.is(GeoServiceRequestType.GET_CAPABILITIES);
+    }
+
+    private static String normalizeAcceptEncoding(HttpHeaders headers) {
+        return StringUtils.defaultString(headers.getFirst(HttpHeaders.ACCEPT_ENCODING))
+                .trim()
+                .toLowerCase(Locale.ROOT);
+    }
+
+    private Mono<Void> writeCached(ServerWebExchange exchange, CachedCapabilities cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        if (exchange.checkNotModified(cached.etag())) {
+            return response.setComplete();
+        }
+        response.setStatusCode(HttpStatus.OK);
+        response.getHeaders().putAll(cached.headers());
+        response.getHeaders().setETag(cached.etag());
+        response.getHeaders().setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    /**
+     * The admin-manager refreshes the gateway routes after changes to the configuration,
+     * which may also have changed the contents of the capabilities documents. Changes of the
+     * configuration tables are also published directly, if change notifications are enabled.
+     */
+    @EventListener({RefreshRoutesEvent.class, ConfigurationChangedEvent.class})
+    public void invalidateCache() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public int getOrder() {
+        return FilterOrder.RESPONSE_CACHE_FILTER.getOrder();
+    }
+
+    record CacheKey(String path, Map<String, String> params, AuthorizationGroupKey authorizationGroupKey, String acceptEncoding) {
+    }
+
+    record CachedCapabilities(HttpHeaders headers, byte[] body, String etag) {
+    }
+
+    private class CachingServerHttpResponse extends ServerHttpResponseDecorator {
+
+        private final CacheKey cacheKey;
+
+        CachingServerHttpResponse(ServerHttpResponse delegate, CacheKey cacheKey) {
+            super(delegate);
+            this.cacheKey = cacheKey;
+        }
+
+        private boolean isCacheableResponse() {
+            HttpStatusCode statusCode = getStatusCode();
+            return statusCode == null || statusCode.isSameCodeAs(HttpStatus.OK);
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (!isCacheableResponse()) {
+                return super.writeWith(body);
+            }
+            return org.springframework.core.io.buffer.DataBufferUtils.join(body)
+                    .flatMap(dataBuffer -> {
+                        byte[] bytes = DataBufferUtils.readDataBufferAsByteArray(dataBuffer);
+                        String eTag = "\"" + DigestUtils.md5DigestAsHex(bytes) + "\"";
+
+                        HttpHeaders headers = new HttpHeaders();
+                        getHeaders().forEach((name, values) -> {
+                            if (!UNCACHEABLE_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                                headers.addAll(name, values);
+                            }
+                        });
+                        cache.put(cacheKey, new CachedCapabilities(HttpHeaders.readOnlyHttpHeaders(headers), bytes, eTag));
+                        log.debug("Cached GetCapabilities response for {}", cacheKey.path());
+
+                        getHeaders().setETag(eTag);
+                        return super.writeWith(Mono.just(dataBuffer));
+                    });
+        }
+    }
+}
@@ -1,16 +1,21 @@
 package de.swm.lhm.geoportal.gateway.geoservice.filter;
 
+import de.swm.lhm.geoportal.gateway.geoservice.GeoServiceProperties;
 import de.swm.lhm.geoportal.gateway.geoservice.authorization.GeoServiceAuthorizationService;
+import de.swm.lhm.geoportal.gateway.geoservice.filter.response.AbstractXmlBodyModifyingServerHttpResponse;
+import de.swm.lhm.geoportal.gateway.geoservice.filter.response.XmlStreamModifyingServerHttpResponse;
 import de.swm.lhm.geoportal.gateway.geoservice.gfi.GfiFilter;
 import de.swm.lhm.geoportal.gateway.geoservice.inspect.GeoServiceInspectorService;
 import de.swm.lhm.geoportal.gateway.geoservice.inspect.GeoServiceRequest;
 import de.swm.lhm.geoportal.gateway.geoservice.inspect.GeoServiceRequestType;
 import de.swm.lhm.geoportal.gateway.geoservice.inspect.QualifiedLayerName;
+import de.swm.lhm.geoportal.gateway.util.XmlEventRewriter;
 import de.swm.lhm.geoportal.gateway.util.XmlUtils;
 import de.swm.lhm.geoportal.gateway.util.messagebody.MessageBodyEncodingService;
 import jakarta.annotation.PostConstruct;
 import lombok.SneakyThrows;
 import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
 import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
@@ -21,6 +26,7 @@ import javax.xml.xpath.XPathExpression;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 import java.util.function.Predicate;
 
 @Component
@@ -86,13 +92,7 @@ public class GetCapabilitiesGatewayFilter extends AbstractGeoServiceResponseXmlG
 
                     XPathExpressions localXPathExpressions = xPathExpressions.get();
 
-                    Predicate<String> isLayerAllowed = layerName ->
-                            QualifiedLayerName.fromStringWithWorkspaceFallback(
-                                            geoServiceRequest.getWorkspaceName()
-                                                    .map(String::toLowerCase),
-                                            layerName.toLowerCase(Locale.ROOT))
-                                    .map(allowedLayerNames::contains)
-                                    .orElse(false);
+                    Predicate<String> isLayerAllowed = layerAllowedPredicate(allowedLayerNames, geoServiceRequest);
 
                     // nodes get removed after all xpath expressions have been applied to
                     // avoid modifying a document while it is queried.
@@ -116,15 +116,26 @@ public class GetCapabilitiesGatewayFilter extends AbstractGeoServiceResponseXmlG
                 });
     }
 
+    private static Predicate<String> layerAllowedPredicate(Set<QualifiedLayerName> allowedLayerNames, GeoServiceRequest geoServiceRequest) {
+        return layerName ->
+                QualifiedLayerName.fromStringWithWorkspaceFallback(
+                                geoServiceRequest.getWorkspaceName()
+                                        .map(String::toLowerCase),
+                                layerName.toLowerCase(Locale.ROOT))
+                        .map(allowedLayerNames::contains)
+                        .orElse(false);
+    }
+
+    private boolean isGfiFormatSupported(String format) {
+        return gfiFilters.stream()
+                .anyMatch(gfiFilter -> gfiFilter.supportsFormat(format));
+    }
+
     Document removeNonSupportedGetFeatureInfoFormats(Document document) {
         List<Node> nodesToRemove = new ArrayList<>();
 
         XmlUtils.xPathToStream(xPathExpressions.get().xpWmsGfiFormats, document)
-                .filter(node -> {
-                    String format = node.getTextContent().strip();
-                    return gfiFilters.stream()
-                            .noneMatch(gfiFilter -> gfiFilter.supportsFormat(format));
-                })
+                .filter(node -> !isGfiFormatSupported(node.getTextContent().strip()))
                 .forEach(node ->
                         // remove the parent node, see used xpath expressions
                         nodesToRemove.add(node.getParentNode())
@@ -134,6 +145,26 @@ public class GetCapabilitiesGatewayFilter extends AbstractGeoServiceResponseXmlG
         return document;
     }
 
+    @Override
+    protected AbstractXmlBodyModifyingServerHttpResponse createResponseWrapper(ServerWebExchange exchange, GeoServiceRequest geoServiceRequest) {
+        GeoServiceProperties geoServiceProperties = geoServiceInspectorService.getGeoServiceProperties();
+        if (geoServiceProperties.getGetCapabilitiesRewriteMode() != GeoServiceProperties.RewriteMode.STREAMING) {
+            return super.createResponseWrapper(exchange, geoServiceRequest);
+        }
+
+        return new XmlStreamModifyingServerHttpResponse(exchange.getResponse(), geoServiceProperties, messageBodyEncodingService) {
+            @Override
+            protected Mono<XmlEventRewriter> createEventRewriter() {
+                return geoServiceAuthorizationService.getNonHiddenGeoServiceLayersLowercased()
+                        .map(allowedLayerNames -> new GetCapabilitiesXmlEventRewriter(
+                                geoServiceInspectorService::isBlockedRequestType,
+                                layerAllowedPredicate(allowedLayerNames, geoServiceRequest),
+                                GetCapabilitiesGatewayFilter.this::isGfiFormatSupported
+                        ));
+            }
+        };
+    }
+
     @Override
     protected Mono<Document> rewriteDocument(Document document, GeoServiceRequest geoServiceRequest) {
         return Mono.fromCallable(() -> removeBlockedRequests(document))
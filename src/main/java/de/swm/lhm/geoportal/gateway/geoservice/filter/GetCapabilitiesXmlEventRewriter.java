@@ -0,0 +1,225 @@
+package de.swm.lhm.geoportal.gateway.geoservice.filter;
+
+import de.swm.lhm.geoportal.gateway.util.XmlEventRewriter;
+import de.swm.lhm.geoportal.gateway.util.XmlUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Streaming counterpart of the DOM based rewriting of {@link GetCapabilitiesGatewayFilter}.
+ * <p>
+ * Removes blocked operations, non-visible layers, legend urls and GetFeatureInfo operations offering
+ * an unsupported format in a single pass. Elements which can be dropped by their start tag are skipped
+ * directly, layers are buffered until their name is known, which is at the start of the element, and
+ * GetFeatureInfo operations until their formats are known.
+ */
+class GetCapabilitiesXmlEventRewriter implements XmlEventRewriter {
+
+    private static final QName NAME_ATTRIBUTE = new QName("name");
+
+    private final Predicate<String> isBlockedRequestType;
+    private final Predicate<String> isLayerAllowed;
+    private final Predicate<String> isGfiFormatSupported;
+    private final boolean removeLegendUrls;
+
+    // local names of the currently open elements, innermost first
+    private final Deque<String> path = new ArrayDeque<>();
+
+    // depth of the currently skipped subtree, 0 if nothing is skipped
+    private int skipDepth = 0;
+
+    private PendingElement pendingElement;
+
+    GetCapabilitiesXmlEventRewriter(Predicate<String> isBlockedRequestType, Predicate<String> isLayerAllowed, Predicate<String> isGfiFormatSupported) {
+        this.isBlockedRequestType = isBlockedRequestType;
+        this.isLayerAllowed = isLayerAllowed;
+        this.isGfiFormatSupported = isGfiFormatSupported;
+        this.removeLegendUrls = isBlockedRequestType.test("getlegendgraphic");
+    }
+
+    @Override
+    public void rewrite(XMLEvent event, XMLEventWriter writer) throws XMLStreamException {
+        if (event.isStartElement()) {
+            path.push(event.asStartElement().getName().getLocalPart());
+        }
+
+        handle(event, writer);
+
+        if (event.isEndElement()) {
+            path.pop();
+        }
+    }
+
+    private void handle(XMLEvent event, XMLEventWriter writer) throws XMLStreamException {
+        if (skipDepth > 0) {
+            if (event.isStartElement()) {
+                skipDepth++;
+            } else if (event.isEndElement()) {
+                skipDepth--;
+            }
+            return;
+        }
+
+        if (event.isStartElement() && isRemovedByStartElement(event.asStartElement())) {
+            skipDepth = 1;
+            return;
+        }
+
+        if (pendingElement != null) {
+            if (event.isStartElement() && pendingElement.isLayer && pendingElement.depth == 1 && isPathAt("Layer")) {
+                // nested layer before the name of the parent layer, the parent has no name
+                // and is kept as are unnamed layers in the DOM based rewrite
+                pendingElement.writeTo(writer);
+                pendingElement = null;
+            } else {
+                handlePending(event, writer);
+                return;
+            }
+        }
+
+        if (event.isStartElement()) {
+            if (isPathAt("Layer") || isPathAt("FeatureType")) {
+                pendingElement = new PendingElement(true);
+                pendingElement.accept(event);
+                return;
+            }
+            if (isPathAt("GetFeatureInfo", "Request", "Capability")) {
+                pendingElement = new PendingElement(false);
+                pendingElement.accept(event);
+                return;
+            }
+        }
+
+        write(event, writer);
+    }
+
+    private void handlePending(XMLEvent event, XMLEventWriter writer) throws XMLStreamException {
+        Decision decision = pendingElement.accept(event);
+        if (decision == Decision.KEEP) {
+            pendingElement.writeTo(writer);
+            pendingElement = null;
+        } else if (decision == Decision.DROP) {
+            // skip the remainder of the element
+            skipDepth = pendingElement.depth;
+            pendingElement = null;
+        }
+    }
+
+    private boolean isRemovedByStartElement(StartElement startElement) {
+        String localName = startElement.getName().getLocalPart();
+
+        // operations of WFS and WMTS
+        if (isPathAt("Operation", "OperationsMetadata")) {
+            Attribute nameAttribute = startElement.getAttributeByName(NAME_ATTRIBUTE);
+            return nameAttribute != null && isBlockedRequestType.test(nameAttribute.getValue());
+        }
+
+        // operations of WMS
+        if (isPathAt(localName, "Request", "Capability")) {
+            return isBlockedRequestType.test(localName)
+                    || isBlockedRequestType.test(qualifiedName(startElement.getName()));
+        }
+
+        return removeLegendUrls && "LegendURL".equals(localName);
+    }
+
+    private static String qualifiedName(QName name) {
+        return StringUtils.isEmpty(name.getPrefix())
+                ? name.getLocalPart()
+                : name.getPrefix() + ":" + name.getLocalPart();
+    }
+
+    /**
+     * check the local names of the innermost open elements, starting with the current element
+     */
+    private boolean isPathAt(String... localNames) {
+        if (path.size() < localNames.length) {
+            return false;
+        }
+        Iterator<String> pathIterator = path.iterator();
+        for (String localName : localNames) {
+            if (!localName.equals(pathIterator.next())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void write(XMLEvent event, XMLEventWriter writer) throws XMLStreamException {
+        XmlUtils.writeCompactedXmlEvent(event, writer);
+    }
+
+    private enum Decision {
+        UNDECIDED, KEEP, DROP
+    }
+
+    /**
+     * A layer or feature type element which is buffered until its name is known, or a GetFeatureInfo
+     * element which is buffered until all its formats are known to be supported, as the DOM based
+     * rewrite removes the whole operation if one of them is not.
+     */
+    private class PendingElement {
+        private final boolean isLayer;
+        private final List<XMLEvent> events = new ArrayList<>();
+        private final StringBuilder name = new StringBuilder();
+        private boolean collectingName = false;
+        private int depth = 0;
+
+        PendingElement(boolean isLayer) {
+            this.isLayer = isLayer;
+        }
+
+        Decision accept(XMLEvent event) {
+            events.add(event);
+            if (event.isStartElement()) {
+                depth++;
+                if (isLayer && depth == 2) {
+                    String localName = event.asStartElement().getName().getLocalPart();
+                    collectingName = "Name".equals(localName) || "Identifier".equals(localName);
+                } else if (!isLayer && depth == 2) {
+                    collectingName = "Format".equals(event.asStartElement().getName().getLocalPart());
+                    name.setLength(0);
+                }
+            } else if (event.isCharacters() && collectingName) {
+                name.append(event.asCharacters().getData());
+            } else if (event.isEndElement()) {
+                depth--;
+                if (isLayer) {
+                    if (collectingName && depth == 1) {
+                        return isLayerAllowed.test(name.toString()) ? Decision.KEEP : Decision.DROP;
+                    }
+                    if (depth == 0) {
+                        // no name, nothing to check
+                        return Decision.KEEP;
+                    }
+                } else if (collectingName && depth == 1) {
+                    collectingName = false;
+                    if (!isGfiFormatSupported.test(name.toString().strip())) {
+                        return Decision.DROP;
+                    }
+                } else if (depth == 0) {
+                    return Decision.KEEP;
+                }
+            }
+            return Decision.UNDECIDED;
+        }
+
+        void writeTo(XMLEventWriter writer) throws XMLStreamException {
+            for (XMLEvent event : events) {
+                write(event, writer);
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package de.swm.lhm.geoportal.gateway.geoservice.filter;
 
 import de.swm.lhm.geoportal.gateway.filter.response.BodyModifyingServerHttpResponse;
+import de.swm.lhm.geoportal.gateway.geoservice.GeoServiceProperties;
 import de.swm.lhm.geoportal.gateway.geoservice.gfi.GfiFilter;
 import de.swm.lhm.geoportal.gateway.geoservice.inspect.GeoServiceInspectorService;
 import de.swm.lhm.geoportal.gateway.geoservice.inspect.GeoServiceRequest;
@@ -28,11 +29,13 @@ public class GetFeatureInfoGatewayFilter extends AbstractGeoServiceResponseGatew
     public static final String MESSAGE_NO_CONTENT_TYPE = "GetFeatureInfo response contained no content-type";
 
     private final List<GfiFilter> gfiFilters;
+    private final GeoServiceProperties geoServiceProperties;
 
     GetFeatureInfoGatewayFilter(GeoServiceInspectorService geoServiceInspectorService, List<GfiFilter> gfiFilters,
-            MessageBodyEncodingService messageBodyEncodingService) {
+            MessageBodyEncodingService messageBodyEncodingService, GeoServiceProperties geoServiceProperties) {
         super(geoServiceInspectorService, messageBodyEncodingService);
         this.gfiFilters = gfiFilters;
+        this.geoServiceProperties = geoServiceProperties;
     }
 
     @Override
@@ -64,6 +67,9 @@ public class GetFeatureInfoGatewayFilter extends AbstractGeoServiceResponseGatew
 
                 for (GfiFilter gfiFilter : gfiFilters) {
                     if (gfiFilter.supportsFormat(responseContentType)) {
+                        if (geoServiceProperties.getGetFeatureInfoRewriteMode() == GeoServiceProperties.RewriteMode.STREAMING) {
+                            return gfiFilter.filterGetFeatureInfoBody(geoServiceRequest, body, getDelegate().bufferFactory());
+                        }
                         return DataBufferUtils.copyAsString(body)
                                 .flatMap(responseBodyString -> gfiFilter.filterGetFeatureInfoBody(geoServiceRequest, responseBodyString))
                                 .map(filteredResponseBodyString -> getDelegate().bufferFactory().wrap(filteredResponseBodyString.getBytes(UTF_8)));
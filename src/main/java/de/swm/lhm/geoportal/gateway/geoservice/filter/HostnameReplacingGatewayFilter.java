@@ -1,22 +1,17 @@
 package de.swm.lhm.geoportal.gateway.geoservice.filter;
 
-import de.swm.lhm.geoportal.gateway.filter.response.BodyModifyingServerHttpResponse;
+import de.swm.lhm.geoportal.gateway.filter.response.StreamingBodyReplacingServerHttpResponse;
 import de.swm.lhm.geoportal.gateway.geoservice.HostReplacer;
 import de.swm.lhm.geoportal.gateway.geoservice.inspect.GeoServiceInspectorService;
 import de.swm.lhm.geoportal.gateway.geoservice.inspect.GeoServiceRequest;
 import de.swm.lhm.geoportal.gateway.geoservice.inspect.GeoServiceRequestType;
 import de.swm.lhm.geoportal.gateway.shared.model.ServiceType;
-import de.swm.lhm.geoportal.gateway.util.DataBufferUtils;
-import de.swm.lhm.geoportal.gateway.util.HttpHeaderUtils;
 import de.swm.lhm.geoportal.gateway.util.messagebody.MessageBodyEncodingService;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
-import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-
 @Component
 public class HostnameReplacingGatewayFilter extends AbstractGeoServiceResponseGatewayFilter {
     final HostReplacer hostReplacer;
@@ -31,20 +26,11 @@ public class HostnameReplacingGatewayFilter extends AbstractGeoServiceResponseGa
     Mono<Void> filterGeoService(ServerWebExchange exchange, GatewayFilterChain chain, GeoServiceRequest geoServiceRequest) {
         if (isApplicable(geoServiceRequest)) {
 
-            BodyModifyingServerHttpResponse responseWrapper = new BodyModifyingServerHttpResponse(exchange.getResponse(), this.messageBodyEncodingService) {
-
-                @Override
-                public Mono<Boolean> supportsBodyRewrite() {
-                    return Mono.just(HttpHeaderUtils.isTextFormatContentType(getHeaders()));
-                }
-
-                @Override
-                protected Mono<DataBuffer> processBody(Mono<DataBuffer> body) {
-                    return DataBufferUtils.copyAsString(body)
-                            .map(hostReplacer::replaceInternalHostNames)
-                            .map(xmlString -> getDelegate().bufferFactory().wrap(xmlString.getBytes(UTF_8)));
-                }
-            };
+            StreamingBodyReplacingServerHttpResponse responseWrapper = new StreamingBodyReplacingServerHttpResponse(
+                    exchange.getResponse(),
+                    this.messageBodyEncodingService,
+                    hostReplacer.getInternalHostNameReplacer()
+            );
 
             return chain.filter(responseWrapper.mutateServerWebExchange(exchange));
         } else {
@@ -0,0 +1,105 @@
+package de.swm.lhm.geoportal.gateway.geoservice.filter.response;
+
+import de.swm.lhm.geoportal.gateway.filter.response.BodyModifyingServerHttpResponse;
+import de.swm.lhm.geoportal.gateway.geoservice.GeoServiceProperties;
+import de.swm.lhm.geoportal.gateway.shared.exceptions.DeserializationException;
+import de.swm.lhm.geoportal.gateway.shared.exceptions.SerializationException;
+import de.swm.lhm.geoportal.gateway.util.DataBufferUtils;
+import de.swm.lhm.geoportal.gateway.util.HttpHeaderUtils;
+import de.swm.lhm.geoportal.gateway.util.messagebody.MessageBodyEncodingService;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+/**
+ * Base class of the responses rewriting xml documents, takes care of rejecting non-xml responses
+ * and of rendering errors as xml.
+ */
+@Slf4j
+public abstract class AbstractXmlBodyModifyingServerHttpResponse extends BodyModifyingServerHttpResponse {
+    final GeoServiceProperties geoServiceProperties;
+
+    protected AbstractXmlBodyModifyingServerHttpResponse(ServerHttpResponse delegate, GeoServiceProperties geoServiceProperties,
+                                                         MessageBodyEncodingService messageBodyEncodingService) {
+        super(delegate, messageBodyEncodingService);
+        this.geoServiceProperties = geoServiceProperties;
+    }
+
+    @Override
+    protected Mono<Void> writeErrorDetails(ErrorDetails errorDetails) {
+        return super.writeErrorDetails(errorDetails
+                .mapMessage(message -> String.format("<error>%s</error>", message)));
+    }
+
+    @Override
+    protected Optional<ErrorDetails> getErrorDetails(Throwable e) {
+        return switch (e) {
+            case XmlRewriteException xre ->
+                    Optional.of(new ErrorDetails(HttpStatus.INTERNAL_SERVER_ERROR, xre.getMessage()));
+            case SerializationException se ->
+                    Optional.of(new ErrorDetails(HttpStatus.INTERNAL_SERVER_ERROR, se.getMessage()));
+            case DeserializationException de ->
+                    Optional.of(new ErrorDetails(HttpStatus.INTERNAL_SERVER_ERROR, de.getMessage()));
+            default -> super.getErrorDetails(e);
+        };
+    }
+
+    @Override
+    protected MediaType getErrorContentType() {
+        return MediaType.TEXT_XML;
+    }
+
+    @Override
+    public Mono<Boolean> supportsBodyRewrite() {
+        return Mono.just(HttpHeaderUtils.isContentTypeXmlOrGml(getHeaders()));
+    }
+
+    @Override
+    protected Optional<Mono<Void>> rejectBody(Publisher<? extends DataBuffer> body) {
+        HttpHeaders headers = getDelegate().getHeaders();
+        if (!HttpHeaderUtils.isContentTypeXmlOrGml(headers)) {
+            String message = "Received non-xml content-type from upstream service (http status: %s)"
+                    .formatted(getDelegate().getStatusCode());
+
+            Mono<String> bodyStringMono = Mono.empty();
+            if (HttpHeaderUtils.isTextFormatContentType(headers)) {
+                bodyStringMono = decompressBody(org.springframework.core.io.buffer.DataBufferUtils.join(body))
+                        .map(DataBufferUtils::readDataBufferAsString);
+            }
+
+            return Optional.of(bodyStringMono
+                    .map(bodyString -> {
+                        if (log.isDebugEnabled()) {
+                            log.warn("{} [disable debug logging to hide body]: \n{}", message, bodyString);
+                        } else {
+                            log.warn("{}: [enable debug logging for received body]", message);
+                        }
+                        return true;
+                    })
+                    .switchIfEmpty(Mono.fromCallable(() -> {
+                        log.warn("{}: [non-textual body]", message);
+                        return true;
+                    }))
+                    .then(this.writeErrorDetails(new ErrorDetails(HttpStatus.INTERNAL_SERVER_ERROR, message))));
+
+        }
+        return Optional.empty();
+    }
+
+    protected static class XmlRewriteException extends RuntimeException {
+        public XmlRewriteException(String userMessage, Throwable e) {
+            super(userMessage, e);
+        }
+
+        public XmlRewriteException(String userMessage) {
+            super(userMessage);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package de.swm.lhm.geoportal.gateway.geoservice.filter.response;
+
+import de.swm.lhm.geoportal.gateway.geoservice.GeoServiceProperties;
+import de.swm.lhm.geoportal.gateway.util.DataBufferUtils;
+import de.swm.lhm.geoportal.gateway.util.XmlEventRewriter;
+import de.swm.lhm.geoportal.gateway.util.XmlUtils;
+import de.swm.lhm.geoportal.gateway.util.messagebody.MessageBodyEncodingService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Rewrites xml documents in a single pass over the StAX events of the body.
+ * <p>
+ * In contrast to {@link XmlBodyModifyingServerHttpResponse} no DOM is built, the events are written
+ * to the output buffer as soon as the {@link XmlEventRewriter} decided to keep them.
+ */
+@Slf4j
+public abstract class XmlStreamModifyingServerHttpResponse extends AbstractXmlBodyModifyingServerHttpResponse {
+
+    protected XmlStreamModifyingServerHttpResponse(ServerHttpResponse delegate, GeoServiceProperties geoServiceProperties,
+                                                   MessageBodyEncodingService messageBodyEncodingService) {
+        super(delegate, geoServiceProperties, messageBodyEncodingService);
+    }
+
+    protected abstract Mono<XmlEventRewriter> createEventRewriter();
+
+    @Override
+    protected Mono<DataBuffer> processBody(Mono<DataBuffer> body) {
+        return createEventRewriter()
+                .flatMap(eventRewriter -> body.flatMap(dataBuffer -> DataBufferUtils.withDataBufferRelease(
+                        dataBuffer,
+                        // runs on the current thread, the buffer may be released by the decompression
+                        // as soon as this returns. The processing time is limited within rewrite.
+                        inputBuffer -> Mono.fromCallable(() -> rewrite(inputBuffer, eventRewriter)),
+                        log,
+                        () -> getClass().getName() + " release xml input data buffer"
+                )));
+    }
+
+    private DataBuffer rewrite(DataBuffer inputBuffer, XmlEventRewriter eventRewriter) throws TimeoutException, IOException {
+        DataBuffer outputBuffer = getDelegate().bufferFactory().allocateBuffer(inputBuffer.readableByteCount());
+        boolean success = false;
+        try (InputStream inputStream = inputBuffer.asInputStream(); OutputStream outputStream = outputBuffer.asOutputStream()) {
+            XmlUtils.rewriteXmlEvents(inputStream, outputStream, eventRewriter, geoServiceProperties.getSanitizedMaxXmlParsingDurationMs());
+            success = true;
+            return outputBuffer;
+        } finally {
+            if (!success) {
+                DataBufferUtils.releaseDataBuffer(outputBuffer, log, () -> getClass().getName() + " release xml output data buffer");
+            }
+        }
+    }
+}
@@ -2,19 +2,26 @@ package de.swm.lhm.geoportal.gateway.geoservice.gfi;
 
 import de.swm.lhm.geoportal.gateway.geoservice.PropertyFieldService;
 import de.swm.lhm.geoportal.gateway.geoservice.inspect.GeoServiceRequest;
-import de.swm.lhm.geoportal.gateway.geoservice.model.PropertyField;
-import de.swm.lhm.geoportal.gateway.util.ReactiveUtils;
+import de.swm.lhm.geoportal.gateway.util.DataBufferUtils;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.util.function.Tuples;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 @RequiredArgsConstructor
+@Slf4j
 abstract class AbstractGfiFilter implements GfiFilter {
     // Springs MediaType.parseMediatype can not parse Mediatypes with subtypes ("text/xml; subtype=gml/3.1.1"), or formats like
     // "application/vnd.ogc.gml/3.1.1" as announced by geoserver. So this regex is used first
@@ -40,12 +47,50 @@ abstract class AbstractGfiFilter implements GfiFilter {
 
     abstract Mono<String> filterBody(LayerNameResolver layerNameResolver, String body, ReferencedColumnValueTransformer referencedColumnValueTransformer);
 
+    abstract void filterBody(LayerNameResolver layerNameResolver, InputStream body, OutputStream filteredBody, ReferencedColumnValueFilter referencedColumnValueFilter)
+            throws IOException, TimeoutException;
 
     @Override
     public Mono<String> filterGetFeatureInfoBody(GeoServiceRequest geoServiceRequest, String body) {
+        return createLayerNameResolver(geoServiceRequest)
+                .flatMap(layerNameResolver -> createReferencedColumnValueFilter(layerNameResolver)
+                        .flatMap(referencedColumnValueFilter -> filterBody(layerNameResolver, body, referencedColumnValue ->
+                                Mono.justOrEmpty(referencedColumnValueFilter.apply(referencedColumnValue)))));
+    }
+
+    @Override
+    public Mono<DataBuffer> filterGetFeatureInfoBody(GeoServiceRequest geoServiceRequest, Mono<DataBuffer> body, DataBufferFactory dataBufferFactory) {
+        // the property fields are loaded before subscribing to the body, the body is then processed
+        // synchronously and released afterwards
+        return createLayerNameResolver(geoServiceRequest)
+                .flatMap(layerNameResolver -> createReferencedColumnValueFilter(layerNameResolver)
+                        .flatMap(referencedColumnValueFilter -> body.flatMap(dataBuffer -> DataBufferUtils.withDataBufferRelease(
+                                dataBuffer,
+                                inputBuffer -> Mono.fromCallable(() ->
+                                        filterDataBuffer(layerNameResolver, inputBuffer, dataBufferFactory, referencedColumnValueFilter)),
+                                log,
+                                () -> getClass().getName() + " release GetFeatureInfo input data buffer"
+                        ))));
+    }
 
+    private DataBuffer filterDataBuffer(LayerNameResolver layerNameResolver, DataBuffer inputBuffer, DataBufferFactory dataBufferFactory,
+                                        ReferencedColumnValueFilter referencedColumnValueFilter) throws IOException, TimeoutException {
+        DataBuffer outputBuffer = dataBufferFactory.allocateBuffer(inputBuffer.readableByteCount());
+        boolean success = false;
+        try (InputStream inputStream = inputBuffer.asInputStream(); OutputStream outputStream = outputBuffer.asOutputStream()) {
+            filterBody(layerNameResolver, inputStream, outputStream, referencedColumnValueFilter);
+            success = true;
+            return outputBuffer;
+        } finally {
+            if (!success) {
+                DataBufferUtils.releaseDataBuffer(outputBuffer, log, () -> getClass().getName() + " release GetFeatureInfo output data buffer");
+            }
+        }
+    }
+
+    private Mono<LayerNameResolver> createLayerNameResolver(GeoServiceRequest geoServiceRequest) {
         // collect all layers contained in the request and the recursively nested layers contained in those layers.
-        // stuff everything in layernameresolver and apply the filter
+        // stuff everything in layernameresolver
         return Flux.fromIterable(geoServiceRequest.getLayers())
                 .flatMap(rootLayerName -> propertyFieldService.getContainedQualifiedLayerNames(rootLayerName)
                         .map(childLayerNames -> Tuples.of(rootLayerName, childLayerNames))
@@ -54,26 +99,15 @@ abstract class AbstractGfiFilter implements GfiFilter {
                             resolver.add(tuple.getT1(), tuple.getT2());
                             return resolver;
                         }
-                )
-                .flatMap(layerNameResolver -> filterBody(layerNameResolver, body, (referencedColumnValue) ->
-                        // resolve to the root layer for this field. This is important as GFI fields are attached
-                        // to the root layer of layer groups (topmost layer of the hierarchy)
-                        ReactiveUtils.optionalToMono(layerNameResolver.getRootLayer(referencedColumnValue.qualifiedLayerName()))
-                                .flatMap(rootLayerName -> filterMapLayerColumnValue(referencedColumnValue.replaceQualifiedLayerName(rootLayerName)))));
+                );
     }
 
-    private Mono<String> filterMapLayerColumnValue(ReferencedColumnValue referencedColumnValue) {
-        return propertyFieldService.getGeoServicePropertyFieldsByNameAndWorkspace(referencedColumnValue.qualifiedLayerName())
-                .flatMap(fieldMap -> {
-                    PropertyField propertyField = fieldMap.get(referencedColumnValue.columnName());
-                    if (propertyField == null) {
-                        return Mono.empty(); // filtered out
-                    } else {
-                        return Mono.just(
-                                propertyFieldService.escapeFieldValue(referencedColumnValue.columnValue(), propertyField)
-                                        .orElse("")
-                        );
-                    }
-                });
+    /**
+     * loads the property fields of all root layers at once, so the columns of the response can be
+     * filtered without further lookups
+     */
+    private Mono<ReferencedColumnValueFilter> createReferencedColumnValueFilter(LayerNameResolver layerNameResolver) {
+        return propertyFieldService.getGeoServicePropertyFieldsByQualifiedLayerNames(layerNameResolver.getRootLayers())
+                .map(propertyFieldsByRootLayer -> new PropertyFieldColumnValueFilter(propertyFieldService, layerNameResolver, propertyFieldsByRootLayer));
     }
 }
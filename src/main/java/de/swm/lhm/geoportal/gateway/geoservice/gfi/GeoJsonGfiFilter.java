@@ -1,5 +1,8 @@
 package de.swm.lhm.geoportal.gateway.geoservice.gfi;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
@@ -17,6 +20,8 @@ import reactor.core.publisher.Mono;
 import reactor.util.function.Tuples;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.StringReader;
 import java.util.Optional;
 
@@ -72,6 +77,67 @@ public class GeoJsonGfiFilter extends AbstractGfiFilter {
         }
     }
 
+    @Override
+    void filterBody(LayerNameResolver layerNameResolver, InputStream body, OutputStream filteredBody, ReferencedColumnValueFilter referencedColumnValueFilter)
+            throws IOException {
+        try (JsonParser parser = objectMapper.createParser(body);
+             JsonGenerator generator = objectMapper.createGenerator(filteredBody)) {
+
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                // not a feature collection, nothing to filter
+                if (parser.currentToken() != null) {
+                    generator.copyCurrentStructure(parser);
+                }
+                return;
+            }
+
+            // only the features are read into memory, one at a time. All other members
+            // of the document are copied token by token
+            boolean hasFeatures = false;
+            generator.writeStartObject();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                parser.nextToken();
+                generator.writeFieldName(fieldName);
+                if (FEATURES_KEY_NAME.equals(fieldName)) {
+                    hasFeatures = true;
+                    copyFeatures(layerNameResolver, parser, generator, referencedColumnValueFilter);
+                } else {
+                    generator.copyCurrentStructure(parser);
+                }
+            }
+            if (!hasFeatures) {
+                generator.writeFieldName(FEATURES_KEY_NAME);
+                generator.writeStartArray();
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            log.error("parsing geojson failed", e);
+            throw e;
+        }
+    }
+
+    private void copyFeatures(LayerNameResolver layerNameResolver, JsonParser parser, JsonGenerator generator, ReferencedColumnValueFilter referencedColumnValueFilter)
+            throws IOException {
+        generator.writeStartArray();
+        if (parser.currentToken() == JsonToken.START_ARRAY) {
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (parser.currentToken() == JsonToken.START_OBJECT) {
+                    // a feature needs to be read completely, as the removal of the geometry
+                    // depends on the properties which may follow the geometry
+                    ObjectNode feature = parser.readValueAsTree();
+                    generator.writeTree(transformFeature(layerNameResolver, feature, referencedColumnValueFilter));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } else {
+            parser.skipChildren();
+        }
+        generator.writeEndArray();
+    }
+
     private Flux<ObjectNode> featuresFlux(ObjectNode documentObjectNode) {
         JsonNode features = documentObjectNode.get(FEATURES_KEY_NAME);
         if (features instanceof ArrayNode featuresArrayNode) {
@@ -118,4 +184,31 @@ public class GeoJsonGfiFilter extends AbstractGfiFilter {
         return Mono.just(feature);
     }
 
+    private ObjectNode transformFeature(LayerNameResolver layerNameResolver, ObjectNode feature, ReferencedColumnValueFilter referencedColumnValueFilter) {
+        if (feature.get(PROPERTIES_KEY_NAME) instanceof ObjectNode properties && feature.get(ID_KEY_NAME) instanceof TextNode idTextNode) {
+            Optional<QualifiedLayerName> layerName = layerNameResolver.resolveLayerNameFromFeatureId(idTextNode.asText());
+            if (layerName.isPresent()) {
+                ObjectNode newProperties = objectMapper.createObjectNode();
+                properties.fields().forEachRemaining(property -> {
+                    String propertyKey = property.getKey();
+                    JsonNode propertyValue = property.getValue();
+                    if (propertyValue instanceof TextNode tn) {
+                        referencedColumnValueFilter.apply(new ReferencedColumnValue(layerName.get(), propertyKey, tn.textValue()))
+                                .ifPresent(v -> newProperties.set(propertyKey, new TextNode(v)));
+                    } else {
+                        // all other node datatypes can not be transformed, only filtered
+                        referencedColumnValueFilter.apply(new ReferencedColumnValue(layerName.get(), propertyKey, ""))
+                                .ifPresent(v -> newProperties.set(propertyKey, propertyValue));
+                    }
+                });
+                if (feature.has(GEOMETRY_NAME_KEY_NAME) && !newProperties.has(feature.get(GEOMETRY_NAME_KEY_NAME).textValue())) {
+                    feature.remove(GEOMETRY_NAME_KEY_NAME);
+                    feature.remove(GEOMETRY_KEY_NAME);
+                }
+                feature.replace(PROPERTIES_KEY_NAME, newProperties);
+            }
+        }
+        return feature;
+    }
+
 }
@@ -1,6 +1,8 @@
 package de.swm.lhm.geoportal.gateway.geoservice.gfi;
 
 import de.swm.lhm.geoportal.gateway.geoservice.inspect.GeoServiceRequest;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.http.MediaType;
 import reactor.core.publisher.Mono;
 
@@ -11,4 +13,10 @@ public interface GfiFilter {
     boolean supportsMediaType(MediaType mediaType);
 
     Mono<String> filterGetFeatureInfoBody(GeoServiceRequest geoServiceRequest, String body);
+
+    /**
+     * streaming variant of {@link #filterGetFeatureInfoBody(GeoServiceRequest, String)}, writing the
+     * filtered body directly into a new data buffer without materializing the body as string.
+     */
+    Mono<DataBuffer> filterGetFeatureInfoBody(GeoServiceRequest geoServiceRequest, Mono<DataBuffer> body, DataBufferFactory dataBufferFactory);
 }
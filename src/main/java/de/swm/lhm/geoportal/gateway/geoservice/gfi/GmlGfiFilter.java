@@ -6,11 +6,13 @@ import de.swm.lhm.geoportal.gateway.geoservice.inspect.QualifiedLayerName;
 import de.swm.lhm.geoportal.gateway.util.HttpHeaderUtils;
 import de.swm.lhm.geoportal.gateway.util.MediaTypeExt;
 import de.swm.lhm.geoportal.gateway.util.ReactiveUtils;
+import de.swm.lhm.geoportal.gateway.util.XmlEventRewriter;
 import de.swm.lhm.geoportal.gateway.util.XmlUtils;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.w3c.dom.Document;
@@ -20,11 +22,23 @@ import org.w3c.dom.Text;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeoutException;
 
 @Slf4j
 @Component
@@ -118,6 +132,17 @@ public class GmlGfiFilter extends AbstractGfiFilter {
 
     }
 
+    @Override
+    void filterBody(LayerNameResolver layerNameResolver, InputStream body, OutputStream filteredBody, ReferencedColumnValueFilter referencedColumnValueFilter)
+            throws TimeoutException {
+        XmlUtils.rewriteXmlEvents(
+                body,
+                filteredBody,
+                new FeatureMemberXmlEventRewriter(layerNameResolver, referencedColumnValueFilter),
+                geoServiceProperties.getSanitizedMaxXmlParsingDurationMs()
+        );
+    }
+
     private sealed interface PropertyTask {
     }
 
@@ -156,4 +181,134 @@ public class GmlGfiFilter extends AbstractGfiFilter {
             this.xpFeatureMembers = xPath.compile("//*[local-name() = 'featureMember']");
         }
     }
+
+    /**
+     * Streaming counterpart of {@link #filterBodyDocument}. The properties of the features of
+     * contained layers are buffered one at a time until their value is known.
+     */
+    private static class FeatureMemberXmlEventRewriter implements XmlEventRewriter {
+
+        private static final XMLEventFactory XML_EVENT_FACTORY = XMLEventFactory.newInstance();
+
+        private final LayerNameResolver layerNameResolver;
+        private final ReferencedColumnValueFilter referencedColumnValueFilter;
+
+        private int depth = 0;
+        private int featureMemberDepth = -1;
+        private int featureDepth = -1;
+        private QualifiedLayerName featureLayerName;
+
+        private final List<XMLEvent> propertyEvents = new ArrayList<>();
+        private final StringBuilder propertyText = new StringBuilder();
+        private boolean propertyContainsOnlyText;
+
+        FeatureMemberXmlEventRewriter(LayerNameResolver layerNameResolver, ReferencedColumnValueFilter referencedColumnValueFilter) {
+            this.layerNameResolver = layerNameResolver;
+            this.referencedColumnValueFilter = referencedColumnValueFilter;
+        }
+
+        @Override
+        public void rewrite(XMLEvent event, XMLEventWriter writer) throws XMLStreamException {
+            if (event.isStartElement()) {
+                depth++;
+                handleStartElement(event.asStartElement(), writer);
+            } else if (event.isEndElement()) {
+                handleEndElement(event, writer);
+                depth--;
+            } else if (!propertyEvents.isEmpty()) {
+                propertyEvents.add(event);
+                if (event.isCharacters()) {
+                    propertyText.append(event.asCharacters().getData());
+                } else {
+                    propertyContainsOnlyText = false;
+                }
+            } else {
+                XmlUtils.writeCompactedXmlEvent(event, writer);
+            }
+        }
+
+        private void handleStartElement(StartElement startElement, XMLEventWriter writer) throws XMLStreamException {
+            if (!propertyEvents.isEmpty()) {
+                // nested element within a property
+                propertyEvents.add(startElement);
+                propertyContainsOnlyText = false;
+                return;
+            }
+
+            if (featureDepth > 0 && depth == featureDepth + 1) {
+                propertyEvents.add(startElement);
+                propertyContainsOnlyText = true;
+                return;
+            }
+
+            if (featureMemberDepth > 0 && depth == featureMemberDepth + 1) {
+                String nodeName = qualifiedName(startElement.getName());
+                try {
+                    QualifiedLayerName qualifiedLayerName = QualifiedLayerName.fromString(nodeName);
+                    if (layerNameResolver.contains(qualifiedLayerName)) {
+                        featureDepth = depth;
+                        featureLayerName = qualifiedLayerName;
+                    }
+                } catch (QualifiedLayerName.IllegalLayerNameSyntaxException e) {
+                    log.info("Keeping XML node with illegal layer name: {}", nodeName);
+                }
+            } else if (featureMemberDepth < 0 && "featureMember".equals(startElement.getName().getLocalPart())) {
+                featureMemberDepth = depth;
+            }
+            XmlUtils.writeCompactedXmlEvent(startElement, writer);
+        }
+
+        private void handleEndElement(XMLEvent endElement, XMLEventWriter writer) throws XMLStreamException {
+            if (!propertyEvents.isEmpty()) {
+                propertyEvents.add(endElement);
+                if (depth == featureDepth + 1) {
+                    writeProperty(writer);
+                }
+                return;
+            }
+
+            if (depth == featureDepth) {
+                featureDepth = -1;
+                featureLayerName = null;
+            } else if (depth == featureMemberDepth) {
+                featureMemberDepth = -1;
+            }
+            XmlUtils.writeCompactedXmlEvent(endElement, writer);
+        }
+
+        private void writeProperty(XMLEventWriter writer) throws XMLStreamException {
+            StartElement propertyStartElement = propertyEvents.getFirst().asStartElement();
+            ReferencedColumnValue rcv = new ReferencedColumnValue(
+                    featureLayerName,
+
+                    // remove workspace-prefix from property name
+                    qualifiedName(propertyStartElement.getName()).substring(featureLayerName.workspaceName().length() + 1),
+                    propertyText.toString().strip()
+            );
+
+            Optional<String> newTextContent = referencedColumnValueFilter.apply(rcv);
+            if (newTextContent.isPresent()) {
+                if (propertyContainsOnlyText) {
+                    writer.add(propertyStartElement);
+                    if (!newTextContent.get().isEmpty()) {
+                        writer.add(XML_EVENT_FACTORY.createCharacters(newTextContent.get()));
+                    }
+                    writer.add(propertyEvents.getLast());
+                } else {
+                    for (XMLEvent propertyEvent : propertyEvents) {
+                        XmlUtils.writeCompactedXmlEvent(propertyEvent, writer);
+                    }
+                }
+            }
+
+            propertyEvents.clear();
+            propertyText.setLength(0);
+        }
+
+        private static String qualifiedName(QName name) {
+            return StringUtils.isEmpty(name.getPrefix())
+                    ? name.getLocalPart()
+                    : name.getPrefix() + ":" + name.getLocalPart();
+        }
+    }
 }
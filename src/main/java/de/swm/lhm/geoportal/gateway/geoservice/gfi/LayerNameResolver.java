@@ -3,6 +3,7 @@ package de.swm.lhm.geoportal.gateway.geoservice.gfi;
 import com.google.common.base.Splitter;
 import de.swm.lhm.geoportal.gateway.geoservice.inspect.QualifiedLayerName;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -45,6 +46,17 @@ class LayerNameResolver {
         return Optional.ofNullable(rootLayerMap.get(qLayerName));
     }
 
+    /**
+     * Returns all known layers mapped to their root layer.
+     */
+    public Map<QualifiedLayerName, QualifiedLayerName> getRootLayerMap() {
+        return Collections.unmodifiableMap(rootLayerMap);
+    }
+
+    public Set<QualifiedLayerName> getRootLayers() {
+        return new HashSet<>(rootLayerMap.values());
+    }
+
     public Optional<QualifiedLayerName> resolveLayerNameFromFeatureId(String featureId) {
         // Feature-IDs are in the form "<layername-without-workspace>.<id of table>"
         // Example: "gis_osm_pois_free_1_o2o.77462"
@@ -0,0 +1,49 @@
+package de.swm.lhm.geoportal.gateway.geoservice.gfi;
+
+import de.swm.lhm.geoportal.gateway.geoservice.PropertyFieldService;
+import de.swm.lhm.geoportal.gateway.geoservice.inspect.QualifiedLayerName;
+import de.swm.lhm.geoportal.gateway.geoservice.model.PropertyField;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * filters columns by the property fields of their root layer, which have been loaded beforehand
+ * for all layers of a request. GFI fields are attached to the root layer of layer groups (topmost
+ * layer of the hierarchy), the root layer of each contained layer is resolved once on construction.
+ */
+class PropertyFieldColumnValueFilter implements ReferencedColumnValueFilter {
+
+    private final PropertyFieldService propertyFieldService;
+
+    // maps every contained layer to the property fields of its root layer
+    private final Map<QualifiedLayerName, Map<String, PropertyField>> propertyFieldsByLayer = new HashMap<>();
+
+    PropertyFieldColumnValueFilter(PropertyFieldService propertyFieldService, LayerNameResolver layerNameResolver,
+                                   Map<QualifiedLayerName, Map<String, PropertyField>> propertyFieldsByRootLayer) {
+        this.propertyFieldService = propertyFieldService;
+        layerNameResolver.getRootLayerMap().forEach((layerName, rootLayerName) -> {
+            Map<String, PropertyField> propertyFields = propertyFieldsByRootLayer.get(rootLayerName);
+            if (propertyFields != null) {
+                propertyFieldsByLayer.put(layerName, propertyFields);
+            }
+        });
+    }
+
+    @Override
+    public Optional<String> apply(ReferencedColumnValue referencedColumnValue) {
+        Map<String, PropertyField> propertyFields = propertyFieldsByLayer.get(referencedColumnValue.qualifiedLayerName());
+        if (propertyFields == null) {
+            return Optional.empty();
+        }
+        PropertyField propertyField = propertyFields.get(referencedColumnValue.columnName());
+        if (propertyField == null) {
+            return Optional.empty(); // filtered out
+        }
+        return Optional.of(
+                propertyFieldService.escapeFieldValue(referencedColumnValue.columnValue(), propertyField)
+                        .orElse("")
+        );
+    }
+}
@@ -0,0 +1,13 @@
+package de.swm.lhm.geoportal.gateway.geoservice.gfi;
+
+import java.util.Optional;
+
+/**
+ * synchronous counterpart of {@link ReferencedColumnValueTransformer} used by the streaming filters,
+ * which can not wait for the property fields to be loaded while processing the body.
+ */
+interface ReferencedColumnValueFilter {
+    // returning an empty optional indicates the column will be filtered out and
+    // omitted from the output.
+    Optional<String> apply(ReferencedColumnValue referencedColumnValue);
+}
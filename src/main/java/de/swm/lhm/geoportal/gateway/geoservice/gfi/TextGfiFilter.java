@@ -2,6 +2,16 @@ package de.swm.lhm.geoportal.gateway.geoservice.gfi;
 
 import de.swm.lhm.geoportal.gateway.geoservice.PropertyFieldService;
 import de.swm.lhm.geoportal.gateway.geoservice.inspect.QualifiedLayerName;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Locale;
 import java.util.Optional;
@@ -101,4 +111,73 @@ public class TextGfiFilter extends AbstractGfiFilter {
                 .map(outputBodyLines -> String.join("\n", outputBodyLines));
     }
 
+    @Override
+    void filterBody(LayerNameResolver layerNameResolver, InputStream body, OutputStream filteredBody, ReferencedColumnValueFilter referencedColumnValueFilter)
+            throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(filteredBody, StandardCharsets.UTF_8));
+
+        boolean whithinColumnBlock = false;
+        QualifiedLayerName currentLayerName = null;
+        boolean firstLine = true;
+        // empty lines are held back until the next non-empty line, as trailing empty lines
+        // are not part of the output of the non-streaming variant either
+        int pendingEmptyLines = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                pendingEmptyLines++;
+                continue;
+            }
+            for (; pendingEmptyLines > 0; pendingEmptyLines--) {
+                firstLine = writeLine(writer, "", firstLine);
+            }
+
+            String outputLine = null;
+            String strippedLine = line.strip();
+            if (StringUtils.isBlank(strippedLine)) {
+                outputLine = line;
+            } else if (strippedLine.startsWith("-------------------")) {
+                whithinColumnBlock = !whithinColumnBlock;
+                outputLine = line;
+            } else if (whithinColumnBlock) {
+                if (currentLayerName != null) {
+                    Matcher matcher = RE_COLUMN_NAME.matcher(strippedLine);
+                    if (matcher.find()) {
+                        ReferencedColumnValue refColumn = new ReferencedColumnValue(
+                                currentLayerName,
+                                matcher.group("column").toLowerCase(Locale.ROOT),
+                                matcher.group("value")
+                        );
+                        outputLine = referencedColumnValueFilter.apply(refColumn)
+                                .map(filteredValue -> String.format("%s = %s", refColumn.columnName(), filteredValue))
+                                .orElse(null);
+                    }
+                }
+            } else {
+                Matcher matcher = RE_LAYER_RESULTS.matcher(strippedLine);
+                if (matcher.find()) {
+                    currentLayerName = layerNameResolver.resolveFromNonQualifiedLayerName(matcher.group("layer"))
+                            .orElse(null);
+                }
+                outputLine = line;
+            }
+
+            // lines without output are omitted
+            if (outputLine != null) {
+                firstLine = writeLine(writer, outputLine, firstLine);
+            }
+        }
+        writer.flush();
+    }
+
+    private static boolean writeLine(Writer writer, String line, boolean firstLine) throws IOException {
+        if (!firstLine) {
+            writer.write('\n');
+        }
+        writer.write(line);
+        return false;
+    }
+
 }
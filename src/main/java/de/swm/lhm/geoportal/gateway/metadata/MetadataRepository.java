@@ -5,7 +5,9 @@ import de.swm.lhm.geoportal.gateway.metadata.model.Metadata;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.stereotype.Component;
-import reactor.core.publisher.Mono;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
 
 import static org.springframework.data.relational.core.query.Criteria.where;
 import static org.springframework.data.relational.core.query.Query.query;
@@ -17,9 +19,9 @@ public class MetadataRepository {
 
     private final R2dbcEntityTemplate template;
 
-    public Mono<Metadata> findMetadataById(Integer id) {
+    public Flux<Metadata> findMetadataByIds(Collection<Integer> ids) {
         return this.template.select(Metadata.class)
-                .matching(query(where("id").is(id))).first();
+                .matching(query(where("id").in(ids))).all();
     }
 
 }
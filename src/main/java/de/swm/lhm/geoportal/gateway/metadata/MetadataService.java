@@ -11,6 +11,10 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
 import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 
 @Service
@@ -23,10 +27,23 @@ public class MetadataService implements HasProductDetails {
 
 
     @Override
-    public Mono<Void> enrichProduct(Product product) {
-        return metadataRepository.findMetadataById(product.getMetadataId())
-                .map(this::buildUrl)
-                .doOnNext(product::setMetadataUrl)
+    public Mono<Void> enrichProducts(List<Product> products) {
+        Set<Integer> metadataIds = products.stream()
+                .map(Product::getMetadataId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (metadataIds.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return metadataRepository.findMetadataByIds(metadataIds)
+                .collectMap(Metadata::getId, this::buildUrl)
+                .doOnNext(metadataUrls -> products.forEach(product -> {
+                    String metadataUrl = metadataUrls.get(product.getMetadataId());
+                    if (metadataUrl != null) {
+                        product.setMetadataUrl(metadataUrl);
+                    }
+                }))
                 .then();
     }
 
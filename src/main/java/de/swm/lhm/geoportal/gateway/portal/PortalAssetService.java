@@ -0,0 +1,295 @@
+package de.swm.lhm.geoportal.gateway.portal;
+
+import de.swm.lhm.geoportal.gateway.util.ReactiveUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FilenameUtils;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ZeroCopyHttpOutputMessage;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+import static de.swm.lhm.geoportal.gateway.util.FileServeUtils.FILE_COULD_NOT_BE_FOUND;
+import static de.swm.lhm.geoportal.gateway.util.FileServeUtils.ROOT_PATH_IS_NOT_ABSOLUTE;
+
+/**
+ * Serves the static files of the portals.
+ * <p>
+ * Next to a file, precompressed variants with the suffix {@code .br} and {@code .gz} may be stored. They
+ * are served instead of the file when the client accepts the encoding and the variant is not older than
+ * the file. Responses carry a strong ETag of the served variant, Last-Modified and Cache-Control and
+ * conditional requests are answered with 304.
+ * <p>
+ * A GET request with a single byte range is answered with 206 and that part of the file itself, never of a
+ * precompressed variant, honouring If-Range. Requests with several ranges get the whole file.
+ * <p>
+ * The attributes of the file and its variants are read on a background thread instead of the event loop.
+ * They are not cached, as portals are deployed by replacing their files. Content-Length is taken from
+ * these attributes, so the file is written without accessing its attributes again, using zero-copy
+ * transfer (sendfile) when the response supports it.
+ */
+@Service
+@Slf4j
+public class PortalAssetService {
+
+    // precompressed variants in order of preference
+    private static final List<Encoding> ENCODINGS = List.of(
+            new Encoding("br", ".br"),
+            new Encoding("gzip", ".gz")
+    );
+
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+
+    private final CacheControl cacheControl;
+
+    public PortalAssetService(PortalProperties portalProperties) {
+        Duration maxAge = portalProperties.getAssets().getMaxAge();
+        // portals may be protected, so their files are only cached by the browser
+        this.cacheControl = (maxAge.isZero() ? CacheControl.noCache() : CacheControl.maxAge(maxAge)).cachePrivate();
+    }
+
+    public Mono<Void> serve(ServerWebExchange exchange, String rootPath, String... morePathElements) {
+
+        if (FilenameUtils.getPrefixLength(rootPath) == 0) {
+            log.error("{}, rootPath={}", ROOT_PATH_IS_NOT_ABSOLUTE, rootPath);
+            return Mono.error(new ResponseStatusException(HttpStatus.FORBIDDEN, ROOT_PATH_IS_NOT_ABSOLUTE));
+        }
+
+        Path root = Paths.get(rootPath).normalize();
+        Path file = Paths.get(rootPath, morePathElements).normalize();
+        if (!file.startsWith(root)) {
+            log.error("Access to {} forbidden as not in allowed folder {}", file, root);
+            return Mono.error(new ResponseStatusException(HttpStatus.FORBIDDEN, "Access to forbidden folder"));
+        }
+
+        return ReactiveUtils.runInBackground(() -> readAsset(file).orElse(null))
+                .switchIfEmpty(Mono.defer(() -> {
+                    log.error("Could not find file {}", file);
+                    return Mono.error(new ResponseStatusException(
+                            HttpStatus.NOT_FOUND,
+                            String.format(FILE_COULD_NOT_BE_FOUND, Paths.get("", morePathElements))
+                    ));
+                }))
+                .flatMap(asset -> write(exchange, asset));
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, Asset asset) {
+        HttpHeaders requestHeaders = exchange.getRequest().getHeaders();
+        boolean rangeRequested = HttpMethod.GET.equals(exchange.getRequest().getMethod())
+                && requestHeaders.containsKey(HttpHeaders.RANGE);
+        // byte ranges refer to the file itself, the offsets would differ between the variants
+        Variant variant = rangeRequested ? asset.variants().getLast() : selectVariant(asset, requestHeaders);
+
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.setCacheControl(cacheControl);
+        if (asset.variants().size() > 1) {
+            headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        }
+        Instant lastModified = Instant.ofEpochMilli(asset.lastModified());
+        headers.setETag(variant.etag());
+        headers.setLastModified(lastModified);
+
+        if (exchange.checkNotModified(variant.etag(), lastModified)) {
+            return response.setComplete();
+        }
+
+        headers.setContentType(asset.mediaType());
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (variant.encoding() != null) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, variant.encoding());
+        }
+
+        if (rangeRequested && isIfRangeMatching(requestHeaders, variant, lastModified)) {
+            Optional<HttpRange> range = parseSingleRange(requestHeaders);
+            if (range.isPresent()) {
+                return writeRange(response, variant, range.get());
+            }
+        }
+
+        headers.setContentLength(variant.length());
+        if (HttpMethod.HEAD.equals(exchange.getRequest().getMethod())) {
+            return response.setComplete();
+        }
+        return writeFile(response, variant.file(), 0, variant.length());
+    }
+
+    private static Mono<Void> writeRange(ServerHttpResponse response, Variant variant, HttpRange range) {
+        HttpHeaders headers = response.getHeaders();
+        long start = range.getRangeStart(variant.length());
+        long end = range.getRangeEnd(variant.length());
+        if (start >= variant.length() || start > end) {
+            response.setStatusCode(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + variant.length());
+            headers.setContentLength(0);
+            return response.setComplete();
+        }
+        long count = end - start + 1;
+        response.setStatusCode(HttpStatus.PARTIAL_CONTENT);
+        headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + variant.length());
+        headers.setContentLength(count);
+        return writeFile(response, variant.file(), start, count);
+    }
+
+    private static Mono<Void> writeFile(ServerHttpResponse response, Path file, long position, long count) {
+        if (response instanceof ZeroCopyHttpOutputMessage zeroCopyResponse) {
+            return zeroCopyResponse.writeWith(file, position, count);
+        }
+        return response.writeWith(DataBufferUtils.takeUntilByteCount(
+                DataBufferUtils.readAsynchronousFileChannel(
+                        () -> AsynchronousFileChannel.open(file, StandardOpenOption.READ),
+                        position, response.bufferFactory(), READ_BUFFER_SIZE),
+                count));
+    }
+
+    /**
+     * Returns the range to serve, empty if the whole file is served instead.
+     * <p>
+     * Malformed Range headers are ignored, as are several ranges, which would need a multipart response.
+     */
+    static Optional<HttpRange> parseSingleRange(HttpHeaders requestHeaders) {
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(requestHeaders.getFirst(HttpHeaders.RANGE));
+            return ranges.size() == 1 ? Optional.of(ranges.getFirst()) : Optional.empty();
+        } catch (IllegalArgumentException e) {
+            log.debug("Ignoring invalid Range header {}", requestHeaders.getFirst(HttpHeaders.RANGE), e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Checks whether the range may be served, i.e. the If-Range header is missing or still matches the file.
+     */
+    private static boolean isIfRangeMatching(HttpHeaders requestHeaders, Variant variant, Instant lastModified) {
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // strong comparison, weak entity tags never match
+            return ifRange.equals(variant.etag());
+        }
+        try {
+            return requestHeaders.getFirstDate(HttpHeaders.IF_RANGE)
+                    == lastModified.truncatedTo(ChronoUnit.SECONDS).toEpochMilli();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static Variant selectVariant(Asset asset, HttpHeaders requestHeaders) {
+        List<String> acceptedEncodings = parseAcceptedEncodings(requestHeaders);
+        // the last variant is the file itself
+        for (Variant variant : asset.variants()) {
+            if (variant.encoding() == null || acceptedEncodings.contains(variant.encoding()) || acceptedEncodings.contains("*")) {
+                return variant;
+            }
+        }
+        return asset.variants().getLast();
+    }
+
+    /**
+     * Returns the encodings the client accepts, without those excluded using q=0.
+     */
+    static List<String> parseAcceptedEncodings(HttpHeaders requestHeaders) {
+        return requestHeaders.getValuesAsList(HttpHeaders.ACCEPT_ENCODING).stream()
+                .map(value -> value.toLowerCase(Locale.ROOT).split(";"))
+                .filter(parts -> parts.length == 1 || !isZeroQuality(parts[1]))
+                .map(parts -> parts[0].trim())
+                .toList();
+    }
+
+    private static boolean isZeroQuality(String parameter) {
+        String[] nameAndValue = parameter.trim().split("=", 2);
+        if (nameAndValue.length != 2 || !"q".equals(nameAndValue[0].trim())) {
+            return false;
+        }
+        try {
+            return Double.parseDouble(nameAndValue[1].trim()) == 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads the attributes of the file and its precompressed variants, blocking.
+     */
+    private static Optional<Asset> readAsset(Path file) throws IOException {
+        Optional<BasicFileAttributes> fileAttributes = readAttributes(file);
+        if (fileAttributes.isEmpty() || !fileAttributes.get().isRegularFile()) {
+            return Optional.empty();
+        }
+        long lastModified = fileAttributes.get().lastModifiedTime().toMillis();
+
+        List<Variant> variants = new ArrayList<>();
+        for (Encoding encoding : ENCODINGS) {
+            Path variantFile = file.resolveSibling(file.getFileName() + encoding.suffix());
+            readAttributes(variantFile)
+                    // a variant older than the file was not created from its current content
+                    .filter(attributes -> attributes.isRegularFile() && attributes.lastModifiedTime().toMillis() >= lastModified)
+                    .ifPresent(attributes -> variants.add(Variant.of(variantFile, attributes, encoding.name())));
+        }
+        variants.add(Variant.of(file, fileAttributes.get(), null));
+
+        MediaType mediaType = MediaTypeFactory.getMediaType(file.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM);
+        return Optional.of(new Asset(mediaType, lastModified, List.copyOf(variants)));
+    }
+
+    private static Optional<BasicFileAttributes> readAttributes(Path path) throws IOException {
+        try {
+            return Optional.of(Files.readAttributes(path, BasicFileAttributes.class));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    private record Encoding(String name, String suffix) {
+    }
+
+    /**
+     * @param variants the precompressed variants in order of preference, followed by the file itself
+     */
+    record Asset(MediaType mediaType, long lastModified, List<Variant> variants) {
+    }
+
+    /**
+     * @param encoding the content encoding of the variant, null for the file itself
+     */
+    record Variant(Path file, long length, String etag, String encoding) {
+
+        static Variant of(Path file, BasicFileAttributes attributes, String encoding) {
+            // strong validator of the variant, a changed file gets a new size or modification time
+            String etag = "\"" + Long.toHexString(attributes.size())
+                    + "-" + Long.toHexString(attributes.lastModifiedTime().toMillis())
+                    + (encoding == null ? "" : "-" + encoding)
+                    + "\"";
+            return new Variant(file, attributes.size(), etag, encoding);
+        }
+    }
+}
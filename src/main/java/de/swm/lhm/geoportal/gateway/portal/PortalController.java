@@ -5,16 +5,15 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
 import static de.swm.lhm.geoportal.gateway.util.FileServeUtils.createRedirectToRootPath;
-import static de.swm.lhm.geoportal.gateway.util.FileServeUtils.getFileAsResourceEnsuringAbsoluteRootPath;
 
 
 @Tag(name = "Portale")
@@ -24,6 +23,7 @@ import static de.swm.lhm.geoportal.gateway.util.FileServeUtils.getFileAsResource
 public class PortalController {
 
     private final PortalProperties portalProperties;
+    private final PortalAssetService portalAssetService;
 
     @Operation(
             description = "Auf Portal weiterleiten"
@@ -41,11 +41,13 @@ public class PortalController {
             description = "Portal anzeigen"
     )
     @GetMapping("${geoportal.gateway.portal.endpoint}/{name}/")
-    public Mono<Resource> serveIndex(
+    public Mono<Void> serveIndex(
+            ServerWebExchange exchange,
             @Parameter(description = "Name von Portal welches angezeigt werden soll") @PathVariable String name
     ) {
 
-        return getFileAsResourceEnsuringAbsoluteRootPath(
+        return portalAssetService.serve(
+                exchange,
                 portalProperties.getPath(),
                 name, "index.html"
         );
@@ -56,13 +58,14 @@ public class PortalController {
             description = "Portaldatei anfragen"
     )
     @GetMapping("${geoportal.gateway.portal.endpoint}/**")
-    public Mono<Resource> servePortalFile(
-            ServerHttpRequest request
+    public Mono<Void> servePortalFile(
+            ServerWebExchange exchange
     ) {
 
-        return getFileAsResourceEnsuringAbsoluteRootPath(
+        return portalAssetService.serve(
+                exchange,
                 portalProperties.getPath(),
-                request.getPath()
+                exchange.getRequest().getPath()
                         .value()
                         .substring(portalProperties.getEndpointWithSlashesLength())
         );
@@ -1,12 +1,26 @@
 package de.swm.lhm.geoportal.gateway.portal;
 
 import de.swm.lhm.geoportal.gateway.shared.BaseEndpointProperties;
+import lombok.Getter;
+import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 
 @Configuration
 @ConfigurationProperties(prefix = "geoportal.gateway.portal")
+@Getter
+@Setter
 public class PortalProperties extends BaseEndpointProperties {
 
+    private AssetProperties assets = new AssetProperties();
+
+    @Getter
+    @Setter
+    public static class AssetProperties {
+        // duration the browser may use portal files without revalidating them, zero to always revalidate
+        private Duration maxAge = Duration.ZERO;
+    }
 }
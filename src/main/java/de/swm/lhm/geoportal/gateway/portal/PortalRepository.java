@@ -1,6 +1,7 @@
 package de.swm.lhm.geoportal.gateway.portal;
 
 import de.swm.lhm.geoportal.gateway.portal.model.Portal;
+import de.swm.lhm.geoportal.gateway.product.ProductLinks;
 import de.swm.lhm.geoportal.gateway.shared.model.Stage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -10,6 +11,8 @@ import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+
 import static org.springframework.data.relational.core.query.Criteria.where;
 import static org.springframework.data.relational.core.query.Query.query;
 
@@ -22,24 +25,31 @@ public class PortalRepository {
     private final DatabaseClient databaseClient;
 
 
-    public Flux<Portal> findPortalByProductId(Integer productId, Stage stage) {
-
-        return this.databaseClient.sql(
-                        """
-                        SELECT portal_id
-                        FROM t_product_portal
-                        WHERE product_id = :productId
-                        """
-                )
-                .bind("productId", productId)
-                .fetch()
-                .all()
-                .map(row -> row.get("portal_id"))
-                .filter(Integer.class::isInstance)
-                .map(Integer.class::cast)
-                .distinct()
-                .flatMap(portalId -> findPortalByIdAndStage(portalId, stage));
+    public Flux<ProductLinks.Detail<Portal>> findPortalsByProductIds(Collection<Integer> productIds, Stage stage) {
+
+        return ProductLinks.findDetails(
+                this.databaseClient.sql(
+                                """
+                                SELECT product_id, portal_id
+                                FROM t_product_portal
+                                WHERE product_id IN (:productIds)
+                                """
+                        )
+                        .bind("productIds", productIds),
+                "portal_id",
+                Integer.class,
+                portalIds -> findPortalsByIdsAndStage(portalIds, stage),
+                Portal::getId
+        );
+
+    }
 
+    public Flux<Portal> findPortalsByIdsAndStage(Collection<Integer> portalIds, Stage stage) {
+        return this.template.select(Portal.class)
+                .matching(query(
+                        where("id").in(portalIds)
+                                .and("stage").is(stage)
+                )).all();
     }
 
     public Mono<Portal> findPortalByIdAndStage(Integer portalId, Stage stage) {
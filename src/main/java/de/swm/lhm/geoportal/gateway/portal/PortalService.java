@@ -18,6 +18,7 @@ import reactor.core.publisher.Mono;
 
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @Getter
@@ -60,19 +61,23 @@ public class PortalService implements HasProductDetails {
     }
 
     @Override
-    public Mono<Void> enrichProduct(Product product) {
-        return portalRepository.findPortalByProductId(product.getId(), product.getStage())
-                .flatMap(this::enrichPortal)
-                .doOnNext(product::addPortal)
+    public Mono<Void> enrichProducts(List<Product> products) {
+        Map<Integer, Product> productsById = HasProductDetails.indexById(products);
+        return portalRepository.findPortalsByProductIds(productsById.keySet(), products.getFirst().getStage())
+                .collectList()
+                .flatMap(portals -> unitService.getUnitNamesByIds(portals.stream().map(portal -> portal.detail().getUnitId()).toList())
+                        .doOnNext(unitNames -> portals.forEach(portal -> {
+                            enrichPortal(portal.detail(), unitNames);
+                            productsById.get(portal.productId()).addPortal(portal.detail());
+                        })))
                 .then();
     }
 
-    private Mono<Portal> enrichPortal(Portal portal) {
-        return unitService.getUnitNameById(portal.getUnitId())
-                .doOnNext(portal::setUnit)
-                .thenReturn(portal)
-                .doOnNext(this::mapPortalUrl)
-                .thenReturn(portal);
+    private void enrichPortal(Portal portal, Map<Integer, String> unitNames) {
+        if (portal.getUnitId() != null) {
+            portal.setUnit(unitNames.get(portal.getUnitId()));
+        }
+        mapPortalUrl(portal);
     }
 
     private void mapPortalUrl(Portal portal) {
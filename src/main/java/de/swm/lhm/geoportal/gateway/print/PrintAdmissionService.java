@@ -0,0 +1,205 @@
+package de.swm.lhm.geoportal.gateway.print;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limits the number of print jobs forwarded to mapfish at the same time, in total and per caller.
+ * <p>
+ * Jobs exceeding the limits wait in a bounded queue in the order they arrived. A waiting job is admitted as
+ * soon as a permit of its caller and a global permit are free, so a single caller submitting many jobs
+ * does not block the jobs of other callers. The number of queued jobs is limited per caller as well, so
+ * one caller can't fill the queue for everyone else. Jobs which can not be queued or waited longer than
+ * the configured maximum are rejected with a {@link PrintJobRejectedException}.
+ */
+@Service
+@Slf4j
+public class PrintAdmissionService {
+
+    private final PrintProperties.AdmissionProperties properties;
+    private final Counter queueFullRejections;
+    private final Counter callerQueueFullRejections;
+    private final Counter timeoutRejections;
+
+    // guarded by this
+    private final Deque<Waiter> queue = new ArrayDeque<>();
+    private final Map<String, Integer> activeJobsByCaller = new HashMap<>();
+    private final Map<String, Integer> queuedJobsByCaller = new HashMap<>();
+    private int activeJobs = 0;
+
+    public PrintAdmissionService(PrintProperties printProperties, MeterRegistry meterRegistry) {
+        this.properties = printProperties.getAdmission();
+
+        Gauge.builder("print.jobs.active", this, PrintAdmissionService::getActiveJobs)
+                .description("The number of print jobs currently forwarded to the print server")
+                .register(meterRegistry);
+        Gauge.builder("print.jobs.queued", this, PrintAdmissionService::getQueuedJobs)
+                .description("The number of print jobs waiting for admission")
+                .register(meterRegistry);
+        this.queueFullRejections = rejectionCounter(meterRegistry, "queue_full");
+        this.callerQueueFullRejections = rejectionCounter(meterRegistry, "caller_queue_full");
+        this.timeoutRejections = rejectionCounter(meterRegistry, "timeout");
+    }
+
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("print.jobs.rejected")
+                .description("The number of print jobs rejected by the admission control")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public Duration getRetryAfter() {
+        return properties.getRetryAfter();
+    }
+
+    public synchronized int getActiveJobs() {
+        return activeJobs;
+    }
+
+    public synchronized int getQueuedJobs() {
+        return queue.size();
+    }
+
+    /**
+     * Emits a permit as soon as the job of the given caller is admitted, the permit
+     * has to be released after the job was processed.
+     *
+     * @param callerKey identifies the caller the per caller limits apply to
+     */
+    public Mono<Permit> acquire(String callerKey) {
+        return Mono.<Permit>create(sink -> {
+                    Waiter waiter = new Waiter(callerKey, sink);
+                    sink.onCancel(() -> cancel(waiter));
+
+                    Permit permit = null;
+                    boolean queued = false;
+                    boolean callerQueueFull = false;
+                    synchronized (this) {
+                        if (canAdmit(callerKey)) {
+                            permit = admit(callerKey);
+                            waiter.permit = permit;
+                        } else if (queuedJobsByCaller.getOrDefault(callerKey, 0) >= properties.getMaxQueuedJobsPerCaller()) {
+                            callerQueueFull = true;
+                        } else if (queue.size() < properties.getMaxQueueSize()) {
+                            queued = queue.add(waiter);
+                            queuedJobsByCaller.merge(callerKey, 1, Integer::sum);
+                        }
+                    }
+
+                    if (permit != null) {
+                        sink.success(permit);
+                    } else if (queued) {
+                        log.debug("Print job of caller {} is queued", callerKey);
+                    } else if (callerQueueFull) {
+                        callerQueueFullRejections.increment();
+                        sink.error(new PrintJobRejectedException("Too many print jobs of the caller are queued"));
+                    } else {
+                        queueFullRejections.increment();
+                        sink.error(new PrintJobRejectedException("The queue of print jobs is full"));
+                    }
+                })
+                .timeout(properties.getMaxWait(), Mono.defer(() -> {
+                    timeoutRejections.increment();
+                    return Mono.error(new PrintJobRejectedException("The print job was not admitted in time"));
+                }));
+    }
+
+    private boolean canAdmit(String callerKey) {
+        return activeJobs < properties.getMaxConcurrentJobs()
+                && activeJobsByCaller.getOrDefault(callerKey, 0) < properties.getMaxConcurrentJobsPerCaller();
+    }
+
+    private Permit admit(String callerKey) {
+        activeJobs++;
+        activeJobsByCaller.merge(callerKey, 1, Integer::sum);
+        return new Permit(callerKey);
+    }
+
+    private void dequeued(Waiter waiter) {
+        queuedJobsByCaller.computeIfPresent(waiter.callerKey, (callerKey, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private void release(Permit permit) {
+        List<Waiter> admitted = new ArrayList<>();
+        synchronized (this) {
+            activeJobs--;
+            activeJobsByCaller.computeIfPresent(permit.callerKey, (callerKey, count) -> count > 1 ? count - 1 : null);
+
+            Iterator<Waiter> waiters = queue.iterator();
+            while (waiters.hasNext() && activeJobs < properties.getMaxConcurrentJobs()) {
+                Waiter waiter = waiters.next();
+                if (canAdmit(waiter.callerKey)) {
+                    waiters.remove();
+                    dequeued(waiter);
+                    waiter.permit = admit(waiter.callerKey);
+                    admitted.add(waiter);
+                }
+            }
+        }
+        admitted.forEach(waiter -> waiter.sink.success(waiter.permit));
+    }
+
+    private void cancel(Waiter waiter) {
+        Permit permit;
+        synchronized (this) {
+            if (queue.remove(waiter)) {
+                dequeued(waiter);
+                return;
+            }
+            permit = waiter.permit;
+        }
+        // admitted concurrently, but the permit will not be delivered anymore
+        if (permit != null) {
+            permit.release();
+        }
+    }
+
+    public final class Permit {
+
+        @Getter
+        private final String callerKey;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private Permit(String callerKey) {
+            this.callerKey = callerKey;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                PrintAdmissionService.this.release(this);
+            }
+        }
+    }
+
+    private static final class Waiter {
+        private final String callerKey;
+        private final MonoSink<Permit> sink;
+        // guarded by the service
+        private Permit permit;
+
+        private Waiter(String callerKey, MonoSink<Permit> sink) {
+            this.callerKey = callerKey;
+            this.sink = sink;
+        }
+    }
+}
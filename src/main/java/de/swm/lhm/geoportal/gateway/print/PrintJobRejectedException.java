@@ -0,0 +1,7 @@
+package de.swm.lhm.geoportal.gateway.print;
+
+public class PrintJobRejectedException extends RuntimeException {
+    public PrintJobRejectedException(String message) {
+        super(message);
+    }
+}
@@ -1,12 +1,15 @@
 package de.swm.lhm.geoportal.gateway.print;
 
 
+import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 @ConfigurationProperties(prefix = "geoportal.print")
 @Getter
@@ -14,4 +17,19 @@ import org.springframework.context.annotation.Configuration;
 @NoArgsConstructor
 public class PrintProperties {
     String endpoint;
+    AdmissionProperties admission = new AdmissionProperties();
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AdmissionProperties {
+        private boolean enabled = false;
+        private int maxConcurrentJobs = 10;
+        private int maxConcurrentJobsPerCaller = 2;
+        private int maxQueueSize = 50;
+        private int maxQueuedJobsPerCaller = 5;
+        private Duration maxWait = Duration.ofSeconds(30);
+        private Duration retryAfter = Duration.ofSeconds(10);
+    }
 }
@@ -1,7 +1,7 @@
 package de.swm.lhm.geoportal.gateway.print;
 
-import de.swm.lhm.geoportal.gateway.geoservice.HostReplacer;
 import de.swm.lhm.geoportal.gateway.print.filter.JsonReplacePublicHostnamesGatewayFilter;
+import de.swm.lhm.geoportal.gateway.print.filter.PrintAdmissionGatewayFilter;
 import de.swm.lhm.geoportal.gateway.util.ExtendedURIBuilder;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
@@ -15,7 +15,8 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class PrintRouteConfig {
     public static final String MAPFISH_ROUTE_NAME = "mapfish";
-    private final HostReplacer hostReplacer;
+    private final PrintSpecService printSpecService;
+    private final PrintAdmissionService printAdmissionService;
     private final PrintProperties printProperties;
 
     @Value("${geoportal.mapfish.url}")
@@ -27,7 +28,9 @@ public class PrintRouteConfig {
         return routeLocatorBuilder.routes()
                 .route(MAPFISH_ROUTE_NAME, r -> r
                         .path(String.format("%s/**", getPrintEndpoint()))
-                        .filters(f -> f.filters(new JsonReplacePublicHostnamesGatewayFilter(hostReplacer)))
+                        .filters(f -> f.filters(
+                                new PrintAdmissionGatewayFilter(printAdmissionService),
+                                new JsonReplacePublicHostnamesGatewayFilter(printSpecService)))
                         .uri(mapfishUrl))
                 .build();
     }
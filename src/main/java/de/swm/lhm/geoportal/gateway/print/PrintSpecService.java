@@ -0,0 +1,147 @@
+package de.swm.lhm.geoportal.gateway.print;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import de.swm.lhm.geoportal.gateway.filter.webfilter.BodyCachingFilter;
+import de.swm.lhm.geoportal.gateway.geoservice.HostReplacer;
+import de.swm.lhm.geoportal.gateway.print.model.PrintSpec;
+import de.swm.lhm.geoportal.gateway.shared.exceptions.DeserializationException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Reads MapFish print specs in a single pass over their JSON tokens.
+ * <p>
+ * While the spec is copied with the public hostnames replaced, the names of the layers are collected from
+ * {@code visibleLayerIds} and the {@code layers} of the gfi, legend and map attributes, without binding the
+ * rest of the document. The result is kept in the exchange, so the authorization and the print route
+ * share it.
+ * <p>
+ * The rewritten spec is written into a buffer of the exchange, pooled with netty, which is released when
+ * the exchange is complete. This way it is released as well when the authorization denies the request and
+ * the spec is never forwarded.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class PrintSpecService {
+
+    private static final String CACHED_PRINT_SPEC_ATTR = "printSpec";
+    private static final Set<String> LAYER_SECTIONS = Set.of("gfi", "legend", "map");
+    // room for replaced hostnames which are longer than the original ones
+    private static final int OUTPUT_HEADROOM = 256;
+
+    private final HostReplacer hostReplacer;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public Mono<PrintSpec> readPrintSpecAndCache(ServerWebExchange exchange) {
+        PrintSpec cachedPrintSpec = exchange.getAttribute(CACHED_PRINT_SPEC_ATTR);
+        if (cachedPrintSpec != null) {
+            log.trace("Reusing cached previous print spec");
+            return Mono.just(cachedPrintSpec);
+        }
+
+        return DataBufferUtils.join(exchange.getRequest().getBody())
+                .map(json -> readPrintSpec(
+                        json,
+                        BodyCachingFilter.allocateExchangeBuffer(exchange, json.readableByteCount() + OUTPUT_HEADROOM)
+                ))
+                .doOnNext(printSpec -> exchange.getAttributes().put(CACHED_PRINT_SPEC_ATTR, printSpec));
+    }
+
+    /**
+     * Reads the print spec, writes the rewritten spec into the output buffer and releases the input buffer.
+     * The output buffer is not released, it is owned by the caller.
+     */
+    PrintSpec readPrintSpec(DataBuffer json, DataBuffer output) {
+        Set<String> layerNames = new HashSet<>();
+        try (InputStream inputStream = json.asInputStream();
+             JsonParser parser = jsonFactory.createParser(inputStream);
+             JsonGenerator generator = jsonFactory.createGenerator(output.asOutputStream(), JsonEncoding.UTF8)) {
+
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                switch (token) {
+                    case FIELD_NAME -> generator.writeFieldName(replaceHostNames(parser.currentName()));
+                    case VALUE_STRING -> {
+                        String value = parser.getText();
+                        if (isLayerName(parser.getParsingContext())) {
+                            layerNames.add(value);
+                        }
+                        generator.writeString(replaceHostNames(value));
+                    }
+                    default -> generator.copyCurrentEventExact(parser);
+                }
+            }
+        } catch (IOException e) {
+            throw new DeserializationException("The print spec could not be read", e);
+        } finally {
+            DataBufferUtils.release(json);
+        }
+        return new PrintSpec(Set.copyOf(layerNames), output);
+    }
+
+    /**
+     * whether a string is an element of {@code visibleLayerIds} or of
+     * {@code attributes.(gfi|legend|map).layers[].layers}
+     */
+    private static boolean isLayerName(JsonStreamContext array) {
+        if (!array.inArray()) {
+            return false;
+        }
+        JsonStreamContext arrayOwner = array.getParent();
+        if (isRootField(arrayOwner, "visibleLayerIds")) {
+            return true;
+        }
+        if (!"layers".equals(arrayOwner.getCurrentName())) {
+            return false;
+        }
+        JsonStreamContext layerItems = arrayOwner.getParent();
+        if (layerItems == null || !layerItems.inArray()) {
+            return false;
+        }
+        JsonStreamContext section = layerItems.getParent();
+        if (!"layers".equals(section.getCurrentName())) {
+            return false;
+        }
+        JsonStreamContext attributes = section.getParent();
+        return attributes != null
+                && attributes.inObject()
+                && LAYER_SECTIONS.contains(attributes.getCurrentName())
+                && isRootField(attributes.getParent(), "attributes");
+    }
+
+    private static boolean isRootField(JsonStreamContext context, String fieldName) {
+        return context != null
+                && context.inObject()
+                && context.getParent() != null
+                && context.getParent().inRoot()
+                && fieldName.equals(context.getCurrentName());
+    }
+
+    private String replaceHostNames(String input) {
+        if (StringUtils.isBlank(input)) {
+            return input;
+        }
+        String output = hostReplacer.replacePublicHostNames(input);
+        if (log.isDebugEnabled() && !output.equals(input)) {
+            log.debug("Replaced hostname in JSON: {} -> {}", input, output);
+        }
+        return output;
+    }
+}
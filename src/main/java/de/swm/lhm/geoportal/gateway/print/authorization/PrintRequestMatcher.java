@@ -1,10 +1,9 @@
 package de.swm.lhm.geoportal.gateway.print.authorization;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import de.swm.lhm.geoportal.gateway.authorization.IAuthService;
 import de.swm.lhm.geoportal.gateway.authorization.model.AuthorizationGroup;
-import de.swm.lhm.geoportal.gateway.print.model.PrintRequest;
-import de.swm.lhm.geoportal.gateway.util.DataBufferUtils;
+import de.swm.lhm.geoportal.gateway.print.PrintSpecService;
+import de.swm.lhm.geoportal.gateway.print.model.PrintSpec;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
@@ -26,7 +25,7 @@ import java.util.Map;
 @Slf4j
 @RequiredArgsConstructor
 public class PrintRequestMatcher implements ServerWebExchangeMatcher {
-    private final ObjectMapper objectMapper;
+    private final PrintSpecService printSpecService;
     private final IAuthService authorizationService;
 
     @Override
@@ -36,9 +35,8 @@ public class PrintRequestMatcher implements ServerWebExchangeMatcher {
         }
 
 
-        Mono<PrintRequest> printRequest = extractBody(exchange);
-
-        return printRequest.map(PrintRequest::getLayerNamesForAuthorization)
+        return printSpecService.readPrintSpecAndCache(exchange)
+                .map(PrintSpec::getLayerNamesForAuthorization)
                 .flatMap(authorizationService::getAccessInfoGroupForGeoServiceLayers)
                 .flatMap(this::matches);
     }
@@ -62,9 +60,4 @@ public class PrintRequestMatcher implements ServerWebExchangeMatcher {
                                 .build())
         );
     }
-
-    private Mono<PrintRequest> extractBody(ServerWebExchange exchange) {
-        return DataBufferUtils.copyAsObject(exchange.getRequest().getBody(), PrintRequest.class);
-    }
 }
-
@@ -0,0 +1,78 @@
+package de.swm.lhm.geoportal.gateway.print.filter;
+
+import de.swm.lhm.geoportal.gateway.print.PrintAdmissionService;
+import de.swm.lhm.geoportal.gateway.print.PrintJobRejectedException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.security.Principal;
+
+/**
+ * Forwards print jobs only after they were admitted by the {@link PrintAdmissionService}. The permit is
+ * held until the response of the print server was sent. Rejected jobs are answered with
+ * 429 Too Many Requests and a Retry-After header.
+ * <p>
+ * Only POST requests submit print jobs, polling their status and downloading the reports is not limited.
+ * <p>
+ * The per caller limits apply to the authenticated user. Anonymous print requests get a new web session
+ * each time, so anonymous callers are identified by the remote address of the request instead. Headers like
+ * X-Forwarded-For are not read here, as clients could send a new value with every job. Behind a reverse proxy
+ * the remote address is the one of the client only if forwarded headers of the trusted proxy are applied,
+ * see {@code server.forward-headers-strategy}.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class PrintAdmissionGatewayFilter implements GatewayFilter {
+
+    private final PrintAdmissionService admissionService;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!admissionService.isEnabled() || !HttpMethod.POST.equals(exchange.getRequest().getMethod())) {
+            return chain.filter(exchange);
+        }
+
+        return resolveCallerKey(exchange)
+                .flatMap(callerKey -> Mono.usingWhen(
+                        admissionService.acquire(callerKey),
+                        permit -> chain.filter(exchange),
+                        permit -> Mono.fromRunnable(permit::release)
+                ))
+                .onErrorResume(PrintJobRejectedException.class, e -> reject(exchange, e));
+    }
+
+    static Mono<String> resolveCallerKey(ServerWebExchange exchange) {
+        return exchange.getPrincipal()
+                .map(Principal::getName)
+                .filter(StringUtils::hasText)
+                .map(name -> "user:" + name)
+                .switchIfEmpty(Mono.fromSupplier(() -> "address:" + getClientAddress(exchange.getRequest())));
+    }
+
+    private static String getClientAddress(ServerHttpRequest request) {
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        if (remoteAddress == null) {
+            return "unknown";
+        }
+        return remoteAddress.getAddress() == null ? remoteAddress.getHostString() : remoteAddress.getAddress().getHostAddress();
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, PrintJobRejectedException e) {
+        log.debug("Rejected print job: {}", e.getMessage());
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, admissionService.getRetryAfter().toSeconds())));
+        return response.setComplete();
+    }
+}
@@ -11,6 +11,7 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -28,7 +29,11 @@ public class PrintRequest {
 
    @JsonIgnore
     public Set<QualifiedLayerName> getLayerNamesForAuthorization(){
-        return getAllLayerNames()
+        return toLayerNamesForAuthorization(getAllLayerNames());
+    }
+
+    public static Set<QualifiedLayerName> toLayerNamesForAuthorization(Collection<String> layerNames){
+        return layerNames
                 .stream()
                 // generic layers have a UUID as name. These shall bypass authorization and are always allowed
                 .filter(s -> !UuidUtils.isUuid(s))
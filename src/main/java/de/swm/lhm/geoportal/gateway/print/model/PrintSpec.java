@@ -0,0 +1,19 @@
+package de.swm.lhm.geoportal.gateway.print.model;
+
+import de.swm.lhm.geoportal.gateway.geoservice.inspect.QualifiedLayerName;
+import org.springframework.core.io.buffer.DataBuffer;
+
+import java.util.Set;
+
+/**
+ * Result of the single pass over a print spec: the names of all layers to be printed
+ * and the body with the public hostnames replaced, which is forwarded to the print server.
+ *
+ * @param rewrittenBody buffer owned by the exchange, released when the exchange is complete
+ */
+public record PrintSpec(Set<String> layerNames, DataBuffer rewrittenBody) {
+
+    public Set<QualifiedLayerName> getLayerNamesForAuthorization() {
+        return PrintRequest.toLayerNamesForAuthorization(layerNames);
+    }
+}
@@ -3,8 +3,25 @@ package de.swm.lhm.geoportal.gateway.product;
 import de.swm.lhm.geoportal.gateway.product.model.Product;
 import reactor.core.publisher.Mono;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 public interface HasProductDetails {
 
-    Mono<Void> enrichProduct(Product product);
+    /**
+     * Adds the details of all given products, loading them for the whole set of products at once.
+     * The list is not empty and all products are of the same stage.
+     */
+    Mono<Void> enrichProducts(List<Product> products);
+
+    default Mono<Void> enrichProduct(Product product) {
+        return enrichProducts(List.of(product));
+    }
 
+    static Map<Integer, Product> indexById(List<Product> products) {
+        Map<Integer, Product> productsById = new LinkedHashMap<>();
+        products.forEach(product -> productsById.putIfAbsent(product.getId(), product));
+        return productsById;
+    }
 }
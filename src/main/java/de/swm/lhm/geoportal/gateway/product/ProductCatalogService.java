@@ -0,0 +1,140 @@
+package de.swm.lhm.geoportal.gateway.product;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.swm.lhm.geoportal.gateway.authorization.IAuthService;
+import de.swm.lhm.geoportal.gateway.authorization.model.AuthorizationGroup;
+import de.swm.lhm.geoportal.gateway.authorization.model.AuthorizationGroupKey;
+import de.swm.lhm.geoportal.gateway.shared.GatewayService;
+import de.swm.lhm.geoportal.gateway.shared.change_notification.ConfigurationChangedEvent;
+import de.swm.lhm.geoportal.gateway.shared.model.Stage;
+import de.swm.lhm.geoportal.gateway.util.cache.ReactiveCache;
+import de.swm.lhm.geoportal.gateway.util.cache.ReactiveCacheFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+
+/**
+ * Provides the product catalog as serialized JSON array.
+ * <p>
+ * The catalog only depends on the stage, the granted authorization group and the validity periods of
+ * the products. It is therefore built once per authorization group and kept as a snapshot, which is
+ * written to the response as is. A snapshot expires at the next start or end of a validity period
+ * of a product of the stage, when the configuration changes or at the latest after the expiry of
+ * the cache.
+ */
+@Service
+@Slf4j
+public class ProductCatalogService {
+
+    static final String CATALOG_CACHE_NAME = "product.catalog";
+
+    private final ProductService productService;
+    private final ProductRepository productRepository;
+    private final IAuthService authorizationService;
+    private final GatewayService gatewayService;
+    private final ObjectMapper objectMapper;
+    private final ReactiveCache<CatalogCacheKey, CatalogSnapshot> catalogCache;
+
+    ProductCatalogService(
+            ProductService productService,
+            ProductRepository productRepository,
+            IAuthService authorizationService,
+            GatewayService gatewayService,
+            ObjectMapper objectMapper,
+            ProductProperties productProperties,
+            ReactiveCacheFactory reactiveCacheFactory
+    ) {
+        this.productService = productService;
+        this.productRepository = productRepository;
+        this.authorizationService = authorizationService;
+        this.gatewayService = gatewayService;
+        this.objectMapper = objectMapper;
+
+        this.catalogCache = reactiveCacheFactory.create(
+                CATALOG_CACHE_NAME,
+                productProperties.getCatalogCache(),
+                new TypeReference<>() {
+                }
+        );
+    }
+
+    /**
+     * Returns the products visible to the current user as JSON array.
+     */
+    public Mono<byte[]> getCatalogJson() {
+        return authorizationService.getGrantedAsAuthorizationGroup()
+                .flatMap(authorizationGroup -> {
+                    CatalogCacheKey cacheKey = new CatalogCacheKey(gatewayService.getStage(), AuthorizationGroupKey.of(authorizationGroup));
+                    return getSnapshot(cacheKey, authorizationGroup);
+                })
+                .map(CatalogSnapshot::json);
+    }
+
+    private Mono<CatalogSnapshot> getSnapshot(CatalogCacheKey cacheKey, AuthorizationGroup authorizationGroup) {
+        Mono<CatalogSnapshot> loadSnapshot = Mono.defer(() -> loadSnapshot(cacheKey.stage(), authorizationGroup));
+        return catalogCache.get(cacheKey, loadSnapshot)
+                .flatMap(snapshot -> {
+                    if (!snapshot.isExpired(Instant.now())) {
+                        return Mono.just(snapshot);
+                    }
+                    log.debug("Catalog snapshot reached the validity boundary {}, reloading it", Instant.ofEpochMilli(snapshot.validUntil()));
+                    catalogCache.invalidate(cacheKey);
+                    return catalogCache.get(cacheKey, loadSnapshot);
+                });
+    }
+
+    private Mono<CatalogSnapshot> loadSnapshot(Stage stage, AuthorizationGroup authorizationGroup) {
+        // the boundary is determined before the products are loaded, so no change of the valid products is missed
+        OffsetDateTime now = OffsetDateTime.now(ZoneId.systemDefault());
+        return productRepository.findNextValidityBoundary(stage, now)
+                .map(boundary -> boundary.toInstant().toEpochMilli())
+                .defaultIfEmpty(Long.MAX_VALUE)
+                .flatMap(validUntil -> productService.getAllProducts(authorizationGroup)
+                        .collectList()
+                        .flatMap(products -> {
+                            try {
+                                return Mono.just(new CatalogSnapshot(objectMapper.writeValueAsBytes(products), validUntil));
+                            } catch (JsonProcessingException e) {
+                                return Mono.error(e);
+                            }
+                        }));
+    }
+
+    /**
+     * The catalog contains the details of the products from many configuration tables, so any
+     * change of the configuration of the stage invalidates the snapshots.
+     */
+    @EventListener(RefreshRoutesEvent.class)
+    public void invalidateCatalog() {
+        catalogCache.invalidateAll();
+    }
+
+    @EventListener(ConfigurationChangedEvent.class)
+    public void invalidateCatalog(ConfigurationChangedEvent event) {
+        if (event.affectsStage(gatewayService.getStage())) {
+            catalogCache.invalidateAll();
+        }
+    }
+
+    record CatalogCacheKey(Stage stage, AuthorizationGroupKey authorizationGroupKey) {
+    }
+
+    /**
+     * @param json       the serialized catalog
+     * @param validUntil epoch millis of the next validity boundary, from which on the snapshot is outdated
+     */
+    record CatalogSnapshot(byte[] json, long validUntil) {
+
+        boolean isExpired(Instant now) {
+            return now.toEpochMilli() >= validUntil;
+        }
+    }
+}
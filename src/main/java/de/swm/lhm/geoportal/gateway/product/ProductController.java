@@ -2,7 +2,11 @@ package de.swm.lhm.geoportal.gateway.product;
 
 
 import de.swm.lhm.geoportal.gateway.product.model.Product;
+import de.swm.lhm.geoportal.gateway.product.model.ProductImage;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.parameters.RequestBody;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -10,11 +14,13 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 
@@ -26,14 +32,23 @@ import reactor.core.publisher.Mono;
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductCatalogService productCatalogService;
+    private final ProductProperties productProperties;
 
     @Operation(
             description = "Alle Produkte anfragen",
-            responses = {@ApiResponse(description = "Produkte")}
+            responses = {@ApiResponse(
+                    description = "Produkte",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, array = @ArraySchema(schema = @Schema(implementation = Product.class)))
+            )}
     )
-    @GetMapping()
-    public Flux<Product> getAllProducts() {
-        return productService.getAllProducts();
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<byte[]>> getAllProducts() {
+        // the catalog is already serialized, the bytes are written to the response without copying them
+        return productCatalogService.getCatalogJson()
+                .map(catalogJson -> ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(catalogJson));
     }
 
     @Operation(
@@ -41,12 +56,27 @@ public class ProductController {
             responses = {@ApiResponse(description = "Produktresource")}
     )
     @GetMapping("{productName}/${geoportal.gateway.product.image-path}")
-    public Mono<Resource> getProductLogo(@RequestBody(required = true, description = "Produktname") @PathVariable("productName") String productName) {
+    public Mono<ResponseEntity<Resource>> getProductLogo(@RequestBody(required = true, description = "Produktname") @PathVariable("productName") String productName) {
 
+        // the response handler answers conditional requests matching the ETag or Last-Modified with 304
         return productService.getProductImageByProductName(productName)
-                .map(productImage -> new ByteArrayResource(productImage.getBytes(), productImage.getName()));
+                .map(productImage -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                            .eTag(productImage.getEtag())
+                            .cacheControl(getCacheControl(productImage));
+                    if (productImage.getLastModified() != null) {
+                        response.lastModified(productImage.getLastModified());
+                    }
+                    return response.body(new ByteArrayResource(productImage.getBytes(), productImage.getName()));
+                });
 
     }
 
+    private CacheControl getCacheControl(ProductImage productImage) {
+        CacheControl cacheControl = CacheControl.maxAge(productProperties.getImageCache().getMaxAge());
+        // images of protected products must not be stored by shared caches
+        return productImage.isPubliclyCacheable() ? cacheControl.cachePublic() : cacheControl.cachePrivate();
+    }
+
 }
 
@@ -0,0 +1,73 @@
+package de.swm.lhm.geoportal.gateway.product;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Joins products with their details in memory.
+ * <p>
+ * The links between the products and the keys of their details are read in one query, the linked details
+ * in a second query for all keys at once. The details are returned in the order of the links, a detail
+ * linked to several products is loaded once.
+ */
+public final class ProductLinks {
+
+    private static final String PRODUCT_ID_COLUMN = "product_id";
+
+    private ProductLinks() {
+    }
+
+    /**
+     * Reads the distinct links of a query selecting the column {@code product_id} and the given key column.
+     */
+    public static <K> Mono<List<Link<K>>> fetchLinks(DatabaseClient.GenericExecuteSpec query, String keyColumn, Class<K> keyType) {
+        return query.fetch()
+                .all()
+                .filter(row -> row.get(PRODUCT_ID_COLUMN) instanceof Integer && keyType.isInstance(row.get(keyColumn)))
+                .map(row -> new Link<>((Integer) row.get(PRODUCT_ID_COLUMN), keyType.cast(row.get(keyColumn))))
+                .distinct()
+                .collectList();
+    }
+
+    /**
+     * Loads the details of all links using the given function and joins them with the products. Links
+     * to details which were not found are skipped.
+     */
+    public static <K, T> Flux<Detail<T>> join(List<Link<K>> links, Function<Set<K>, Flux<T>> loader, Function<T, K> keyOf) {
+        if (links.isEmpty()) {
+            return Flux.empty();
+        }
+
+        Set<K> keys = new LinkedHashSet<>();
+        links.forEach(link -> keys.add(link.key()));
+
+        return loader.apply(keys)
+                .collect(LinkedHashMap<K, T>::new, (details, detail) -> details.putIfAbsent(keyOf.apply(detail), detail))
+                .flatMapIterable(details -> links.stream()
+                        .filter(link -> details.containsKey(link.key()))
+                        .map(link -> new Detail<>(link.productId(), details.get(link.key())))
+                        .toList());
+    }
+
+    /**
+     * Loads the details of all links using the given query and key column.
+     */
+    public static <K, T> Flux<Detail<T>> findDetails(DatabaseClient.GenericExecuteSpec linkQuery, String keyColumn, Class<K> keyType,
+                                                     Function<Set<K>, Flux<T>> loader, Function<T, K> keyOf) {
+        return fetchLinks(linkQuery, keyColumn, keyType)
+                .flatMapMany(links -> join(links, loader, keyOf));
+    }
+
+    public record Link<K>(Integer productId, K key) {
+    }
+
+    public record Detail<T>(Integer productId, T detail) {
+    }
+}
@@ -1,12 +1,16 @@
 package de.swm.lhm.geoportal.gateway.product;
 
 
+import de.swm.lhm.geoportal.gateway.util.cache.ReactiveCacheProperties;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
 
 @Configuration
 @ConfigurationProperties(prefix = "geoportal.gateway.product")
@@ -18,4 +22,17 @@ public class ProductProperties {
 
     private String endpoint;
     private String imagePath;
+    private ImageCacheProperties imageCache = new ImageCacheProperties();
+    // the snapshots contain the complete serialized catalog, by default they are only kept locally.
+    // Without change notifications, the expiry bounds how long changes of roles and layers go unnoticed.
+    private ReactiveCacheProperties catalogCache = new ReactiveCacheProperties(100, Duration.ofSeconds(5), null, null, false);
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ImageCacheProperties {
+        private DataSize maximumSize = DataSize.ofMegabytes(20);
+        private Duration maxAge = Duration.ofMinutes(10);
+    }
 }
@@ -6,24 +6,43 @@ import static org.springframework.data.relational.core.query.Query.query;
 
 import de.swm.lhm.geoportal.gateway.authorization.model.AuthorizationGroup;
 import de.swm.lhm.geoportal.gateway.product.model.Product;
+import de.swm.lhm.geoportal.gateway.product.model.ProductHeaderImageInfo;
 import de.swm.lhm.geoportal.gateway.shared.model.Stage;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
-import lombok.RequiredArgsConstructor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
 import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-@RequiredArgsConstructor
 @Component
 @Slf4j
 public class ProductRepository {
 
     private final R2dbcEntityTemplate template;
 
+    // the mapped columns of products, the header image is not part of them and is only loaded on request
+    private final SqlIdentifier[] productColumns;
+
+    public ProductRepository(R2dbcEntityTemplate template) {
+        this.template = template;
+
+        RelationalPersistentEntity<?> entity = template.getConverter().getMappingContext().getRequiredPersistentEntity(Product.class);
+        List<SqlIdentifier> columns = new ArrayList<>();
+        for (RelationalPersistentProperty property : entity) {
+            columns.add(property.getColumnName());
+        }
+        this.productColumns = columns.toArray(SqlIdentifier[]::new);
+    }
+
     public Flux<Product> findByStageAndAuthorizationGroup(Stage stage, AuthorizationGroup authorizationGroup) {
 
         OffsetDateTime now = OffsetDateTime.now(ZoneId.systemDefault());
@@ -37,31 +56,73 @@ public class ProductRepository {
                                                 .and(validityEndIsNullOrGreaterThanOrEqualToNow(now)),
                                         authorizationGroup
                                 )
-                        )
+                        ).columns(productColumns)
                 )
                 .all();
 
     }
 
-    public Mono<Product> findByNameAndStageAndAuthorizationGroup(String productName, Stage stage, AuthorizationGroup authorizationGroup) {
-
-        OffsetDateTime now = OffsetDateTime.now(ZoneId.systemDefault());
+    public Mono<ProductHeaderImageInfo> findHeaderImageInfoByNameAndStageAndAuthorizationGroup(String productName, Stage stage, AuthorizationGroup authorizationGroup) {
 
         return this.template.select(Product.class)
-                .matching(
-                        query(
-                                getConcatenatedCriteriaFromAuthorizationGroup(
-                                        where("name").is(productName)
-                                            .and("stage").is(stage)
-                                            .and(validityStartIsNullOrLessThanOrEqualToNow(now))
-                                            .and(validityEndIsNullOrGreaterThanOrEqualToNow(now)),
-                                    authorizationGroup)
-                        )
-                )
+                .as(ProductHeaderImageInfo.class)
+                .matching(query(getProductByNameCriteria(productName, stage, authorizationGroup)).columns(ProductHeaderImageInfo.COLUMNS))
                 .first();
 
     }
 
+    /**
+     * Loads the header image of a product, products without header image have an empty one.
+     */
+    public Mono<byte[]> findHeaderImageById(Integer productId) {
+
+        return this.template.getDatabaseClient()
+                .sql("SELECT header_image FROM t_product WHERE id = :id")
+                .bind("id", productId)
+                .map(row -> Optional.ofNullable(row.get("header_image", byte[].class)))
+                .one()
+                .map(headerImage -> headerImage.orElseGet(() -> new byte[0]));
+
+    }
+
+    /**
+     * Finds the next point in time after which the set of valid products of the stage changes, that is
+     * the next start or end of a validity period. Empty if there is no such point in time.
+     */
+    public Mono<OffsetDateTime> findNextValidityBoundary(Stage stage, OffsetDateTime now) {
+
+        // a product is valid up to and including the end of its validity period
+        return this.template.getDatabaseClient()
+                .sql("""
+                        SELECT min(boundary) AS next_boundary
+                        FROM (
+                            SELECT validity_period_start AS boundary FROM t_product
+                            WHERE stage = :stage AND validity_period_start > :now
+                            UNION ALL
+                            SELECT validity_period_end AS boundary FROM t_product
+                            WHERE stage = :stage AND validity_period_end >= :now
+                        ) boundaries
+                        """)
+                .bind("stage", stage.name())
+                .bind("now", now)
+                .map(row -> Optional.ofNullable(row.get("next_boundary", OffsetDateTime.class)))
+                .one()
+                .flatMap(Mono::justOrEmpty);
+
+    }
+
+    private Criteria getProductByNameCriteria(String productName, Stage stage, AuthorizationGroup authorizationGroup) {
+
+        OffsetDateTime now = OffsetDateTime.now(ZoneId.systemDefault());
+
+        return getConcatenatedCriteriaFromAuthorizationGroup(
+                where("name").is(productName)
+                        .and("stage").is(stage)
+                        .and(validityStartIsNullOrLessThanOrEqualToNow(now))
+                        .and(validityEndIsNullOrGreaterThanOrEqualToNow(now)),
+                authorizationGroup);
+    }
+
     private Criteria validityStartIsNullOrLessThanOrEqualToNow(OffsetDateTime now){
         return where("validity_period_start").isNull()
                         .or("validity_period_start").lessThanOrEquals(now);
@@ -1,30 +1,51 @@
 package de.swm.lhm.geoportal.gateway.product;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import de.swm.lhm.geoportal.gateway.authorization.IAuthService;
+import de.swm.lhm.geoportal.gateway.authorization.model.AccessLevel;
+import de.swm.lhm.geoportal.gateway.authorization.model.AuthorizationGroup;
 import de.swm.lhm.geoportal.gateway.product.model.Product;
+import de.swm.lhm.geoportal.gateway.product.model.ProductHeaderImageInfo;
 import de.swm.lhm.geoportal.gateway.product.model.ProductImage;
 import de.swm.lhm.geoportal.gateway.shared.GatewayService;
+import de.swm.lhm.geoportal.gateway.shared.change_notification.ConfigurationChangedEvent;
 import de.swm.lhm.geoportal.gateway.unit.UnitService;
 import de.swm.lhm.geoportal.gateway.util.ExtendedURIBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.net.URISyntaxException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.stream.Collectors;
 
 
 @Service
 @Slf4j
 public class ProductService {
 
+    static final String IMAGE_CACHE_NAME = "product.images";
+
+    // rough estimate of the memory used by the key and the ETag of an entry
+    private static final int IMAGE_ENTRY_OVERHEAD_BYTES = 256;
+
     private final ProductRepository productRepository;
     private final ProductProperties productProperties;
     private final UnitService unitService;
     private final IAuthService authorizationService;
     private final GatewayService gatewayService;
     private final Flux<HasProductDetails> productDetailsModules;
+    private final Cache<ImageCacheKey, CachedImage> imageCache;
 
 
     public ProductService(
@@ -33,7 +54,8 @@ public class ProductService {
             IAuthService authorizationService,
             List<HasProductDetails> productDetailsModules,
             GatewayService gatewayService,
-            UnitService unitService
+            UnitService unitService,
+            MeterRegistry meterRegistry
     ) {
         this.productRepository = productRepository;
         this.productProperties = productProperties;
@@ -41,32 +63,94 @@ public class ProductService {
         this.productDetailsModules = Flux.fromIterable(productDetailsModules);
         this.gatewayService = gatewayService;
         this.unitService = unitService;
+        this.imageCache = CaffeineCacheMetrics.monitor(
+                meterRegistry,
+                Caffeine.newBuilder()
+                        .maximumWeight(productProperties.getImageCache().getMaximumSize().toBytes())
+                        .weigher((ImageCacheKey key, CachedImage value) -> value.bytes().length + IMAGE_ENTRY_OVERHEAD_BYTES)
+                        .recordStats()
+                        .build(),
+                IMAGE_CACHE_NAME
+        );
     }
 
     public Flux<Product> getAllProducts() {
         return authorizationService.getGrantedAsAuthorizationGroup()
-                .flatMapMany(authorizationGroup -> productRepository.findByStageAndAuthorizationGroup(gatewayService.getStage(), authorizationGroup))
-                .flatMap(product -> enrichProductDetails(product).thenReturn(product))
-                .flatMap(this::enrichProduct);
+                .flatMapMany(this::getAllProducts);
+    }
+
+    public Flux<Product> getAllProducts(AuthorizationGroup authorizationGroup) {
+        return productRepository.findByStageAndAuthorizationGroup(gatewayService.getStage(), authorizationGroup)
+                .collectList()
+                .flatMapMany(products -> enrichProducts(products).thenMany(Flux.fromIterable(products)));
     }
 
-    private Mono<Void> enrichProductDetails(Product product) {
-        return productDetailsModules.flatMap(detailsModule -> detailsModule.enrichProduct(product)).then();
+    /**
+     * Adds the details to all products at once, each module loads the details of all products of a stage
+     * in a few queries instead of querying them per product.
+     */
+    private Mono<Void> enrichProducts(List<Product> products) {
+        if (products.isEmpty()) {
+            return Mono.empty();
+        }
+        return Flux.fromIterable(products.stream().collect(Collectors.groupingBy(Product::getStage)).values())
+                .flatMap(productsOfStage -> productDetailsModules
+                        .flatMap(detailsModule -> detailsModule.enrichProducts(productsOfStage))
+                        .then())
+                .then(enrichUnitsAndLogoUrls(products));
     }
 
+    /**
+     * Loads the header image of a product. The catalog queries do not load the images, so the image is
+     * loaded separately and cached by product and modification time of the product.
+     */
     public Mono<ProductImage> getProductImageByProductName(String productName) {
 
         return authorizationService.getGrantedAsAuthorizationGroup()
-                .flatMap(authorizationGroup ->  productRepository.findByNameAndStageAndAuthorizationGroup(productName, gatewayService.getStage(), authorizationGroup))
-                .map(product -> ProductImage.builder().name(product.getHeaderImageFileName()).bytes(product.getHeaderImageBytes()).build());
+                .flatMap(authorizationGroup -> productRepository.findHeaderImageInfoByNameAndStageAndAuthorizationGroup(productName, gatewayService.getStage(), authorizationGroup))
+                .flatMap(imageInfo -> getCachedImage(imageInfo)
+                        .map(cachedImage -> ProductImage.builder()
+                                .name(imageInfo.getFileName())
+                                .bytes(cachedImage.bytes())
+                                .etag(cachedImage.etag())
+                                .lastModified(toInstant(imageInfo.getUpdatedTimestamp()))
+                                .publiclyCacheable(imageInfo.getAccessLevel() == AccessLevel.PUBLIC)
+                                .build()));
+    }
+
+    private Mono<CachedImage> getCachedImage(ProductHeaderImageInfo imageInfo) {
+        ImageCacheKey cacheKey = new ImageCacheKey(imageInfo.getId(), imageInfo.getUpdatedTimestamp());
+        CachedImage cached = imageCache.getIfPresent(cacheKey);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return productRepository.findHeaderImageById(imageInfo.getId())
+                .map(bytes -> new CachedImage(bytes, "\"" + DigestUtils.md5DigestAsHex(bytes) + "\""))
+                .doOnNext(image -> imageCache.put(cacheKey, image));
     }
 
-    private Mono<Product> enrichProduct(Product product) {
-         return unitService.getUnitNameById(product.getUnitId())
-                 .doOnNext(product::setUnit)
-                 .thenReturn(product)
-                 .doOnNext(this::mapLogoUrl)
-                 .thenReturn(product);
+    private static Instant toInstant(LocalDateTime timestamp) {
+        return timestamp == null ? null : timestamp.atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    /**
+     * The images are cached by modification time of the product, this only removes the images of
+     * changed or deleted products early.
+     */
+    @EventListener({RefreshRoutesEvent.class, ConfigurationChangedEvent.class})
+    public void invalidateImageCache() {
+        imageCache.invalidateAll();
+    }
+
+    private Mono<Void> enrichUnitsAndLogoUrls(List<Product> products) {
+        return unitService.getUnitNamesByIds(products.stream().map(Product::getUnitId).toList())
+                .doOnNext(unitNames -> products.forEach(product -> {
+                    if (product.getUnitId() != null) {
+                        product.setUnit(unitNames.get(product.getUnitId()));
+                    }
+                    mapLogoUrl(product);
+                }))
+                .then();
     }
 
     private void mapLogoUrl(Product product) {
@@ -89,6 +173,10 @@ public class ProductService {
             return "";
         }
     }
-}
 
+    record ImageCacheKey(Integer productId, LocalDateTime updatedTimestamp) {
+    }
 
+    record CachedImage(byte[] bytes, String etag) {
+    }
+}
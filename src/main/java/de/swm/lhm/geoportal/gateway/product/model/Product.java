@@ -84,11 +84,6 @@ public class Product {
     @Column("header_image_file_name")
     String headerImageFileName;
 
-    @Schema(hidden = true)
-    @Column("header_image")
-    @JsonIgnore
-    byte[] headerImageBytes;
-
     @Schema(description = "Url von Logo")
     @Transient
     String logoUrl;
@@ -121,15 +116,16 @@ public class Product {
     @Builder.Default
     List<FileResource> fileResources = new ArrayList<>();
 
-    public void addGeoService(Service service) {
+    // the details modules add their details concurrently
+    public synchronized void addGeoService(Service service) {
         geoServices.add(service);
     }
 
-    public void addFileResource(FileResource fileResource) {
+    public synchronized void addFileResource(FileResource fileResource) {
         fileResources.add(fileResource);
     }
 
-    public void addPortal(Portal portal) {
+    public synchronized void addPortal(Portal portal) {
         portals.add(portal);
     }
 
@@ -0,0 +1,40 @@
+package de.swm.lhm.geoportal.gateway.product.model;
+
+
+import de.swm.lhm.geoportal.gateway.authorization.model.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Projection of a product with the information needed to serve its header image, without the image itself.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "t_product")
+public class ProductHeaderImageInfo {
+
+    public static final List<String> COLUMNS = List.of("id", "header_image_file_name", "updated_timestamp", "access_level");
+
+    @Id
+    @Column("id")
+    Integer id;
+
+    @Column("header_image_file_name")
+    String fileName;
+
+    @Column("updated_timestamp")
+    LocalDateTime updatedTimestamp;
+
+    @Column("access_level")
+    AccessLevel accessLevel;
+}
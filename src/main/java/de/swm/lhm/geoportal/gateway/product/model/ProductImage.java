@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import org.apache.commons.lang3.StringUtils;
 
+import java.time.Instant;
 import java.util.Objects;
 
 @Data
@@ -12,9 +13,12 @@ public class ProductImage {
 
     byte[] bytes;
     String name;
+    String etag;
+    Instant lastModified;
+    boolean publiclyCacheable;
 
     @Builder
-    ProductImage(final byte[] bytes, final String name) {
+    ProductImage(final byte[] bytes, final String name, final String etag, final Instant lastModified, final boolean publiclyCacheable) {
 
         if (StringUtils.isBlank(name)) {
             this.name = "default.png";
@@ -23,6 +27,9 @@ public class ProductImage {
         }
 
         this.bytes = Objects.requireNonNullElseGet(bytes, () -> new byte[0]);
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.publiclyCacheable = publiclyCacheable;
     }
 
 }
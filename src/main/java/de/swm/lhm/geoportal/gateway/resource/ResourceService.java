@@ -14,6 +14,8 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
 import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Map;
 
 
 @Service
@@ -27,10 +29,13 @@ public class ResourceService implements HasProductDetails {
 
 
     @Override
-    public Mono<Void> enrichProduct(Product product) {
-        return resourceRepository.findFileResourceByProductId(product.getId())
-                .doOnNext(this::mapUrl)
-                .doOnNext(product::addFileResource)
+    public Mono<Void> enrichProducts(List<Product> products) {
+        Map<Integer, Product> productsById = HasProductDetails.indexById(products);
+        return resourceRepository.findFileResourcesByProductIds(productsById.keySet())
+                .doOnNext(fileResource -> {
+                    mapUrl(fileResource.detail());
+                    productsById.get(fileResource.productId()).addFileResource(fileResource.detail());
+                })
                 .then();
     }
 
@@ -3,6 +3,8 @@ package de.swm.lhm.geoportal.gateway.search;
 import de.swm.lhm.geoportal.gateway.search.model.masterportal.PortalSearchRequest;
 import de.swm.lhm.geoportal.gateway.search.model.masterportal.PortalSearchResponse;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -12,10 +14,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
 import java.util.NoSuchElementException;
@@ -35,9 +37,14 @@ public class SearchController {
             value = {
                     @ApiResponse(responseCode = "200", description = "Ergebnisliste der Suche")
             })
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(
+            required = true,
+            content = @Content(schema = @Schema(implementation = PortalSearchRequest.class))
+    )
     @PostMapping()
-    Mono<PortalSearchResponse> portalSearch(@RequestBody PortalSearchRequest searchRequest) {
-        return searchService.executePortalSearch(searchRequest);
+    Mono<PortalSearchResponse> portalSearch(ServerWebExchange exchange) {
+        // the request has usually already been read by the SearchRequestMatcher
+        return searchService.executePortalSearch(exchange);
     }
 
     @ResponseStatus(
@@ -50,7 +57,7 @@ public class SearchController {
 
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler(DeserializationException.class)
-    public void badRequestHandler(NoSuchElementException ex) {
+    public void badRequestHandler(DeserializationException ex) {
         log.error(ex.getMessage(), ex);
     }
 }
@@ -1,5 +1,6 @@
 package de.swm.lhm.geoportal.gateway.search;
 
+import de.swm.lhm.geoportal.gateway.util.cache.ReactiveCacheProperties;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -7,6 +8,8 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 @ConfigurationProperties(prefix = "geoportal.gateway.search")
 @Getter
@@ -15,4 +18,7 @@ import org.springframework.context.annotation.Configuration;
 @AllArgsConstructor
 public class SearchProperties {
     private String endpoint;
+    private Duration geoDataTimeout = Duration.ofSeconds(5);
+    private Duration addressTimeout = Duration.ofSeconds(5);
+    private ReactiveCacheProperties resultCache = new ReactiveCacheProperties(1000, Duration.ofSeconds(30));
 }
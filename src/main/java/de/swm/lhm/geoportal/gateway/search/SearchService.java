@@ -1,6 +1,9 @@
 package de.swm.lhm.geoportal.gateway.search;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import de.swm.lhm.geoportal.gateway.portal.PortalRepository;
+import de.swm.lhm.geoportal.gateway.portal.model.Portal;
 import de.swm.lhm.geoportal.gateway.search.client.ElasticSearchClient;
 import de.swm.lhm.geoportal.gateway.search.model.elastic.ElasticSearchInnerHit;
 import de.swm.lhm.geoportal.gateway.search.model.elastic.ElasticSearchOuterHits;
@@ -13,42 +16,223 @@ import de.swm.lhm.geoportal.gateway.search.model.masterportal.PortalSearchReques
 import de.swm.lhm.geoportal.gateway.search.model.masterportal.PortalSearchResponse;
 import de.swm.lhm.geoportal.gateway.search.model.masterportal.SearchResultTo;
 import de.swm.lhm.geoportal.gateway.shared.GatewayService;
-import lombok.AllArgsConstructor;
+import de.swm.lhm.geoportal.gateway.shared.change_notification.ConfigurationChangedEvent;
+import de.swm.lhm.geoportal.gateway.util.DataBufferUtils;
+import de.swm.lhm.geoportal.gateway.util.cache.ReactiveCache;
+import de.swm.lhm.geoportal.gateway.util.cache.ReactiveCacheFactory;
+import de.swm.lhm.geoportal.gateway.util.cache.ReactiveCacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 @Service
-@AllArgsConstructor
+@Slf4j
 public class SearchService {
+    public static final String RESULT_CACHE_NAME = "search.results";
+    public static final String PORTAL_CACHE_NAME = "search.portals";
+    private static final String CACHED_PORTAL_SEARCH_REQUEST_ATTR = "portalSearchRequest";
+
+    // the geodata query does not set a size, elasticsearch returns its default number of hits
+    private static final int DEFAULT_RESULT_SIZE = 0;
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
     private final ElasticSearchClient client;
     private final GeoDataSearchResultMapper geoDataSearchResultMapper;
     private final AddressSearchResultMapper addressSearchResultMapper;
     private final PortalRepository portalRepository;
     private final GatewayService gatewayService;
+    private final SearchProperties searchProperties;
+    private final ElasticSearchProperties elasticSearchProperties;
+    private final ObjectMapper objectMapper;
+    private final ReactiveCache<ResultCacheKey, List<SearchResultTo>> resultCache;
+    private final ReactiveCache<Integer, Portal> portalCache;
+
+    public SearchService(ElasticSearchClient client, GeoDataSearchResultMapper geoDataSearchResultMapper,
+                         AddressSearchResultMapper addressSearchResultMapper, PortalRepository portalRepository,
+                         GatewayService gatewayService, SearchProperties searchProperties,
+                         ElasticSearchProperties elasticSearchProperties, ObjectMapper objectMapper,
+                         ReactiveCacheFactory reactiveCacheFactory) {
+        this.client = client;
+        this.geoDataSearchResultMapper = geoDataSearchResultMapper;
+        this.addressSearchResultMapper = addressSearchResultMapper;
+        this.portalRepository = portalRepository;
+        this.gatewayService = gatewayService;
+        this.searchProperties = searchProperties;
+        this.elasticSearchProperties = elasticSearchProperties;
+        this.objectMapper = objectMapper;
+        this.resultCache = reactiveCacheFactory.create(
+                RESULT_CACHE_NAME,
+                searchProperties.getResultCache(),
+                new TypeReference<>() {
+                }
+        );
+
+        ReactiveCacheProperties portalCacheProperties = new ReactiveCacheProperties(100, Duration.ofSeconds(10L));
+        // the search indices of a portal are not serialized to JSON, so portals can not be shared
+        portalCacheProperties.setShared(false);
+        this.portalCache = reactiveCacheFactory.create(
+                PORTAL_CACHE_NAME,
+                portalCacheProperties,
+                new TypeReference<>() {
+                }
+        );
+    }
+
+    /**
+     * Reads the search request from the body of the exchange. The request is parsed once and kept in
+     * the exchange, so the authorization and the search itself do not read the body again.
+     */
+    public Mono<PortalSearchRequest> readRequestAndCache(ServerWebExchange exchange) {
+        PortalSearchRequest cachedRequest = exchange.getAttribute(CACHED_PORTAL_SEARCH_REQUEST_ATTR);
+        if (cachedRequest != null) {
+            log.trace("Reusing cached previous portal search request");
+            return Mono.just(cachedRequest);
+        }
+        return DataBufferUtils.copyAsObject(exchange.getRequest().getBody(), PortalSearchRequest.class, objectMapper)
+                .doOnNext(request -> exchange.getAttributes().put(CACHED_PORTAL_SEARCH_REQUEST_ATTR, request));
+    }
+
+    public Mono<Portal> findPortal(Integer portalId) {
+        if (portalId == null) {
+            return Mono.empty();
+        }
+        return portalCache.get(portalId, portalRepository.findPortalByIdAndStage(portalId, gatewayService.getStage()));
+    }
+
+    @EventListener(ConfigurationChangedEvent.class)
+    public void invalidatePortals(ConfigurationChangedEvent event) {
+        if (event.affectsStage(gatewayService.getStage())) {
+            portalCache.invalidateAll();
+        }
+    }
+
+    public Mono<PortalSearchResponse> executePortalSearch(ServerWebExchange exchange) {
+        return readRequestAndCache(exchange).flatMap(this::executePortalSearch);
+    }
 
 
+    /**
+     * Searches the geodata indices of the portal and the address index concurrently.
+     * <p>
+     * A backend which fails or exceeds its timeout is left out of the response, so slow geodata
+     * indices do not hold back the addresses and vice versa.
+     */
     public Mono<PortalSearchResponse> executePortalSearch(PortalSearchRequest request){
-        Flux<SearchResultTo> geoData = portalRepository.findPortalByIdAndStage(request.getPortalId(), gatewayService.getStage())
+        Mono<List<SearchResultTo>> geoData = findPortal(request.getPortalId())
                 .switchIfEmpty(Mono.error(new NoSuchElementException("Portal with id " +  request.getPortalId() + " not found")))
-                .flatMapMany(portal -> searchGeoData(request.getSearchString(), portal.getSearchIndexGeoData()));
+                .flatMap(portal -> searchGeoDataIndices(request.getSearchString(), splitIndices(portal.getSearchIndexGeoData())));
 
-        Flux<SearchResultTo> addresses = searchAddress(request.getSearchString(), request.getMaxResultAmount());
-        Flux<SearchResultTo> results = geoData.concatWith(addresses);
-        return results.collectList()
+        Mono<List<SearchResultTo>> addresses = withPartialResult(
+                searchAddress(request.getSearchString(), request.getMaxResultAmount()),
+                searchProperties.getAddressTimeout(),
+                "address search"
+        );
+
+        return Mono.zip(geoData, addresses, (geoDataHits, addressHits) -> {
+                    List<SearchResultTo> hits = new ArrayList<>(geoDataHits.size() + addressHits.size());
+                    hits.addAll(geoDataHits);
+                    hits.addAll(addressHits);
+                    return hits;
+                })
                 .map(PortalSearchOuterHits::new)
                 .map(PortalSearchResponse::new);
     }
 
 
     public Flux<SearchResultTo> searchGeoData(String searchString, String index){
-        return mapToSearchResult(client.searchGeoData(index, searchString), geoDataSearchResultMapper);
+        String normalizedSearchString = normalizeSearchString(searchString);
+        return cached(
+                new ResultCacheKey(index, normalizedSearchString, DEFAULT_RESULT_SIZE),
+                () -> mapToSearchResult(client.searchGeoData(index, normalizedSearchString), geoDataSearchResultMapper)
+        );
     }
 
 
     public Flux<SearchResultTo> searchAddress(String searchString, int maxResultAmount){
-        return mapToSearchResult(client.searchAddress(searchString, maxResultAmount), addressSearchResultMapper);
+        String normalizedSearchString = normalizeSearchString(searchString);
+        return cached(
+                new ResultCacheKey(elasticSearchProperties.getAddressIndexName(), normalizedSearchString, maxResultAmount),
+                () -> mapToSearchResult(client.searchAddress(normalizedSearchString, maxResultAmount), addressSearchResultMapper)
+        );
+    }
+
+    /**
+     * the query is only created and sent when the results are neither cached nor already being loaded
+     */
+    private Flux<SearchResultTo> cached(ResultCacheKey key, Supplier<Flux<SearchResultTo>> search) {
+        return resultCache.get(key, Flux.defer(search).collectList())
+                .flatMapIterable(Function.identity());
+    }
+
+    /**
+     * whitespace does not change the results of the queries, so the variants of a search string
+     * typed by the users share one cache entry
+     */
+    static String normalizeSearchString(String searchString) {
+        return WHITESPACE.matcher(StringUtils.defaultString(searchString).trim()).replaceAll(" ");
+    }
+
+    private Mono<List<SearchResultTo>> searchGeoDataIndices(String searchString, List<String> indices) {
+        // the relevance scores of different indices are not comparable, as they depend on the
+        // term statistics of each index. The hits are already ordered by relevance within their
+        // index, so they are interleaved by rank.
+        return Flux.fromIterable(indices)
+                .flatMapSequential(index -> withPartialResult(
+                        searchGeoData(searchString, index),
+                        searchProperties.getGeoDataTimeout(),
+                        "geodata search in index " + index
+                ))
+                .collectList()
+                .map(SearchService::interleave);
+    }
+
+    private Mono<List<SearchResultTo>> withPartialResult(Flux<SearchResultTo> results, Duration timeout, String description) {
+        return results.collectList()
+                .timeout(timeout)
+                .onErrorResume(throwable -> {
+                    log.warn("Skipping results of the {}: {}", description, throwable.toString());
+                    return Mono.just(List.of());
+                });
+    }
+
+    static List<String> splitIndices(String indices) {
+        return Arrays.stream(StringUtils.defaultString(indices).split(","))
+                .map(String::trim)
+                .filter(StringUtils::isNotEmpty)
+                .distinct()
+                .toList();
+    }
+
+    static <T> List<T> interleave(List<List<T>> rankedLists) {
+        if (rankedLists.size() == 1) {
+            return rankedLists.getFirst();
+        }
+        List<T> interleaved = new ArrayList<>();
+        int maxSize = rankedLists.stream().mapToInt(List::size).max().orElse(0);
+        for (int rank = 0; rank < maxSize; rank++) {
+            for (List<T> rankedList : rankedLists) {
+                if (rank < rankedList.size()) {
+                    interleaved.add(rankedList.get(rank));
+                }
+            }
+        }
+        return interleaved;
+    }
+
+    record ResultCacheKey(String index, String searchString, int size) {
     }
 
     private <T> Flux<SearchResultTo> mapToSearchResult(Mono<ElasticSearchResponse<T>> clientResponse, ResultMapper<T> mapper){
@@ -1,6 +1,7 @@
 package de.swm.lhm.geoportal.gateway.sensor;
 
 
+import de.swm.lhm.geoportal.gateway.product.ProductLinks;
 import de.swm.lhm.geoportal.gateway.sensor.model.SensorLayer;
 import de.swm.lhm.geoportal.gateway.shared.model.ServiceType;
 import de.swm.lhm.geoportal.gateway.shared.model.Stage;
@@ -9,7 +10,8 @@ import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
+
+import java.util.Collection;
 
 import static org.springframework.data.relational.core.query.Criteria.where;
 import static org.springframework.data.relational.core.query.Query.query;
@@ -24,33 +26,32 @@ public class SensorLayerRepository {
 
 
 
-    public Flux<SensorLayer> findSensorServiceByProductId(Integer productId, Stage stage) {
-
-        return this.databaseClient.sql(
-                        """
-                        SELECT layer_id
-                        FROM t_product_layer
-                        WHERE product_id = :productId
-                        AND layer_type = :serviceType
-                        """
-                )
-                .bind("productId", productId)
-                .bind("serviceType", ServiceType.STA.toString())
-                .fetch()
-                .all()
-                .map(row -> row.get("layer_id"))
-                .filter(String.class::isInstance)
-                .map(String.class::cast)
-                .distinct()
-                .flatMap(stagelessId -> findSensorServiceByStagelessIdAndStage(stagelessId, stage));
+    public Flux<ProductLinks.Detail<SensorLayer>> findSensorLayersByProductIds(Collection<Integer> productIds, Stage stage) {
+
+        return ProductLinks.findDetails(
+                this.databaseClient.sql(
+                                """
+                                SELECT product_id, layer_id
+                                FROM t_product_layer
+                                WHERE product_id IN (:productIds)
+                                AND layer_type = :serviceType
+                                """
+                        )
+                        .bind("productIds", productIds)
+                        .bind("serviceType", ServiceType.STA.toString()),
+                "layer_id",
+                String.class,
+                stagelessIds -> findSensorLayersByStagelessIdsAndStage(stagelessIds, stage),
+                SensorLayer::getStagelessId
+        );
     }
 
-    public Mono<SensorLayer> findSensorServiceByStagelessIdAndStage(String stagelessId, Stage stage) {
+    public Flux<SensorLayer> findSensorLayersByStagelessIdsAndStage(Collection<String> stagelessIds, Stage stage) {
         return this.template.select(SensorLayer.class)
                 .matching(query(
-                        where("stageless_id").is(stagelessId)
+                        where("stageless_id").in(stagelessIds)
                                 .and("stage").is(stage.name())
-                )).first();
+                )).all();
     }
 
     public Flux<SensorLayer> findAllByStage(Stage stage) {
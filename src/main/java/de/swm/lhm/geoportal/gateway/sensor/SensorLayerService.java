@@ -13,6 +13,7 @@ import reactor.core.publisher.Mono;
 
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -24,10 +25,11 @@ public class SensorLayerService implements HasProductDetails {
     private final GatewayService gatewayService;
 
     @Override
-    public Mono<Void> enrichProduct(Product product) {
-        return sensorLayerRepository.findSensorServiceByProductId(product.getId(), product.getStage())
-                .map(this::mapSenorServiceToProductService)
-                .doOnNext(product::addGeoService)
+    public Mono<Void> enrichProducts(List<Product> products) {
+        Map<Integer, Product> productsById = HasProductDetails.indexById(products);
+        return sensorLayerRepository.findSensorLayersByProductIds(productsById.keySet(), products.getFirst().getStage())
+                .doOnNext(sensorLayer -> productsById.get(sensorLayer.productId())
+                        .addGeoService(mapSenorServiceToProductService(sensorLayer.detail())))
                 .then();
     }
 
@@ -58,8 +58,6 @@ public class SensorRoutesCollector implements GatewayRoutesCollector {
 
         if (sensorLayerProperties.isReplaceOriginatingUrl()) {
             log.debug("Enabling replacing originating internal URLs with external URLs for sensor layer with id {}", sensorLayer.getId());
-            // In case sensor data is streamed, this filter is probably not suitable,
-            // as it tries to read the whole body into memory.
             gatewayFilters.add(new ReplaceStringInBodyGatewayFilter(
                     messageBodyEncodingService,
                     removeTrailingSlashes(sensorLayer.getUrl()),
@@ -41,6 +41,9 @@ public class GeoPortalGatewayProperties {
     @Getter
     DataSize maxRequestBodySize = DataSize.ofBytes(0);
 
+    @Getter
+    boolean zeroCopyRequestBody = false;
+
     @PostConstruct
     public void postConstruct() throws URISyntaxException {
 
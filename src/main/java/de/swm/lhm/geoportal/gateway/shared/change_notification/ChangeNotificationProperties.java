@@ -0,0 +1,27 @@
+package de.swm.lhm.geoportal.gateway.shared.change_notification;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "geoportal.admin-manager.change-notification")
+@Getter
+@Setter
+public class ChangeNotificationProperties {
+
+    // listen for changes of the configuration tables and invalidate the caches depending on them
+    private boolean enabled = false;
+
+    // channel the triggers of the configuration tables notify
+    private String channel = "geoportal_config_changed";
+
+    // table with the counter incremented by the triggers on every change
+    private String counterTable = "t_config_change_counter";
+
+    // interval in which the counter is compared, to catch changes missed while not listening
+    private Duration pollInterval = Duration.ofSeconds(30);
+}
@@ -0,0 +1,189 @@
+package de.swm.lhm.geoportal.gateway.shared.change_notification;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.swm.lhm.geoportal.gateway.shared.model.Stage;
+import io.r2dbc.postgresql.api.Notification;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Wrapped;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Publishes {@link ConfigurationChangedEvent}s for changes of the configuration tables of the admin-manager.
+ * <p>
+ * The triggers of {@code db/migration/postgres/V1_02__change_notification.sql} notify a channel with the
+ * table, stage and key of every changed row and increment a counter. This service listens on the channel
+ * using a dedicated connection of the pool. As notifications are lost while the connection is down, the
+ * counter is polled as well and an unspecified change is published when it increased without a
+ * notification. Databases not supporting LISTEN are only polled.
+ */
+@Service
+@Slf4j
+public class ChangeNotificationService {
+
+    private static final Pattern SQL_IDENTIFIER = Pattern.compile("[a-zA-Z_][a-zA-Z0-9_]*");
+    private static final Duration MIN_RECONNECT_DELAY = Duration.ofSeconds(1);
+    private static final Duration MAX_RECONNECT_DELAY = Duration.ofMinutes(1);
+
+    private final ChangeNotificationProperties properties;
+    private final ConnectionFactory connectionFactory;
+    private final DatabaseClient databaseClient;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final ObjectMapper objectMapper;
+
+    // highest counter value seen in notifications or when polling, -1 if unknown
+    private final AtomicLong lastCounter = new AtomicLong(-1);
+    private Disposable.Composite subscriptions;
+
+    public ChangeNotificationService(ChangeNotificationProperties properties,
+                                     ConnectionFactory connectionFactory,
+                                     DatabaseClient databaseClient,
+                                     ApplicationEventPublisher applicationEventPublisher,
+                                     ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.connectionFactory = connectionFactory;
+        this.databaseClient = databaseClient;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.objectMapper = objectMapper;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!properties.isEnabled() || subscriptions != null) {
+            return;
+        }
+        requireSqlIdentifier(properties.getChannel());
+        requireSqlIdentifier(properties.getCounterTable());
+
+        subscriptions = Disposables.composite(
+                listen()
+                        .retryWhen(Retry.backoff(Long.MAX_VALUE, MIN_RECONNECT_DELAY)
+                                .maxBackoff(MAX_RECONNECT_DELAY)
+                                .doBeforeRetry(signal -> log.warn("Listening for configuration changes failed, reconnecting", signal.failure())))
+                        .subscribe(this::onNotification),
+                Flux.interval(properties.getPollInterval(), properties.getPollInterval())
+                        .onBackpressureDrop()
+                        .concatMap(tick -> poll().onErrorResume(e -> {
+                            log.warn("Polling for configuration changes failed", e);
+                            return Mono.empty();
+                        }))
+                        .subscribe()
+        );
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (subscriptions != null) {
+            subscriptions.dispose();
+            subscriptions = null;
+        }
+    }
+
+    private static void requireSqlIdentifier(String identifier) {
+        if (identifier == null || !SQL_IDENTIFIER.matcher(identifier).matches()) {
+            throw new IllegalStateException("Invalid identifier for change notifications: " + identifier);
+        }
+    }
+
+    private Flux<Notification> listen() {
+        return Flux.usingWhen(
+                connectionFactory.create(),
+                connection -> {
+                    PostgresqlConnection postgresqlConnection = unwrapPostgresqlConnection(connection);
+                    if (postgresqlConnection == null) {
+                        log.info("The database does not support LISTEN, polling for configuration changes only");
+                        return Flux.empty();
+                    }
+                    return postgresqlConnection.createStatement("LISTEN " + properties.getChannel())
+                            .execute()
+                            .flatMap(PostgresqlResult::getRowsUpdated)
+                            .doOnComplete(() -> {
+                                log.info("Listening for configuration changes on channel {}", properties.getChannel());
+                                // changes while not listening are only known by the counter
+                                poll().subscribe();
+                            })
+                            .thenMany(postgresqlConnection.getNotifications())
+                            // the notifications complete when the connection is closed
+                            .concatWith(Flux.error(new IllegalStateException("Connection for configuration change notifications closed")));
+                },
+                Connection::close
+        );
+    }
+
+    private static PostgresqlConnection unwrapPostgresqlConnection(Object connection) {
+        Object unwrapped = connection;
+        while (!(unwrapped instanceof PostgresqlConnection) && unwrapped instanceof Wrapped<?> wrapped) {
+            unwrapped = wrapped.unwrap();
+        }
+        return unwrapped instanceof PostgresqlConnection postgresqlConnection ? postgresqlConnection : null;
+    }
+
+    void onNotification(Notification notification) {
+        applicationEventPublisher.publishEvent(parseNotification(notification.getParameter()));
+    }
+
+    ConfigurationChangedEvent parseNotification(String payload) {
+        try {
+            JsonNode json = objectMapper.readTree(payload);
+            lastCounter.accumulateAndGet(json.path("counter").asLong(-1), Math::max);
+            return new ConfigurationChangedEvent(
+                    this,
+                    textOrNull(json, "table"),
+                    parseStage(textOrNull(json, "stage")),
+                    textOrNull(json, "key")
+            );
+        } catch (Exception e) {
+            log.warn("Could not parse configuration change notification {}", payload, e);
+            return ConfigurationChangedEvent.unspecified(this);
+        }
+    }
+
+    private static String textOrNull(JsonNode json, String fieldName) {
+        JsonNode field = json.get(fieldName);
+        return field == null || field.isNull() ? null : field.asText();
+    }
+
+    private static Stage parseStage(String stageName) {
+        // unknown stages affect all stages
+        return stageName != null && Stage.exists(stageName) ? Stage.valueOf(stageName.toUpperCase(Locale.ROOT)) : null;
+    }
+
+    /**
+     * Compares the change counter with the highest known value and publishes an unspecified change if it increased.
+     */
+    Mono<Void> poll() {
+        return databaseClient.sql("select max(counter) as counter from " + properties.getCounterTable())
+                .map(row -> {
+                    Number counter = row.get("counter", Number.class);
+                    return counter == null ? 0L : counter.longValue();
+                })
+                .one()
+                .doOnNext(counter -> {
+                    long previous = lastCounter.getAndAccumulate(counter, Math::max);
+                    if (previous >= 0 && counter > previous) {
+                        log.debug("Configuration change counter increased from {} to {}", previous, counter);
+                        applicationEventPublisher.publishEvent(ConfigurationChangedEvent.unspecified(this));
+                    }
+                })
+                .then();
+    }
+}
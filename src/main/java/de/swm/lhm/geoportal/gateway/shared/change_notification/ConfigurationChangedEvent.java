@@ -0,0 +1,49 @@
+package de.swm.lhm.geoportal.gateway.shared.change_notification;
+
+import de.swm.lhm.geoportal.gateway.shared.model.Stage;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.Optional;
+
+/**
+ * Published after the configuration in the admin-manager database changed.
+ * <p>
+ * Table, stage and key describe the changed row as far as they are known. A missing value means
+ * the change may affect any table, stage or key respectively, so caches depending on it have to
+ * be invalidated completely.
+ */
+@Getter
+@ToString
+public class ConfigurationChangedEvent extends ApplicationEvent {
+
+    private final String table;
+    private final Stage stage;
+    private final String key;
+
+    public ConfigurationChangedEvent(Object source, String table, Stage stage, String key) {
+        super(source);
+        this.table = table;
+        this.stage = stage;
+        this.key = key;
+    }
+
+    /**
+     * event for changes which are not known in detail
+     */
+    public static ConfigurationChangedEvent unspecified(Object source) {
+        return new ConfigurationChangedEvent(source, null, null, null);
+    }
+
+    public boolean affectsStage(Stage currentStage) {
+        return stage == null || currentStage == null || stage.isSame(currentStage) || currentStage.isSame(stage);
+    }
+
+    /**
+     * Returns the key of the changed row of the given table, empty if another or an unknown table changed.
+     */
+    public Optional<String> getKeyOf(String tableName) {
+        return tableName.equalsIgnoreCase(table) ? Optional.ofNullable(key) : Optional.empty();
+    }
+}
@@ -0,0 +1,32 @@
+package de.swm.lhm.geoportal.gateway.shared.config;
+
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.util.function.BiPredicate;
+
+@Configuration
+public class CompressionConfig {
+
+    /**
+     * Responses which are already encoded, e.g. precompressed portal files, are passed through by the
+     * transport compression anyway. Excluding them from it up front keeps zero-copy transfer of files
+     * possible, which is disabled as soon as the compression handler is part of the response pipeline.
+     */
+    @Bean
+    public NettyServerCustomizer skipCompressionOfEncodedResponses() {
+        return httpServer -> {
+            BiPredicate<HttpServerRequest, HttpServerResponse> compressPredicate = httpServer.configuration().compressPredicate();
+            if (compressPredicate == null) {
+                return httpServer;
+            }
+            return httpServer.compress((request, response) ->
+                    !response.responseHeaders().contains(HttpHeaders.CONTENT_ENCODING)
+                            && compressPredicate.test(request, response));
+        };
+    }
+}
@@ -0,0 +1,41 @@
+package de.swm.lhm.geoportal.gateway.unit;
+
+import de.swm.lhm.geoportal.gateway.unit.model.Unit;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable snapshot of the names of all units, allowing synchronous lookups.
+ */
+public final class UnitDirectory {
+
+    private final Map<Integer, String> unitNames;
+
+    private UnitDirectory(Map<Integer, String> unitNames) {
+        this.unitNames = Map.copyOf(unitNames);
+    }
+
+    public static UnitDirectory of(Collection<Unit> units) {
+        Map<Integer, String> unitNames = new HashMap<>();
+        for (Unit unit : units) {
+            if (unit.getId() != null && unit.getName() != null) {
+                unitNames.put(unit.getId(), unit.getName());
+            }
+        }
+        return new UnitDirectory(unitNames);
+    }
+
+    /**
+     * Looks up the name of a unit, empty if the unit was not known when the directory was loaded.
+     */
+    public Optional<String> findUnitName(Integer unitId) {
+        return unitId == null ? Optional.empty() : Optional.ofNullable(unitNames.get(unitId));
+    }
+
+    public int size() {
+        return unitNames.size();
+    }
+}
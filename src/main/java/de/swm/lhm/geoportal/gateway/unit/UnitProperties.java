@@ -0,0 +1,26 @@
+package de.swm.lhm.geoportal.gateway.unit;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "geoportal.gateway.unit")
+@Getter
+@Setter
+public class UnitProperties {
+
+    private PreloadProperties preload = new PreloadProperties();
+
+    @Getter
+    @Setter
+    public static class PreloadProperties {
+        // load the names of all units into an in-memory directory instead of querying them per request
+        private boolean enabled = true;
+        // interval in which the directory is loaded again
+        private Duration refreshInterval = Duration.ofMinutes(10);
+    }
+}
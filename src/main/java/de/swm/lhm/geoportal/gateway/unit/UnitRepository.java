@@ -5,8 +5,11 @@ import de.swm.lhm.geoportal.gateway.unit.model.Unit;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+
 import static org.springframework.data.relational.core.query.Criteria.where;
 import static org.springframework.data.relational.core.query.Query.query;
 
@@ -23,5 +26,16 @@ public class UnitRepository {
                 .first();
     }
 
+    public Flux<Unit> findAllUnits() {
+        return this.template.select(Unit.class)
+                .all();
+    }
+
+    public Flux<Unit> findUnitsByIds(Collection<Integer> unitIds) {
+        return this.template.select(Unit.class)
+                .matching(query(where("id").in(unitIds)))
+                .all();
+    }
+
 }
 
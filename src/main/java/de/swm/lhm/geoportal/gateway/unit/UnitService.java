@@ -1,21 +1,146 @@
 package de.swm.lhm.geoportal.gateway.unit;
 
 
+import de.swm.lhm.geoportal.gateway.shared.change_notification.ConfigurationChangedEvent;
 import de.swm.lhm.geoportal.gateway.unit.model.Unit;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
+
+/**
+ * Provides the names of units.
+ * <p>
+ * Units hardly ever change, so when {@code geoportal.gateway.unit.preload.enabled} is set, the names of all
+ * units are kept in a {@link UnitDirectory}. The directory is loaded when the application is ready, in the
+ * configured refresh interval, whenever the routes are refreshed and on {@link ConfigurationChangedEvent}s
+ * of the units. Lookups of units which are in the directory do not query the database, only unknown units
+ * are queried, e.g. before the first directory is loaded or for units created since the last load.
+ */
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class UnitService {
 
+    private static final String UNIT_TABLE = "t_unit";
+
     private final UnitRepository unitRepository;
+    private final UnitProperties.PreloadProperties preloadProperties;
+    private final AtomicReference<UnitDirectory> directory = new AtomicReference<>();
+    private Disposable scheduledReload;
+
+    public UnitService(UnitRepository unitRepository, UnitProperties unitProperties) {
+        this.unitRepository = unitRepository;
+        this.preloadProperties = unitProperties.getPreload();
+    }
+
+    /**
+     * Returns the current directory, empty if preloading is disabled or no directory was loaded yet.
+     */
+    public Optional<UnitDirectory> getDirectory() {
+        if (!preloadProperties.isEnabled()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(directory.get());
+    }
 
     public Mono<String> getUnitNameById(Integer unitId) {
+        Optional<String> unitName = getDirectory().flatMap(unitDirectory -> unitDirectory.findUnitName(unitId));
+        if (unitName.isPresent()) {
+            return Mono.just(unitName.get());
+        }
         return unitRepository.findUnitById(unitId)
                 .map(Unit::getName);
     }
 
+    /**
+     * Looks up the names of all given units, the units missing in the directory are loaded in one query.
+     * Units which do not exist are missing in the result.
+     */
+    public Mono<Map<Integer, String>> getUnitNamesByIds(Collection<Integer> unitIds) {
+        Set<Integer> distinctUnitIds = unitIds.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Map<Integer, String> unitNames = new HashMap<>();
+        Set<Integer> missingUnitIds = new HashSet<>();
+        Optional<UnitDirectory> unitDirectory = getDirectory();
+        for (Integer unitId : distinctUnitIds) {
+            unitDirectory.flatMap(loaded -> loaded.findUnitName(unitId))
+                    .ifPresentOrElse(unitName -> unitNames.put(unitId, unitName), () -> missingUnitIds.add(unitId));
+        }
+
+        if (missingUnitIds.isEmpty()) {
+            return Mono.just(unitNames);
+        }
+        return unitRepository.findUnitsByIds(missingUnitIds)
+                .filter(unit -> unit.getName() != null)
+                .doOnNext(unit -> unitNames.put(unit.getId(), unit.getName()))
+                .then(Mono.fromSupplier(() -> unitNames));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void scheduleReload() {
+        if (!preloadProperties.isEnabled() || scheduledReload != null) {
+            return;
+        }
+        scheduledReload = Flux.interval(Duration.ZERO, preloadProperties.getRefreshInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> reload().onErrorResume(e -> Mono.empty()))
+                .subscribe();
+    }
+
+    @EventListener(RefreshRoutesEvent.class)
+    public void onRefreshRoutes() {
+        if (preloadProperties.isEnabled()) {
+            reload().onErrorResume(e -> Mono.empty()).subscribe();
+        }
+    }
+
+    @EventListener(ConfigurationChangedEvent.class)
+    public void onConfigurationChanged(ConfigurationChangedEvent event) {
+        // units are not staged, only the table matters
+        if (preloadProperties.isEnabled() && (event.getTable() == null || UNIT_TABLE.equalsIgnoreCase(event.getTable()))) {
+            reload().onErrorResume(e -> Mono.empty()).subscribe();
+        }
+    }
+
+    /**
+     * Loads all units and replaces the current directory, a failed load keeps the previous one.
+     */
+    public Mono<UnitDirectory> reload() {
+        return unitRepository.findAllUnits()
+                .collectList()
+                .map(UnitDirectory::of)
+                .doOnNext(loadedDirectory -> {
+                    directory.set(loadedDirectory);
+                    log.debug("Loaded unit directory with {} units", loadedDirectory.size());
+                })
+                .doOnError(e -> log.error("Failed to load the unit directory", e));
+    }
+
+    @PreDestroy
+    public synchronized void stopReload() {
+        if (scheduledReload != null) {
+            scheduledReload.dispose();
+            scheduledReload = null;
+        }
+    }
+
 }
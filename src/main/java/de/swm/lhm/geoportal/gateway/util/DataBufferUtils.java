@@ -2,14 +2,12 @@ package de.swm.lhm.geoportal.gateway.util;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.common.primitives.Bytes;
 import de.swm.lhm.geoportal.gateway.shared.exceptions.DeserializationException;
+import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -19,13 +17,14 @@ import org.slf4j.Logger;
 import org.springframework.core.io.buffer.DataBuffer;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.util.function.Tuple3;
-import reactor.util.function.Tuples;
 
 @Slf4j
 @UtilityClass
 public class DataBufferUtils {
 
+    // object mappers are thread-safe once configured, creating one per call is expensive
+    private static final ObjectMapper DEFAULT_OBJECT_MAPPER = new ObjectMapper();
+
     public sealed interface DataBufferContents<T> {
 
         T get();
@@ -80,11 +79,14 @@ public class DataBufferUtils {
 
 
     public static <T> Mono<T> copyAsObject(Flux<DataBuffer> body, Class<T> clazz) {
-        return copyAsString(body).map(bodyString -> {
+        return copyAsObject(body, clazz, DEFAULT_OBJECT_MAPPER);
+    }
+
+    public static <T> Mono<T> copyAsObject(Flux<DataBuffer> body, Class<T> clazz, ObjectMapper objectMapper) {
+        return copyAsByteArray(body).map(bytes -> {
             try {
-                ObjectMapper objectMapper = new ObjectMapper();
-                return objectMapper.readValue(bodyString, clazz);
-            } catch (JsonProcessingException e) {
+                return objectMapper.readValue(bytes, clazz);
+            } catch (IOException e) {
                 throw new DeserializationException("The request could not be deseralized", e);
             }
         });
@@ -105,49 +107,50 @@ public class DataBufferUtils {
     }
 
     public static Mono<byte[]> copyAsByteArray(Flux<DataBuffer> body) {
-        return body.map(DataBufferUtils::readDataBufferAsByteArray)
-                .collectList()
-                .map(DataBufferUtils::joinByteArrayList);
+        return body.collectList()
+                .map(DataBufferUtils::readDataBuffersAsByteArray);
     }
 
     public static Mono<byte[]> copyAsByteArray(Mono<DataBuffer> body) {
         return body.map(DataBufferUtils::readDataBufferAsByteArray);
     }
 
+    /**
+     * Copies at most maxByteCount bytes of the body.
+     * <p>
+     * Reading the body is stopped as soon as it is known to exceed maxByteCount, in this case a
+     * {@link DataBufferContents.Partial} is returned which contains the first maxByteCount bytes. Its
+     * numBytesContained is the number of bytes received until reading was stopped, not the size of the
+     * complete body.
+     */
     public static Mono<DataBufferContents<byte[]>> copyAsByteArray(Flux<DataBuffer> body, int maxByteCount) {
         if (maxByteCount < 0) {
             throw new RuntimeException("maxByteCount must be positive");
         }
 
-        Tuple3<Integer, Integer, List<byte[]>> accumulator = Tuples.of(0, 0, new ArrayList<>());
-
-        // this consumes the complete stream, as an improvement it would be nice to
-        // exit early when maxByteCount is reached
-        return body
-                .reduce(
-                        accumulator,
-                        (accum, dataBuffer) -> {
-                            int numBytesRead = accum.getT1();
-                            int numBytesContained = accum.getT2() + dataBuffer.readableByteCount();
-                            List<byte[]> byteArrays = accum.getT3();
-                            int numBytesLeftToRead = maxByteCount - numBytesRead;
-                            if (numBytesLeftToRead > 0) {
-                                byte[] byteArray = readDataBufferAsByteArray(dataBuffer, numBytesLeftToRead);
-                                byteArrays.add(byteArray);
-                                numBytesRead = numBytesRead + byteArray.length;
-                            }
-                            return Tuples.of(numBytesRead, numBytesContained, byteArrays);
-                        }
-                )
-                .map(accum -> {
-                    byte[] byteArray = joinByteArrayList(accum.getT3());
-                    if (!Objects.equals(accum.getT1(), accum.getT2())) {
-                        return new DataBufferContents.Partial<>(byteArray, accum.getT1(), accum.getT2());
-                    } else {
-                        return new DataBufferContents.Complete<>(byteArray, accum.getT1());
-
-                    }
-                });
+        return Mono.defer(() -> {
+            LimitedByteArrayCollector collector = new LimitedByteArrayCollector(maxByteCount);
+            // takeUntil cancels the upstream after the buffer exceeding the limit
+            return body
+                    .takeUntil(collector::add)
+                    .then(Mono.fromSupplier(collector::getContents));
+        });
+    }
+
+    /**
+     * Joins the body into a single buffer without copying its contents, buffers allocated by netty are
+     * combined into a composite buffer.
+     * <p>
+     * The buffers of the body are consumed and the returned buffer has to be released by the caller. If
+     * maxByteCount is positive, reading the body is cancelled as soon as more bytes have been received,
+     * the buffers read so far are released and the returned mono fails with a
+     * {@link org.springframework.core.io.buffer.DataBufferLimitException}. An empty body results in an
+     * empty mono.
+     */
+    public static Mono<DataBuffer> join(Flux<DataBuffer> body, int maxByteCount) {
+        return maxByteCount <= 0
+                ? org.springframework.core.io.buffer.DataBufferUtils.join(body)
+                : org.springframework.core.io.buffer.DataBufferUtils.join(body, maxByteCount);
     }
 
     public static byte[] readDataBufferAsByteArray(DataBuffer dataBuffer) {
@@ -161,20 +164,75 @@ public class DataBufferUtils {
         return new String(readDataBufferAsByteArray(dataBuffer), UTF_8);
     }
 
-    private static byte[] readDataBufferAsByteArray(DataBuffer dataBuffer, int maxByteCount) {
-        int numBytesToRead = Math.min(dataBuffer.readableByteCount(), maxByteCount);
-        byte[] bytes = new byte[numBytesToRead];
-        ByteBuffer byteBuffer = ByteBuffer.wrap(bytes, 0, numBytesToRead);
-        dataBuffer.toByteBuffer(0, byteBuffer, 0, numBytesToRead);
+    private static byte[] readDataBuffersAsByteArray(List<DataBuffer> dataBuffers) {
+        int length = 0;
+        for (DataBuffer dataBuffer : dataBuffers) {
+            length += dataBuffer.readableByteCount();
+        }
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        for (DataBuffer dataBuffer : dataBuffers) {
+            int numBytes = dataBuffer.readableByteCount();
+            dataBuffer.toByteBuffer(dataBuffer.readPosition(), ByteBuffer.wrap(bytes), offset, numBytes);
+            offset += numBytes;
+        }
         return bytes;
     }
 
     public static byte[] joinByteArrayList(List<byte[]> byteArrayList) {
-        List<Byte> result = new ArrayList<>();
+        int length = 0;
+        for (byte[] byteArray : byteArrayList) {
+            length += byteArray.length;
+        }
+        byte[] result = new byte[length];
+        int offset = 0;
         for (byte[] byteArray : byteArrayList) {
-            result.addAll(Bytes.asList(byteArray));
+            System.arraycopy(byteArray, 0, result, offset, byteArray.length);
+            offset += byteArray.length;
+        }
+        return result;
+    }
+
+    /**
+     * collects the first bytes of a body into a single array, which grows with the
+     * received bytes instead of being allocated for the maximum size upfront
+     */
+    private static final class LimitedByteArrayCollector {
+
+        private final int maxByteCount;
+        private byte[] bytes = new byte[0];
+        private int numBytesRead = 0;
+        private int numBytesContained = 0;
+
+        private LimitedByteArrayCollector(int maxByteCount) {
+            this.maxByteCount = maxByteCount;
+        }
+
+        /**
+         * @return true when the body exceeds maxByteCount and reading can be stopped
+         */
+        private boolean add(DataBuffer dataBuffer) {
+            int numBytes = dataBuffer.readableByteCount();
+            numBytesContained += numBytes;
+            int numBytesToRead = Math.min(numBytes, maxByteCount - numBytesRead);
+            if (numBytesToRead > 0) {
+                if (numBytesRead + numBytesToRead > bytes.length) {
+                    int capacity = Math.max(numBytesRead + numBytesToRead, Math.min(bytes.length * 2, maxByteCount));
+                    bytes = Arrays.copyOf(bytes, capacity);
+                }
+                dataBuffer.toByteBuffer(dataBuffer.readPosition(), ByteBuffer.wrap(bytes), numBytesRead, numBytesToRead);
+                numBytesRead += numBytesToRead;
+            }
+            return numBytesContained > maxByteCount;
+        }
+
+        private DataBufferContents<byte[]> getContents() {
+            byte[] contents = numBytesRead == bytes.length ? bytes : Arrays.copyOf(bytes, numBytesRead);
+            if (numBytesContained > numBytesRead) {
+                return new DataBufferContents.Partial<>(contents, numBytesRead, numBytesContained);
+            }
+            return new DataBufferContents.Complete<>(contents, numBytesRead);
         }
-        return Bytes.toArray(result);
     }
 
     /**
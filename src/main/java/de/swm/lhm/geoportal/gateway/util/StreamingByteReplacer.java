@@ -0,0 +1,347 @@
+package de.swm.lhm.geoportal.gateway.util;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Replaces multiple literal strings in a stream of data buffers without joining the stream.
+ * <p>
+ * The search strings are matched on their UTF-8 bytes using an Aho-Corasick automaton, so every
+ * byte is inspected once regardless of the number of search strings. Overlapping matches are resolved
+ * leftmost-longest. Bytes which may still be part of a match are carried over to the next buffer, so
+ * matches spanning buffer boundaries are found while only holding back at most the length of the
+ * longest search string.
+ * <p>
+ * Instances are immutable and can be shared, the state of a single stream is kept in a {@link Session}.
+ */
+public class StreamingByteReplacer {
+
+    private final Node root = new Node(0);
+    private final byte[][] replacements;
+    private final int[] searchLengths;
+
+    public StreamingByteReplacer(Map<String, String> searchToReplacement) {
+        List<byte[]> replacementList = new ArrayList<>();
+        List<Integer> searchLengthList = new ArrayList<>();
+
+        searchToReplacement.forEach((search, replacement) -> {
+            if (StringUtils.isEmpty(search)) {
+                return;
+            }
+            byte[] searchBytes = search.getBytes(UTF_8);
+            Node node = root;
+            for (byte b : searchBytes) {
+                node = node.children.computeIfAbsent(b, node.depth + 1);
+            }
+            if (node.patternIndex < 0) {
+                node.patternIndex = replacementList.size();
+                replacementList.add(StringUtils.defaultString(replacement).getBytes(UTF_8));
+                searchLengthList.add(searchBytes.length);
+            }
+        });
+
+        this.replacements = replacementList.toArray(new byte[0][]);
+        this.searchLengths = searchLengthList.stream().mapToInt(Integer::intValue).toArray();
+        buildFailureLinks();
+    }
+
+    public static StreamingByteReplacer of(String search, String replacement) {
+        return new StreamingByteReplacer(Map.of(search, replacement));
+    }
+
+    public boolean isEmpty() {
+        return replacements.length == 0;
+    }
+
+    /**
+     * Rewrites the body buffer by buffer. The input buffers are released, the returned flux
+     * emits one buffer per input buffer and a final buffer with the bytes held back at the end.
+     */
+    public Flux<DataBuffer> replace(Flux<? extends DataBuffer> body, DataBufferFactory bufferFactory) {
+        return Flux.defer(() -> {
+            Session session = newSession();
+            return Flux.<DataBuffer>from(body)
+                    .map(dataBuffer -> session.process(dataBuffer, bufferFactory))
+                    .concatWith(Mono.fromSupplier(() -> session.finish(bufferFactory)))
+                    .filter(dataBuffer -> {
+                        if (dataBuffer.readableByteCount() > 0) {
+                            return true;
+                        }
+                        org.springframework.core.io.buffer.DataBufferUtils.release(dataBuffer);
+                        return false;
+                    });
+        });
+    }
+
+    public String replace(String input) {
+        Session session = newSession();
+        ByteArrayBuilder output = new ByteArrayBuilder(input.length());
+        session.process(input.getBytes(UTF_8), output);
+        session.finish(output);
+        return new String(output.bytes, 0, output.length, UTF_8);
+    }
+
+    public Session newSession() {
+        return new Session();
+    }
+
+    private void buildFailureLinks() {
+        Deque<Node> queue = new ArrayDeque<>();
+        root.failure = root;
+        root.children.forEach((b, child) -> {
+            child.failure = root;
+            queue.add(child);
+        });
+
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            node.children.forEach((b, child) -> {
+                Node failure = node.failure;
+                while (failure != root && failure.children.get(b) == null) {
+                    failure = failure.failure;
+                }
+                Node failureChild = failure.children.get(b);
+                child.failure = failureChild != null ? failureChild : root;
+                // nearest node on the failure chain which completes a search string
+                child.output = child.failure.patternIndex >= 0 ? child.failure : child.failure.output;
+                queue.add(child);
+            });
+        }
+    }
+
+    private Node next(Node state, byte b) {
+        Node node = state;
+        while (true) {
+            Node child = node.children.get(b);
+            if (child != null) {
+                return child;
+            }
+            if (node == root) {
+                return root;
+            }
+            node = node.failure;
+        }
+    }
+
+    /**
+     * Replacement state of a single stream. Not thread-safe, the buffers of a stream have to be
+     * processed in order.
+     */
+    public final class Session {
+
+        private Node state = root;
+
+        // absolute position of the next byte to read
+        private long position = 0;
+
+        // all bytes before this position have been written
+        private long committed = 0;
+
+        // bytes from committed up to position, tail[0] is the byte at tailStart
+        private byte[] tail = new byte[64];
+        private long tailStart = 0;
+
+        // matches starting at or after committed, which may still be superseded by a longer one
+        private final List<Match> candidates = new ArrayList<>();
+
+        private Session() {
+        }
+
+        public DataBuffer process(DataBuffer input, DataBufferFactory bufferFactory) {
+            try {
+                ByteArrayBuilder output = new ByteArrayBuilder(input.readableByteCount() + 16);
+                try (DataBuffer.ByteBufferIterator iterator = input.readableByteBuffers()) {
+                    while (iterator.hasNext()) {
+                        ByteBuffer byteBuffer = iterator.next();
+                        while (byteBuffer.hasRemaining()) {
+                            consume(byteBuffer.get(), output);
+                        }
+                    }
+                }
+                flushPlain(pathStart(), output);
+                return output.wrap(bufferFactory);
+            } finally {
+                org.springframework.core.io.buffer.DataBufferUtils.release(input);
+            }
+        }
+
+        public DataBuffer finish(DataBufferFactory bufferFactory) {
+            ByteArrayBuilder output = new ByteArrayBuilder(tail.length);
+            finish(output);
+            return output.wrap(bufferFactory);
+        }
+
+        private void process(byte[] input, ByteArrayBuilder output) {
+            for (byte b : input) {
+                consume(b, output);
+            }
+            flushPlain(pathStart(), output);
+        }
+
+        private void finish(ByteArrayBuilder output) {
+            resolveMatches(position, output);
+            flushPlain(position, output);
+            state = root;
+        }
+
+        private void consume(byte b, ByteArrayBuilder output) {
+            appendToTail(b);
+            position++;
+
+            state = next(state, b);
+            for (Node node = state.patternIndex >= 0 ? state : state.output; node != null; node = node.output) {
+                long start = position - searchLengths[node.patternIndex];
+                // a match overlapping bytes which have already been replaced is no longer valid
+                if (start >= committed) {
+                    candidates.add(new Match(start, node.patternIndex));
+                }
+            }
+
+            if (!candidates.isEmpty()) {
+                resolveMatches(pathStart(), output);
+            }
+        }
+
+        /**
+         * start of the longest suffix of the input which is still the prefix of a search string,
+         * no match can start before this position anymore
+         */
+        private long pathStart() {
+            return position - state.depth;
+        }
+
+        /**
+         * writes the replacements of all matches which start before the given position
+         */
+        private void resolveMatches(long limit, ByteArrayBuilder output) {
+            while (!candidates.isEmpty()) {
+                Match best = null;
+                for (Match candidate : candidates) {
+                    if (best == null
+                            || candidate.start < best.start
+                            || (candidate.start == best.start && searchLengths[candidate.patternIndex] > searchLengths[best.patternIndex])) {
+                        best = candidate;
+                    }
+                }
+                if (best.start >= limit) {
+                    return;
+                }
+                flushPlain(best.start, output);
+                output.append(replacements[best.patternIndex], 0, replacements[best.patternIndex].length);
+                committed = best.start + searchLengths[best.patternIndex];
+                candidates.removeIf(candidate -> candidate.start < committed);
+            }
+        }
+
+        /**
+         * writes the bytes up to the given position, which are not part of any match
+         */
+        private void flushPlain(long until, ByteArrayBuilder output) {
+            long end = candidates.stream()
+                    .mapToLong(Match::start)
+                    .reduce(until, Math::min);
+            if (end > committed) {
+                output.append(tail, (int) (committed - tailStart), (int) (end - committed));
+                committed = end;
+            }
+        }
+
+        private void appendToTail(byte b) {
+            int length = (int) (position - tailStart);
+            if (length == tail.length) {
+                int keepFrom = (int) (Math.min(committed, position) - tailStart);
+                int keepLength = length - keepFrom;
+                byte[] target = keepLength * 2 > tail.length ? new byte[tail.length * 2] : tail;
+                System.arraycopy(tail, keepFrom, target, 0, keepLength);
+                tail = target;
+                tailStart += keepFrom;
+                length = keepLength;
+            }
+            tail[length] = b;
+        }
+    }
+
+    private record Match(long start, int patternIndex) {
+    }
+
+    private static final class Node {
+        private final int depth;
+        private final ByteChildren children = new ByteChildren();
+        private int patternIndex = -1;
+        private Node failure;
+        private Node output;
+
+        private Node(int depth) {
+            this.depth = depth;
+        }
+    }
+
+    /**
+     * children of a trie node indexed by the unsigned byte value, allocated lazily
+     */
+    private static final class ByteChildren {
+        private Node[] nodes;
+
+        Node get(byte b) {
+            return nodes == null ? null : nodes[b & 0xff];
+        }
+
+        Node computeIfAbsent(byte b, int depth) {
+            if (nodes == null) {
+                nodes = new Node[256];
+            }
+            Node node = nodes[b & 0xff];
+            if (node == null) {
+                node = new Node(depth);
+                nodes[b & 0xff] = node;
+            }
+            return node;
+        }
+
+        void forEach(BiConsumer<Byte, Node> consumer) {
+            if (nodes == null) {
+                return;
+            }
+            for (int i = 0; i < nodes.length; i++) {
+                if (nodes[i] != null) {
+                    consumer.accept((byte) i, nodes[i]);
+                }
+            }
+        }
+    }
+
+    private static final class ByteArrayBuilder {
+        private byte[] bytes;
+        private int length = 0;
+
+        ByteArrayBuilder(int initialCapacity) {
+            this.bytes = new byte[Math.max(initialCapacity, 16)];
+        }
+
+        void append(byte[] source, int offset, int count) {
+            if (length + count > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + count));
+            }
+            System.arraycopy(source, offset, bytes, length, count);
+            length += count;
+        }
+
+        DataBuffer wrap(DataBufferFactory bufferFactory) {
+            return bufferFactory.wrap(ByteBuffer.wrap(bytes, 0, length));
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package de.swm.lhm.geoportal.gateway.util;
+
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.XMLEvent;
+
+/**
+ * Rewrites a xml document event by event, a new instance is used for every document.
+ */
+@FunctionalInterface
+public interface XmlEventRewriter {
+
+    /**
+     * receives the events of the document in order and writes the events to keep
+     */
+    void rewrite(XMLEvent event, XMLEventWriter writer) throws XMLStreamException;
+}
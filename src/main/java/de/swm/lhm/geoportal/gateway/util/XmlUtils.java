@@ -18,6 +18,15 @@ import reactor.core.publisher.Mono;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.StartDocument;
+import javax.xml.stream.events.XMLEvent;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
@@ -32,11 +41,13 @@ import javax.xml.xpath.XPathFactory;
 import javax.xml.xpath.XPathFactoryConfigurationException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.Collection;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -49,6 +60,10 @@ import static javax.xml.XMLConstants.FEATURE_SECURE_PROCESSING;
 @UtilityClass
 public class XmlUtils {
 
+    private static final XMLInputFactory SECURED_XML_INPUT_FACTORY = getSecuredXmlInputFactory();
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+    private static final XMLEventFactory XML_EVENT_FACTORY = XMLEventFactory.newInstance();
+
     /**
      * get a preconfigured documentbuilderfactory suitable to parse untrusted input
      */
@@ -81,6 +96,71 @@ public class XmlUtils {
         return dbf;
     }
 
+    /**
+     * get a preconfigured xmlinputfactory suitable to stream untrusted input
+     */
+    public static XMLInputFactory getSecuredXmlInputFactory() {
+        XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+
+        // Disable DTDs and external entities to prevent XXE attacks
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        // report text content as a single event instead of chunks split at arbitrary positions
+        xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return xmlInputFactory;
+    }
+
+    /**
+     * Passes the xml events read from the input stream to the rewriter, which writes the events to keep
+     * to the output stream. The output is encoded as UTF-8.
+     *
+     * @throws TimeoutException when the document could not be processed within the given time
+     */
+    public static void rewriteXmlEvents(InputStream inputStream, OutputStream outputStream, XmlEventRewriter xmlEventRewriter, int timeoutMillis)
+            throws TimeoutException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        try {
+            XMLEventReader reader = SECURED_XML_INPUT_FACTORY.createXMLEventReader(inputStream);
+            XMLEventWriter writer = XML_OUTPUT_FACTORY.createXMLEventWriter(outputStream, StandardCharsets.UTF_8.name());
+            try {
+                while (reader.hasNext()) {
+                    if (System.nanoTime() > deadline) {
+                        log.warn("Could not rewrite XML document within {} ms. -> discarded", timeoutMillis);
+                        throw new TimeoutException("Rewriting XML document exceeded " + timeoutMillis + " ms");
+                    }
+                    xmlEventRewriter.rewrite(reader.nextEvent(), writer);
+                }
+                writer.flush();
+            } finally {
+                reader.close();
+                writer.close();
+            }
+        } catch (XMLStreamException e) {
+            log.warn("Parsing XML failed", e);
+            throw new DeserializationException("Parsing input XML failed", e);
+        }
+    }
+
+    /**
+     * Writes the event in the same compact form as {@link #serializeXml} does: the document is declared
+     * as UTF-8, doctype declarations and the formatting whitespace between elements are dropped.
+     */
+    public static void writeCompactedXmlEvent(XMLEvent event, XMLEventWriter writer) throws XMLStreamException {
+        if (event.isStartDocument()) {
+            StartDocument startDocument = (StartDocument) event;
+            writer.add(XML_EVENT_FACTORY.createStartDocument(StandardCharsets.UTF_8.name(), startDocument.getVersion()));
+        } else if (!isFormattingWhitespace(event) && event.getEventType() != XMLStreamConstants.DTD) {
+            writer.add(event);
+        }
+    }
+
+    private static boolean isFormattingWhitespace(XMLEvent event) {
+        return event.isCharacters()
+                && !event.asCharacters().isCData()
+                && event.asCharacters().getData().isBlank();
+    }
+
     @SneakyThrows
     public static XPathFactory getSecuredXPathFactory() {
         XPathFactory xpf = XPathFactory.newInstance();
@@ -0,0 +1,39 @@
+package de.swm.lhm.geoportal.gateway.util.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "geoportal.cache")
+@Getter
+@Setter
+public class CacheProperties {
+
+    private SharedTier sharedTier = SharedTier.NONE;
+
+    // prefix of the keys of all entries in the shared tier
+    private String sharedKeyPrefix = "geoportal-gateway:cache:";
+
+    // settings per cache name, replacing the defaults of the component owning the cache
+    private Map<String, ReactiveCacheProperties> caches = new HashMap<>();
+
+    public enum SharedTier {
+        /**
+         * every instance of the gateway only uses its local caches
+         */
+        NONE,
+        /**
+         * entries are shared between the instances of the gateway using redis
+         */
+        REDIS,
+        /**
+         * stand-in for a shared tier within a single instance, meant for tests
+         */
+        IN_MEMORY
+    }
+}
@@ -0,0 +1,64 @@
+package de.swm.lhm.geoportal.gateway.util.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stand-in for the redis based shared tier, sharing the entries between all caches of a single
+ * application context.
+ */
+@Component
+@ConditionalOnProperty(prefix = "geoportal.cache", name = "shared-tier", havingValue = "in-memory")
+public class InMemorySharedCacheStore implements SharedCacheStore {
+
+    private final Map<String, StoredValue> values = new ConcurrentHashMap<>();
+    private final Clock clock;
+
+    public InMemorySharedCacheStore() {
+        this(Clock.systemUTC());
+    }
+
+    InMemorySharedCacheStore(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public Mono<byte[]> get(String key) {
+        return Mono.fromSupplier(() -> {
+            StoredValue storedValue = values.get(key);
+            if (storedValue == null) {
+                return null;
+            }
+            if (!storedValue.expiresAt().isAfter(clock.instant())) {
+                values.remove(key, storedValue);
+                return null;
+            }
+            return storedValue.value();
+        });
+    }
+
+    @Override
+    public Mono<Void> set(String key, byte[] value, Duration timeToLive) {
+        return Mono.fromRunnable(() -> values.put(key, new StoredValue(value, clock.instant().plus(timeToLive))));
+    }
+
+    @Override
+    public Mono<Void> delete(String key) {
+        return Mono.fromRunnable(() -> values.remove(key));
+    }
+
+    @Override
+    public Mono<Void> deleteByPrefix(String keyPrefix) {
+        return Mono.fromRunnable(() -> values.keySet().removeIf(key -> key.startsWith(keyPrefix)));
+    }
+
+    private record StoredValue(byte[] value, Instant expiresAt) {
+    }
+}
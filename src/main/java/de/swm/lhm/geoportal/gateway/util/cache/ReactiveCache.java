@@ -0,0 +1,335 @@
+package de.swm.lhm.geoportal.gateway.util.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Caches the results of reactive lookups.
+ * <p>
+ * The entries are kept in a local caffeine cache. Optionally the cache has a second, shared tier,
+ * which is consulted before the value is loaded from its source, so that the instances of the gateway
+ * load each value only once. With {@link ReactiveCacheProperties#getRefreshAfterWrite()} entries are
+ * loaded again in the background when they are accessed after that duration, so frequently used
+ * entries do not expire. With {@link ReactiveCacheProperties#getMaxStaleness()} expired entries are kept
+ * for that additional duration and are still returned once while they are loaded again in the background
+ * (stale-while-revalidate). Only entries older than expireAfterWrite plus maxStaleness are loaded
+ * on the request path.
+ * <p>
+ * Concurrent requests for a key which is currently being loaded wait for the same load instead of
+ * loading the value again. A waiter which cancels, e.g. because of a timeout, does not cancel the load
+ * for the others.
+ * <p>
+ * Caches are usually created with the {@link ReactiveCacheFactory}, which applies the configuration
+ * of the cache and publishes its metrics.
+ */
+@Slf4j
+public class ReactiveCache<K, V> {
+
+    private final String cacheName;
+    final AsyncCache<K, V> asyncCache;
+    private final Duration expireAfterWrite;
+    // age after which an entry is reloaded in the background, null if entries are never refreshed
+    private final Duration refreshAfterWrite;
+    private final SharedCacheTier<K, V> sharedTier;
+
+    // keys currently being refreshed in the background
+    private final Set<K> refreshingKeys = ConcurrentHashMap.newKeySet();
+    // incremented on every invalidation, background refreshes started before are discarded
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final Timer loadTimer;
+    private final Counter refreshSuccesses;
+    private final Counter refreshFailures;
+    private final Counter staleHits;
+    private final Counter coalescedRequests;
+
+    public ReactiveCache(long maximumSize, Duration expireAfterWrite) {
+        // local cache without metrics
+        this("reactiveCache", new ReactiveCacheProperties(maximumSize, expireAfterWrite), new CompositeMeterRegistry());
+    }
+
+    /**
+     * Creates a cache which records its statistics and publishes them as the
+     * {@code cache.gets}, {@code cache.puts}, {@code cache.evictions}, ... meters tagged
+     * with {@code cache=<cacheName>}.
+     *
+     * @param cacheName     name of the cache used as metrics tag
+     * @param properties    size and expiry settings
+     * @param meterRegistry registry to publish the metrics to
+     */
+    public ReactiveCache(String cacheName, ReactiveCacheProperties properties, MeterRegistry meterRegistry) {
+        this(cacheName, properties, meterRegistry, null);
+    }
+
+    ReactiveCache(String cacheName, ReactiveCacheProperties properties, MeterRegistry meterRegistry, SharedCacheTier<K, V> sharedTier) {
+        this.cacheName = cacheName;
+        this.asyncCache = CaffeineCacheMetrics.monitor(
+                meterRegistry,
+                Caffeine.newBuilder()
+                        .maximumSize(properties.getMaximumSize())
+                        .expireAfterWrite(properties.getExpireAfterWrite().plus(maxStalenessOf(properties)))
+                        .scheduler(Scheduler.systemScheduler())
+                        .recordStats()
+                        .buildAsync(),
+                cacheName
+        );
+        this.expireAfterWrite = properties.getExpireAfterWrite();
+        this.refreshAfterWrite = refreshAfterWriteOf(properties);
+        this.sharedTier = sharedTier;
+
+        this.loadTimer = Timer.builder("cache.source.loads")
+                .description("Loads of values from the source of the cache")
+                .tag("cache", cacheName)
+                .register(meterRegistry);
+        this.refreshSuccesses = refreshCounter(meterRegistry, cacheName, "success");
+        this.refreshFailures = refreshCounter(meterRegistry, cacheName, "failure");
+        this.staleHits = Counter.builder("cache.stale.hits")
+                .description("Expired entries returned while they are loaded again in the background")
+                .tag("cache", cacheName)
+                .register(meterRegistry);
+        this.coalescedRequests = Counter.builder("cache.coalesced")
+                .description("Requests which waited for a load already in progress instead of loading the value again")
+                .tag("cache", cacheName)
+                .register(meterRegistry);
+        Gauge.builder("cache.hit.ratio", asyncCache, cache -> cache.synchronous().stats().hitRate())
+                .description("Ratio of requests answered from the local tier since the start")
+                .tag("cache", cacheName)
+                .register(meterRegistry);
+    }
+
+    private static Duration maxStalenessOf(ReactiveCacheProperties properties) {
+        Duration maxStaleness = properties.getMaxStaleness();
+        return maxStaleness == null || maxStaleness.isNegative() ? Duration.ZERO : maxStaleness;
+    }
+
+    private static Duration refreshAfterWriteOf(ReactiveCacheProperties properties) {
+        Duration refreshAfterWrite = properties.getRefreshAfterWrite();
+        if (refreshAfterWrite != null && refreshAfterWrite.compareTo(properties.getExpireAfterWrite()) < 0) {
+            return refreshAfterWrite;
+        }
+        // stale entries are always reloaded in the background
+        return maxStalenessOf(properties).isZero() ? null : properties.getExpireAfterWrite();
+    }
+
+    private static Counter refreshCounter(MeterRegistry meterRegistry, String cacheName, String result) {
+        return Counter.builder("cache.refreshes")
+                .description("Background refreshes of cache entries")
+                .tag("cache", cacheName)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    public Mono<V> get(K key, Mono<V> provider) {
+        return Mono.fromFuture(() -> {
+            // the map view does not record a hit or miss
+            CompletableFuture<V> pending = asyncCache.asMap().get(key);
+            if (pending != null && !pending.isDone()) {
+                coalescedRequests.increment();
+            }
+            CompletableFuture<V> value = asyncCache.get(key, (cacheKey, executor) -> load(cacheKey, provider).toFuture());
+            refreshIfDue(key, value, provider);
+            return value;
+        }, true);
+    }
+
+    /**
+     * Gets the values of all keys, loading the missing ones with a single call of the provider. Keys
+     * which are not contained in the map returned by the provider are not cached and are missing in the result.
+     */
+    public Mono<Map<K, V>> getAll(Collection<K> keys, Function<Set<? extends K>, Mono<Map<K, V>>> provider) {
+        return Mono.fromFuture(() -> {
+            CompletableFuture<Map<K, V>> values = asyncCache.getAll(keys, (missingKeys, executor) -> loadAll(missingKeys, provider).toFuture());
+            refreshAllIfDue(keys, values, provider);
+            return values;
+        }, true);
+    }
+
+    public void invalidate(K key) {
+        invalidations.incrementAndGet();
+        asyncCache.synchronous().invalidate(key);
+        if (sharedTier != null) {
+            sharedTier.invalidate(key).subscribe();
+        }
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        asyncCache.synchronous().invalidateAll();
+        if (sharedTier != null) {
+            sharedTier.invalidateAll().subscribe();
+        }
+    }
+
+    private Mono<V> load(K key, Mono<V> provider) {
+        if (sharedTier == null) {
+            return loadFromSource(key, provider);
+        }
+        return sharedTier.get(key)
+                .map(SharedCacheTier.SharedEntry::value)
+                .switchIfEmpty(Mono.defer(() -> loadFromSource(key, provider)));
+    }
+
+    private Mono<V> loadFromSource(K key, Mono<V> provider) {
+        Mono<V> loaded = provider.transform(this::timed);
+        if (sharedTier == null) {
+            return loaded;
+        }
+        return Mono.defer(() -> {
+            long invalidationsBefore = invalidations.get();
+            return loaded.flatMap(value -> putShared(key, value, invalidationsBefore).thenReturn(value));
+        });
+    }
+
+    /**
+     * values loaded before an invalidation may be outdated and are not shared with the other instances
+     */
+    private Mono<Void> putShared(K key, V value, long invalidationsBefore) {
+        return invalidationsBefore == invalidations.get() ? sharedTier.put(key, value) : Mono.empty();
+    }
+
+    private Mono<Map<K, V>> loadAll(Set<? extends K> keys, Function<Set<? extends K>, Mono<Map<K, V>>> provider) {
+        if (sharedTier == null) {
+            return provider.apply(keys).transform(this::timed);
+        }
+        return Flux.fromIterable(keys)
+                .flatMap(key -> sharedTier.get(key).map(entry -> Map.entry((K) key, entry.value())))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue, HashMap::new)
+                .flatMap(values -> {
+                    Set<K> missingKeys = new HashSet<>(keys);
+                    missingKeys.removeAll(values.keySet());
+                    if (missingKeys.isEmpty()) {
+                        return Mono.just(values);
+                    }
+                    long invalidationsBefore = invalidations.get();
+                    return provider.apply(missingKeys)
+                            .transform(this::timed)
+                            .flatMap(loadedValues -> putAllShared(loadedValues, invalidationsBefore).then(Mono.fromSupplier(() -> {
+                                values.putAll(loadedValues);
+                                return values;
+                            })));
+                });
+    }
+
+    /**
+     * refresh-ahead: reload entries in the background which are older than refreshAfterWrite,
+     * while the current value is still returned
+     */
+    private void refreshIfDue(K key, CompletableFuture<V> value, Mono<V> provider) {
+        if (refreshAfterWrite == null || !value.isDone() || value.isCompletedExceptionally() || !isRefreshDue(key)) {
+            return;
+        }
+
+        long invalidationsBefore = invalidations.get();
+        reload(key, provider)
+                .doFinally(signal -> refreshingKeys.remove(key))
+                .subscribe(
+                        refreshedValue -> {
+                            if (invalidationsBefore == invalidations.get()) {
+                                asyncCache.put(key, CompletableFuture.completedFuture(refreshedValue));
+                            }
+                            refreshSuccesses.increment();
+                        },
+                        e -> {
+                            refreshFailures.increment();
+                            log.warn("Refreshing entry {} of cache {} failed", key, cacheName, e);
+                        }
+                );
+    }
+
+    private void refreshAllIfDue(Collection<K> keys, CompletableFuture<Map<K, V>> values, Function<Set<? extends K>, Mono<Map<K, V>>> provider) {
+        if (refreshAfterWrite == null || !values.isDone() || values.isCompletedExceptionally()) {
+            return;
+        }
+        Set<K> dueKeys = new HashSet<>();
+        for (K key : keys) {
+            if (isRefreshDue(key)) {
+                dueKeys.add(key);
+            }
+        }
+        if (dueKeys.isEmpty()) {
+            return;
+        }
+
+        long invalidationsBefore = invalidations.get();
+        provider.apply(dueKeys)
+                .transform(this::timed)
+                .flatMap(refreshedValues -> putAllShared(refreshedValues, invalidationsBefore).thenReturn(refreshedValues))
+                .doFinally(signal -> refreshingKeys.removeAll(dueKeys))
+                .subscribe(
+                        refreshedValues -> {
+                            if (invalidationsBefore == invalidations.get()) {
+                                refreshedValues.forEach((key, value) -> asyncCache.put(key, CompletableFuture.completedFuture(value)));
+                            }
+                            refreshSuccesses.increment(refreshedValues.size());
+                        },
+                        e -> {
+                            refreshFailures.increment(dueKeys.size());
+                            log.warn("Refreshing {} entries of cache {} failed", dueKeys.size(), cacheName, e);
+                        }
+                );
+    }
+
+    /**
+     * checks whether the entry is old enough to be refreshed and marks it as being refreshed
+     */
+    private boolean isRefreshDue(K key) {
+        Optional<Duration> age = asyncCache.synchronous().policy().expireAfterWrite()
+                .flatMap(expiration -> expiration.ageOf(key));
+        if (age.isEmpty() || age.get().compareTo(refreshAfterWrite) < 0) {
+            return false;
+        }
+        if (age.get().compareTo(expireAfterWrite) >= 0) {
+            staleHits.increment();
+        }
+        return refreshingKeys.add(key);
+    }
+
+    private Mono<Void> putAllShared(Map<K, V> values, long invalidationsBefore) {
+        if (sharedTier == null) {
+            return Mono.empty();
+        }
+        return Flux.fromIterable(values.entrySet())
+                .flatMap(entry -> putShared(entry.getKey(), entry.getValue(), invalidationsBefore))
+                .then();
+    }
+
+    private Mono<V> reload(K key, Mono<V> provider) {
+        if (sharedTier == null) {
+            return loadFromSource(key, provider);
+        }
+        // another instance may already have refreshed the entry
+        return sharedTier.get(key)
+                .filter(entry -> sharedTier.ageOf(entry).compareTo(refreshAfterWrite) < 0)
+                .map(SharedCacheTier.SharedEntry::value)
+                .switchIfEmpty(Mono.defer(() -> loadFromSource(key, provider)));
+    }
+
+    private <T> Mono<T> timed(Mono<T> source) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start();
+            return source.doFinally(signal -> sample.stop(loadTimer));
+        });
+    }
+}
@@ -0,0 +1,64 @@
+package de.swm.lhm.geoportal.gateway.util.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.Optional;
+
+/**
+ * Creates the {@link ReactiveCache}s of the gateway.
+ * <p>
+ * The settings of a cache are taken from {@code geoportal.cache.caches.<cacheName>} when present,
+ * otherwise the defaults of the component owning the cache are used. When a shared tier is configured
+ * using {@code geoportal.cache.shared-tier}, the caches use it unless disabled per cache.
+ */
+@Component
+@Slf4j
+public class ReactiveCacheFactory {
+
+    private final CacheProperties cacheProperties;
+    private final MeterRegistry meterRegistry;
+    private final Optional<SharedCacheStore> sharedCacheStore;
+
+    // own mapper, the entries of the shared tier should not depend on the strictness of the application wide mapper
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    public ReactiveCacheFactory(CacheProperties cacheProperties, MeterRegistry meterRegistry, Optional<SharedCacheStore> sharedCacheStore) {
+        this.cacheProperties = cacheProperties;
+        this.meterRegistry = meterRegistry;
+        this.sharedCacheStore = sharedCacheStore;
+    }
+
+    /**
+     * Creates a cache with the settings configured for its name.
+     *
+     * @param cacheName         name of the cache used for its configuration, metrics and the keys in the shared tier
+     * @param defaultProperties settings used when there are none configured for the cache name
+     * @param valueType         type of the cached values, needed to read them from the shared tier
+     */
+    public <K, V> ReactiveCache<K, V> create(String cacheName, ReactiveCacheProperties defaultProperties, TypeReference<V> valueType) {
+        ReactiveCacheProperties properties = cacheProperties.getCaches().getOrDefault(cacheName, defaultProperties);
+
+        SharedCacheTier<K, V> sharedTier = null;
+        if (properties.isShared() && sharedCacheStore.isPresent()) {
+            log.info("Cache {} uses the shared tier {}", cacheName, cacheProperties.getSharedTier());
+            sharedTier = new SharedCacheTier<>(
+                    cacheName,
+                    sharedCacheStore.get(),
+                    cacheProperties.getSharedKeyPrefix(),
+                    properties.getExpireAfterWrite(),
+                    objectMapper,
+                    objectMapper.getTypeFactory().constructType(valueType),
+                    meterRegistry,
+                    Clock.systemUTC()
+            );
+        }
+        return new ReactiveCache<>(cacheName, properties, meterRegistry, sharedTier);
+    }
+}
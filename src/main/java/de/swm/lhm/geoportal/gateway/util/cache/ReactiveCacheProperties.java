@@ -0,0 +1,40 @@
+package de.swm.lhm.geoportal.gateway.util.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Duration;
+
+/**
+ * Size and expiry settings of a {@link ReactiveCache}, meant to be nested within
+ * the configuration properties of the component owning the cache or to be configured
+ * per cache name in {@link CacheProperties#getCaches()}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReactiveCacheProperties {
+
+    private long maximumSize = 1000;
+
+    private Duration expireAfterWrite = Duration.ofSeconds(10);
+
+    // entries which are accessed after this duration are loaded again in the background while the
+    // current value is still returned. Disabled when null or not shorter than expireAfterWrite
+    private Duration refreshAfterWrite = null;
+
+    // expired entries are still returned for at most this duration after expireAfterWrite, while they
+    // are loaded again in the background (stale-while-revalidate). Disabled when null or zero
+    private Duration maxStaleness = null;
+
+    // whether the cache uses the shared tier, if one is configured
+    private boolean shared = true;
+
+    public ReactiveCacheProperties(long maximumSize, Duration expireAfterWrite) {
+        this.maximumSize = maximumSize;
+        this.expireAfterWrite = expireAfterWrite;
+    }
+}
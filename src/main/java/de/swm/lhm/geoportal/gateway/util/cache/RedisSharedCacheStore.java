@@ -0,0 +1,54 @@
+package de.swm.lhm.geoportal.gateway.util.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+@Component
+@ConditionalOnProperty(prefix = "geoportal.cache", name = "shared-tier", havingValue = "redis")
+public class RedisSharedCacheStore implements SharedCacheStore {
+
+    private static final int DELETE_BATCH_SIZE = 500;
+
+    private final ReactiveRedisTemplate<String, byte[]> redisTemplate;
+
+    public RedisSharedCacheStore(ReactiveRedisConnectionFactory redisConnectionFactory) {
+        this.redisTemplate = new ReactiveRedisTemplate<>(
+                redisConnectionFactory,
+                RedisSerializationContext.<String, byte[]>newSerializationContext(StringRedisSerializer.UTF_8)
+                        .value(RedisSerializer.byteArray())
+                        .build()
+        );
+    }
+
+    @Override
+    public Mono<byte[]> get(String key) {
+        return redisTemplate.opsForValue().get(key);
+    }
+
+    @Override
+    public Mono<Void> set(String key, byte[] value, Duration timeToLive) {
+        return redisTemplate.opsForValue().set(key, value, timeToLive).then();
+    }
+
+    @Override
+    public Mono<Void> delete(String key) {
+        return redisTemplate.delete(key).then();
+    }
+
+    @Override
+    public Mono<Void> deleteByPrefix(String keyPrefix) {
+        return redisTemplate.scan(ScanOptions.scanOptions().match(keyPrefix + "*").count(DELETE_BATCH_SIZE).build())
+                .buffer(DELETE_BATCH_SIZE)
+                .concatMap(keys -> redisTemplate.delete(keys.toArray(String[]::new)))
+                .then();
+    }
+}
@@ -0,0 +1,19 @@
+package de.swm.lhm.geoportal.gateway.util.cache;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Storage of the shared tier of the {@link ReactiveCache}s, which is used by all instances of the gateway.
+ */
+public interface SharedCacheStore {
+
+    Mono<byte[]> get(String key);
+
+    Mono<Void> set(String key, byte[] value, Duration timeToLive);
+
+    Mono<Void> delete(String key);
+
+    Mono<Void> deleteByPrefix(String keyPrefix);
+}
@@ -0,0 +1,108 @@
+package de.swm.lhm.geoportal.gateway.util.cache;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * The shared tier of a single {@link ReactiveCache}. Values are stored as JSON together with the
+ * time they have been loaded, keys are stored using their string representation.
+ * <p>
+ * The shared tier is an optimization only: failures are logged and handled like missing entries.
+ */
+@Slf4j
+class SharedCacheTier<K, V> {
+
+    private final SharedCacheStore store;
+    private final String keyPrefix;
+    private final Duration timeToLive;
+    private final ObjectMapper objectMapper;
+    private final JavaType entryType;
+    private final Clock clock;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter errors;
+
+    SharedCacheTier(String cacheName, SharedCacheStore store, String keyPrefix, Duration timeToLive,
+                    ObjectMapper objectMapper, JavaType valueType, MeterRegistry meterRegistry, Clock clock) {
+        this.store = store;
+        this.keyPrefix = keyPrefix + cacheName + ":";
+        this.timeToLive = timeToLive;
+        this.objectMapper = objectMapper;
+        this.entryType = objectMapper.getTypeFactory().constructParametricType(SharedEntry.class, valueType);
+        this.clock = clock;
+
+        this.hits = sharedGetsCounter(meterRegistry, cacheName, "hit");
+        this.misses = sharedGetsCounter(meterRegistry, cacheName, "miss");
+        this.errors = sharedGetsCounter(meterRegistry, cacheName, "error");
+    }
+
+    private static Counter sharedGetsCounter(MeterRegistry meterRegistry, String cacheName, String result) {
+        return Counter.builder("cache.shared.gets")
+                .description("Lookups in the shared tier of the cache")
+                .tag("cache", cacheName)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    Mono<SharedEntry<V>> get(K key) {
+        return store.get(storeKey(key))
+                .<SharedEntry<V>>handle((bytes, sink) -> {
+                    try {
+                        sink.next(objectMapper.readValue(bytes, entryType));
+                    } catch (Exception e) {
+                        sink.error(e);
+                    }
+                })
+                .doOnNext(entry -> hits.increment())
+                .switchIfEmpty(Mono.fromRunnable(misses::increment))
+                .onErrorResume(e -> {
+                    errors.increment();
+                    log.warn("Reading {} from the shared cache failed", storeKey(key), e);
+                    return Mono.empty();
+                });
+    }
+
+    Mono<Void> put(K key, V value) {
+        return Mono.fromCallable(() -> objectMapper.writeValueAsBytes(new SharedEntry<>(clock.millis(), value)))
+                .flatMap(bytes -> store.set(storeKey(key), bytes, timeToLive))
+                .onErrorResume(e -> {
+                    log.warn("Writing {} to the shared cache failed", storeKey(key), e);
+                    return Mono.empty();
+                });
+    }
+
+    Mono<Void> invalidate(K key) {
+        return store.delete(storeKey(key))
+                .onErrorResume(e -> {
+                    log.warn("Invalidating {} in the shared cache failed", storeKey(key), e);
+                    return Mono.empty();
+                });
+    }
+
+    Mono<Void> invalidateAll() {
+        return store.deleteByPrefix(keyPrefix)
+                .onErrorResume(e -> {
+                    log.warn("Invalidating the shared cache {} failed", keyPrefix, e);
+                    return Mono.empty();
+                });
+    }
+
+    Duration ageOf(SharedEntry<V> entry) {
+        return Duration.ofMillis(clock.millis() - entry.loadedAt());
+    }
+
+    private String storeKey(K key) {
+        return keyPrefix + key;
+    }
+
+    record SharedEntry<V>(long loadedAt, V value) {
+    }
+}
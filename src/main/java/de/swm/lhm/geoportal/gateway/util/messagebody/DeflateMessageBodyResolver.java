@@ -12,9 +12,10 @@ import org.springframework.util.FileCopyUtils;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
 @Component
-public class DeflateMessageBodyResolver implements MessageBodyDecoder, MessageBodyEncoder {
+public class DeflateMessageBodyResolver implements MessageBodyDecoder, MessageBodyEncoder, StreamingMessageBodyDecoder {
 
     private final DeflateParameters deflateParameters = createDeflateParameters();
 
@@ -36,6 +37,11 @@ public class DeflateMessageBodyResolver implements MessageBodyDecoder, MessageBo
         }
     }
 
+    @Override
+    public InputStream decode(InputStream encoded) throws IOException {
+        return new DeflateCompressorInputStream(encoded, deflateParameters);
+    }
+
     @Override
     public byte[] encode(DataBuffer original) {
         try (
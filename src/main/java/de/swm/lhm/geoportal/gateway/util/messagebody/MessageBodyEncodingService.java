@@ -2,6 +2,7 @@ package de.swm.lhm.geoportal.gateway.util.messagebody;
 
 import de.swm.lhm.geoportal.gateway.util.DataBufferUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.cloud.gateway.filter.factory.rewrite.GzipMessageBodyResolver;
 import org.springframework.cloud.gateway.filter.factory.rewrite.MessageBodyDecoder;
 import org.springframework.cloud.gateway.filter.factory.rewrite.MessageBodyEncoder;
 import org.springframework.core.io.buffer.DataBuffer;
@@ -9,6 +10,9 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
@@ -16,6 +20,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Handles http body compression ("Content-Encoding" and "Accept-Encoding" headers)
@@ -71,6 +76,40 @@ public class MessageBodyEncodingService {
         return inputDataBuffer.factory().wrap(decoder.decode(inputBytes));
     }
 
+    /**
+     * Decodes the buffer by streaming it through the decoder into a new buffer of the same factory,
+     * without copying the encoded body into a byte array first. Decoders which are not able to
+     * stream fall back to {@link #decodeDataBuffer(DataBuffer, String)}.
+     * <p>
+     * The input buffer is not released.
+     */
+    public DataBuffer decodeDataBufferStreaming(DataBuffer inputDataBuffer, String encodingName) {
+        MessageBodyDecoder decoder = getDecoder(encodingName);
+        if (!(decoder instanceof StreamingMessageBodyDecoder) && !(decoder instanceof GzipMessageBodyResolver)) {
+            return decodeDataBuffer(inputDataBuffer, encodingName);
+        }
+
+        // compressed bodies usually expand, start with a buffer larger than the input
+        DataBuffer outputDataBuffer = inputDataBuffer.factory().allocateBuffer(Math.max(inputDataBuffer.readableByteCount() * 4, 256));
+        try (
+                InputStream decodingStream = createDecodingStream(decoder, inputDataBuffer.asInputStream());
+                OutputStream outputStream = outputDataBuffer.asOutputStream()
+        ) {
+            decodingStream.transferTo(outputStream);
+            return outputDataBuffer;
+        } catch (IOException | RuntimeException e) {
+            org.springframework.core.io.buffer.DataBufferUtils.release(outputDataBuffer);
+            throw new IllegalStateException("couldn't decode body from " + encodingName, e);
+        }
+    }
+
+    private static InputStream createDecodingStream(MessageBodyDecoder decoder, InputStream encoded) throws IOException {
+        if (decoder instanceof StreamingMessageBodyDecoder streamingDecoder) {
+            return streamingDecoder.decode(encoded);
+        }
+        return new GZIPInputStream(encoded);
+    }
+
     public DataBuffer encodeDataBuffer(DataBuffer inputDataBuffer, String encodingName) {
         MessageBodyEncoder encoder = getEncoder(encodingName);
         return inputDataBuffer.factory().wrap(encoder.encode(inputDataBuffer));
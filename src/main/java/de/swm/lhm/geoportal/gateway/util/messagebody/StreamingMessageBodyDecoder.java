@@ -0,0 +1,15 @@
+package de.swm.lhm.geoportal.gateway.util.messagebody;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A decoder which is able to decode a message body while reading it, without
+ * materializing the encoded or decoded body as byte array.
+ */
+public interface StreamingMessageBodyDecoder {
+
+    InputStream decode(InputStream encoded) throws IOException;
+
+    String encodingType();
+}
@@ -0,0 +1,124 @@
+-- Notifies the gateways about changes of the configuration tables.
+-- Every change increments the counter in t_config_change_counter and sends a notification
+-- on the channel geoportal_config_changed with the table, stage and key of the changed row, e.g.
+-- {"table": "t_portal", "stage": "CONFIGURATION", "key": "myportal", "counter": 42}
+-- The optional trigger argument names the key column. Stage and key are null when unknown
+-- or when an update changed them.
+--
+-- Triggers are created on every table any cache of the gateway is loaded from. The authorization
+-- views are resolved to the tables they are built on, as row-level triggers can't be created on
+-- views. Tables missing in the schema are skipped.
+
+CREATE TABLE t_config_change_counter (
+                                         id INTEGER NOT NULL PRIMARY KEY,
+                                         counter BIGINT NOT NULL
+);
+
+INSERT INTO t_config_change_counter (id, counter) VALUES (1, 0);
+
+CREATE OR REPLACE FUNCTION notify_config_change() RETURNS TRIGGER AS
+$$
+DECLARE
+    new_row        JSONB := CASE WHEN TG_OP = 'DELETE' THEN NULL ELSE to_jsonb(NEW) END;
+    old_row        JSONB := CASE WHEN TG_OP = 'INSERT' THEN NULL ELSE to_jsonb(OLD) END;
+    changed_row    JSONB := coalesce(new_row, old_row);
+    row_stage      TEXT  := changed_row ->> 'stage';
+    row_key        TEXT  := NULL;
+    change_counter BIGINT;
+BEGIN
+    IF TG_NARGS > 0 THEN
+        row_key := changed_row ->> TG_ARGV[0];
+        IF new_row IS NOT NULL AND old_row IS NOT NULL
+            AND (new_row ->> TG_ARGV[0]) IS DISTINCT FROM (old_row ->> TG_ARGV[0]) THEN
+            row_key := NULL;
+        END IF;
+    END IF;
+    IF new_row IS NOT NULL AND old_row IS NOT NULL
+        AND (new_row ->> 'stage') IS DISTINCT FROM (old_row ->> 'stage') THEN
+        row_stage := NULL;
+    END IF;
+
+    UPDATE t_config_change_counter SET counter = counter + 1 WHERE id = 1 RETURNING counter INTO change_counter;
+
+    PERFORM pg_notify('geoportal_config_changed', json_build_object(
+            'table', TG_TABLE_NAME,
+            'stage', row_stage,
+            'key', row_key,
+            'counter', change_counter
+        )::TEXT);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Creates the trigger on the given relation. A view is resolved to the tables it reads from,
+-- following nested views. Triggers already present are left unchanged.
+CREATE OR REPLACE FUNCTION create_config_change_trigger(relation_name TEXT, key_column TEXT DEFAULT NULL) RETURNS VOID AS
+$$
+DECLARE
+    base_table REGCLASS;
+BEGIN
+    IF to_regclass(relation_name) IS NULL THEN
+        RAISE NOTICE 'Skipping config change trigger on missing relation %', relation_name;
+        RETURN;
+    END IF;
+
+    FOR base_table IN
+        WITH RECURSIVE relations(oid) AS (
+            SELECT to_regclass(relation_name)::OID
+            UNION
+            SELECT d.refobjid
+            FROM relations rel
+                     JOIN pg_rewrite r ON r.ev_class = rel.oid
+                     JOIN pg_depend d ON d.classid = 'pg_rewrite'::REGCLASS
+                AND d.objid = r.oid
+                AND d.refclassid = 'pg_class'::REGCLASS
+                AND d.refobjid <> rel.oid
+        )
+        SELECT c.oid::REGCLASS
+        FROM relations rel
+                 JOIN pg_class c ON c.oid = rel.oid
+        WHERE c.relkind IN ('r', 'p')
+        LOOP
+            IF NOT EXISTS (SELECT 1
+                           FROM pg_trigger t
+                           WHERE t.tgrelid = base_table
+                             AND t.tgname = (SELECT relname FROM pg_class WHERE oid = base_table) || '_config_change') THEN
+                EXECUTE format(
+                        'CREATE TRIGGER %I AFTER INSERT OR UPDATE OR DELETE ON %s FOR EACH ROW EXECUTE FUNCTION notify_config_change(%s)',
+                        (SELECT relname FROM pg_class WHERE oid = base_table) || '_config_change',
+                        base_table,
+                        -- the key column only applies to the named table itself
+                        CASE WHEN key_column IS NOT NULL AND base_table = to_regclass(relation_name) THEN quote_literal(key_column) ELSE '' END
+                    );
+            END IF;
+        END LOOP;
+END;
+$$ LANGUAGE plpgsql;
+
+-- portals, products and their links
+SELECT create_config_change_trigger('t_portal', 'name');
+SELECT create_config_change_trigger('t_product', 'name');
+SELECT create_config_change_trigger('t_product_portal');
+SELECT create_config_change_trigger('t_product_layer');
+SELECT create_config_change_trigger('t_product_fileresource');
+SELECT create_config_change_trigger('t_unit');
+SELECT create_config_change_trigger('t_metadata');
+
+-- geoservices, their layers and property fields
+SELECT create_config_change_trigger('t_geoservice');
+SELECT create_config_change_trigger('t_servicetype');
+SELECT create_config_change_trigger('t_containing_services');
+SELECT create_config_change_trigger('t_propertyfield');
+SELECT create_config_change_trigger('t_propertyquery');
+SELECT create_config_change_trigger('t_wfst');
+
+-- further resources
+SELECT create_config_change_trigger('t_file_resource');
+SELECT create_config_change_trigger('t_plugin_sta_sensor');
+SELECT create_config_change_trigger('t_module_generic');
+
+-- authorizations, including the role tables the views are built on
+SELECT create_config_change_trigger('portal_product_roles_view');
+SELECT create_config_change_trigger('resource_product_roles_view');
+SELECT create_config_change_trigger('geoservice_product_roles_view');
+SELECT create_config_change_trigger('geoservice_and_ancestor_view');
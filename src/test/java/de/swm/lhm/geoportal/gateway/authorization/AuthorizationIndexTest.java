@@ -0,0 +1,84 @@
+package de.swm.lhm.geoportal.gateway.authorization;
+
+import de.swm.lhm.geoportal.gateway.authorization.model.AccessLevel;
+import de.swm.lhm.geoportal.gateway.authorization.model.AuthorizationGroup;
+import de.swm.lhm.geoportal.gateway.authorization.model.AuthorizationInfo;
+import de.swm.lhm.geoportal.gateway.authorization.model.FileResourceAuthorizationInfo;
+import de.swm.lhm.geoportal.gateway.geoservice.inspect.QualifiedLayerName;
+import de.swm.lhm.geoportal.gateway.resource.model.FileResourcePath;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+class AuthorizationIndexTest {
+
+    private final AuthorizationIndex index = AuthorizationIndex.of(
+            List.of(
+                    authorizationInfo(new AuthorizationInfo(), "portal", "role_portal", AccessLevel.PROTECTED, false)
+            ),
+            List.of(
+                    authorizationInfo(new AuthorizationInfo(), "ws:Layer", "role_a", AccessLevel.PROTECTED, false),
+                    authorizationInfo(new AuthorizationInfo(), "ws:layer", "role_b", AccessLevel.RESTRICTED, true)
+            ),
+            List.of(
+                    fileResourceInfo("unit", "layer/file.pdf", "role_file"),
+                    fileResourceInfo("other_unit", "file.pdf", "role_other")
+            )
+    );
+
+    @Test
+    void portalsAreMatchedExactly() {
+        AuthorizationGroup portal = index.getPortal("portal");
+
+        assertThat(portal.getAccessLevel(), is(AccessLevel.PROTECTED));
+        assertThat(portal.getProductRoles(), containsInAnyOrder("role_portal"));
+        assertThat(index.getPortal("Portal").isPublic(), is(true));
+    }
+
+    @Test
+    void geoServiceLayersAreMatchedCaseInsensitive() {
+        AuthorizationGroup layer = index.getGeoServiceLayer(QualifiedLayerName.fromString("WS:LAYER"));
+
+        assertThat(layer.getProductRoles(), containsInAnyOrder("role_a", "role_b"));
+        assertThat(layer.getAccessLevel(), is(AccessLevel.RESTRICTED));
+        assertThat(layer.isAuthLevelHigh(), is(true));
+    }
+
+    @Test
+    void fileResourcesAreMatchedByUnitAndPath() {
+        FileResourcePath path = FileResourcePath.builder().unit("unit").filePathWithinDocumentsFolder("layer/file.pdf").build();
+        FileResourcePath otherUnit = FileResourcePath.builder().unit("other_unit").filePathWithinDocumentsFolder("layer/file.pdf").build();
+
+        assertThat(index.getFileResource(path).getProductRoles(), containsInAnyOrder("role_file"));
+        assertThat(index.getFileResource(otherUnit).getProductRoles(), is(empty()));
+    }
+
+    @Test
+    void unknownResourcesGetEmptyGroups() {
+        FileResourcePath unknownUnit = FileResourcePath.builder().unit("unknown").filePathWithinDocumentsFolder("file.pdf").build();
+
+        assertThat(index.getGeoServiceLayer(QualifiedLayerName.fromString("ws:unknown")).getProductRoles(), is(empty()));
+        assertThat(index.getFileResource(unknownUnit).getProductRoles(), is(empty()));
+        assertThat(index.size(), is(4));
+    }
+
+    private static <T extends AuthorizationInfo> T authorizationInfo(T info, String resourceId, String roleName, AccessLevel accessLevel, boolean authLevelHigh) {
+        info.setResourceId(resourceId);
+        info.setRoleName(roleName);
+        info.setAccessLevel(accessLevel);
+        info.setAuthLevelHigh(authLevelHigh);
+        return info;
+    }
+
+    private static FileResourceAuthorizationInfo fileResourceInfo(String unit, String name, String roleName) {
+        FileResourceAuthorizationInfo info = authorizationInfo(new FileResourceAuthorizationInfo(), null, roleName, AccessLevel.PROTECTED, false);
+        info.setUnit(unit);
+        info.setName(name);
+        return info;
+    }
+}
@@ -3,7 +3,12 @@ package de.swm.lhm.geoportal.gateway.authorization;
 import de.swm.lhm.geoportal.gateway.authorization.model.StorkQaaLevel;
 import de.swm.lhm.geoportal.gateway.authorization.repository.AuthorizationInfoRepository;
 import de.swm.lhm.geoportal.gateway.shared.GatewayService;
+import de.swm.lhm.geoportal.gateway.shared.change_notification.ConfigurationChangedEvent;
+import de.swm.lhm.geoportal.gateway.shared.model.Stage;
+import de.swm.lhm.geoportal.gateway.util.cache.CacheProperties;
+import de.swm.lhm.geoportal.gateway.util.cache.ReactiveCacheFactory;
 import groovy.util.logging.Slf4j;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.SneakyThrows;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -32,6 +37,7 @@ import org.springframework.security.oauth2.server.resource.authentication.JwtAut
 import org.springframework.security.web.server.WebFilterExchange;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebSession;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
@@ -45,9 +51,12 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static de.swm.lhm.geoportal.gateway.authentication.TokenConstants.AUTHORITIES;
@@ -79,7 +88,7 @@ class AuthorizationServiceTest {
     @Test
     void shouldReturnNoGrantedProductsWhenPrincipalIsNotOAuth2Authenticated() {
         // given
-        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class));
+        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class), localCacheFactory(), mock(AuthorizationIndexService.class));
         Authentication authentication = mock(Authentication.class);
         OAuth2AuthenticatedPrincipal principal = mock(OAuth2AuthenticatedPrincipal.class);
         when(principal.getAttribute(AUTHORITIES)).thenReturn(1.0);
@@ -95,7 +104,7 @@ class AuthorizationServiceTest {
     @Test
     void shouldReturnNoGrantedProductsWhenAuthoritiesIsNull() {
         // given
-        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class));
+        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class), localCacheFactory(), mock(AuthorizationIndexService.class));
         Authentication authentication = mock(Authentication.class);
         OAuth2AuthenticatedPrincipal principal = mock(OAuth2AuthenticatedPrincipal.class);
         when(principal.getAttribute(AUTHORITIES)).thenReturn(null);
@@ -111,7 +120,7 @@ class AuthorizationServiceTest {
     @Test
     void shouldReturnNoGrantedProductsWhenAuthoritiesAreEmpty() {
         // given
-        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class));
+        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class), localCacheFactory(), mock(AuthorizationIndexService.class));
         Authentication authentication = mock(Authentication.class);
         OAuth2AuthenticatedPrincipal principal = mock(OAuth2AuthenticatedPrincipal.class);
         when(principal.getAttribute(AUTHORITIES)).thenReturn(List.of());
@@ -126,7 +135,7 @@ class AuthorizationServiceTest {
 
     @Test
     void shouldNotGrantAuthLevelHighIfNoPrincipal() {
-        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class));
+        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class), localCacheFactory(), mock(AuthorizationIndexService.class));
         Authentication authentication = mock(Authentication.class);
         when(authentication.getPrincipal()).thenReturn(null);
 
@@ -135,7 +144,7 @@ class AuthorizationServiceTest {
 
     @Test
     void shouldNotGrantAuthLevelHighIfQAALevelIs1() {
-        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class));
+        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class), localCacheFactory(), mock(AuthorizationIndexService.class));
         Authentication authentication = mock(Authentication.class);
         OAuth2AuthenticatedPrincipal principal = mock(OAuth2AuthenticatedPrincipal.class);
         when(principal.getAttribute(AUTH_LEVEL)).thenReturn(STORK_QAA_LEVEL_1);
@@ -147,7 +156,7 @@ class AuthorizationServiceTest {
     @ParameterizedTest
     @EnumSource(value = StorkQaaLevel.class, names = {"STORK_QAA_LEVEL_3", "STORK_QAA_LEVEL_4"})
     void shouldGrantAuthLevelHighForQAALevel3or4(StorkQaaLevel storkLevel) {
-        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class));
+        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class), localCacheFactory(), mock(AuthorizationIndexService.class));
         Authentication authentication = mock(Authentication.class);
         OAuth2AuthenticatedPrincipal principal = mock(OAuth2AuthenticatedPrincipal.class);
         when(principal.getAttribute(AUTH_LEVEL)).thenReturn(storkLevel);
@@ -268,7 +277,7 @@ class AuthorizationServiceTest {
     void shouldExtractTokenValueFromOidc() {
         String token = createToken();
         Authentication authentication = createOidcAuthenticationWithToken(token);
-        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class));
+        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class), localCacheFactory(), mock(AuthorizationIndexService.class));
         Mono<String> tokenValueMono = authorizationService.extractIdTokenValue(authentication);
 
         StepVerifier.create(tokenValueMono)
@@ -326,7 +335,7 @@ class AuthorizationServiceTest {
         );
         when(authentication.getPrincipal()).thenReturn(principal);
 
-        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class));
+        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class), localCacheFactory(), mock(AuthorizationIndexService.class));
         boolean isAuthLevelHigh = authorizationService.getGrantedAuthLevelHigh(authentication);
 
         Assertions.assertThat(isAuthLevelHigh).isEqualTo(expectedAuthLevel);
@@ -343,7 +352,7 @@ class AuthorizationServiceTest {
         when(webSession.getAttribute(SPRING_SECURITY_CONTEXT_KEY)).thenReturn(securityContext);
         when(securityContext.getAuthentication()).thenReturn(authentication);
 
-        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class));
+        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class), localCacheFactory(), mock(AuthorizationIndexService.class));
 
         Mono<Authentication> authenticationMono = authorizationService.getAuthentication(exchange);
 
@@ -357,7 +366,7 @@ class AuthorizationServiceTest {
         ServerWebExchange exchange = mock(ServerWebExchange.class);
         when(exchange.getSession()).thenReturn(Mono.empty());
 
-        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class));
+        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class), localCacheFactory(), mock(AuthorizationIndexService.class));
 
         Mono<Authentication> authenticationMono = authorizationService.getAuthentication(exchange);
 
@@ -373,7 +382,7 @@ class AuthorizationServiceTest {
         when(exchange.getSession()).thenReturn(Mono.just(webSession));
         when(webSession.getAttribute(SPRING_SECURITY_CONTEXT_KEY)).thenReturn(null);
 
-        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class));
+        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class), localCacheFactory(), mock(AuthorizationIndexService.class));
 
         Mono<Authentication> authenticationMono = authorizationService.getAuthentication(exchange);
 
@@ -386,7 +395,7 @@ class AuthorizationServiceTest {
         ServerWebExchange exchange = mock(ServerWebExchange.class);
         when(exchange.getSession()).thenThrow(new NullPointerException());
 
-        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class));
+        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class), localCacheFactory(), mock(AuthorizationIndexService.class));
 
         Mono<Authentication> authenticationMono = authorizationService.getAuthentication(exchange);
 
@@ -497,7 +506,7 @@ class AuthorizationServiceTest {
         Authentication authentication = mock(Authentication.class);
         when(authentication.getPrincipal()).thenReturn(new Object()); // Invalid type for testing
 
-        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class));
+        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class), localCacheFactory(), mock(AuthorizationIndexService.class));
         Mono<OidcUser> principalMono = authorizationService.getPrincipalAs(OidcUser.class, authentication);
 
         StepVerifier.create(principalMono)
@@ -529,7 +538,7 @@ class AuthorizationServiceTest {
         when(principal.getAttribute(AUTH_LEVEL)).thenReturn(storkLevel);
         when(authentication.getPrincipal()).thenReturn(principal);
 
-        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class));
+        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class), localCacheFactory(), mock(AuthorizationIndexService.class));
         boolean isAuthLevelHigh = authorizationService.getGrantedAuthLevelHigh(authentication);
 
         if (storkLevel.equals(STORK_QAA_LEVEL_3) || storkLevel.equals(STORK_QAA_LEVEL_4)) {
@@ -543,7 +552,7 @@ class AuthorizationServiceTest {
     void shouldHandleNoIdTokenForJwtAuthentication() {
         // Überprüfen, dass bei JWT keine ID-Token extrahiert werden, da diese nicht existieren
         Authentication authentication = createJwtAuthentication();
-        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class));
+        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class), localCacheFactory(), mock(AuthorizationIndexService.class));
 
         Mono<String> idTokenValueMono = authorizationService.extractIdTokenValue(authentication);
 
@@ -606,7 +615,7 @@ class AuthorizationServiceTest {
     @Test
     void shouldReturnNoGrantedProductsWhenPrincipalIsNull() {
         // given
-        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class));
+        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class), localCacheFactory(), mock(AuthorizationIndexService.class));
         Authentication authentication = mock(Authentication.class);
         when(authentication.getPrincipal()).thenReturn(null);
 
@@ -620,7 +629,7 @@ class AuthorizationServiceTest {
     @Test
     void shouldReturnGrantedProductsForBasicAuth() {
         // given
-        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class));
+        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class), localCacheFactory(), mock(AuthorizationIndexService.class));
         Authentication authentication = createUserPasswordAuthentication();
         // when
         Set<String> grantedProducts = authorizationService.getGrantedProducts(authentication);
@@ -633,7 +642,7 @@ class AuthorizationServiceTest {
     @Test
     void shouldReturnNoGrantedProductsWhenAuthoritiesListIsEmpty() {
         // given
-        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class));
+        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class), localCacheFactory(), mock(AuthorizationIndexService.class));
         Authentication authentication = mock(Authentication.class);
         OAuth2AuthenticatedPrincipal principal = mock(OAuth2AuthenticatedPrincipal.class);
         when(principal.getAttribute(AUTHORITIES)).thenReturn(Collections.emptyList());
@@ -649,7 +658,7 @@ class AuthorizationServiceTest {
     @Test
     void shouldReturnNoGrantedProductsWhenAuthoritiesListContainsInvalidEntries() {
         // given
-        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class));
+        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class), localCacheFactory(), mock(AuthorizationIndexService.class));
         Authentication authentication = mock(Authentication.class);
         OAuth2AuthenticatedPrincipal principal = mock(OAuth2AuthenticatedPrincipal.class);
         when(principal.getAttribute(AUTHORITIES)).thenReturn(List.of(1.0, true, new SimpleGrantedAuthority("test"))); // Ungültige Einträge
@@ -664,7 +673,7 @@ class AuthorizationServiceTest {
 
     @Test
     void shouldReturnGrantedProductsForOAuth2AuthenticationWithStrings() {
-        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class));
+        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class), localCacheFactory(), mock(AuthorizationIndexService.class));
         Authentication authentication = mock(Authentication.class);
         OAuth2AuthenticatedPrincipal principal = mock(OAuth2AuthenticatedPrincipal.class);
         when(principal.getAttributes()).thenReturn(Map.of(AUTHORITIES, defaultProducts));
@@ -677,7 +686,7 @@ class AuthorizationServiceTest {
 
     @Test
     void shouldReturnGrantedProductsForOAuth2AuthenticationWithGrantedAuthorities() {
-        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class));
+        AuthorizationService authorizationService = new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class), localCacheFactory(), mock(AuthorizationIndexService.class));
         Authentication authentication = mock(Authentication.class);
         OAuth2AuthenticatedPrincipal principal = mock(OAuth2AuthenticatedPrincipal.class);
         when(principal.getAttributes()).thenReturn(Map.of(AUTHORITIES, createProductAuthorities()));
@@ -688,10 +697,39 @@ class AuthorizationServiceTest {
         assertThat(grantedProducts, containsInAnyOrder(defaultProducts.toArray()));
     }
 
+    @Test
+    void configurationChangeOfPortalOnlyInvalidatesThisPortal() {
+        AuthorizationInfoRepository repository = mock(AuthorizationInfoRepository.class);
+        Map<String, AtomicInteger> queries = new ConcurrentHashMap<>();
+        when(repository.findAuthorizationInfoByResourceIdAndStage(any(), any())).thenAnswer(invocation -> Flux.defer(() -> {
+            queries.computeIfAbsent(invocation.getArgument(0), portal -> new AtomicInteger()).incrementAndGet();
+            return Flux.empty();
+        }));
+        AuthorizationService authorizationService = new AuthorizationService(repository, mock(GatewayService.class), localCacheFactory(), mock(AuthorizationIndexService.class));
+
+        authorizationService.getAccessInfoGroupForPortal("portal_a").block();
+        authorizationService.getAccessInfoGroupForPortal("portal_b").block();
+        authorizationService.onConfigurationChanged(new ConfigurationChangedEvent(this, "t_portal", null, "portal_a"));
+        authorizationService.getAccessInfoGroupForPortal("portal_a").block();
+        authorizationService.getAccessInfoGroupForPortal("portal_b").block();
+
+        assertThat(queries.get("portal_a").get(), is(2));
+        assertThat(queries.get("portal_b").get(), is(1));
+
+        authorizationService.onConfigurationChanged(new ConfigurationChangedEvent(this, "t_product", Stage.CONFIGURATION, "product"));
+        authorizationService.getAccessInfoGroupForPortal("portal_b").block();
+
+        assertThat(queries.get("portal_b").get(), is(2));
+    }
+
     /* utility methods */
 
+    private ReactiveCacheFactory localCacheFactory() {
+        return new ReactiveCacheFactory(new CacheProperties(), new SimpleMeterRegistry(), Optional.empty());
+    }
+
     private AuthorizationService mockAuthService() {
-        return Mockito.spy(new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class)));
+        return Mockito.spy(new AuthorizationService(mock(AuthorizationInfoRepository.class), mock(GatewayService.class), localCacheFactory(), mock(AuthorizationIndexService.class)));
     }
     
     private String createSubject() {
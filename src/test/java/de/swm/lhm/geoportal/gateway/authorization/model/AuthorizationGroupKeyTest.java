@@ -0,0 +1,46 @@
+package de.swm.lhm.geoportal.gateway.authorization.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+class AuthorizationGroupKeyTest {
+
+    @Test
+    void equalForSameRolesInDifferentOrder() {
+        AuthorizationGroup first = AuthorizationGroup.builder()
+                .productRoles(new ArrayList<>(List.of("a", "b")))
+                .build();
+        AuthorizationGroup second = AuthorizationGroup.builder()
+                .productRoles(new HashSet<>(List.of("b", "a", " ")))
+                .build();
+
+        assertThat(AuthorizationGroupKey.of(first), is(AuthorizationGroupKey.of(second)));
+    }
+
+    @Test
+    void distinguishesAuthLevelAndPrincipal() {
+        AuthorizationGroupKey anonymous = AuthorizationGroupKey.of(AuthorizationGroup.empty());
+        AuthorizationGroupKey loggedIn = AuthorizationGroupKey.of(AuthorizationGroup.builder().hasPrincipal(true).build());
+        AuthorizationGroupKey authLevelHigh = AuthorizationGroupKey.of(AuthorizationGroup.builder().hasPrincipal(true).authLevelHigh(true).build());
+
+        assertThat(anonymous, is(not(loggedIn)));
+        assertThat(loggedIn, is(not(authLevelHigh)));
+    }
+
+    @Test
+    void toAuthorizationGroup() {
+        AuthorizationGroup authorizationGroup = new AuthorizationGroupKey(Set.of("a"), true, true).toAuthorizationGroup();
+
+        assertThat(authorizationGroup.getProductRoles(), is(Set.of("a")));
+        assertThat(authorizationGroup.isAuthLevelHigh(), is(true));
+        assertThat(authorizationGroup.getHasPrincipal(), is(true));
+    }
+}
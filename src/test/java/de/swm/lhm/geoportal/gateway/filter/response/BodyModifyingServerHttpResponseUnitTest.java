@@ -1,20 +1,31 @@
 package de.swm.lhm.geoportal.gateway.filter.response;
 
+import de.swm.lhm.geoportal.gateway.util.DataBufferUtils;
 import de.swm.lhm.geoportal.gateway.util.messagebody.MessageBodyEncodingService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.factory.rewrite.GzipMessageBodyResolver;
+import org.springframework.cloud.gateway.filter.factory.rewrite.MessageBodyDecoder;
+import org.springframework.cloud.gateway.filter.factory.rewrite.MessageBodyEncoder;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
 import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -111,7 +122,129 @@ class BodyModifyingServerHttpResponseUnitTest {
         assertThat(mockResponse.getHeaders().getContentType()).isEqualTo(customErrorResponse.getErrorContentType());
     }
 
+    @Test
+    void chainedResponsesDecodeAndEncodeTheBodyOnce() {
+        GzipMessageBodyResolver gzip = new GzipMessageBodyResolver();
+        AtomicInteger decodeCount = new AtomicInteger();
+        AtomicInteger encodeCount = new AtomicInteger();
+        MessageBodyEncodingService countingEncodingService = new MessageBodyEncodingService(
+                List.of(new MessageBodyDecoder() {
+                    @Override
+                    public byte[] decode(byte[] encoded) {
+                        decodeCount.incrementAndGet();
+                        return gzip.decode(encoded);
+                    }
+
+                    @Override
+                    public String encodingType() {
+                        return gzip.encodingType();
+                    }
+                }),
+                List.of(new MessageBodyEncoder() {
+                    @Override
+                    public byte[] encode(DataBuffer original) {
+                        encodeCount.incrementAndGet();
+                        return gzip.encode(original);
+                    }
+
+                    @Override
+                    public String encodingType() {
+                        return gzip.encodingType();
+                    }
+                })
+        );
+
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("http://localhost/"));
+        exchange.getResponse().getHeaders().set(HttpHeaders.CONTENT_ENCODING, gzip.encodingType());
+        ServerWebExchange firstExchange = new AppendingServerHttpResponse(exchange.getResponse(), countingEncodingService, "-first")
+                .mutateServerWebExchange(exchange);
+        ServerWebExchange secondExchange = new AppendingServerHttpResponse(firstExchange.getResponse(), countingEncodingService, "-second")
+                .mutateServerWebExchange(firstExchange);
+
+        // the second response is registered as stage of the first one instead of decorating it
+        assertThat(secondExchange.getResponse()).isSameAs(firstExchange.getResponse());
+
+        byte[] compressedBody = gzip.encode(bufferFactory.wrap("body".getBytes(StandardCharsets.UTF_8)));
+        StepVerifier.create(secondExchange.getResponse().writeWith(Flux.just(bufferFactory.wrap(compressedBody))))
+                .verifyComplete();
+
+        byte[] writtenBody = exchange.getResponse().getBody()
+                .map(DataBufferUtils::readDataBufferAsByteArray)
+                .blockFirst();
+        assertThat(new String(gzip.decode(writtenBody), StandardCharsets.UTF_8)).isEqualTo("body-second-first");
+        assertThat(decodeCount.get()).isEqualTo(1);
+        assertThat(encodeCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    void errorOfAStageIsWrittenUsingItsErrorDetails() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("http://localhost/"));
+        ServerWebExchange firstExchange = new AppendingServerHttpResponse(exchange.getResponse(), messageBodyEncodingService, "-first")
+                .mutateServerWebExchange(exchange);
+        ServerWebExchange secondExchange = new TestBodyModifyingServerHttpResponse(firstExchange.getResponse(), messageBodyEncodingService) {
+            @Override
+            protected Mono<DataBuffer> processBody(Mono<DataBuffer> body) {
+                return body.flatMap(dataBuffer -> {
+                    org.springframework.core.io.buffer.DataBufferUtils.release(dataBuffer);
+                    return Mono.error(new IllegalStateException("failed"));
+                });
+            }
+
+            @Override
+            protected Optional<ErrorDetails> getErrorDetails(Throwable e) {
+                return Optional.of(new ErrorDetails(HttpStatus.BAD_GATEWAY, "Second stage failed"));
+            }
+        }.mutateServerWebExchange(firstExchange);
+
+        StepVerifier.create(secondExchange.getResponse().writeWith(Flux.just(bufferFactory.wrap("body".getBytes(StandardCharsets.UTF_8)))))
+                .verifyComplete();
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.BAD_GATEWAY);
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("Second stage failed");
+    }
 
+    @Test
+    void stagesDecideOnTheHeadersLeftByTheStagesBefore() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("http://localhost/"));
+        exchange.getResponse().getHeaders().setContentType(MediaType.TEXT_PLAIN);
+
+        // processed second, only supports the content type set by the stage before
+        ServerWebExchange firstExchange = new AppendingServerHttpResponse(exchange.getResponse(), messageBodyEncodingService, "-first") {
+            @Override
+            public Mono<Boolean> supportsBodyRewrite() {
+                return Mono.fromSupplier(() -> MediaType.APPLICATION_JSON.equals(getHeaders().getContentType()));
+            }
+        }.mutateServerWebExchange(exchange);
+        // processed first
+        ServerWebExchange secondExchange = new AppendingServerHttpResponse(firstExchange.getResponse(), messageBodyEncodingService, "-second") {
+            @Override
+            protected Mono<DataBuffer> processBody(Mono<DataBuffer> body) {
+                getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                return super.processBody(body);
+            }
+        }.mutateServerWebExchange(firstExchange);
+
+        StepVerifier.create(secondExchange.getResponse().writeWith(Flux.just(bufferFactory.wrap("body".getBytes(StandardCharsets.UTF_8)))))
+                .verifyComplete();
+
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("body-second-first");
+    }
+}
+
+class AppendingServerHttpResponse extends BodyModifyingServerHttpResponse {
+
+    private final String suffix;
+
+    AppendingServerHttpResponse(ServerHttpResponse delegate, MessageBodyEncodingService messageBodyEncodingService, String suffix) {
+        super(delegate, messageBodyEncodingService);
+        this.suffix = suffix;
+    }
+
+    @Override
+    protected Mono<DataBuffer> processBody(Mono<DataBuffer> body) {
+        return DataBufferUtils.copyAsString(body)
+                .map(bodyString -> bufferFactory().wrap((bodyString + suffix).getBytes(StandardCharsets.UTF_8)));
+    }
 }
 
 class TestBodyModifyingServerHttpResponse extends BodyModifyingServerHttpResponse {
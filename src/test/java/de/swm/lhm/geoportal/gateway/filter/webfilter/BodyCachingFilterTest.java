@@ -1,6 +1,8 @@
 package de.swm.lhm.geoportal.gateway.filter.webfilter;
 
 import de.swm.lhm.geoportal.gateway.util.messagebody.MessageBodyEncodingService;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,29 +14,40 @@ import org.springframework.cloud.gateway.filter.factory.rewrite.GzipMessageBodyR
 import org.springframework.cloud.gateway.filter.factory.rewrite.MessageBodyDecoder;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBuffer;
 import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
 import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
 import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CACHED_REQUEST_BODY_ATTR;
@@ -176,6 +189,87 @@ class BodyCachingFilterTest {
         assertThat(capturedOutput.getOut(), not(containsString("exceeded the allowed size")));
     }
 
+    @Test
+    void testZeroCopyBodyDecompression() {
+        GzipMessageBodyResolver gzipMessageBodyResolver = new GzipMessageBodyResolver();
+        BodyCachingFilter bodyCachingFilter = new BodyCachingFilter(new MessageBodyEncodingService(
+                List.of(gzipMessageBodyResolver),
+                List.of(gzipMessageBodyResolver)
+        ));
+        bodyCachingFilter.setZeroCopy(true);
+        bodyCachingFilter.setMaxByteCountForBody(500);
+        AtomicLong cachedBytesInFlight = new AtomicLong();
+        bodyCachingFilter.setCachedBytesInFlight(cachedBytesInFlight);
+
+        // deliver the compressed body in several pooled chunks, as netty does
+        NettyDataBufferFactory nettyDataBufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+        byte[] compressed = gzipMessageBodyResolver.encode(nettyDataBufferFactory.wrap(PAYLOAD.getBytes(StandardCharsets.UTF_8)));
+        int half = compressed.length / 2;
+        List<NettyDataBuffer> chunks = List.of(
+                nettyDataBufferFactory.wrap(Unpooled.copiedBuffer(compressed, 0, half)),
+                nettyDataBufferFactory.wrap(Unpooled.copiedBuffer(compressed, half, compressed.length - half))
+        );
+
+        MockServerWebExchange mockServerWebExchange = MockServerWebExchange.from(
+                MockServerHttpRequest.post("http://somehost/somewhere")
+                        .header(HttpHeaders.CONTENT_ENCODING, gzipMessageBodyResolver.encodingType())
+                        .header(HttpHeaders.CONTENT_LENGTH, String.valueOf(compressed.length))
+                        .body(Flux.fromIterable(chunks))
+        );
+
+        WebFilterChain testFilterChain = filterExchange -> {
+            HttpHeaders headers = filterExchange.getRequest().getHeaders();
+            assertThat(headers.getFirst(HttpHeaders.CONTENT_ENCODING), is(nullValue()));
+            assertThat(headers.getContentLength(), is((long) PAYLOAD.getBytes(StandardCharsets.UTF_8).length));
+            assertThat(cachedBytesInFlight.get(), is((long) PAYLOAD.getBytes(StandardCharsets.UTF_8).length));
+
+            for (int i = 0; i < 3; i++) {
+                String body = de.swm.lhm.geoportal.gateway.util.DataBufferUtils.copyAsString(filterExchange.getRequest().getBody()).block();
+                assertThat(body, is(PAYLOAD));
+            }
+            return Mono.empty();
+        };
+
+        bodyCachingFilter.filter(mockServerWebExchange, testFilterChain).block();
+
+        assertThat(cachedBytesInFlight.get(), is(0L));
+        assertThat(chunks.stream().allMatch(chunk -> chunk.getNativeBuffer().refCnt() == 0), is(true));
+    }
+
+    @Test
+    void testZeroCopyWithLimitBodyTooLarge(CapturedOutput capturedOutput) {
+        BodyCachingFilter bodyCachingFilter = new BodyCachingFilter(new MessageBodyEncodingService(
+                Collections.emptyList(),
+                Collections.emptyList()
+        ));
+        bodyCachingFilter.setZeroCopy(true);
+        bodyCachingFilter.setMaxByteCountForBody(500);
+
+        AtomicBoolean wasCancelled = new AtomicBoolean(false);
+        Flux<DataBuffer> body = Flux.range(0, 100)
+                .map(i -> (DataBuffer) new DefaultDataBufferFactory().wrap("body".repeat(50).getBytes(StandardCharsets.UTF_8)))
+                .doOnCancel(() -> wasCancelled.set(true));
+
+        MockServerWebExchange mockServerWebExchange = MockServerWebExchange.from(
+                MockServerHttpRequest.post("http://somehost/somewhere")
+                        .body(body)
+        );
+
+        AtomicBoolean wasChainCalled = new AtomicBoolean(false);
+
+        bodyCachingFilter.filter(mockServerWebExchange, filterExchange -> {
+            wasChainCalled.set(true);
+            return Mono.empty();
+        }).block();
+
+        assertThat(mockServerWebExchange.getResponse().getStatusCode(), is(HttpStatus.PAYLOAD_TOO_LARGE));
+        assertThat(wasChainCalled.get(), is(false));
+        assertThat(wasCancelled.get(), is(true));
+        assertThat(capturedOutput.getOut(), containsString("exceeded the allowed size"));
+        // the chunked body has no content length, the third chunk exceeded the limit
+        assertThat(capturedOutput.getOut(), containsString("Reading was stopped after 600 bytes"));
+    }
+
     @Test
     void whenSchemeIsNotHttpOrHttps_thenShouldSkipFilter() {
         MockServerHttpRequest request = MockServerHttpRequest.get("ftp://example.com").build();
@@ -203,4 +297,33 @@ class BodyCachingFilterTest {
                 .verifyComplete();
 
     }
+
+    @Test
+    void exchangeBuffersAreReleasedWhenTheExchangeIsComplete() {
+        MockServerHttpResponse response = new MockServerHttpResponse(new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT));
+        ServerWebExchange postExchange = new ServerWebExchangeDecorator(
+                MockServerWebExchange.from(MockServerHttpRequest.post("http://somehost/somewhere").body(PAYLOAD))) {
+
+            @Override
+            public ServerHttpResponse getResponse() {
+                return response;
+            }
+        };
+
+        List<DataBuffer> exchangeBuffers = new ArrayList<>();
+        WebFilterChain allocatingFilterChain = filterExchange -> {
+            exchangeBuffers.add(BodyCachingFilter.allocateExchangeBuffer(filterExchange, 16));
+            return Mono.empty();
+        };
+
+        StepVerifier.create(filter.filter(postExchange, allocatingFilterChain))
+                .verifyComplete();
+
+        assertThat(exchangeBuffers.size(), is(1));
+        assertThat(exchangeBuffers.getFirst(), instanceOf(NettyDataBuffer.class));
+        assertThat(((NettyDataBuffer) exchangeBuffers.getFirst()).getNativeBuffer().refCnt(), is(0));
+
+        // outside of the filter the buffer is not pooled, as nobody would release it
+        assertThat(BodyCachingFilter.allocateExchangeBuffer(postExchange, 16), instanceOf(DefaultDataBuffer.class));
+    }
 }
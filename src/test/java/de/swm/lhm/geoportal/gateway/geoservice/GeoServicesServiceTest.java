@@ -16,6 +16,7 @@ import org.springframework.boot.test.system.OutputCaptureExtension;
 import org.springframework.context.annotation.Import;
 
 import java.io.IOException;
+import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasSize;
@@ -74,4 +75,30 @@ class GeoServicesServiceTest extends SqlRunner {
         assertThat(testProduct.getGeoServices().get(1).getUrls().getFirst().getServiceType(), is(ServiceType.WMS));
         assertThat(testProduct.getGeoServices().get(2).getUrls().getFirst().getServiceType(), is(ServiceType.WFS));
     }
-}
\ No newline at end of file
+
+    @Test
+    void enrichProductsSharingLayers() {
+        runSql("""
+                INSERT INTO t_product_layer (product_id, layer_id, layer_type)
+                VALUES (2, 'workspace3:layer3', 'WFS'), (2, 'workspace1:layer1', 'WMS_WFS'), (2, 'workspace1:layer9', 'WMS')
+                """);
+        Product firstProduct = new Product();
+        firstProduct.setId(1);
+        firstProduct.setStage(Stage.CONFIGURATION);
+        Product secondProduct = new Product();
+        secondProduct.setId(2);
+        secondProduct.setStage(Stage.CONFIGURATION);
+        Product productWithoutLayers = new Product();
+        productWithoutLayers.setId(3);
+        productWithoutLayers.setStage(Stage.CONFIGURATION);
+
+        geoServicesService.enrichProducts(List.of(firstProduct, secondProduct, productWithoutLayers)).block();
+
+        assertThat(firstProduct.getGeoServices(), hasSize(4));
+        assertThat(secondProduct.getGeoServices(), hasSize(2));
+        assertThat(secondProduct.getGeoServices().get(0).getName(), is("layer3"));
+        assertThat(secondProduct.getGeoServices().get(1).getName(), is("layer1"));
+        assertThat(secondProduct.getGeoServices().get(1).getUrls(), hasSize(2));
+        assertThat(productWithoutLayers.getGeoServices(), hasSize(0));
+    }
+}
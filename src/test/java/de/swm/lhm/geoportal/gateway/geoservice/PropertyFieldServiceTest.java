@@ -8,16 +8,25 @@ import de.swm.lhm.geoportal.gateway.resource.ResourceRepository;
 import de.swm.lhm.geoportal.gateway.resource.ResourceService;
 import de.swm.lhm.geoportal.gateway.shared.GatewayService;
 import de.swm.lhm.geoportal.gateway.shared.model.Stage;
+import de.swm.lhm.geoportal.gateway.util.cache.CacheProperties;
+import de.swm.lhm.geoportal.gateway.util.cache.ReactiveCacheFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import reactor.core.publisher.Flux;
+import reactor.util.function.Tuples;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class PropertyFieldServiceTest {
@@ -37,7 +46,8 @@ class PropertyFieldServiceTest {
                 resourceProperties
         );
 
-        return new PropertyFieldService(gatewayService, propertyFieldRepository, resourceService, geoServiceRepository);
+        return new PropertyFieldService(gatewayService, propertyFieldRepository, resourceService, geoServiceRepository,
+                new ReactiveCacheFactory(new CacheProperties(), new SimpleMeterRegistry(), Optional.empty()));
     }
 
     @Test
@@ -65,6 +75,32 @@ class PropertyFieldServiceTest {
         assertThat(propertyFields.get("pf2"), is(pf2));
     }
 
+    @Test
+    void getGeoServicePropertyFieldsByQualifiedLayerNamesLoadsMissingLayersOnce() {
+        QualifiedLayerName layerWithFields = new QualifiedLayerName("myworkspace", "mylayer");
+        QualifiedLayerName layerWithoutFields = new QualifiedLayerName("myworkspace", "otherlayer");
+        Stage stage = Stage.CONFIGURATION;
+
+        PropertyField pf1 = new PropertyField("schema1", "table1", "pf1", "pf1label", true, PropertyFieldEscaping.NONE);
+        PropertyField pf2 = new PropertyField("schema2", "table2", "pf2", "pf2label", false, PropertyFieldEscaping.URL);
+
+        PropertyFieldRepository propertyFieldRepository = mock(PropertyFieldRepository.class);
+        when(propertyFieldRepository.findGeoServicePropertyFieldsByQualifiedLayerNamesAndStage(anyCollection(), eq(stage)))
+                .thenReturn(Flux.just(Tuples.of(layerWithFields, pf1), Tuples.of(layerWithFields, pf2)));
+
+        PropertyFieldService service = buildPropertyFieldService(stage, propertyFieldRepository, mock(GeoServiceRepository.class));
+
+        Map<QualifiedLayerName, Map<String, PropertyField>> propertyFields = service
+                .getGeoServicePropertyFieldsByQualifiedLayerNames(Set.of(layerWithFields, layerWithoutFields))
+                .block();
+        assertThat(propertyFields.get(layerWithFields), is(Map.of("pf1", pf1, "pf2", pf2)));
+        assertThat(propertyFields.get(layerWithoutFields), is(Map.of()));
+
+        // served from the cache
+        service.getGeoServicePropertyFieldsByQualifiedLayerNames(Set.of(layerWithFields, layerWithoutFields)).block();
+        verify(propertyFieldRepository, times(1)).findGeoServicePropertyFieldsByQualifiedLayerNamesAndStage(anyCollection(), eq(stage));
+    }
+
     void testEscapePropertyField(PropertyFieldEscaping escaping) {
         PropertyFieldService service = buildPropertyFieldService(Stage.CONFIGURATION, mock(PropertyFieldRepository.class), mock(GeoServiceRepository.class));
         Optional<String> escapedValue = service.escapeFieldValue("myvalue", new PropertyField(
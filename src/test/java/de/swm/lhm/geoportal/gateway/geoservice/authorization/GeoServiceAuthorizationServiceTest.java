@@ -0,0 +1,112 @@
+package de.swm.lhm.geoportal.gateway.geoservice.authorization;
+
+import de.swm.lhm.geoportal.gateway.authorization.IAuthService;
+import de.swm.lhm.geoportal.gateway.authorization.model.AuthorizationGroup;
+import de.swm.lhm.geoportal.gateway.geoservice.GeoServiceProperties;
+import de.swm.lhm.geoportal.gateway.geoservice.GeoServiceRepository;
+import de.swm.lhm.geoportal.gateway.geoservice.inspect.QualifiedLayerName;
+import de.swm.lhm.geoportal.gateway.shared.GatewayService;
+import de.swm.lhm.geoportal.gateway.shared.model.Stage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import de.swm.lhm.geoportal.gateway.util.cache.CacheProperties;
+import de.swm.lhm.geoportal.gateway.util.cache.ReactiveCacheFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GeoServiceAuthorizationServiceTest {
+
+    private IAuthService authService;
+    private GeoServiceRepository geoServiceRepository;
+    private MeterRegistry meterRegistry;
+    private GeoServiceAuthorizationService geoServiceAuthorizationService;
+
+    @BeforeEach
+    void setUp() {
+        authService = mock(IAuthService.class);
+        geoServiceRepository = mock(GeoServiceRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+
+        GatewayService gatewayService = mock(GatewayService.class);
+        when(gatewayService.getStage()).thenReturn(Stage.CONFIGURATION);
+
+        when(geoServiceRepository.findNonHiddenGeoServiceLayers(eq(Stage.CONFIGURATION), any()))
+                .thenAnswer(invocation -> Flux.just("Workspace:Layer1", "workspace:layer2"));
+
+        geoServiceAuthorizationService = new GeoServiceAuthorizationService(
+                authService,
+                gatewayService,
+                geoServiceRepository,
+                new GeoServiceProperties(),
+                new ReactiveCacheFactory(new CacheProperties(), meterRegistry, Optional.empty())
+        );
+    }
+
+    private void grant(String... productRoles) {
+        when(authService.getGrantedAsAuthorizationGroup()).thenReturn(Mono.just(
+                AuthorizationGroup.builder()
+                        .productRoles(new HashSet<>(List.of(productRoles)))
+                        .hasPrincipal(productRoles.length > 0)
+                        .build()
+        ));
+    }
+
+    @Test
+    void getNonHiddenGeoServiceLayersLowercased() {
+        grant("role_a");
+
+        Set<QualifiedLayerName> layers = geoServiceAuthorizationService.getNonHiddenGeoServiceLayersLowercased().block();
+
+        assertThat(layers, containsInAnyOrder(
+                new QualifiedLayerName("workspace", "layer1"),
+                new QualifiedLayerName("workspace", "layer2")
+        ));
+    }
+
+    @Test
+    void identicalRoleSetsShareOneDatabaseQuery() {
+        grant("role_a", "role_b");
+        geoServiceAuthorizationService.getNonHiddenGeoServiceLayersLowercased().block();
+
+        grant("role_b", "role_a");
+        geoServiceAuthorizationService.getNonHiddenGeoServiceLayersLowercased().block();
+
+        verify(geoServiceRepository, times(1)).findNonHiddenGeoServiceLayers(eq(Stage.CONFIGURATION), any());
+        assertThat(meterRegistry.get("cache.gets")
+                .tag("cache", GeoServiceAuthorizationService.VISIBLE_LAYERS_CACHE_NAME)
+                .tag("result", "hit")
+                .functionCounter()
+                .count(), is(1.0));
+    }
+
+    @Test
+    void differentRoleSetsAreCachedSeparately() {
+        grant("role_a");
+        geoServiceAuthorizationService.getNonHiddenGeoServiceLayersLowercased().block();
+
+        grant("role_b");
+        geoServiceAuthorizationService.getNonHiddenGeoServiceLayersLowercased().block();
+
+        grant();
+        geoServiceAuthorizationService.getNonHiddenGeoServiceLayersLowercased().block();
+
+        verify(geoServiceRepository, times(3)).findNonHiddenGeoServiceLayers(eq(Stage.CONFIGURATION), any());
+    }
+}
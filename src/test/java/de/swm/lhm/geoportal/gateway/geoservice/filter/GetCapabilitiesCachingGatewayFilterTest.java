@@ -0,0 +1,117 @@
+package de.swm.lhm.geoportal.gateway.geoservice.filter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.util.List;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.resetAllRequests;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+
+
+@TestPropertySource(properties = {
+        "geoportal.geoserver.capabilities-cache.enabled=true",
+        "geoportal.geoserver.capabilities-cache.expire-after-write=1m"
+})
+class GetCapabilitiesCachingGatewayFilterTest extends AbstractGeoServiceGatewayFilterTest {
+
+    @Autowired
+    GetCapabilitiesCachingGatewayFilter getCapabilitiesCachingGatewayFilter;
+
+    @Autowired
+    ApplicationEventPublisher applicationEventPublisher;
+
+    @BeforeEach
+    void clearCache() {
+        getCapabilitiesCachingGatewayFilter.invalidateCache();
+        resetAllRequests();
+    }
+
+    @Test
+    void identicalRequestIsServedFromCache() throws IOException {
+        serveXmlDocument(WMS_DOCUMENT);
+
+        String firstBody = requestCapabilities(List.of(PROTECTED_PRODUCT));
+        String secondBody = requestCapabilities(List.of(PROTECTED_PRODUCT));
+
+        assertThat(secondBody, is(firstBody));
+        assertThat(secondBody, containsString(PROTECTED_LAYER));
+        assertThat(secondBody, not(containsString(RESTRICTED_LAYER)));
+        verify(1, getRequestedFor(urlPathMatching("/geoserver/.*")));
+    }
+
+    @Test
+    void differentRolesAreCachedSeparately() throws IOException {
+        serveXmlDocument(WMS_DOCUMENT);
+
+        String protectedBody = requestCapabilities(List.of(PROTECTED_PRODUCT));
+        String restrictedBody = requestCapabilities(List.of(PROTECTED_PRODUCT, RESTRICTED_PRODUCT));
+
+        assertThat(protectedBody, not(containsString(RESTRICTED_LAYER)));
+        assertThat(restrictedBody, containsString(RESTRICTED_LAYER));
+        verify(2, getRequestedFor(urlPathMatching("/geoserver/.*")));
+    }
+
+    @Test
+    void matchingETagIsAnsweredWithNotModified() throws IOException {
+        serveXmlDocument(WMS_DOCUMENT);
+
+        String eTag = webTestClient
+                .mutateWith(keyCloakConfigureGrantedProducts(List.of(PROTECTED_PRODUCT)))
+                .get()
+                .uri(WMS_ENDPOINT)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseHeaders()
+                .getETag();
+        assertThat(eTag, notNullValue());
+
+        webTestClient
+                .mutateWith(keyCloakConfigureGrantedProducts(List.of(PROTECTED_PRODUCT)))
+                .get()
+                .uri(WMS_ENDPOINT)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isNotModified();
+
+        verify(1, getRequestedFor(urlPathMatching("/geoserver/.*")));
+    }
+
+    @Test
+    void refreshingRoutesInvalidatesCache() throws IOException {
+        serveXmlDocument(WMS_DOCUMENT);
+
+        requestCapabilities(List.of(PROTECTED_PRODUCT));
+        applicationEventPublisher.publishEvent(new RefreshRoutesEvent(this));
+        requestCapabilities(List.of(PROTECTED_PRODUCT));
+
+        verify(2, getRequestedFor(urlPathMatching("/geoserver/.*")));
+    }
+
+    private String requestCapabilities(List<String> grantedProducts) {
+        return webTestClient
+                .mutateWith(keyCloakConfigureGrantedProducts(grantedProducts))
+                .get()
+                .uri(WMS_ENDPOINT)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.SERVER, GEOSERVER_SERVER_HEADER)
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+    }
+}
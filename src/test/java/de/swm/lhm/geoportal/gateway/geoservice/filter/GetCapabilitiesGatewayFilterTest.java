@@ -56,6 +56,25 @@ public class GetCapabilitiesGatewayFilterTest extends AbstractGeoServiceGatewayF
         filterCapabilitiesDocumentWithRestricted(WMTS_ENDPOINT, WMTS_DOCUMENT);
     }
 
+    @Test
+    void removeGetFeatureInfoWithUnsupportedFormats() throws IOException {
+        serveXmlDocument(WMS_DOCUMENT);
+
+        webTestClient
+                .mutateWith(
+                        keyCloakConfigureGrantedProducts(List.of(PROTECTED_PRODUCT))
+                )
+                .get()
+                .uri(WMS_ENDPOINT)
+                .exchange()
+                .expectBody(String.class)
+                .consumeWith(result -> {
+                    String body = result.getResponseBody();
+                    assertThat(body, not(containsString("<GetFeatureInfo>")));
+                    assertThat(body, containsString("<GetMap>"));
+                });
+    }
+
     void filterCapabilitiesDocumentWithoutRestricted(String geoserverPath, String capabilitiesDocumentResource) throws IOException {
         StubMapping stub = serveXmlDocument(capabilitiesDocumentResource);
 
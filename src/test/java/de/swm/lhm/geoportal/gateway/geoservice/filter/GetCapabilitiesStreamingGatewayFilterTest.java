@@ -0,0 +1,12 @@
+package de.swm.lhm.geoportal.gateway.geoservice.filter;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * runs the tests of the DOM based rewrite against the streaming rewrite
+ */
+@TestPropertySource(properties = {
+    "geoportal.geoserver.get-capabilities-rewrite-mode=streaming"
+})
+class GetCapabilitiesStreamingGatewayFilterTest extends GetCapabilitiesGatewayFilterTest {
+}
@@ -0,0 +1,118 @@
+package de.swm.lhm.geoportal.gateway.geoservice.filter;
+
+import de.swm.lhm.geoportal.gateway.util.XmlUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class GetCapabilitiesXmlEventRewriterTest {
+
+    private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
+
+    private static String rewrite(String xml, Set<String> blockedRequestTypes, Set<String> allowedLayers, Set<String> supportedFormats) throws TimeoutException {
+        GetCapabilitiesXmlEventRewriter rewriter = new GetCapabilitiesXmlEventRewriter(
+                requestType -> blockedRequestTypes.contains(requestType.toLowerCase(Locale.ROOT)),
+                allowedLayers::contains,
+                supportedFormats::contains
+        );
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        XmlUtils.rewriteXmlEvents(new ByteArrayInputStream(xml.getBytes(UTF_8)), outputStream, rewriter, 1000);
+        return outputStream.toString(UTF_8);
+    }
+
+    @Test
+    void removeNonVisibleWmsLayers() throws TimeoutException {
+        String xml = """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <WMS_Capabilities><Capability><Layer>
+                  <Title/>
+                  <Layer><Name>ws:visible</Name><Style><Name>style</Name></Style></Layer>
+                  <Layer><Name>ws:hidden</Name><Layer><Name>ws:visible</Name></Layer></Layer>
+                </Layer></Capability></WMS_Capabilities>""";
+
+        assertThat(
+                rewrite(xml, Set.of(), Set.of("ws:visible"), Set.of()),
+                is(XML_DECLARATION + "<WMS_Capabilities><Capability><Layer><Title></Title>"
+                        + "<Layer><Name>ws:visible</Name><Style><Name>style</Name></Style></Layer>"
+                        + "</Layer></Capability></WMS_Capabilities>")
+        );
+    }
+
+    @Test
+    void removeNonVisibleWmtsLayersIdentifiedAfterTitle() throws TimeoutException {
+        String xml = """
+                <Capabilities xmlns:ows="http://www.opengis.net/ows/1.1"><Contents>
+                  <Layer><ows:Title>hidden</ows:Title><ows:Identifier>ws:hidden</ows:Identifier><Style><ows:Identifier/></Style></Layer>
+                  <Layer><ows:Title>visible</ows:Title><ows:Identifier>ws:visible</ows:Identifier></Layer>
+                </Contents></Capabilities>""";
+
+        assertThat(
+                rewrite(xml, Set.of(), Set.of("ws:visible"), Set.of()),
+                is(XML_DECLARATION + "<Capabilities xmlns:ows=\"http://www.opengis.net/ows/1.1\"><Contents>"
+                        + "<Layer><ows:Title>visible</ows:Title><ows:Identifier>ws:visible</ows:Identifier></Layer>"
+                        + "</Contents></Capabilities>")
+        );
+    }
+
+    @Test
+    void removeBlockedOperationsAndLegendUrls() throws TimeoutException {
+        String xml = """
+                <root>
+                  <OperationsMetadata><Operation name="GetTile"><a/></Operation><Operation name="GetFeature"/></OperationsMetadata>
+                  <Capability><Request><GetMap/><GetLegendGraphic><Format>image/png</Format></GetLegendGraphic></Request></Capability>
+                  <Style><LegendURL><Format>image/png</Format></LegendURL></Style>
+                </root>""";
+
+        assertThat(
+                rewrite(xml, Set.of("gettile", "getlegendgraphic"), Set.of(), Set.of()),
+                is(XML_DECLARATION + "<root>"
+                        + "<OperationsMetadata><Operation name=\"GetFeature\"></Operation></OperationsMetadata>"
+                        + "<Capability><Request><GetMap></GetMap></Request></Capability>"
+                        + "<Style></Style>"
+                        + "</root>")
+        );
+    }
+
+    @Test
+    void removeGetFeatureInfoWithUnsupportedFormats() throws TimeoutException {
+        String xml = """
+                <Capability><Request><GetMap/><GetFeatureInfo>
+                  <Format>text/plain</Format>
+                  <Format> application/unsupported </Format>
+                  <DCPType/>
+                </GetFeatureInfo></Request></Capability>""";
+
+        assertThat(
+                rewrite(xml, Set.of(), Set.of(), Set.of("text/plain")),
+                is(XML_DECLARATION + "<Capability><Request><GetMap></GetMap></Request></Capability>")
+        );
+    }
+
+    @Test
+    void keepGetFeatureInfoWithSupportedFormats() throws TimeoutException {
+        String xml = """
+                <Capability><Request><GetFeatureInfo>
+                  <Format>text/plain</Format>
+                  <Format> application/json </Format>
+                  <DCPType/>
+                </GetFeatureInfo></Request></Capability>""";
+
+        assertThat(
+                rewrite(xml, Set.of(), Set.of(), Set.of("text/plain", "application/json")),
+                is(XML_DECLARATION + "<Capability><Request><GetFeatureInfo>"
+                        + "<Format>text/plain</Format>"
+                        + "<Format> application/json </Format>"
+                        + "<DCPType></DCPType>"
+                        + "</GetFeatureInfo></Request></Capability>")
+        );
+    }
+}
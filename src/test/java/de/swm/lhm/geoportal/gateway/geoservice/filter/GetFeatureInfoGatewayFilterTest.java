@@ -16,6 +16,7 @@ import reactor.core.publisher.Mono;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
@@ -30,11 +31,11 @@ class GetFeatureInfoGatewayFilterTest extends AbstractGeoServiceGatewayFilterTes
 
     WebTestClient.ResponseSpec requestGfi() {
         QualifiedLayerName qualifiedLayerName = QualifiedLayerName.fromString("play:gis_osm_pois_free_1_o2o");
-        when(propertyFieldService.getGeoServicePropertyFieldsByNameAndWorkspace(qualifiedLayerName))
-                .thenReturn(Mono.just(Map.of(
+        when(propertyFieldService.getGeoServicePropertyFieldsByQualifiedLayerNames(Set.of(qualifiedLayerName)))
+                .thenReturn(Mono.just(Map.of(qualifiedLayerName, Map.of(
                         "osm_id", new PropertyField("schema1", "table1", "osm_id", "osm_id", true, PropertyFieldEscaping.NONE),
                         "shape", new PropertyField("schema2", "table2", "shape", "shape", true, PropertyFieldEscaping.NONE)
-                )));
+                ))));
         when(propertyFieldService.getContainedQualifiedLayerNames(qualifiedLayerName)).thenReturn(Mono.just(List.of(qualifiedLayerName)));
 
 
@@ -0,0 +1,12 @@
+package de.swm.lhm.geoportal.gateway.geoservice.filter;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * runs the tests of the non-streaming GetFeatureInfo filtering against the streaming one
+ */
+@TestPropertySource(properties = {
+    "geoportal.geoserver.get-feature-info-rewrite-mode=streaming"
+})
+class GetFeatureInfoStreamingGatewayFilterTest extends GetFeatureInfoGatewayFilterTest {
+}
@@ -3,10 +3,23 @@ package de.swm.lhm.geoportal.gateway.geoservice.gfi;
 import de.swm.lhm.geoportal.gateway.base_classes.FileLoader;
 import de.swm.lhm.geoportal.gateway.geoservice.PropertyFieldService;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.mockito.Mockito.mock;
 
 abstract class AbstractGfiFilterTest extends FileLoader {
     protected PropertyFieldService mockPropertyFieldService() {
         return mock(PropertyFieldService.class);
     }
+
+    protected String filterBodyStreaming(AbstractGfiFilter filter, LayerNameResolver layerNameResolver, String body,
+                                         ReferencedColumnValueFilter referencedColumnValueFilter) throws IOException, TimeoutException {
+        ByteArrayOutputStream filteredBody = new ByteArrayOutputStream();
+        filter.filterBody(layerNameResolver, new ByteArrayInputStream(body.getBytes(UTF_8)), filteredBody, referencedColumnValueFilter);
+        return filteredBody.toString(UTF_8);
+    }
 }
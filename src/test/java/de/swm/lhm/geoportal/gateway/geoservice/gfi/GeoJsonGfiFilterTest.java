@@ -9,7 +9,9 @@ import reactor.core.publisher.Mono;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeoutException;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -48,6 +50,44 @@ class GeoJsonGfiFilterTest extends AbstractGfiFilterTest {
         assertThat(filteredBody, not(containsString("fclass")));
     }
 
+    @Test
+    void filterBodyStreamingMatchesFilterBody() throws IOException, TimeoutException {
+        GeoJsonGfiFilter filter = new GeoJsonGfiFilter(mockPropertyFieldService());
+
+        Set<String> allowedColumns = Set.of("name", "osm_id");
+        LayerNameResolver layerNameResolver = new LayerNameResolver();
+        layerNameResolver.add(QualifiedLayerName.fromString("myws:gis_osm_pois_free_1_o2o"));
+        String body = loadFileContent("geoservice/get-feature-info/gis_osm_pois_free_1_o2o.json");
+
+        String filteredBody = filter.filterBody(layerNameResolver, body,
+                referencedColumnValue -> allowedColumns.contains(referencedColumnValue.columnName())
+                        ? Mono.just(referencedColumnValue.columnValue())
+                        : Mono.empty()
+        ).block();
+        String streamedBody = filterBodyStreaming(filter, layerNameResolver, body,
+                referencedColumnValue -> allowedColumns.contains(referencedColumnValue.columnName())
+                        ? Optional.of(referencedColumnValue.columnValue())
+                        : Optional.empty()
+        );
+
+        assertThat(streamedBody, is(filteredBody));
+        assertThat(streamedBody, not(containsString("fclass")));
+        // the geometry column "shape" is not allowed
+        assertThat(streamedBody, not(containsString("coordinates")));
+    }
+
+    @Test
+    void filterBodyStreamingAddsMissingFeatures() throws IOException, TimeoutException {
+        GeoJsonGfiFilter filter = new GeoJsonGfiFilter(mockPropertyFieldService());
+
+        String streamedBody = filterBodyStreaming(filter, new LayerNameResolver(),
+                "{\"type\":\"FeatureCollection\",\"features\":{\"unexpected\":true},\"totalFeatures\":1}",
+                referencedColumnValue -> Optional.of(referencedColumnValue.columnValue())
+        );
+
+        assertThat(streamedBody, is("{\"type\":\"FeatureCollection\",\"features\":[],\"totalFeatures\":1}"));
+    }
+
     @Test
     void shouldReturnFalseIfMediaTypeIsNull() {
         GeoJsonGfiFilter filter = new GeoJsonGfiFilter(mockPropertyFieldService());
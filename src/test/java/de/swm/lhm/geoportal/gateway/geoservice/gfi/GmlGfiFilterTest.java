@@ -9,7 +9,9 @@ import reactor.core.publisher.Mono;
 import java.io.IOException;
 import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeoutException;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
@@ -67,4 +69,38 @@ class GmlGfiFilterTest extends AbstractGfiFilterTest {
         assertThat(filteredBody, containsString("gml:coordinates"));
         assertThat(filteredBody, containsString("690319.5,5335033.8"));
     }
+
+    @Test
+    void filterBodyStreamingWithFixedColumns() throws IOException, TimeoutException {
+        GmlGfiFilter filter = new GmlGfiFilter(mockPropertyFieldService(), getGeoServiceProperties());
+
+        Set<String> allowedColumns = Set.of("name", "osm_id", "shape");
+        QualifiedLayerName qLayerName = QualifiedLayerName.fromString("play:gis_osm_pois_free_1_o2o");
+        LayerNameResolver layerNameResolver = new LayerNameResolver();
+        layerNameResolver.add(qLayerName);
+
+        String filteredBody = filterBodyStreaming(
+                filter,
+                layerNameResolver,
+                loadFileContent("geoservice/get-feature-info/gis_osm_pois_free_1_o2o.xml"),
+                referencedColumnValue -> {
+                    if (referencedColumnValue.qualifiedLayerName().equals(qLayerName) && allowedColumns.contains(referencedColumnValue.columnName())) {
+                        if (referencedColumnValue.columnName().equals("osm_id")) {
+                            return Optional.of("new " + referencedColumnValue.columnValue());
+                        } else {
+                            return Optional.of(referencedColumnValue.columnValue());
+                        }
+                    } else {
+                        return Optional.empty();
+                    }
+                }
+        );
+
+        assertThat(filteredBody, not(containsString("fclass")));
+        assertThat(filteredBody, not(containsString("vending_any")));
+        assertThat(filteredBody, containsString("new 4873"));
+        assertThat(filteredBody, containsString("play:osm_id"));
+        assertThat(filteredBody, containsString("gml:coordinates"));
+        assertThat(filteredBody, containsString("690319.5,5335033.8"));
+    }
 }
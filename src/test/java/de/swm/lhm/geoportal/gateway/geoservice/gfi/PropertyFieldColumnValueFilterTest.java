@@ -0,0 +1,53 @@
+package de.swm.lhm.geoportal.gateway.geoservice.gfi;
+
+import de.swm.lhm.geoportal.gateway.geoservice.PropertyFieldService;
+import de.swm.lhm.geoportal.gateway.geoservice.inspect.QualifiedLayerName;
+import de.swm.lhm.geoportal.gateway.geoservice.model.PropertyField;
+import de.swm.lhm.geoportal.gateway.geoservice.model.PropertyFieldEscaping;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+class PropertyFieldColumnValueFilterTest extends AbstractGfiFilterTest {
+
+    private static final QualifiedLayerName ROOT_LAYER = QualifiedLayerName.fromString("ws:group");
+    private static final QualifiedLayerName CHILD_LAYER = QualifiedLayerName.fromString("ws:child");
+    private static final QualifiedLayerName OTHER_LAYER = QualifiedLayerName.fromString("ws:other");
+
+    private PropertyFieldColumnValueFilter buildFilter() {
+        PropertyFieldService propertyFieldService = mockPropertyFieldService();
+        when(propertyFieldService.escapeFieldValue(anyString(), any()))
+                .thenAnswer(invocation -> Optional.of(invocation.getArgument(0, String.class).trim()));
+
+        LayerNameResolver layerNameResolver = new LayerNameResolver();
+        layerNameResolver.add(ROOT_LAYER, List.of(ROOT_LAYER, CHILD_LAYER));
+
+        return new PropertyFieldColumnValueFilter(propertyFieldService, layerNameResolver, Map.of(ROOT_LAYER, Map.of(
+                "name", new PropertyField("schema", "table", "name", "Name", true, PropertyFieldEscaping.NONE)
+        )));
+    }
+
+    @Test
+    void columnsOfChildLayersAreFilteredByTheFieldsOfTheRootLayer() {
+        PropertyFieldColumnValueFilter filter = buildFilter();
+
+        assertThat(filter.apply(new ReferencedColumnValue(CHILD_LAYER, "name", " value ")), is(Optional.of("value")));
+        assertThat(filter.apply(new ReferencedColumnValue(ROOT_LAYER, "name", "value")), is(Optional.of("value")));
+        assertThat(filter.apply(new ReferencedColumnValue(CHILD_LAYER, "secret", "value")), is(Optional.empty()));
+    }
+
+    @Test
+    void columnsOfUnknownLayersAreRemoved() {
+        PropertyFieldColumnValueFilter filter = buildFilter();
+
+        assertThat(filter.apply(new ReferencedColumnValue(OTHER_LAYER, "name", "value")), is(Optional.empty()));
+    }
+}
@@ -9,7 +9,9 @@ import reactor.core.publisher.Mono;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeoutException;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
@@ -76,6 +78,36 @@ class TextGfiFilterTest extends AbstractGfiFilterTest {
                 --------------------------------------------"""));
     }
 
+    @Test
+    void filterBodyStreamingWithFixedColumns() throws IOException, TimeoutException {
+        TextGfiFilter filter = new TextGfiFilter(mockPropertyFieldService());
+
+        Set<String> allowedColumns = Set.of("name", "osm_id", "shape");
+        QualifiedLayerName qLayerName = QualifiedLayerName.fromString("play:gis_osm_pois_free_1_o2o");
+        LayerNameResolver layerNameResolver = new LayerNameResolver();
+        layerNameResolver.add(qLayerName, qLayerName);
+        String filteredBody = filterBodyStreaming(
+                filter,
+                layerNameResolver,
+                loadFileContent("geoservice/get-feature-info/gis_osm_pois_free_1_o2o.txt") + "\r\n\r\n",
+                referencedColumnValue -> {
+                    if (referencedColumnValue.qualifiedLayerName().equals(qLayerName) && allowedColumns.contains(referencedColumnValue.columnName())) {
+                        return Optional.of("new " + referencedColumnValue.columnValue());
+                    } else {
+                        return Optional.empty();
+                    }
+                }
+        );
+
+        assertThat(filteredBody, is("""
+                Results for FeatureType 'playgound:gis_osm_pois_free_1_o2o':
+                --------------------------------------------
+                osm_id = new 4873640911
+                name = new null
+                shape = new [GEOMETRY (Point) with 1 points]
+                --------------------------------------------"""));
+    }
+
     @Test
     void shouldReturnFalseIfMediaTypeIsNull() {
         TextGfiFilter filter = new TextGfiFilter(mockPropertyFieldService());
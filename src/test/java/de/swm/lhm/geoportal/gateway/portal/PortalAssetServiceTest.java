@@ -0,0 +1,204 @@
+package de.swm.lhm.geoportal.gateway.portal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PortalAssetServiceTest {
+
+    private static final String PORTAL = "portal";
+
+    @TempDir
+    Path rootPath;
+
+    private Path appJs;
+    private PortalAssetService portalAssetService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path portalPath = Files.createDirectories(rootPath.resolve(PORTAL));
+        appJs = Files.writeString(portalPath.resolve("app.js"), "console.log('app');");
+        Files.writeString(portalPath.resolve("app.js.gz"), "gzip");
+        Files.writeString(portalPath.resolve("app.js.br"), "brotli");
+        Files.writeString(portalPath.resolve("style.css"), "body {}");
+
+        portalAssetService = new PortalAssetService(new PortalProperties());
+    }
+
+    @Test
+    void servesTheFileWithValidators() {
+        MockServerWebExchange exchange = serve(MockServerHttpRequest.get("/portal/portal/style.css"), "style.css");
+
+        HttpHeaders headers = exchange.getResponse().getHeaders();
+        assertThat(exchange.getResponse().getStatusCode()).isNotEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(headers.getContentType()).isEqualTo(MediaType.valueOf("text/css"));
+        assertThat(headers.getContentLength()).isEqualTo(7);
+        assertThat(headers.getETag()).startsWith("\"").endsWith("\"");
+        assertThat(headers.getLastModified()).isPositive();
+        assertThat(headers.getCacheControl()).isEqualTo("no-cache, private");
+        assertThat(headers.getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(headers.getVary()).isEmpty();
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("body {}");
+    }
+
+    @Test
+    void servesThePreferredPrecompressedVariant() {
+        MockServerWebExchange brotli = serve(MockServerHttpRequest.get("/").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br"), "app.js");
+        assertThat(brotli.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("br");
+        assertThat(brotli.getResponse().getHeaders().getContentType()).isEqualTo(MediaType.valueOf("application/javascript"));
+        assertThat(brotli.getResponse().getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(brotli.getResponse().getBodyAsString().block()).isEqualTo("brotli");
+
+        MockServerWebExchange gzip = serve(MockServerHttpRequest.get("/").header(HttpHeaders.ACCEPT_ENCODING, "gzip, br;q=0"), "app.js");
+        assertThat(gzip.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gzip.getResponse().getBodyAsString().block()).isEqualTo("gzip");
+
+        MockServerWebExchange identity = serve(MockServerHttpRequest.get("/"), "app.js");
+        assertThat(identity.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(identity.getResponse().getBodyAsString().block()).isEqualTo("console.log('app');");
+
+        // each variant has its own entity tag
+        assertThat(brotli.getResponse().getHeaders().getETag())
+                .isNotEqualTo(gzip.getResponse().getHeaders().getETag())
+                .isNotEqualTo(identity.getResponse().getHeaders().getETag());
+    }
+
+    @Test
+    void variantsOlderThanTheFileAreIgnored() throws IOException {
+        Files.setLastModifiedTime(appJs, FileTime.from(Instant.now().plus(Duration.ofMinutes(1))));
+
+        MockServerWebExchange exchange = serve(MockServerHttpRequest.get("/").header(HttpHeaders.ACCEPT_ENCODING, "br, gzip"), "app.js");
+
+        assertThat(exchange.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("console.log('app');");
+    }
+
+    @Test
+    void conditionalRequestsAreAnsweredWithNotModified() {
+        HttpHeaders headers = serve(MockServerHttpRequest.get("/").header(HttpHeaders.ACCEPT_ENCODING, "br"), "app.js")
+                .getResponse()
+                .getHeaders();
+
+        MockServerWebExchange byETag = serve(MockServerHttpRequest.get("/")
+                .header(HttpHeaders.ACCEPT_ENCODING, "br")
+                .ifNoneMatch(headers.getETag()), "app.js");
+        assertThat(byETag.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(byETag.getResponse().getHeaders().getETag()).isEqualTo(headers.getETag());
+        assertThat(byETag.getResponse().getBodyAsString().block()).isEmpty();
+
+        // the ETag of another variant does not match
+        MockServerWebExchange otherVariant = serve(MockServerHttpRequest.get("/")
+                .ifNoneMatch(headers.getETag()), "app.js");
+        assertThat(otherVariant.getResponse().getStatusCode()).isNotEqualTo(HttpStatus.NOT_MODIFIED);
+
+        MockServerWebExchange byDate = serve(MockServerHttpRequest.get("/")
+                .ifModifiedSince(headers.getLastModified()), "style.css");
+        assertThat(byDate.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    @Test
+    void headRequestsHaveNoBody() {
+        MockServerWebExchange exchange = serve(MockServerHttpRequest.head("/"), "style.css");
+
+        assertThat(exchange.getResponse().getHeaders().getContentLength()).isEqualTo(7);
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEmpty();
+    }
+
+    @Test
+    void singleRangesAreServedFromTheFileItself() {
+        MockServerWebExchange exchange = serve(MockServerHttpRequest.get("/")
+                .header(HttpHeaders.ACCEPT_ENCODING, "br")
+                .header(HttpHeaders.RANGE, "bytes=8-10"), "app.js");
+
+        HttpHeaders headers = exchange.getResponse().getHeaders();
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(headers.getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 8-10/19");
+        assertThat(headers.getContentLength()).isEqualTo(3);
+        assertThat(headers.getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("log");
+
+        MockServerWebExchange suffix = serve(MockServerHttpRequest.get("/").header(HttpHeaders.RANGE, "bytes=-2"), "style.css");
+        assertThat(suffix.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 5-6/7");
+        assertThat(suffix.getResponse().getBodyAsString().block()).isEqualTo("{}");
+    }
+
+    @Test
+    void unsatisfiableRangesAreRejected() {
+        MockServerWebExchange exchange = serve(MockServerHttpRequest.get("/").header(HttpHeaders.RANGE, "bytes=7-"), "style.css");
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        assertThat(exchange.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */7");
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEmpty();
+    }
+
+    @Test
+    void theWholeFileIsServedForSeveralOrOutdatedRanges() {
+        MockServerWebExchange severalRanges = serve(MockServerHttpRequest.get("/").header(HttpHeaders.RANGE, "bytes=0-1,3-4"), "style.css");
+        assertThat(severalRanges.getResponse().getStatusCode()).isNotEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(severalRanges.getResponse().getHeaders().getFirst(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+        assertThat(severalRanges.getResponse().getBodyAsString().block()).isEqualTo("body {}");
+
+        MockServerWebExchange outdated = serve(MockServerHttpRequest.get("/")
+                .header(HttpHeaders.RANGE, "bytes=0-1")
+                .header(HttpHeaders.IF_RANGE, "\"outdated\""), "style.css");
+        assertThat(outdated.getResponse().getStatusCode()).isNotEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(outdated.getResponse().getBodyAsString().block()).isEqualTo("body {}");
+
+        String etag = severalRanges.getResponse().getHeaders().getETag();
+        MockServerWebExchange current = serve(MockServerHttpRequest.get("/")
+                .header(HttpHeaders.RANGE, "bytes=0-1")
+                .header(HttpHeaders.IF_RANGE, etag), "style.css");
+        assertThat(current.getResponse().getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(current.getResponse().getBodyAsString().block()).isEqualTo("bo");
+    }
+
+    @Test
+    void missingFilesAreNotFound() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+
+        StepVerifier.create(portalAssetService.serve(exchange, rootPath.toString(), PORTAL, "missing.js"))
+                .expectErrorSatisfies(e -> assertThat(e)
+                        .isInstanceOfSatisfying(ResponseStatusException.class,
+                                exception -> assertThat(exception.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND)))
+                .verify();
+
+        StepVerifier.create(portalAssetService.serve(exchange, rootPath.toString(), PORTAL))
+                .expectErrorSatisfies(e -> assertThat(e)
+                        .isInstanceOfSatisfying(ResponseStatusException.class,
+                                exception -> assertThat(exception.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND)))
+                .verify();
+    }
+
+    @Test
+    void filesOutsideOfTheRootPathAreForbidden() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+
+        StepVerifier.create(portalAssetService.serve(exchange, rootPath.toString(), PORTAL, "../../secret.txt"))
+                .expectErrorSatisfies(e -> assertThat(e)
+                        .isInstanceOfSatisfying(ResponseStatusException.class,
+                                exception -> assertThat(exception.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN)))
+                .verify();
+    }
+
+    private MockServerWebExchange serve(MockServerHttpRequest.BaseBuilder<?> request, String fileName) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        portalAssetService.serve(exchange, rootPath.toString(), PORTAL, fileName).block();
+        return exchange;
+    }
+}
@@ -5,6 +5,7 @@ import de.swm.lhm.geoportal.gateway.product.model.Product;
 import de.swm.lhm.geoportal.gateway.shared.GatewayService;
 import de.swm.lhm.geoportal.gateway.shared.GeoPortalGatewayProperties;
 import de.swm.lhm.geoportal.gateway.shared.model.Stage;
+import de.swm.lhm.geoportal.gateway.unit.UnitProperties;
 import de.swm.lhm.geoportal.gateway.unit.UnitRepository;
 import de.swm.lhm.geoportal.gateway.unit.UnitService;
 import org.junit.jupiter.api.AfterEach;
@@ -16,6 +17,7 @@ import org.springframework.boot.test.system.OutputCaptureExtension;
 import org.springframework.context.annotation.Import;
 
 import java.io.IOException;
+import java.util.List;
 
 import static de.swm.lhm.geoportal.gateway.base_classes.hamcrest.HamcrestCompareJsonMatcher.equalToJSON;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -27,6 +29,7 @@ import static org.hamcrest.Matchers.*;
         PortalRepository.class,
         PortalProperties.class,
         UnitService.class,
+        UnitProperties.class,
         UnitRepository.class,
         GatewayService.class,
         GeoPortalGatewayProperties.class
@@ -68,4 +71,23 @@ class PortalServiceTest extends SqlRunner {
         );
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void enrichProducts() {
+        runSql("INSERT INTO t_product_portal (product_id, portal_id) VALUES (2, 3), (2, 4)");
+        Product firstProduct = new Product();
+        firstProduct.setId(1);
+        firstProduct.setStage(Stage.CONFIGURATION);
+        Product secondProduct = new Product();
+        secondProduct.setId(2);
+        secondProduct.setStage(Stage.CONFIGURATION);
+
+        portalService.enrichProducts(List.of(firstProduct, secondProduct)).block();
+
+        assertThat(firstProduct.getPortals(), hasSize(3));
+        assertThat(secondProduct.getPortals(), hasSize(1));
+        assertThat(secondProduct.getPortals().getFirst().getName(), is("portal3"));
+        assertThat(secondProduct.getPortals().getFirst().getUnit(), is("thirdUnit"));
+        assertThat(secondProduct.getPortals().getFirst().getUrl(), is("http://localhost/portal3"));
+    }
+}
@@ -0,0 +1,140 @@
+package de.swm.lhm.geoportal.gateway.print;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrintAdmissionServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void jobsAreAdmittedUpToTheGlobalLimit() {
+        PrintAdmissionService admissionService = admissionService(2, 2, 10, Duration.ofSeconds(10));
+
+        PrintAdmissionService.Permit first = admissionService.acquire("a").block();
+        admissionService.acquire("b").block();
+        AtomicReference<PrintAdmissionService.Permit> third = new AtomicReference<>();
+        admissionService.acquire("c").subscribe(third::set);
+
+        assertThat(third.get()).isNull();
+        assertThat(gauge("print.jobs.active")).isEqualTo(2);
+        assertThat(gauge("print.jobs.queued")).isEqualTo(1);
+
+        first.release();
+
+        assertThat(third.get()).isNotNull();
+        assertThat(third.get().getCallerKey()).isEqualTo("c");
+        assertThat(gauge("print.jobs.active")).isEqualTo(2);
+        assertThat(gauge("print.jobs.queued")).isZero();
+    }
+
+    @Test
+    void queuedJobsOfOtherSessionsAreNotBlockedBySessionLimit() {
+        PrintAdmissionService admissionService = admissionService(2, 1, 10, Duration.ofSeconds(10));
+
+        PrintAdmissionService.Permit first = admissionService.acquire("a").block();
+        PrintAdmissionService.Permit second = admissionService.acquire("b").block();
+        AtomicReference<PrintAdmissionService.Permit> queuedOfA = new AtomicReference<>();
+        AtomicReference<PrintAdmissionService.Permit> queuedOfC = new AtomicReference<>();
+        admissionService.acquire("a").subscribe(queuedOfA::set);
+        admissionService.acquire("c").subscribe(queuedOfC::set);
+
+        second.release();
+
+        assertThat(queuedOfA.get()).isNull();
+        assertThat(queuedOfC.get()).isNotNull();
+
+        first.release();
+        assertThat(queuedOfA.get()).isNotNull();
+    }
+
+    @Test
+    void jobsAreRejectedWhenTheQueueIsFull() {
+        PrintAdmissionService admissionService = admissionService(1, 1, 1, Duration.ofSeconds(10));
+        admissionService.acquire("a").block();
+        Disposable queued = admissionService.acquire("b").subscribe();
+
+        StepVerifier.create(admissionService.acquire("c"))
+                .expectError(PrintJobRejectedException.class)
+                .verify();
+        assertThat(meterRegistry.get("print.jobs.rejected").tag("reason", "queue_full").counter().count()).isEqualTo(1);
+
+        queued.dispose();
+    }
+
+    @Test
+    void aSingleCallerCanNotFillTheQueue() {
+        PrintAdmissionService admissionService = admissionService(1, 1, 10, 1, Duration.ofSeconds(10));
+        PrintAdmissionService.Permit first = admissionService.acquire("a").block();
+        AtomicReference<PrintAdmissionService.Permit> queuedOfA = new AtomicReference<>();
+        admissionService.acquire("a").subscribe(queuedOfA::set);
+
+        StepVerifier.create(admissionService.acquire("a"))
+                .expectError(PrintJobRejectedException.class)
+                .verify();
+        assertThat(meterRegistry.get("print.jobs.rejected").tag("reason", "caller_queue_full").counter().count()).isEqualTo(1);
+
+        // other callers are still queued
+        Disposable queuedOfB = admissionService.acquire("b").subscribe();
+        assertThat(gauge("print.jobs.queued")).isEqualTo(2);
+
+        // a caller may queue again once its queued job was admitted
+        first.release();
+        assertThat(queuedOfA.get()).isNotNull();
+        Disposable queuedAgainOfA = admissionService.acquire("a").subscribe();
+        assertThat(gauge("print.jobs.queued")).isEqualTo(2);
+
+        queuedOfB.dispose();
+        queuedAgainOfA.dispose();
+        assertThat(gauge("print.jobs.queued")).isZero();
+    }
+
+    @Test
+    void jobsWaitingTooLongAreRejectedAndLeaveTheQueue() {
+        PrintAdmissionService admissionService = admissionService(1, 1, 10, Duration.ofMillis(50));
+        PrintAdmissionService.Permit first = admissionService.acquire("a").block();
+
+        StepVerifier.create(admissionService.acquire("b"))
+                .expectError(PrintJobRejectedException.class)
+                .verify(Duration.ofSeconds(5));
+        assertThat(gauge("print.jobs.queued")).isZero();
+        assertThat(meterRegistry.get("print.jobs.rejected").tag("reason", "timeout").counter().count()).isEqualTo(1);
+
+        first.release();
+        assertThat(gauge("print.jobs.active")).isZero();
+    }
+
+    @Test
+    void permitsAreReleasedOnce() {
+        PrintAdmissionService admissionService = admissionService(2, 2, 10, Duration.ofSeconds(10));
+        PrintAdmissionService.Permit first = admissionService.acquire("a").block();
+        admissionService.acquire("a").block();
+
+        first.release();
+        first.release();
+
+        assertThat(gauge("print.jobs.active")).isEqualTo(1);
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    private PrintAdmissionService admissionService(int maxConcurrentJobs, int maxConcurrentJobsPerCaller, int maxQueueSize, Duration maxWait) {
+        return admissionService(maxConcurrentJobs, maxConcurrentJobsPerCaller, maxQueueSize, maxQueueSize, maxWait);
+    }
+
+    private PrintAdmissionService admissionService(int maxConcurrentJobs, int maxConcurrentJobsPerCaller, int maxQueueSize, int maxQueuedJobsPerCaller, Duration maxWait) {
+        PrintProperties printProperties = new PrintProperties();
+        printProperties.setAdmission(new PrintProperties.AdmissionProperties(
+                true, maxConcurrentJobs, maxConcurrentJobsPerCaller, maxQueueSize, maxQueuedJobsPerCaller, maxWait, Duration.ofSeconds(10)));
+        return new PrintAdmissionService(printProperties, meterRegistry);
+    }
+}
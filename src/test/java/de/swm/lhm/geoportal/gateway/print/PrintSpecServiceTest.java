@@ -0,0 +1,113 @@
+package de.swm.lhm.geoportal.gateway.print;
+
+import de.swm.lhm.geoportal.gateway.geoservice.GeoServiceProperties;
+import de.swm.lhm.geoportal.gateway.geoservice.HostReplacer;
+import de.swm.lhm.geoportal.gateway.geoservice.inspect.QualifiedLayerName;
+import de.swm.lhm.geoportal.gateway.print.model.PrintSpec;
+import de.swm.lhm.geoportal.gateway.shared.exceptions.DeserializationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PrintSpecServiceTest {
+
+    private final PrintSpecService printSpecService = new PrintSpecService(hostReplacer());
+
+    @Test
+    void layerNamesAreCollectedFromVisibleLayerIdsAndLayerAttributes() {
+        String json = """
+                {
+                  "visibleLayerIds": ["ws:visible", "2c6a2f43-b9f1-4a3c-8d5c-8c4f8c6e8f21", "importDrawLayer"],
+                  "layout": "A4",
+                  "attributes": {
+                    "title": "layers",
+                    "map": {"layers": [{"layerName": "ignored", "layers": ["ws:map"]}, {"layers": null}]},
+                    "legend": {"layers": [{"layers": ["ws:legend"], "values": [{"layers": ["ws:nested"]}]}]},
+                    "gfi": {"layers": [{"layers": ["ws:gfi"]}]},
+                    "other": {"layers": [{"layers": ["ws:other"]}]}
+                  },
+                  "outputFormat": "pdf"
+                }
+                """;
+
+        PrintSpec printSpec = printSpecService.readPrintSpec(toDataBuffer(json), outputBuffer());
+
+        assertThat(printSpec.layerNames()).containsExactlyInAnyOrder(
+                "ws:visible", "2c6a2f43-b9f1-4a3c-8d5c-8c4f8c6e8f21", "importDrawLayer", "ws:map", "ws:legend", "ws:gfi");
+        assertThat(printSpec.getLayerNamesForAuthorization()).containsExactlyInAnyOrder(
+                QualifiedLayerName.fromString("ws:visible"),
+                QualifiedLayerName.fromString("ws:map"),
+                QualifiedLayerName.fromString("ws:legend"),
+                QualifiedLayerName.fromString("ws:gfi"));
+    }
+
+    @Test
+    void specWithoutLayersHasNoLayerNames() {
+        PrintSpec printSpec = printSpecService.readPrintSpec(toDataBuffer("{\"layout\":\"A4\",\"attributes\":{}}"), outputBuffer());
+
+        assertThat(printSpec.layerNames()).isEmpty();
+        assertThat(printSpec.rewrittenBody().toString(StandardCharsets.UTF_8)).isEqualTo("{\"layout\":\"A4\",\"attributes\":{}}");
+    }
+
+    @Test
+    void layerNamesAreTakenFromTheOriginalSpec() {
+        PrintSpec printSpec = printSpecService.readPrintSpec(toDataBuffer(
+                "{\"visibleLayerIds\":[\"http://maps.somewhereelse.de\"],\"url\":\"http://maps.somewhereelse.de/wms\"}"), outputBuffer());
+
+        assertThat(printSpec.layerNames()).containsExactly("http://maps.somewhereelse.de");
+        assertThat(printSpec.rewrittenBody().toString(StandardCharsets.UTF_8))
+                .isEqualTo("{\"visibleLayerIds\":[\"http://maps6.geosolutionsgroup.com\"],\"url\":\"http://maps6.geosolutionsgroup.com/wms\"}");
+    }
+
+    @Test
+    void invalidSpecIsRejected() {
+        DataBuffer json = toDataBuffer("{\"visibleLayerIds\":[");
+
+        assertThatThrownBy(() -> printSpecService.readPrintSpec(json, outputBuffer()))
+                .isInstanceOf(DeserializationException.class);
+    }
+
+    @Test
+    void specIsReadOncePerExchange() {
+        AtomicInteger subscriptions = new AtomicInteger();
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.post("http://localhost:8080/printserver/print/report.pdf")
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .body(Flux.defer(() -> {
+                            subscriptions.incrementAndGet();
+                            return Flux.just(toDataBuffer("{\"visibleLayerIds\":[\"ws:layer\"]}"));
+                        }))
+        );
+
+        PrintSpec first = printSpecService.readPrintSpecAndCache(exchange).block();
+        PrintSpec second = printSpecService.readPrintSpecAndCache(exchange).block();
+
+        assertThat(second).isSameAs(first);
+        assertThat(subscriptions.get()).isEqualTo(1);
+    }
+
+    private static DataBuffer outputBuffer() {
+        return DefaultDataBufferFactory.sharedInstance.allocateBuffer(16);
+    }
+
+    private static DataBuffer toDataBuffer(String json) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static HostReplacer hostReplacer() {
+        GeoServiceProperties geoServiceProperties = new GeoServiceProperties();
+        geoServiceProperties.setHostnameMapping("http://maps6.geosolutionsgroup.com,http://maps.somewhereelse.de");
+        return new HostReplacer(geoServiceProperties);
+    }
+}
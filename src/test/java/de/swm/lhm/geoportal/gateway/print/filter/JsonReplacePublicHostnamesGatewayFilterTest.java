@@ -3,6 +3,7 @@ package de.swm.lhm.geoportal.gateway.print.filter;
 import de.swm.lhm.geoportal.gateway.base_classes.BaseIntegrationTest;
 import de.swm.lhm.geoportal.gateway.geoservice.GeoServiceProperties;
 import de.swm.lhm.geoportal.gateway.geoservice.HostReplacer;
+import de.swm.lhm.geoportal.gateway.print.PrintSpecService;
 import de.swm.lhm.geoportal.gateway.util.DataBufferUtils;
 import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.Test;
@@ -18,7 +19,9 @@ import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
@@ -57,10 +60,60 @@ class JsonReplacePublicHostnamesGatewayFilterTest extends BaseIntegrationTest {
         };
 
         JsonReplacePublicHostnamesGatewayFilter filter = new JsonReplacePublicHostnamesGatewayFilter(
-                hostReplacer
+                new PrintSpecService(hostReplacer)
         );
         filter.filter(exchange, filterChain).block();
 
         assertThat(requestIsForwardedToFollowingFilters.get(), is(true));
     }
+
+    @Test
+    void rewrittenBodyIsSentWithExactContentLength() {
+        String inputJson = "{\"http://maps.somewhereelse.de/key\":[\"http://maps.somewhereelse.de/wms\",1.10,12345678901234567890,true,null,{}],\"plain\":\"\\u00e4\"}";
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.post("http://localhost:8080")
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .header(HttpHeaders.TRANSFER_ENCODING, "chunked")
+                        .body(inputJson)
+        );
+
+        AtomicReference<HttpHeaders> forwardedHeaders = new AtomicReference<>();
+        AtomicReference<String> forwardedBody = new AtomicReference<>();
+        GatewayFilterChain filterChain = filterExchange -> {
+            forwardedHeaders.set(filterExchange.getRequest().getHeaders());
+            return DataBufferUtils.copyAsString(filterExchange.getRequest().getBody())
+                    .doOnNext(forwardedBody::set)
+                    .then();
+        };
+
+        new JsonReplacePublicHostnamesGatewayFilter(new PrintSpecService(hostReplacer())).filter(exchange, filterChain).block();
+
+        assertThat(forwardedBody.get(), is("{\"http://maps6.geosolutionsgroup.com/key\":[\"http://maps6.geosolutionsgroup.com/wms\",1.10,12345678901234567890,true,null,{}],\"plain\":\"\u00e4\"}"));
+        assertThat(forwardedHeaders.get().getContentLength(), is((long) forwardedBody.get().getBytes(StandardCharsets.UTF_8).length));
+        assertThat(forwardedHeaders.get().containsKey(HttpHeaders.TRANSFER_ENCODING), is(false));
+    }
+
+    @Test
+    void requestsWithoutBodyAreForwardedUnchanged() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.post("http://localhost:8080")
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+        );
+
+        AtomicReference<ServerHttpRequest> forwardedRequest = new AtomicReference<>();
+        GatewayFilterChain filterChain = filterExchange -> {
+            forwardedRequest.set(filterExchange.getRequest());
+            return Mono.empty();
+        };
+
+        new JsonReplacePublicHostnamesGatewayFilter(new PrintSpecService(hostReplacer())).filter(exchange, filterChain).block();
+
+        assertThat(forwardedRequest.get(), is(exchange.getRequest()));
+    }
+
+    private static HostReplacer hostReplacer() {
+        GeoServiceProperties geoServiceProperties = new GeoServiceProperties();
+        geoServiceProperties.setHostnameMapping("http://maps6.geosolutionsgroup.com,http://maps.somewhereelse.de");
+        return new HostReplacer(geoServiceProperties);
+    }
 }
@@ -0,0 +1,120 @@
+package de.swm.lhm.geoportal.gateway.print.filter;
+
+import de.swm.lhm.geoportal.gateway.print.PrintAdmissionService;
+import de.swm.lhm.geoportal.gateway.print.PrintProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class PrintAdmissionGatewayFilterTest {
+
+    private final PrintAdmissionService admissionService = admissionService(1, 0);
+    private final PrintAdmissionGatewayFilter filter = new PrintAdmissionGatewayFilter(admissionService);
+
+    @Test
+    void rejectedPrintJobsAreAnsweredWithRetryAfter() {
+        Sinks.Empty<Void> printServerResponse = Sinks.empty();
+        filter.filter(printJob(), exchange -> printServerResponse.asMono()).subscribe();
+
+        MockServerWebExchange rejected = printJob();
+        filter.filter(rejected, exchange -> Mono.error(new AssertionError("must not be forwarded"))).block();
+
+        assertThat(rejected.getResponse().getStatusCode(), is(HttpStatus.TOO_MANY_REQUESTS));
+        assertThat(rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER), is("7"));
+
+        printServerResponse.tryEmitEmpty();
+        assertThat(admissionService.getActiveJobs(), is(0));
+    }
+
+    @Test
+    void statusRequestsAreNotLimited() {
+        Sinks.Empty<Void> printServerResponse = Sinks.empty();
+        filter.filter(printJob(), exchange -> printServerResponse.asMono()).subscribe();
+
+        AtomicInteger forwarded = new AtomicInteger();
+        GatewayFilterChain chain = exchange -> Mono.fromRunnable(forwarded::incrementAndGet);
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("http://localhost/printserver/print/status/1.json")), chain).block();
+
+        assertThat(forwarded.get(), is(1));
+        printServerResponse.tryEmitEmpty();
+    }
+
+    @Test
+    void anonymousCallersAreLimitedByTheirAddress() {
+        PrintAdmissionService admissionService = admissionService(10, 0);
+        PrintAdmissionGatewayFilter filter = new PrintAdmissionGatewayFilter(admissionService);
+        Sinks.Empty<Void> printServerResponse = Sinks.empty();
+        filter.filter(printJob("10.0.0.1"), exchange -> printServerResponse.asMono()).subscribe();
+
+        // every anonymous request has a new session, but the same address
+        MockServerWebExchange sameAddress = printJob("10.0.0.1");
+        filter.filter(sameAddress, exchange -> Mono.error(new AssertionError("must not be forwarded"))).block();
+        assertThat(sameAddress.getResponse().getStatusCode(), is(HttpStatus.TOO_MANY_REQUESTS));
+
+        // forwarded headers sent by the client do not make it another caller
+        MockServerWebExchange spoofedAddress = MockServerWebExchange.from(printJobRequest("10.0.0.1")
+                .header("X-Forwarded-For", "192.168.0.1"));
+        filter.filter(spoofedAddress, exchange -> Mono.error(new AssertionError("must not be forwarded"))).block();
+        assertThat(spoofedAddress.getResponse().getStatusCode(), is(HttpStatus.TOO_MANY_REQUESTS));
+
+        AtomicInteger forwarded = new AtomicInteger();
+        filter.filter(printJob("10.0.0.2"), exchange -> Mono.fromRunnable(forwarded::incrementAndGet)).block();
+        assertThat(forwarded.get(), is(1));
+
+        printServerResponse.tryEmitEmpty();
+        assertThat(admissionService.getActiveJobs(), is(0));
+    }
+
+    @Test
+    void authenticatedCallersAreIdentifiedByTheirName() {
+        ServerWebExchange authenticated = printJob("10.0.0.1").mutate()
+                .principal(Mono.just(new TestingAuthenticationToken("user", null)))
+                .build();
+
+        StepVerifier.create(PrintAdmissionGatewayFilter.resolveCallerKey(authenticated))
+                .expectNext("user:user")
+                .verifyComplete();
+        StepVerifier.create(PrintAdmissionGatewayFilter.resolveCallerKey(printJob("10.0.0.1")))
+                .expectNext("address:10.0.0.1")
+                .verifyComplete();
+        StepVerifier.create(PrintAdmissionGatewayFilter.resolveCallerKey(printJob()))
+                .expectNext("address:unknown")
+                .verifyComplete();
+    }
+
+    private static MockServerWebExchange printJob() {
+        return MockServerWebExchange.from(MockServerHttpRequest.post("http://localhost/printserver/print/app/report.pdf").body("{}"));
+    }
+
+    private static MockServerWebExchange printJob(String remoteAddress) {
+        return MockServerWebExchange.from(printJobRequest(remoteAddress));
+    }
+
+    private static MockServerHttpRequest.BodyBuilder printJobRequest(String remoteAddress) {
+        return MockServerHttpRequest.post("http://localhost/printserver/print/app/report.pdf")
+                .remoteAddress(new InetSocketAddress(remoteAddress, 12345));
+    }
+
+    private static PrintAdmissionService admissionService(int maxConcurrentJobs, int maxQueueSize) {
+        PrintProperties printProperties = new PrintProperties();
+        printProperties.setAdmission(new PrintProperties.AdmissionProperties(
+                true, maxConcurrentJobs, 1, maxQueueSize, maxQueueSize, Duration.ofSeconds(10), Duration.ofSeconds(7)));
+        return new PrintAdmissionService(printProperties, new SimpleMeterRegistry());
+    }
+}
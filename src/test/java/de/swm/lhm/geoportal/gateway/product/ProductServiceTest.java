@@ -3,6 +3,7 @@ package de.swm.lhm.geoportal.gateway.product;
 import de.swm.lhm.geoportal.gateway.base_classes.BaseIntegrationTest;
 import de.swm.lhm.geoportal.gateway.product.model.License;
 import de.swm.lhm.geoportal.gateway.product.model.Product;
+import de.swm.lhm.geoportal.gateway.shared.change_notification.ConfigurationChangedEvent;
 import de.swm.lhm.geoportal.gateway.util.DataBufferUtils;
 import de.swm.lhm.geoportal.gateway.util.ExtendedURIBuilder;
 import org.junit.jupiter.api.AfterEach;
@@ -12,13 +13,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.DigestUtils;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.time.Duration;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
@@ -37,9 +46,17 @@ class ProductServiceTest extends BaseIntegrationTest {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ProductCatalogService productCatalogService;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
     @BeforeEach
     void setUp() throws IOException {
 
+        productCatalogService.invalidateCatalog();
+
         runSql(loadFileContent("de/swm/lhm/geoportal/gateway/generic/setup.sql"));
         runSql(loadFileContent("de/swm/lhm/geoportal/gateway/geoservice/setup.sql"));
         runSql(loadFileContent("de/swm/lhm/geoportal/gateway/metadata/setup.sql"));
@@ -132,6 +149,23 @@ class ProductServiceTest extends BaseIntegrationTest {
         }
     }
 
+    @Test
+    void productsAreEnrichedWithTheirDetails() {
+        List<Product> result = productService.getAllProducts().collectList().block();
+
+        Product product = result.stream().filter(p -> p.getId().equals(1)).findFirst().orElseThrow();
+        // the layers of the product are the ones of the sensor setup, which replaces all others
+        assertThat(product.getGeoServices().stream().map(Product.Service::getName).toList(), hasItem("layer2"));
+        assertThat(product.getPortals(), hasSize(3));
+        assertThat(product.getFileResources(), is(not(empty())));
+        assertThat(product.getMetadataUrl(), is(not(nullValue())));
+        assertThat(product.getUnit(), is("firstUnit"));
+        assertThat(product.getLogoUrl(), is(not(nullValue())));
+
+        Product otherProduct = result.stream().filter(p -> p.getId().equals(2)).findFirst().orElseThrow();
+        assertThat(otherProduct.getPortals(), hasSize(0));
+    }
+
     @Test
     void getAllPublicAndProtectedAuthLevelHighProducts() {
         webTestClient.mutateWith(
@@ -148,6 +182,48 @@ class ProductServiceTest extends BaseIntegrationTest {
                 });
     }
 
+    @Test
+    void catalogIsCachedUntilTheConfigurationChanges() {
+        assertThat(getCatalogProductNames(), hasSize(3));
+
+        runSql("""
+                INSERT INTO t_product (id, name, title, license, stage, access_level, auth_level_high, role_name)
+                VALUES (8, 'Produkt_new', 'title:Produkt_new', 'DL_20', 'CONFIGURATION', 'PUBLIC', false, 'Produkt_new');""");
+
+        assertThat(getCatalogProductNames(), hasSize(3));
+
+        applicationEventPublisher.publishEvent(ConfigurationChangedEvent.unspecified(this));
+
+        assertThat(getCatalogProductNames(), hasItem("Produkt_new"));
+    }
+
+    @Test
+    void catalogIsRebuiltAtTheNextValidityBoundary() throws InterruptedException {
+        runSql("""
+                INSERT INTO t_product (id, name, title, license, validity_period_start, stage, access_level, auth_level_high, role_name)
+                VALUES (8, 'Produkt_soon', 'title:Produkt_soon', 'DL_20', DATEADD(SECOND, 2, CURRENT_TIMESTAMP), 'CONFIGURATION', 'PUBLIC', false, 'Produkt_soon');""");
+
+        assertThat(getCatalogProductNames(), not(hasItem("Produkt_soon")));
+
+        Thread.sleep(2500);
+
+        assertThat(getCatalogProductNames(), hasItem("Produkt_soon"));
+    }
+
+    private List<String> getCatalogProductNames() {
+        List<Product> result = webTestClient.get()
+                .uri(productsEndpoint)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBodyList(Product.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(result, is(not(nullValue())));
+        return result.stream().map(Product::getName).toList();
+    }
+
     @Test
     void getRestrictedProducts() {
         webTestClient.mutateWith(
@@ -207,5 +283,24 @@ class ProductServiceTest extends BaseIntegrationTest {
 
         assertThat((byte[]) bytesFromDatabase, is(bytesFromWebClient));
 
+        String etag = webTestClient.get()
+                .uri(path)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().cacheControl(CacheControl.maxAge(Duration.ofMinutes(10)).cachePublic())
+                .expectHeader().exists(HttpHeaders.LAST_MODIFIED)
+                .returnResult(byte[].class)
+                .getResponseHeaders()
+                .getETag();
+
+        assertThat(etag, is("\"" + DigestUtils.md5DigestAsHex((byte[]) bytesFromDatabase) + "\""));
+
+        webTestClient.get()
+                .uri(path)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+
     }
 }
\ No newline at end of file
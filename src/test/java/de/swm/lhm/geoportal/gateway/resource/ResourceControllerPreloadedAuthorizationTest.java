@@ -0,0 +1,42 @@
+package de.swm.lhm.geoportal.gateway.resource;
+
+import de.swm.lhm.geoportal.gateway.authorization.AuthorizationIndexService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+
+/**
+ * Runs the tests of {@link ResourceControllerTest} with authorization decisions taken from the preloaded index.
+ */
+@TestPropertySource(properties = {
+        "geoportal.gateway.authorization.preload.enabled=true",
+        "geoportal.gateway.authorization.preload.refresh-interval=1h"
+})
+class ResourceControllerPreloadedAuthorizationTest extends ResourceControllerTest {
+
+    @Autowired
+    AuthorizationIndexService authorizationIndexService;
+
+    @BeforeEach
+    void loadAuthorizationIndex() {
+        runSql(
+                """
+                create table portal_product_roles_view
+                (
+                    resource_id text,
+                    stage character varying(255),
+                    auth_level_high boolean,
+                    access_level character varying(11),
+                    role_name character varying(256)
+                )
+                """);
+        authorizationIndexService.reload().block();
+    }
+
+    @AfterEach
+    void dropPortalView() {
+        runSql("drop table portal_product_roles_view");
+    }
+}
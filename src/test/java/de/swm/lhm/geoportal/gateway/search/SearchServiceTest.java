@@ -2,21 +2,32 @@ package de.swm.lhm.geoportal.gateway.search;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import de.swm.lhm.geoportal.gateway.portal.PortalRepository;
+import de.swm.lhm.geoportal.gateway.portal.model.Portal;
 import de.swm.lhm.geoportal.gateway.search.client.ElasticSearchClient;
 import de.swm.lhm.geoportal.gateway.search.client.ElasticSearchQueryCreator;
 import de.swm.lhm.geoportal.gateway.search.model.mapper.AddressSearchResultMapper;
 import de.swm.lhm.geoportal.gateway.search.model.mapper.AddressSearchResultMapperImpl;
 import de.swm.lhm.geoportal.gateway.search.model.mapper.GeoDataSearchResultMapper;
 import de.swm.lhm.geoportal.gateway.search.model.mapper.GeoDataSearchResultMapperImpl;
+import de.swm.lhm.geoportal.gateway.search.model.masterportal.PortalSearchRequest;
 import de.swm.lhm.geoportal.gateway.search.model.masterportal.SearchResultTo;
 import de.swm.lhm.geoportal.gateway.shared.GatewayService;
+import de.swm.lhm.geoportal.gateway.shared.change_notification.ConfigurationChangedEvent;
+import de.swm.lhm.geoportal.gateway.shared.exceptions.DeserializationException;
+import de.swm.lhm.geoportal.gateway.util.cache.CacheProperties;
+import de.swm.lhm.geoportal.gateway.util.cache.ReactiveCacheFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.web.reactive.function.client.ClientRequest;
 import org.springframework.web.reactive.function.client.ClientResponse;
@@ -24,14 +35,21 @@ import org.springframework.web.reactive.function.client.ExchangeFunction;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 import reactor.test.StepVerifier;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 
@@ -51,6 +69,8 @@ class SearchServiceTest {
     @Mock
     private GatewayService gatewayService;
     private SearchService searchService;
+    private SearchProperties searchProperties;
+    private SimpleMeterRegistry meterRegistry;
 
     public SearchServiceTest() {
     }
@@ -60,7 +80,12 @@ class SearchServiceTest {
         WebClient clientMock = WebClient.builder()
                 .exchangeFunction(exchangeFunction)
                 .build();
-        searchService = new SearchService(new ElasticSearchClient(clientMock, elasticSearchQueryCreator, new ElasticSearchProperties()), geoDataSearchResultMapper, addressSearchResultMapper, portalRepository, gatewayService);
+        searchProperties = new SearchProperties();
+        ElasticSearchProperties elasticSearchProperties = new ElasticSearchProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        searchService = new SearchService(new ElasticSearchClient(clientMock, elasticSearchQueryCreator, elasticSearchProperties),
+                geoDataSearchResultMapper, addressSearchResultMapper, portalRepository, gatewayService, searchProperties,
+                elasticSearchProperties, new ObjectMapper(), new ReactiveCacheFactory(new CacheProperties(), meterRegistry, Optional.empty()));
     }
 
 
@@ -120,4 +145,199 @@ class SearchServiceTest {
                 .body(jsonBody)
                 .build());
     }
+
+    @Test
+    void testPortalSearchQueriesIndicesAndAddressesConcurrently() throws IOException {
+        mockPortal("geoDataA, geoDataB");
+        Sinks.One<ClientResponse> geoDataA = Sinks.one();
+        Sinks.One<ClientResponse> geoDataB = Sinks.one();
+        Sinks.One<ClientResponse> addresses = Sinks.one();
+        List<String> requestedPaths = new CopyOnWriteArrayList<>();
+        ClientResponse geoDataResponseA = geoDataResponse().block();
+        ClientResponse geoDataResponseB = geoDataResponse().block();
+        ClientResponse addressResponse = getAddressResponse().block();
+        when(exchangeFunction.exchange(any(ClientRequest.class))).thenAnswer(invocation -> {
+            String path = invocation.getArgument(0, ClientRequest.class).url().getPath();
+            requestedPaths.add(path);
+            return switch (path) {
+                case "/geoDataA/_search" -> geoDataA.asMono();
+                case "/geoDataB/_search" -> geoDataB.asMono();
+                default -> addresses.asMono();
+            };
+        });
+
+        StepVerifier.create(searchService.executePortalSearch(portalSearchRequest()))
+                .then(() -> {
+                    // all requests are sent before any of them has been answered
+                    assertThat(requestedPaths).containsExactlyInAnyOrder("/geoDataA/_search", "/geoDataB/_search", "/addresses/_search");
+                    addresses.tryEmitValue(addressResponse);
+                    geoDataB.tryEmitValue(geoDataResponseB);
+                    geoDataA.tryEmitValue(geoDataResponseA);
+                })
+                .assertNext(response -> assertThat(response.getHits().getHits())
+                        .extracting(SearchResultTo::getType)
+                        .containsExactly("Geodaten", "Geodaten", "Adresse", "Adresse"))
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void testPortalSearchReturnsAddressesWhenGeoDataSearchTimesOut() {
+        searchProperties.setGeoDataTimeout(Duration.ofMillis(100));
+        mockPortal("geoData");
+        when(exchangeFunction.exchange(any(ClientRequest.class))).thenAnswer(invocation ->
+                invocation.getArgument(0, ClientRequest.class).url().getPath().startsWith("/geoData")
+                        ? Mono.never()
+                        : getAddressResponse());
+
+        StepVerifier.create(searchService.executePortalSearch(portalSearchRequest()))
+                .assertNext(response -> assertThat(response.getHits().getHits())
+                        .extracting(SearchResultTo::getStreetNameComplete)
+                        .containsExactly("Klenzestraße 59", "Klenzestraße 73"))
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void testPortalSearchReturnsGeoDataWhenAddressSearchFails() throws IOException {
+        mockPortal("geoData");
+        when(exchangeFunction.exchange(any(ClientRequest.class))).thenAnswer(invocation ->
+                invocation.getArgument(0, ClientRequest.class).url().getPath().startsWith("/geoData")
+                        ? geoDataResponse()
+                        : Mono.just(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build()));
+
+        StepVerifier.create(searchService.executePortalSearch(portalSearchRequest()))
+                .assertNext(response -> assertThat(response.getHits().getHits())
+                        .extracting(SearchResultTo::getType)
+                        .containsExactly("Geodaten"))
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void testPortalSearchFailsForUnknownPortal() {
+        when(portalRepository.findPortalByIdAndStage(any(), any())).thenReturn(Mono.empty());
+        when(exchangeFunction.exchange(any(ClientRequest.class))).thenAnswer(invocation -> getAddressResponse());
+
+        StepVerifier.create(searchService.executePortalSearch(portalSearchRequest()))
+                .expectError(NoSuchElementException.class)
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void testSearchResultsAreCachedByNormalizedSearchString() {
+        AtomicInteger requests = new AtomicInteger();
+        when(exchangeFunction.exchange(any(ClientRequest.class))).thenAnswer(invocation -> {
+            requests.incrementAndGet();
+            return getAddressResponse();
+        });
+
+        StepVerifier.create(searchService.searchAddress("Klenzestraße 59", 10)).expectNextCount(2).verifyComplete();
+        StepVerifier.create(searchService.searchAddress("  Klenzestraße   59 ", 10)).expectNextCount(2).verifyComplete();
+        assertThat(requests.get()).isEqualTo(1);
+
+        // a different result size is a different query
+        StepVerifier.create(searchService.searchAddress("Klenzestraße 59", 5)).expectNextCount(2).verifyComplete();
+        assertThat(requests.get()).isEqualTo(2);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", SearchService.RESULT_CACHE_NAME).tag("result", "hit").functionCounter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void testConcurrentIdenticalSearchesShareOneRequest() throws IOException {
+        AtomicInteger requests = new AtomicInteger();
+        Sinks.One<ClientResponse> response = Sinks.one();
+        ClientResponse geoDataResponse = geoDataResponse().block();
+        when(exchangeFunction.exchange(any(ClientRequest.class))).thenAnswer(invocation -> {
+            requests.incrementAndGet();
+            return response.asMono();
+        });
+
+        StepVerifier.create(Flux.merge(searchService.searchGeoData("Audi Dome", "geoData"), searchService.searchGeoData("Audi  Dome", "geoData")))
+                .then(() -> response.tryEmitValue(geoDataResponse))
+                .expectNextCount(2)
+                .verifyComplete();
+
+        assertThat(requests.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.coalesced").tag("cache", SearchService.RESULT_CACHE_NAME).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testNormalizeSearchString() {
+        assertThat(SearchService.normalizeSearchString(null)).isEmpty();
+        assertThat(SearchService.normalizeSearchString(" Klenzestraße\t 59 ")).isEqualTo("Klenzestraße 59");
+    }
+
+    @Test
+    void testSearchRequestIsReadOnceAndKeptInTheExchange() {
+        AtomicInteger bodySubscriptions = new AtomicInteger();
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/api/v1/search")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Flux.defer(() -> {
+                    bodySubscriptions.incrementAndGet();
+                    return Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(
+                            "{\"portalId\": 1, \"searchString\": \"Klenzestraße\", \"maxResultAmount\": 10}".getBytes(StandardCharsets.UTF_8)));
+                })));
+
+        PortalSearchRequest first = searchService.readRequestAndCache(exchange).block();
+        PortalSearchRequest second = searchService.readRequestAndCache(exchange).block();
+
+        assertThat(first).isEqualTo(PortalSearchRequest.builder().portalId(1).searchString("Klenzestraße").maxResultAmount(10).build());
+        assertThat(second).isSameAs(first);
+        assertThat(bodySubscriptions.get()).isEqualTo(1);
+    }
+
+    @Test
+    void testInvalidSearchRequestIsRejected() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/api/v1/search")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body("{\"portalId\": "));
+
+        StepVerifier.create(searchService.readRequestAndCache(exchange))
+                .expectError(DeserializationException.class)
+                .verify();
+    }
+
+    @Test
+    void testPortalLookupIsCached() {
+        AtomicInteger queries = new AtomicInteger();
+        when(portalRepository.findPortalByIdAndStage(any(), any())).thenReturn(Mono.fromSupplier(() -> {
+            queries.incrementAndGet();
+            return Portal.builder().id(1).name("portal").build();
+        }));
+
+        assertThat(searchService.findPortal(1).block()).extracting(Portal::getName).isEqualTo("portal");
+        assertThat(searchService.findPortal(1).block()).extracting(Portal::getName).isEqualTo("portal");
+        assertThat(queries.get()).isEqualTo(1);
+
+        searchService.invalidatePortals(ConfigurationChangedEvent.unspecified(this));
+        searchService.findPortal(1).block();
+        assertThat(queries.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testSplitIndices() {
+        assertThat(SearchService.splitIndices(null)).isEmpty();
+        assertThat(SearchService.splitIndices("a")).containsExactly("a");
+        assertThat(SearchService.splitIndices(" a, b,,a ")).containsExactly("a", "b");
+    }
+
+    @Test
+    void testInterleaveByRank() {
+        assertThat(SearchService.interleave(List.of(List.of("a1", "a2", "a3"), List.of(), List.of("c1", "c2"))))
+                .containsExactly("a1", "c1", "a2", "c2", "a3");
+    }
+
+    private void mockPortal(String searchIndexGeoData) {
+        when(portalRepository.findPortalByIdAndStage(any(), any()))
+                .thenReturn(Mono.just(Portal.builder().id(1).searchIndexGeoData(searchIndexGeoData).build()));
+    }
+
+    private static PortalSearchRequest portalSearchRequest() {
+        return PortalSearchRequest.builder()
+                .portalId(1)
+                .searchString("searchString")
+                .maxResultAmount(10)
+                .build();
+    }
 }
@@ -0,0 +1,108 @@
+package de.swm.lhm.geoportal.gateway.shared.change_notification;
+
+import de.swm.lhm.geoportal.gateway.base_classes.BaseIntegrationTest;
+import de.swm.lhm.geoportal.gateway.shared.model.Stage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+
+@TestPropertySource(properties = {
+        "geoportal.admin-manager.change-notification.enabled=true",
+        "geoportal.admin-manager.change-notification.poll-interval=1h"
+})
+@RecordApplicationEvents
+class ChangeNotificationServiceTest extends BaseIntegrationTest {
+
+    @Autowired
+    ChangeNotificationService changeNotificationService;
+
+    @Autowired
+    ApplicationEvents applicationEvents;
+
+    // the counter only increases, also across the tests sharing the service
+    private static long counterBase = 0;
+
+    @BeforeEach
+    void createCounterTable() {
+        // the polls of the tests must not race with the poll after listening started, whose
+        // events are published on another thread and not recorded
+        changeNotificationService.stop();
+        counterBase += 100;
+        runSql("""
+                create table t_config_change_counter (
+                    id integer not null primary key,
+                    counter bigint not null
+                );
+                insert into t_config_change_counter (id, counter) values (1, %d)
+                """.formatted(counterBase));
+        // take the initial counter as known
+        changeNotificationService.poll().block();
+        applicationEvents.clear();
+    }
+
+    @AfterEach
+    void dropCounterTable() {
+        runSql("drop table t_config_change_counter");
+    }
+
+    @Test
+    void increasedCounterIsPublishedAsUnspecifiedChange() {
+        changeNotificationService.poll().block();
+        assertThat(configurationChangedEvents(), hasSize(0));
+
+        runSql("update t_config_change_counter set counter = counter + 1 where id = 1");
+        changeNotificationService.poll().block();
+
+        List<ConfigurationChangedEvent> events = configurationChangedEvents();
+        assertThat(events, hasSize(1));
+        assertThat(events.get(0).getTable(), is(nullValue()));
+        assertThat(events.get(0).affectsStage(Stage.PROD), is(true));
+    }
+
+    @Test
+    void notifiedChangesAreNotPublishedAgainByPolling() {
+        runSql("update t_config_change_counter set counter = counter + 1 where id = 1");
+
+        changeNotificationService.parseNotification("{\"table\": \"t_portal\", \"counter\": %d}".formatted(counterBase + 1));
+        changeNotificationService.poll().block();
+
+        assertThat(configurationChangedEvents(), hasSize(0));
+    }
+
+    @Test
+    void notificationDescribesChangedRow() {
+        ConfigurationChangedEvent event = changeNotificationService.parseNotification(
+                "{\"table\": \"t_portal\", \"stage\": \"configuration\", \"key\": \"myportal\", \"counter\": 7}"
+        );
+
+        assertThat(event.getKeyOf("t_portal").orElseThrow(), is("myportal"));
+        assertThat(event.getKeyOf("t_product").isPresent(), is(false));
+        assertThat(event.affectsStage(Stage.CONFIGURATION), is(true));
+        assertThat(event.affectsStage(Stage.PROD), is(false));
+    }
+
+    @Test
+    void malformedNotificationIsAnUnspecifiedChange() {
+        ConfigurationChangedEvent event = changeNotificationService.parseNotification("not json");
+
+        assertThat(event.getTable(), is(nullValue()));
+        assertThat(event.getStage(), is(nullValue()));
+        assertThat(event.affectsStage(Stage.PROD), is(true));
+    }
+
+    private List<ConfigurationChangedEvent> configurationChangedEvents() {
+        return applicationEvents.stream(ConfigurationChangedEvent.class).toList();
+    }
+}
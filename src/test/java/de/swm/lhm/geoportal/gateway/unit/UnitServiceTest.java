@@ -10,15 +10,21 @@ import org.springframework.boot.test.system.OutputCaptureExtension;
 import org.springframework.context.annotation.Import;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
 
 
 @Import({
         UnitService.class,
-        UnitRepository.class
+        UnitRepository.class,
+        UnitProperties.class
 })
 @ExtendWith({OutputCaptureExtension.class})
 class UnitServiceTest extends SqlRunner {
@@ -27,6 +33,10 @@ class UnitServiceTest extends SqlRunner {
     @Autowired
     UnitService unitService;
 
+    @SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection")
+    @Autowired
+    UnitRepository unitRepository;
+
     @BeforeEach
     void setUp() throws IOException {
         runSql(loadFileContent("setup.sql").split(";"));
@@ -48,4 +58,56 @@ class UnitServiceTest extends SqlRunner {
         String unitName = unitService.getUnitNameById(2).block();
         assertThat(unitName, is(nullValue()));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getUnitNamesByIds() {
+        Map<Integer, String> unitNames = unitService.getUnitNamesByIds(Arrays.asList(1, 2, 3, null, 1)).block();
+        assertThat(unitNames, is(Map.of(1, "firstUnit", 3, "thirdUnit")));
+    }
+
+    @Test
+    void getUnitNamesByIdsWithoutIds() {
+        Map<Integer, String> unitNames = unitService.getUnitNamesByIds(List.of()).block();
+        assertThat(unitNames, is(Map.of()));
+    }
+
+    @Test
+    void unitNamesAreLookedUpInTheDirectory() {
+        UnitService preloadingUnitService = new UnitService(unitRepository, new UnitProperties());
+        UnitDirectory directory = preloadingUnitService.reload().block();
+
+        assertThat(directory, is(notNullValue()));
+        assertThat(directory.findUnitName(1), is(Optional.of("firstUnit")));
+
+        // the directory is used instead of the database
+        runSql("UPDATE t_unit SET unit_name = 'renamedUnit' WHERE id = 1");
+        assertThat(preloadingUnitService.getUnitNameById(1).block(), is("firstUnit"));
+        assertThat(preloadingUnitService.getUnitNamesByIds(List.of(1, 3)).block(), is(Map.of(1, "firstUnit", 3, "thirdUnit")));
+
+        preloadingUnitService.reload().block();
+        assertThat(preloadingUnitService.getUnitNameById(1).block(), is("renamedUnit"));
+    }
+
+    @Test
+    void unitsMissingInTheDirectoryAreQueried() {
+        UnitService preloadingUnitService = new UnitService(unitRepository, new UnitProperties());
+        preloadingUnitService.reload().block();
+
+        runSql("INSERT INTO t_unit (id, unit_name) VALUES (4, 'fourthUnit')");
+
+        assertThat(preloadingUnitService.getUnitNamesByIds(List.of(1, 4)).block(), is(Map.of(1, "firstUnit", 4, "fourthUnit")));
+        assertThat(preloadingUnitService.getUnitNameById(4).block(), is("fourthUnit"));
+    }
+
+    @Test
+    void directoryIsNotUsedWhenPreloadingIsDisabled() {
+        UnitProperties unitProperties = new UnitProperties();
+        unitProperties.getPreload().setEnabled(false);
+        UnitService nonPreloadingUnitService = new UnitService(unitRepository, unitProperties);
+        nonPreloadingUnitService.reload().block();
+
+        assertThat(nonPreloadingUnitService.getDirectory(), is(Optional.empty()));
+        runSql("UPDATE t_unit SET unit_name = 'renamedUnit' WHERE id = 1");
+        assertThat(nonPreloadingUnitService.getUnitNameById(1).block(), is("renamedUnit"));
+    }
+}
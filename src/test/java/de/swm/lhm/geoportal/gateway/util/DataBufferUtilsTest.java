@@ -1,12 +1,16 @@
 package de.swm.lhm.geoportal.gateway.util;
 
+import io.netty.buffer.PooledByteBufAllocator;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.boot.test.system.OutputCaptureExtension;
 import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
 import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
 import org.springframework.http.codec.ServerCodecConfigurer;
 import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
 import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
@@ -19,6 +23,10 @@ import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -108,6 +116,89 @@ class DataBufferUtilsTest {
     }
 
 
+    @Test
+    void copyAsByteArrayWithMaxByteCountStopsReadingAtTheLimit() {
+        DefaultDataBufferFactory dataBufferFactory = new DefaultDataBufferFactory();
+        AtomicInteger numBuffersEmitted = new AtomicInteger();
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        Flux<DataBuffer> dataBufferFlux = Flux.range(0, 1000)
+                .map(i -> (DataBuffer) dataBufferFactory.wrap("0123456789".getBytes(StandardCharsets.UTF_8)))
+                .doOnNext(dataBuffer -> numBuffersEmitted.incrementAndGet())
+                .doOnCancel(() -> cancelled.set(true));
+
+        DataBufferUtils.DataBufferContents<byte[]> read = DataBufferUtils.copyAsByteArray(dataBufferFlux, 25).block();
+
+        assertThat(read, instanceOf(DataBufferUtils.DataBufferContents.Partial.class));
+        assertThat(new String(read.get(), StandardCharsets.UTF_8), is("0123456789012345678901234"));
+        assertThat(read.getNumBytesContained(), is(30));
+        assertThat(numBuffersEmitted.get(), is(3));
+        assertThat(cancelled.get(), is(true));
+    }
+
+    @Test
+    void copyAsByteArrayWithMaxByteCountReturnsCompleteContentsAtTheLimit() {
+        DefaultDataBufferFactory dataBufferFactory = new DefaultDataBufferFactory();
+
+        Flux<DataBuffer> dataBufferFlux = Flux.just("1234", "5678")
+                .map(str -> (DataBuffer) dataBufferFactory.wrap(str.getBytes(StandardCharsets.UTF_8)));
+
+        DataBufferUtils.DataBufferContents<byte[]> read = DataBufferUtils.copyAsByteArray(dataBufferFlux, 8).block();
+
+        assertThat(read, instanceOf(DataBufferUtils.DataBufferContents.Complete.class));
+        assertThat(new String(read.get(), StandardCharsets.UTF_8), is("12345678"));
+        assertThat(read.getNumBytesContained(), is(8));
+    }
+
+    @Test
+    void joinByteArrayListTest() {
+        byte[] joined = DataBufferUtils.joinByteArrayList(List.of(
+                "ab".getBytes(StandardCharsets.UTF_8),
+                new byte[0],
+                "cde".getBytes(StandardCharsets.UTF_8)
+        ));
+
+        assertThat(new String(joined, StandardCharsets.UTF_8), is("abcde"));
+    }
+
+    @Test
+    void joinWithMaxByteCountShouldCancelAndReleaseWhenExceeded() {
+        NettyDataBufferFactory dataBufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+        List<NettyDataBuffer> emitted = new ArrayList<>();
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        Flux<DataBuffer> dataBufferFlux = Flux.range(0, 1000)
+                .map(i -> {
+                    NettyDataBuffer dataBuffer = dataBufferFactory.allocateBuffer(10);
+                    dataBuffer.write("0123456789".getBytes(StandardCharsets.UTF_8));
+                    emitted.add(dataBuffer);
+                    return (DataBuffer) dataBuffer;
+                })
+                .doOnCancel(() -> cancelled.set(true));
+
+        StepVerifier.create(DataBufferUtils.join(dataBufferFlux, 25))
+                .expectError(DataBufferLimitException.class)
+                .verify();
+
+        assertThat(cancelled.get(), is(true));
+        assertThat(emitted.size(), is(3));
+        assertThat(emitted.stream().allMatch(dataBuffer -> dataBuffer.getNativeBuffer().refCnt() == 0), is(true));
+    }
+
+    @Test
+    void joinShouldCombineBuffers() {
+        NettyDataBufferFactory dataBufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+
+        Flux<DataBuffer> dataBufferFlux = Flux.just("12", "34", "56")
+                .map(str -> (DataBuffer) dataBufferFactory.wrap(str.getBytes(StandardCharsets.UTF_8)));
+
+        DataBuffer joined = DataBufferUtils.join(dataBufferFlux, 0).block();
+
+        assertThat(DataBufferUtils.readDataBufferAsString(joined), is("123456"));
+        assertThat(DataBufferUtils.releaseDataBuffer(joined, log, () -> this.getClass().getName()), is(true));
+    }
+
+
     @Test
     void releaseDataBufferShouldReturnFalse() {
         DefaultDataBufferFactory dataBufferFactory = new DefaultDataBufferFactory();
@@ -0,0 +1,116 @@
+package de.swm.lhm.geoportal.gateway.util;
+
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamingByteReplacerTest {
+
+    private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+
+    @Test
+    void replacesAllOccurrences() {
+        StreamingByteReplacer replacer = StreamingByteReplacer.of("http://internal:8080", "https://external");
+
+        assertThat(replacer.replace("<a href=\"http://internal:8080/x\"/><b>http://internal:8080</b>"))
+                .isEqualTo("<a href=\"https://external/x\"/><b>https://external</b>");
+    }
+
+    @Test
+    void searchStringIsNotARegularExpression() {
+        StreamingByteReplacer replacer = StreamingByteReplacer.of("http://a.b", "$1");
+
+        assertThat(replacer.replace("http://a.b http://axb"))
+                .isEqualTo("$1 http://axb");
+    }
+
+    @Test
+    void overlappingMatchesAreResolvedLeftmostLongest() {
+        Map<String, String> replacements = new LinkedHashMap<>();
+        replacements.put("abcdef", "1");
+        replacements.put("b", "2");
+        replacements.put("d", "3");
+        replacements.put("abc", "4");
+        StreamingByteReplacer replacer = new StreamingByteReplacer(replacements);
+
+        assertThat(replacer.replace("abcdx")).isEqualTo("43x");
+        assertThat(replacer.replace("abcdef")).isEqualTo("1");
+        assertThat(replacer.replace("xbxd")).isEqualTo("x2x3");
+        assertThat(replacer.replace("ababcdefg")).isEqualTo("a21g");
+
+        // partially overlapping matches, the later one starts inside the replaced bytes
+        assertThat(new StreamingByteReplacer(Map.of("ab", "X", "bcd", "Y")).replace("abcd")).isEqualTo("Xcd");
+        assertThat(new StreamingByteReplacer(Map.of("http://a", "http://b", "a/x", "Q")).replace("http://a/x"))
+                .isEqualTo("http://b/x");
+
+        // self-overlapping search string
+        assertThat(StreamingByteReplacer.of("abab", "X").replace("ababab")).isEqualTo("Xab");
+        assertThat(StreamingByteReplacer.of("aa", "X").replace("aaaaa")).isEqualTo("XXa");
+    }
+
+    @Test
+    void matchesAcrossBufferBoundariesAreReplaced() {
+        Map<String, String> replacements = Map.of(
+                "http://maps6.geosolutionsgroup.com", "http://maps.somewhereelse.de",
+                "http://geoserver:8080", "https://geoportal"
+        );
+        StreamingByteReplacer replacer = new StreamingByteReplacer(replacements);
+        String input = "<x>http://maps6.geosolutionsgroup.com/wms</x><y>http://geoserver:8080/ows?</y>http://maps6";
+        String expected = "<x>http://maps.somewhereelse.de/wms</x><y>https://geoportal/ows?</y>http://maps6";
+
+        // split the input at every possible position
+        byte[] bytes = input.getBytes(UTF_8);
+        for (int split = 0; split <= bytes.length; split++) {
+            List<NettyDataBuffer> buffers = List.of(
+                    bufferFactory.wrap(Unpooled.wrappedBuffer(Arrays.copyOfRange(bytes, 0, split))),
+                    bufferFactory.wrap(Unpooled.wrappedBuffer(Arrays.copyOfRange(bytes, split, bytes.length)))
+            );
+            assertThat(replaceAndJoin(replacer, buffers)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void singleByteBuffersAreReplaced() {
+        StreamingByteReplacer replacer = StreamingByteReplacer.of("internal", "external");
+        List<NettyDataBuffer> buffers = new ArrayList<>();
+        for (byte b : "an internal and an inter internal host".getBytes(UTF_8)) {
+            buffers.add(bufferFactory.wrap(Unpooled.wrappedBuffer(new byte[]{b})));
+        }
+
+        assertThat(replaceAndJoin(replacer, buffers)).isEqualTo("an external and an inter external host");
+        assertThat(buffers).allMatch(buffer -> buffer.getNativeBuffer().refCnt() == 0);
+    }
+
+    @Test
+    void emptySearchStringsAreIgnored() {
+        StreamingByteReplacer replacer = StreamingByteReplacer.of("", "x");
+
+        assertThat(replacer.isEmpty()).isTrue();
+        assertThat(replacer.replace("abc")).isEqualTo("abc");
+    }
+
+    private String replaceAndJoin(StreamingByteReplacer replacer, List<? extends DataBuffer> buffers) {
+        return replacer.replace(Flux.fromIterable(buffers), bufferFactory)
+                .map(dataBuffer -> {
+                    String part = DataBufferUtils.readDataBufferAsString(dataBuffer);
+                    org.springframework.core.io.buffer.DataBufferUtils.release(dataBuffer);
+                    return part;
+                })
+                .collectList()
+                .map(parts -> String.join("", parts))
+                .block();
+    }
+}
@@ -0,0 +1,259 @@
+package de.swm.lhm.geoportal.gateway.util.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import de.swm.lhm.geoportal.gateway.authorization.model.AccessLevel;
+import de.swm.lhm.geoportal.gateway.authorization.model.AuthorizationGroup;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReactiveCacheTest {
+
+    private static final TypeReference<String> STRING_TYPE = new TypeReference<>() {
+    };
+
+    @Test
+    void cacheGet() {
+        ReactiveCache<String, String> cache = new ReactiveCache<>(10, Duration.ofSeconds(10));
+        AtomicInteger counter = new AtomicInteger();
+        counter.set(0);
+
+        for (int i = 0; i < 10; i++) {
+            String value = cache.get("key", Mono.fromCallable(() -> {
+                        counter.incrementAndGet();
+                        return "value";
+                    }))
+                    .block();
+            assertThat(value).isEqualTo("value");
+        }
+        assertThat(counter.get()).isEqualTo(1);
+    }
+
+    @Test
+    void cacheGetAllLoadsMissingKeysOnly() {
+        ReactiveCache<String, String> cache = new ReactiveCache<>(10, Duration.ofSeconds(10));
+        AtomicInteger counter = new AtomicInteger();
+
+        cache.get("a", Mono.just("cached a")).block();
+        Map<String, String> values = cache.getAll(List.of("a", "b"), missingKeys -> {
+            counter.incrementAndGet();
+            assertThat(Set.copyOf(missingKeys)).isEqualTo(Set.of("b"));
+            return Mono.just(Map.of("b", "loaded b"));
+        }).block();
+
+        assertThat(values).isEqualTo(Map.of("a", "cached a", "b", "loaded b"));
+        assertThat(counter.get()).isEqualTo(1);
+    }
+
+    @Test
+    void sharedTierIsUsedBeforeLoadingFromSource() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ReactiveCacheFactory cacheFactory = sharedCacheFactory(meterRegistry, new InMemorySharedCacheStore());
+        // two instances of the gateway, each with its own local tier
+        ReactiveCache<String, String> instance1 = cacheFactory.create("test", new ReactiveCacheProperties(), STRING_TYPE);
+        ReactiveCache<String, String> instance2 = cacheFactory.create("test", new ReactiveCacheProperties(), STRING_TYPE);
+        AtomicInteger counter = new AtomicInteger();
+        Mono<String> provider = Mono.fromCallable(() -> "value " + counter.incrementAndGet());
+
+        assertThat(instance1.get("key", provider).block()).isEqualTo("value 1");
+        assertThat(instance2.get("key", provider).block()).isEqualTo("value 1");
+        assertThat(counter.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.shared.gets").tag("cache", "test").tag("result", "hit").counter().count()).isEqualTo(1);
+
+        instance1.invalidateAll();
+        assertThat(instance2.get("other", provider).block()).isEqualTo("value 2");
+        instance2.invalidateAll();
+        assertThat(instance1.get("key", provider).block()).isEqualTo("value 3");
+    }
+
+    @Test
+    void invalidatedKeyIsRemovedFromBothTiers() {
+        ReactiveCacheFactory cacheFactory = sharedCacheFactory(new SimpleMeterRegistry(), new InMemorySharedCacheStore());
+        ReactiveCache<String, String> instance1 = cacheFactory.create("test", new ReactiveCacheProperties(), STRING_TYPE);
+        ReactiveCache<String, String> instance2 = cacheFactory.create("test", new ReactiveCacheProperties(), STRING_TYPE);
+        AtomicInteger counter = new AtomicInteger();
+        Mono<String> provider = Mono.fromCallable(() -> "value " + counter.incrementAndGet());
+
+        instance1.get("key", provider).block();
+        instance1.get("other", provider).block();
+        instance1.invalidate("key");
+
+        assertThat(instance2.get("key", provider).block()).isEqualTo("value 3");
+        assertThat(instance2.get("other", provider).block()).isEqualTo("value 2");
+    }
+
+    @Test
+    void sharedTierRestoresComplexValues() {
+        ReactiveCacheFactory cacheFactory = sharedCacheFactory(new SimpleMeterRegistry(), new InMemorySharedCacheStore());
+        TypeReference<AuthorizationGroup> valueType = new TypeReference<>() {
+        };
+        AuthorizationGroup authorizationGroup = AuthorizationGroup.builder()
+                .productRoles(Set.of("role_a"))
+                .accessLevel(AccessLevel.PROTECTED)
+                .authLevelHigh(true)
+                .resourceId("ws:layer")
+                .build();
+
+        cacheFactory.<String, AuthorizationGroup>create("test", new ReactiveCacheProperties(), valueType)
+                .get("key", Mono.just(authorizationGroup))
+                .block();
+        AuthorizationGroup restored = cacheFactory.<String, AuthorizationGroup>create("test", new ReactiveCacheProperties(), valueType)
+                .get("key", Mono.error(new IllegalStateException("must not be loaded")))
+                .block();
+
+        assertThat(restored).usingRecursiveComparison().ignoringCollectionOrder().isEqualTo(authorizationGroup);
+    }
+
+    @Test
+    void sharedTierCanBeDisabledPerCache() {
+        CacheProperties cacheProperties = new CacheProperties();
+        ReactiveCacheProperties localOnly = new ReactiveCacheProperties();
+        localOnly.setShared(false);
+        cacheProperties.setCaches(Map.of("local", localOnly));
+        ReactiveCacheFactory cacheFactory = new ReactiveCacheFactory(cacheProperties, new SimpleMeterRegistry(), Optional.of(new InMemorySharedCacheStore()));
+        AtomicInteger counter = new AtomicInteger();
+        Mono<String> provider = Mono.fromCallable(() -> "value " + counter.incrementAndGet());
+
+        cacheFactory.<String, String>create("local", new ReactiveCacheProperties(), STRING_TYPE).get("key", provider).block();
+        cacheFactory.<String, String>create("local", new ReactiveCacheProperties(), STRING_TYPE).get("key", provider).block();
+
+        assertThat(counter.get()).isEqualTo(2);
+    }
+
+    @Test
+    void entriesAreRefreshedInTheBackground() throws InterruptedException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ReactiveCacheProperties properties = new ReactiveCacheProperties(10, Duration.ofSeconds(10));
+        properties.setRefreshAfterWrite(Duration.ofMillis(50));
+        ReactiveCache<String, String> cache = new ReactiveCache<>("refreshing", properties, meterRegistry);
+        AtomicInteger counter = new AtomicInteger();
+        Mono<String> provider = Mono.fromCallable(() -> "value " + counter.incrementAndGet());
+
+        assertThat(cache.get("key", provider).block()).isEqualTo("value 1");
+
+        Thread.sleep(Duration.ofMillis(100));
+        // the current value is returned while the refresh is running
+        assertThat(cache.get("key", provider).block()).isEqualTo("value 1");
+
+        for (int i = 0; i < 20 && !"value 2".equals(cache.get("key", provider).block()); i++) {
+            Thread.sleep(Duration.ofMillis(10));
+        }
+        assertThat(cache.get("key", provider).block()).isEqualTo("value 2");
+        assertThat(meterRegistry.get("cache.refreshes").tag("cache", "refreshing").tag("result", "success").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void expiredEntriesAreReturnedWhileTheyAreReloaded() throws InterruptedException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ReactiveCacheProperties properties = new ReactiveCacheProperties(10, Duration.ofMillis(50));
+        properties.setMaxStaleness(Duration.ofSeconds(10));
+        ReactiveCache<String, String> cache = new ReactiveCache<>("stale", properties, meterRegistry);
+        AtomicInteger counter = new AtomicInteger();
+        Mono<String> provider = Mono.fromCallable(() -> "value " + counter.incrementAndGet());
+
+        assertThat(cache.get("key", provider).block()).isEqualTo("value 1");
+
+        Thread.sleep(Duration.ofMillis(100));
+        assertThat(cache.get("key", provider).block()).isEqualTo("value 1");
+        assertThat(meterRegistry.get("cache.stale.hits").tag("cache", "stale").counter().count()).isEqualTo(1);
+
+        for (int i = 0; i < 20 && !"value 2".equals(cache.get("key", provider).block()); i++) {
+            Thread.sleep(Duration.ofMillis(10));
+        }
+        assertThat(cache.get("key", provider).block()).isEqualTo("value 2");
+    }
+
+    @Test
+    void entriesOlderThanMaxStalenessAreLoadedAgain() throws InterruptedException {
+        ReactiveCacheProperties properties = new ReactiveCacheProperties(10, Duration.ofMillis(50));
+        properties.setMaxStaleness(Duration.ofMillis(50));
+        ReactiveCache<String, String> cache = new ReactiveCache<>("stale", properties, new SimpleMeterRegistry());
+        AtomicInteger counter = new AtomicInteger();
+        Mono<String> provider = Mono.fromCallable(() -> "value " + counter.incrementAndGet());
+
+        assertThat(cache.get("key", provider).block()).isEqualTo("value 1");
+
+        Thread.sleep(Duration.ofMillis(200));
+        assertThat(cache.get("key", provider).block()).isEqualTo("value 2");
+    }
+
+    @Test
+    void staleEntriesOfGetAllAreReloadedInOneBatch() throws InterruptedException {
+        ReactiveCacheProperties properties = new ReactiveCacheProperties(10, Duration.ofMillis(50));
+        properties.setMaxStaleness(Duration.ofSeconds(10));
+        ReactiveCache<String, String> cache = new ReactiveCache<>("stale", properties, new SimpleMeterRegistry());
+        AtomicInteger counter = new AtomicInteger();
+        Function<Set<? extends String>, Mono<Map<String, String>>> provider = keys -> {
+            int call = counter.incrementAndGet();
+            return Mono.just(keys.stream().collect(Collectors.toMap(key -> key, key -> key + " " + call)));
+        };
+
+        assertThat(cache.getAll(List.of("a", "b"), provider).block()).isEqualTo(Map.of("a", "a 1", "b", "b 1"));
+
+        Thread.sleep(Duration.ofMillis(100));
+        assertThat(cache.getAll(List.of("a", "b"), provider).block()).isEqualTo(Map.of("a", "a 1", "b", "b 1"));
+
+        for (int i = 0; i < 20 && counter.get() < 2; i++) {
+            Thread.sleep(Duration.ofMillis(10));
+        }
+        assertThat(cache.getAll(List.of("a", "b"), provider).block()).isEqualTo(Map.of("a", "a 2", "b", "b 2"));
+        assertThat(counter.get()).isEqualTo(2);
+    }
+
+    @Test
+    void concurrentRequestsShareOneLoad() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ReactiveCache<String, String> cache = new ReactiveCache<>("coalescing", new ReactiveCacheProperties(10, Duration.ofSeconds(10)), meterRegistry);
+        AtomicInteger counter = new AtomicInteger();
+        Sinks.One<String> source = Sinks.one();
+        Mono<String> provider = Mono.defer(() -> {
+            counter.incrementAndGet();
+            return source.asMono();
+        });
+
+        StepVerifier.create(Flux.merge(cache.get("key", provider), cache.get("key", provider), cache.get("key", provider)))
+                .then(() -> source.tryEmitValue("value"))
+                .expectNext("value", "value", "value")
+                .verifyComplete();
+
+        assertThat(counter.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.coalesced").tag("cache", "coalescing").counter().count()).isEqualTo(2);
+        assertThat(cache.get("key", provider).block()).isEqualTo("value");
+        assertThat(meterRegistry.get("cache.hit.ratio").tag("cache", "coalescing").gauge().value()).isEqualTo(0.75);
+    }
+
+    @Test
+    void cancelledRequestDoesNotCancelTheSharedLoad() {
+        ReactiveCache<String, String> cache = new ReactiveCache<>(10, Duration.ofSeconds(10));
+        Sinks.One<String> source = Sinks.one();
+
+        StepVerifier.create(cache.get("key", source.asMono()))
+                .thenCancel()
+                .verify();
+
+        StepVerifier.create(cache.get("key", Mono.just("other value")))
+                .then(() -> source.tryEmitValue("value"))
+                .expectNext("value")
+                .verifyComplete();
+    }
+
+    private static ReactiveCacheFactory sharedCacheFactory(SimpleMeterRegistry meterRegistry, SharedCacheStore sharedCacheStore) {
+        CacheProperties cacheProperties = new CacheProperties();
+        cacheProperties.setSharedTier(CacheProperties.SharedTier.IN_MEMORY);
+        return new ReactiveCacheFactory(cacheProperties, meterRegistry, Optional.of(sharedCacheStore));
+    }
+}
@@ -1,11 +1,14 @@
 package de.swm.lhm.geoportal.gateway.util.messagebody;
 
 import de.swm.lhm.geoportal.gateway.util.DataBufferUtils;
+import io.netty.buffer.PooledByteBufAllocator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.cloud.gateway.filter.factory.rewrite.GzipMessageBodyResolver;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
 import org.springframework.http.HttpHeaders;
 
 import java.nio.charset.StandardCharsets;
@@ -48,6 +51,24 @@ class MessageBodyEncodingServiceTest {
                 .isEqualTo(SampleMessages.MESSAGE1_CONTENT);
     }
 
+    @Test
+    void decodeStreaming() {
+        NettyDataBufferFactory dbf = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+        GzipMessageBodyResolver gzipResolver = new GzipMessageBodyResolver();
+        byte[] gzipped = gzipResolver.encode(dbf.wrap(SampleMessages.MESSAGE1_CONTENT.getBytes(StandardCharsets.UTF_8)));
+
+        DataBuffer decodedGzip = messageBodyEncodingService.decodeDataBufferStreaming(dbf.wrap(gzipped), "gzip");
+        DataBuffer decodedDeflate = messageBodyEncodingService.decodeDataBufferStreaming(dbf.wrap(SampleMessages.MESSAGE1_DEFLATED_BYTES), "deflate");
+
+        assertThat(decodedGzip).isInstanceOf(NettyDataBuffer.class);
+        assertThat(DataBufferUtils.readDataBufferAsString(decodedGzip))
+                .isEqualTo(SampleMessages.MESSAGE1_CONTENT);
+        assertThat(DataBufferUtils.readDataBufferAsString(decodedDeflate))
+                .isEqualTo(SampleMessages.MESSAGE1_CONTENT);
+        org.springframework.core.io.buffer.DataBufferUtils.release(decodedGzip);
+        org.springframework.core.io.buffer.DataBufferUtils.release(decodedDeflate);
+    }
+
     @Test
     void decodeWithUnsupportedEncoding() {
         DefaultDataBufferFactory dbf = new DefaultDataBufferFactory();